@@ -0,0 +1,37 @@
+package com.youthlin.example;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * benchmarks.jar 的入口 参数同 {@link Main}
+ * <p>
+ * 没有指定 -rf/-rff 时把结果以 JSON 格式写到 jmh-result.json, 便于不同版本之间对比
+ * <pre>
+ * java -jar example-jmh/target/benchmarks.jar BplusTreeBenchmark
+ * java -jar example-jmh/target/benchmarks.jar FlowBenchmark -rff flow-1.0.json
+ * </pre>
+ *
+ * @author youthlin.chen
+ * @date 2026-10-18 21:00
+ */
+public class BenchmarkMain {
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    public static void main(String[] args) throws Exception {
+        List<String> list = new ArrayList<>(Arrays.asList(args));
+        if (!list.contains("-rf")) {
+            list.add("-rf");
+            list.add("json");
+        }
+        if (!list.contains("-rff")) {
+            list.add("-rff");
+            list.add(DEFAULT_RESULT_FILE);
+        }
+        Main.main(list.toArray(new String[0]));
+    }
+
+}
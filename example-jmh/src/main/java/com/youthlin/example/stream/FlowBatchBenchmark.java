@@ -0,0 +1,100 @@
+package com.youthlin.example.stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 1000 万个元素 filter/map/sum: 整批处理与逐个处理(-Dflow.batch.disabled=true)对比, 以及 {@link java.util.stream.Stream}
+ * <p>
+ * unfused 开头的是不合并相邻操作(-Dflow.optimize.disabled=true)的结果
+ * <pre>
+ * mvn -pl example-jmh -am package
+ * java -jar example-jmh/target/benchmarks.jar FlowBatchBenchmark
+ * </pre>
+ *
+ * @author youthlin.chen
+ * @date 2026-10-19 11:20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FlowBatchBenchmark {
+    @Param({"10000000"})
+    private int size;
+    /**
+     * array: Flow.of(E...) 数组源; list: Flow.of(Collection) 集合源
+     */
+    @Param({"array", "list"})
+    private String source;
+
+    private Integer[] array;
+    private List<Integer> list;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(size);
+        array = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = random.nextInt(size);
+        }
+        list = Arrays.asList(array);
+    }
+
+    private Flow<Integer> flow() {
+        return "array".equals(source) ? Flow.of(array) : Flow.of(list);
+    }
+
+    private long filterMapSum(Flow<Integer> flow) {
+        return flow.filter(i -> (i & 1) == 0).map(i -> i * 3).filter(i -> i % 5 != 0).map(i -> i >> 1)
+                .mapToLong(Integer::longValue).sum();
+    }
+
+    @Benchmark
+    public long batch() {
+        return filterMapSum(flow());
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Dflow.batch.disabled=true"})
+    public long perElement() {
+        return filterMapSum(flow());
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Dflow.optimize.disabled=true"})
+    public long unfusedBatch() {
+        return filterMapSum(flow());
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Dflow.batch.disabled=true", "-Dflow.optimize.disabled=true"})
+    public long unfusedPerElement() {
+        return filterMapSum(flow());
+    }
+
+    @Benchmark
+    public long stream() {
+        return ("array".equals(source) ? Arrays.stream(array) : list.stream())
+                .filter(i -> (i & 1) == 0).map(i -> i * 3).filter(i -> i % 5 != 0).map(i -> i >> 1)
+                .mapToLong(Integer::longValue).sum();
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.youthlin.example.stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 同样的流水线 {@link Flow} 与 {@link java.util.stream.Stream} 对比
+ * <pre>
+ * mvn -pl example-jmh -am package
+ * java -jar example-jmh/target/benchmarks.jar FlowBenchmark
+ * </pre>
+ *
+ * @author youthlin.chen
+ * @date 2026-10-18 20:40
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlowBenchmark {
+    @Param({"1000", "100000"})
+    private int size;
+
+    private List<Integer> list;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(size);
+        list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(random.nextInt(size));
+        }
+    }
+
+    //region filter map collect
+
+    @Benchmark
+    public List<Integer> filterMapFlow() {
+        return Flow.of(list).filter(i -> (i & 1) == 0).map(i -> i * 3).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> filterMapStream() {
+        return list.stream().filter(i -> (i & 1) == 0).map(i -> i * 3).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> filterMapParallelFlow() {
+        return Flow.of(list).parallel().filter(i -> (i & 1) == 0).map(i -> i * 3).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> filterMapParallelStream() {
+        return list.parallelStream().filter(i -> (i & 1) == 0).map(i -> i * 3).collect(Collectors.toList());
+    }
+
+    //endregion filter map collect
+
+    //region distinct sorted collect
+
+    @Benchmark
+    public List<Integer> distinctSortedFlow() {
+        return Flow.of(list).distinct().sorted().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> distinctSortedStream() {
+        return list.stream().distinct().sorted().collect(Collectors.toList());
+    }
+
+    //endregion distinct sorted collect
+
+    //region sorted limit
+
+    @Benchmark
+    public List<Integer> sortedLimitFlow() {
+        return Flow.of(list).map(i -> i + 1).sorted().limit(10).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> sortedLimitStream() {
+        return list.stream().map(i -> i + 1).sorted().limit(10).collect(Collectors.toList());
+    }
+
+    //endregion sorted limit
+
+    //region filter limit 短路
+
+    @Benchmark
+    public List<Integer> filterLimitFlow() {
+        return Flow.of(list).filter(i -> i % 3 == 0).limit(100).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> filterLimitStream() {
+        return list.stream().filter(i -> i % 3 == 0).limit(100).collect(Collectors.toList());
+    }
+
+    //endregion filter limit 短路
+
+}
@@ -0,0 +1,98 @@
+package com.youthlin.example.tree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一批有序关键字: 逐个 get/put 与 {@link BplusTree#getAll} / {@link BplusTree#putAll(java.util.SortedMap)} 对比
+ *
+ * @author youthlin.chen
+ * @date 2026-10-18 18:20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BplusTreeBatchBenchmark {
+    @Param({"32"})
+    private int order;
+    @Param({"1000000"})
+    private int size;
+    /**
+     * 一批关键字的个数
+     */
+    @Param({"500"})
+    private int batch;
+    /**
+     * 关键字分布的范围 越小越集中
+     */
+    @Param({"2000", "1000000"})
+    private int spread;
+
+    private BplusTree<Integer, Integer> tree;
+    private TreeSet<Integer> keys;
+    private TreeMap<Integer, Integer> entries;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        TreeMap<Integer, Integer> snapshot = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            snapshot.put(i * 2, i);
+        }
+        tree = BplusTree.bulkLoad(order, null, snapshot.entrySet().iterator(), 0.75);
+        Random random = new Random(batch);
+        keys = new TreeSet<>();
+        int base = random.nextInt(size * 2 - spread);
+        while (keys.size() < batch) {
+            keys.add(base + random.nextInt(spread));
+        }
+        entries = new TreeMap<>();
+        for (Integer key : keys) {
+            entries.put(key, key);
+        }
+    }
+
+    @Benchmark
+    public void getOneByOne(Blackhole blackhole) {
+        for (Integer key : keys) {
+            blackhole.consume(tree.get(key));
+        }
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> getAll() {
+        return tree.getAll(keys);
+    }
+
+    @Benchmark
+    public void putOneByOne() {
+        for (Map.Entry<Integer, Integer> entry : entries.entrySet()) {
+            tree.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Benchmark
+    public void putAll() {
+        tree.putAll(entries);
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.youthlin.example.tree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BplusTree} 与 {@link TreeMap} 的基本操作对比
+ * <p>
+ * 树中是 [0, 2*size) 内的偶数, 为了让每次调用前后大小不变:
+ * put 覆盖已有关键字, insertRemove 插入一个奇数再删掉(会触发分裂与合并)
+ * <pre>
+ * mvn -pl example-jmh -am package
+ * java -jar example-jmh/target/benchmarks.jar BplusTreeBenchmark
+ * </pre>
+ *
+ * @author youthlin.chen
+ * @date 2026-10-18 20:30
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BplusTreeBenchmark {
+    @Param({"bplus", "treeMap"})
+    private String impl;
+    /**
+     * 只对 BplusTree 有意义
+     */
+    @Param({"5", "32", "128"})
+    private int order;
+    @Param({"1000", "100000"})
+    private int size;
+
+    private Integer[] keys;
+    private NavigableMap<Integer, Integer> map;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Integer> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(i * 2);
+        }
+        Collections.shuffle(list, new Random(size));
+        keys = list.toArray(new Integer[0]);
+        map = "bplus".equals(impl) ? new BplusTree<>(order) : new TreeMap<>();
+        for (Integer key : keys) {
+            map.put(key, key);
+        }
+    }
+
+    private Integer nextKey() {
+        Integer key = keys[index];
+        index = index + 1 == keys.length ? 0 : index + 1;
+        return key;
+    }
+
+    @Benchmark
+    public Integer get() {
+        return map.get(nextKey());
+    }
+
+    @Benchmark
+    public Integer put() {
+        Integer key = nextKey();
+        return map.put(key, key);
+    }
+
+    @Benchmark
+    public Integer insertRemove() {
+        Integer key = nextKey() + 1;
+        map.put(key, key);
+        return map.remove(key);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void iterate(Blackhole blackhole) {
+        for (Map.Entry<Integer, Integer> entry : map.entrySet()) {
+            blackhole.consume(entry.getValue());
+        }
+    }
+
+}
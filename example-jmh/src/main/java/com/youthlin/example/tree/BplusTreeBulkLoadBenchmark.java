@@ -0,0 +1,62 @@
+package com.youthlin.example.tree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 从有序快照重建 {@link BplusTree}: 逐个 put 与 {@link BplusTree#bulkLoad(java.util.Iterator, double)} 对比
+ *
+ * @author youthlin.chen
+ * @date 2026-10-18 12:40
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BplusTreeBulkLoadBenchmark {
+    @Param({"5", "32", "128"})
+    private int order;
+    @Param({"1000000"})
+    private int size;
+
+    private TreeMap<Integer, Integer> snapshot;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        snapshot = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            snapshot.put(i, i);
+        }
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> putOneByOne() {
+        BplusTree<Integer, Integer> tree = new BplusTree<>(order);
+        for (Map.Entry<Integer, Integer> entry : snapshot.entrySet()) {
+            tree.put(entry.getKey(), entry.getValue());
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> bulkLoad() {
+        return BplusTree.bulkLoad(order, null, snapshot.entrySet().iterator(), 1);
+    }
+
+}
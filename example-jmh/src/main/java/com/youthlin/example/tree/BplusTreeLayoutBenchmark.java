@@ -0,0 +1,107 @@
+package com.youthlin.example.tree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数组结点 + 二分查找的 {@link BplusTree} 与旧的链表结点 {@link LinkedListBplusTree} 对比
+ * <pre>
+ * mvn -pl example-jmh -am package
+ * java -jar example-jmh/target/benchmarks.jar BplusTreeLayoutBenchmark
+ * </pre>
+ *
+ * @author youthlin.chen
+ * @date 2026-10-18 10:12
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BplusTreeLayoutBenchmark {
+    @Param({"5", "32", "128", "512"})
+    private int order;
+    @Param({"100000"})
+    private int size;
+
+    private Integer[] keys;
+    private Map<Integer, Integer> arrayTree;
+    private Map<Integer, Integer> linkedListTree;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Integer> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+        }
+        Collections.shuffle(list, new Random(size));
+        keys = list.toArray(new Integer[0]);
+        arrayTree = fill(new BplusTree<>(order));
+        linkedListTree = fill(new LinkedListBplusTree<>(order));
+    }
+
+    private Map<Integer, Integer> fill(Map<Integer, Integer> map) {
+        for (Integer key : keys) {
+            map.put(key, key);
+        }
+        return map;
+    }
+
+    private Integer nextKey() {
+        if (index == keys.length) {
+            index = 0;
+        }
+        return keys[index++];
+    }
+
+    @Benchmark
+    public Integer getArray() {
+        return arrayTree.get(nextKey());
+    }
+
+    @Benchmark
+    public Integer getLinkedList() {
+        return linkedListTree.get(nextKey());
+    }
+
+    /**
+     * 整棵树的构建时间 包含所有分裂
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public Map<Integer, Integer> putArray() {
+        return fill(new BplusTree<>(order));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public Map<Integer, Integer> putLinkedList() {
+        return fill(new LinkedListBplusTree<>(order));
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.youthlin.example.tree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多线程读写: 加全局锁的 {@link BplusTree} / {@link ConcurrentBplusTree} / {@link ConcurrentSkipListMap} 对比
+ * <pre>
+ * java -jar example-jmh/target/benchmarks.jar ConcurrentBplusTreeBenchmark -t 8
+ * </pre>
+ *
+ * @author youthlin.chen
+ * @date 2026-10-18 15:20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class ConcurrentBplusTreeBenchmark {
+    @Param({"synchronized", "olc", "skipList"})
+    private String impl;
+    @Param({"100000"})
+    private int size;
+
+    private Map<Integer, Integer> map;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        switch (impl) {
+            case "synchronized":
+                map = Collections.synchronizedMap(new BplusTree<>(32));
+                break;
+            case "olc":
+                map = new ConcurrentBplusTree<>(32);
+                break;
+            default:
+                map = new ConcurrentSkipListMap<>();
+        }
+        for (int i = 0; i < size; i += 2) {
+            map.put(i, i);
+        }
+    }
+
+    @Benchmark
+    public Integer readOnly() {
+        return map.get(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    /**
+     * 90% 读 10% 写
+     */
+    @Benchmark
+    public Integer readMostly() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int key = random.nextInt(size);
+        if (random.nextInt(10) == 0) {
+            return map.put(key, key);
+        }
+        return map.get(key);
+    }
+
+    /**
+     * 一半读 一半写(插入/删除各一半)
+     */
+    @Benchmark
+    public Integer mixed() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int key = random.nextInt(size);
+        switch (random.nextInt(4)) {
+            case 0:
+                return map.put(key, key);
+            case 1:
+                return map.remove(key);
+            default:
+                return map.get(key);
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.youthlin.example.tree;
+
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 用 JOL 统计 String 关键字的 {@link BplusTree} 与前缀压缩的 {@link StringBplusTree} 占用的堆内存
+ * <p>
+ * 关键字是类似文件系统的路径 公共前缀很长. 所有值都是同一个对象 只比较关键字和结点的开销.
+ * 关键字 String 对象算在 BplusTree/TreeMap 里, StringBplusTree 只保存 UTF-8 字节
+ * <pre>
+ * mvn -pl example-jmh -am package
+ * java -Djdk.attach.allowAttachSelf -cp example-jmh/target/benchmarks.jar com.youthlin.example.tree.StringBplusTreeFootprint
+ * </pre>
+ *
+ * @author youthlin.chen
+ * @date 2026-10-18 20:05
+ */
+public class StringBplusTreeFootprint {
+    private static final String[] DIRS = {"usr", "share", "lib", "local", "include", "java", "python3", "site-packages",
+            "doc", "man", "src", "main", "resources", "com", "youthlin", "example"};
+
+    public static void main(String[] args) {
+        int[] sizes = {10_000, 100_000};
+        int[] orders = {32, 128};
+        System.out.printf("%8s %6s %14s %14s %14s %8s%n", "size", "order", "TreeMap", "BplusTree", "StringBplus", "ratio");
+        for (int size : sizes) {
+            List<String> paths = paths(size);
+            TreeMap<String, Object> treeMap = new TreeMap<>();
+            paths.forEach(path -> treeMap.put(path, Boolean.TRUE));
+            long treeMapBytes = GraphLayout.parseInstance(treeMap).totalSize();
+            for (int order : orders) {
+                BplusTree<String, Object> tree = new BplusTree<>(order);
+                StringBplusTree<Object> stringTree = new StringBplusTree<>(order);
+                for (String path : paths) {
+                    tree.put(path, Boolean.TRUE);
+                    stringTree.put(path, Boolean.TRUE);
+                }
+                long treeBytes = GraphLayout.parseInstance(tree).totalSize();
+                long stringTreeBytes = GraphLayout.parseInstance(stringTree).totalSize();
+                System.out.printf("%8d %6d %14d %14d %14d %8.2f%n", size, order, treeMapBytes, treeBytes,
+                        stringTreeBytes, (double) stringTreeBytes / treeBytes);
+            }
+        }
+    }
+
+    /**
+     * 随机生成 n 个不同的路径 如 /usr/share/doc/python3/file-42.txt
+     */
+    private static List<String> paths(int n) {
+        Random random = new Random(n);
+        List<String> paths = new ArrayList<>(n);
+        Set<String> seen = new HashSet<>();
+        while (paths.size() < n) {
+            StringBuilder sb = new StringBuilder();
+            int depth = 3 + random.nextInt(4);
+            for (int i = 0; i < depth; i++) {
+                sb.append('/').append(DIRS[random.nextInt(DIRS.length)]);
+            }
+            String path = sb.append("/file-").append(random.nextInt(1000)).append(".txt").toString();
+            if (seen.add(path)) {
+                paths.add(path);
+            }
+        }
+        return paths;
+    }
+
+}
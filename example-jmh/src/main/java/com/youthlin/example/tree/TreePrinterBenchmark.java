@@ -0,0 +1,122 @@
+package com.youthlin.example.tree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TreePrinter#toString} 输出较深的树
+ * <ul>
+ * <li>random: 每个结点沿随机路径挂到某个空位上</li>
+ * <li>chain: 左右交替的链 深度为 n 输出的每一行都很长</li>
+ * </ul>
+ * 多叉树按同样形状构造(random 每个结点随机挂到已有结点下)
+ * <pre>
+ * mvn -pl example-jmh -am package
+ * java -jar example-jmh/target/benchmarks.jar TreePrinterBenchmark
+ * </pre>
+ *
+ * @author youthlin.chen
+ * @date 2026-10-18 20:50
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreePrinterBenchmark {
+    private static class Node {
+        private final int data;
+        private Node left;
+        private Node right;
+        private final List<Node> children = new ArrayList<>();
+
+        private Node(int data) {
+            this.data = data;
+        }
+
+        private String print() {
+            return String.valueOf(data);
+        }
+    }
+
+    @Param({"random", "chain"})
+    private String shape;
+    @Param({"100", "1000"})
+    private int nodes;
+
+    private Node binRoot;
+    private Node root;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(nodes);
+        binRoot = new Node(0);
+        root = new Node(0);
+        List<Node> all = new ArrayList<>();
+        all.add(root);
+        Node last = binRoot;
+        for (int i = 1; i < nodes; i++) {
+            Node node = new Node(i);
+            Node child = new Node(i);
+            if ("chain".equals(shape)) {
+                if ((i & 1) == 0) {
+                    last.left = node;
+                } else {
+                    last.right = node;
+                }
+                last = node;
+                all.get(i - 1).children.add(child);
+            } else {
+                insert(binRoot, node, random);
+                all.get(random.nextInt(all.size())).children.add(child);
+            }
+            all.add(child);
+        }
+    }
+
+    private static void insert(Node root, Node node, Random random) {
+        Node current = root;
+        while (true) {
+            if (random.nextBoolean()) {
+                if (current.left == null) {
+                    current.left = node;
+                    return;
+                }
+                current = current.left;
+            } else {
+                if (current.right == null) {
+                    current.right = node;
+                    return;
+                }
+                current = current.right;
+            }
+        }
+    }
+
+    @Benchmark
+    public String binaryTree() {
+        return TreePrinter.toString(binRoot, n -> n.left, n -> n.right, Node::print, TreePrinter.Option.DEFAULT);
+    }
+
+    @Benchmark
+    public String multiTree() {
+        return TreePrinter.toString(root, n -> n.children, Node::print, TreePrinter.Option.DEFAULT);
+    }
+
+}
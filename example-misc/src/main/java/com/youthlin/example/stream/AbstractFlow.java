@@ -3,9 +3,15 @@ package com.youthlin.example.stream;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -17,6 +23,9 @@ import java.util.function.Function;
 import java.util.function.IntFunction;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collector;
 
 /**
@@ -28,32 +37,14 @@ import java.util.stream.Collector;
  * @author youthlin.chen
  * @date 2019-07-18 20:49
  */
-abstract class AbstractFlow<S, T> implements Flow<T> {
-    static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
-    /**
-     * 最初迭代器
-     */
-    private final Visitor<?> source;
-    /**
-     * 前一个流
-     */
-    private final AbstractFlow<?, S> prev;
-    /**
-     * 该流是否被消费过
-     */
-    private boolean linkedOrConsumed;
+abstract class AbstractFlow<S, T> extends AbstractPipeline<S, T> implements Flow<T> {
 
     AbstractFlow(Visitor<?> in) {
-        source = Objects.requireNonNull(in);
-        prev = null;
+        super(in);
     }
 
-    AbstractFlow(AbstractFlow<?, S> prev) {
-        Objects.requireNonNull(prev);
-        Preconditions.checkState(!prev.linkedOrConsumed, "already linked");
-        prev.linkedOrConsumed = true;
-        this.source = prev.source;
-        this.prev = prev;
+    AbstractFlow(AbstractPipeline<?, S> prev) {
+        super(prev);
     }
 
     //region 无状态操作
@@ -78,6 +69,27 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
                         }
                     }
 
+                    @Override
+                    boolean acceptsBatch() {
+                        return true;
+                    }
+
+                    /*留下的元素原地移到前面*/
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    void acceptBatch(Object[] buf, int from, int to) {
+                        int n = from;
+                        for (int i = from; i < to; i++) {
+                            Object element = buf[i];
+                            if (predicate.test((T) element)) {
+                                buf[n++] = element;
+                            }
+                        }
+                        if (n > from) {
+                            batchTo(downstream, buf, from, n);
+                        }
+                    }
+
                     @Override
                     public String toString() {
                         return "Stage.filter";
@@ -85,6 +97,11 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
                 };
             }
 
+            @Override
+            Fusion.Step fusionStep() {
+                return Fusion.filter(predicate);
+            }
+
             @Override
             public String toString() {
                 return "Flow.filter";
@@ -108,6 +125,20 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
                         downstream.accept(mapper.apply(element));
                     }
 
+                    @Override
+                    boolean acceptsBatch() {
+                        return true;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    void acceptBatch(Object[] buf, int from, int to) {
+                        for (int i = from; i < to; i++) {
+                            buf[i] = mapper.apply((T) buf[i]);
+                        }
+                        batchTo(downstream, buf, from, to);
+                    }
+
                     @Override
                     public String toString() {
                         return "Stage.map";
@@ -115,6 +146,17 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
                 };
             }
 
+            @Override
+            Fusion.Step fusionStep() {
+                return Fusion.map(mapper);
+            }
+
+            /*map 不改变个数 sorted().map().limit() 也可以只保留前几个*/
+            @Override
+            void limitFollowed(long maxSize) {
+                AbstractFlow.this.limitFollowed(maxSize);
+            }
+
             @Override
             public String toString() {
                 return "Flow.map";
@@ -122,6 +164,84 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
         };
     }
 
+    @Override
+    public IntFlow mapToInt(ToIntFunction<? super T> mapper) {
+        Objects.requireNonNull(mapper);
+        return new IntPipeline<T>(this) {
+            @Override
+            Stage<T> wrapDownstream(Stage<Integer> nextStage) {
+                return new Stage.AbstractChainedStage<T, Integer>(nextStage) {
+                    @Override
+                    public void accept(T element) {
+                        downstream.accept(mapper.applyAsInt(element));
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "Stage.mapToInt";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "Flow.mapToInt";
+            }
+        };
+    }
+
+    @Override
+    public LongFlow mapToLong(ToLongFunction<? super T> mapper) {
+        Objects.requireNonNull(mapper);
+        return new LongPipeline<T>(this) {
+            @Override
+            Stage<T> wrapDownstream(Stage<Long> nextStage) {
+                return new Stage.AbstractChainedStage<T, Long>(nextStage) {
+                    @Override
+                    public void accept(T element) {
+                        downstream.accept(mapper.applyAsLong(element));
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "Stage.mapToLong";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "Flow.mapToLong";
+            }
+        };
+    }
+
+    @Override
+    public DoubleFlow mapToDouble(ToDoubleFunction<? super T> mapper) {
+        Objects.requireNonNull(mapper);
+        return new DoublePipeline<T>(this) {
+            @Override
+            Stage<T> wrapDownstream(Stage<Double> nextStage) {
+                return new Stage.AbstractChainedStage<T, Double>(nextStage) {
+                    @Override
+                    public void accept(T element) {
+                        downstream.accept(mapper.applyAsDouble(element));
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "Stage.mapToDouble";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "Flow.mapToDouble";
+            }
+        };
+    }
+
     @Override
     public <R> Flow<R> flatMap(Function<? super T, ? extends Flow<? extends R>> mapper) {
         Objects.requireNonNull(mapper);
@@ -129,15 +249,54 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
             @Override
             Stage<T> wrapDownstream(Stage<R> nextStage) {
                 return new Stage.AbstractChainedStage<T, R>(nextStage) {
+                    private boolean shortCircuit;
+                    /**
+                     * 下游暂时不再接收时没推完的子流
+                     */
+                    private Visitor<? extends R> pending;
+
                     @Override
                     public void begin(long size) {
+                        shortCircuit = downstream.isShortCircuit();
                         downstream.begin(Visitor.UNKNOWN_SIZE);
                     }
 
                     @Override
                     public void accept(T element) {
                         Flow<? extends R> result = mapper.apply(element);
-                        result.forEach(downstream);
+                        if (!shortCircuit) {
+                            result.forEach(downstream);
+                            return;
+                        }
+                        /*下游可能提前结束 逐个拉取子流的元素 子流是无限流也能停下*/
+                        pending = result.visitor();
+                        push();
+                    }
+
+                    @Override
+                    public boolean resume() {
+                        return downstream.resume() || pending != null && push();
+                    }
+
+                    /**
+                     * @return 是否推出了元素
+                     */
+                    private boolean push() {
+                        boolean pushed = false;
+                        while (!downstream.canFinish()) {
+                            if (!pending.tryAdvance(downstream)) {
+                                pending = null;
+                                break;
+                            }
+                            pushed = true;
+                        }
+                        return pushed;
+                    }
+
+                    @Override
+                    public void end() {
+                        pending = null;
+                        downstream.end();
                     }
 
                     @Override
@@ -158,6 +317,7 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
 
     @Override
     public Flow<T> peek(Consumer<? super T> action) {
+        Objects.requireNonNull(action);
         return new AbstractFlow<T, T>(this) {
             @Override
             Stage<T> wrapDownstream(Stage<T> nextStage) {
@@ -175,6 +335,11 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
                 };
             }
 
+            @Override
+            Fusion.Step fusionStep() {
+                return Fusion.peek(action);
+            }
+
             @Override
             public String toString() {
                 return "Flow.peek";
@@ -184,6 +349,55 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
 
     //region 有状态操作
 
+    /**
+     * 后面紧跟 limit 时调用 sorted 据此只保留排在最前的 maxSize 个
+     */
+    void limitFollowed(long maxSize) {
+    }
+
+    /**
+     * 排在最前的 k 个元素 代替 sorted().limit(k) 中的 sorted
+     */
+    Stage<T> topK(Stage<T> nextStage, int k, Comparator<? super T> comparator) {
+        return new Stage.AbstractChainedStage<T, T>(nextStage) {
+            private TopK<T> top;
+
+            @Override
+            public void begin(long size) {
+                top = new TopK<>(k, comparator);
+            }
+
+            @Override
+            public void accept(T element) {
+                top.add(element);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void end() {
+                Object[] array = top.toArray();
+                top = null;
+                downstream.begin(array.length);
+                for (int i = 0; i < array.length && !canFinish(); i++) {
+                    downstream.accept((T) array[i]);
+                }
+                downstream.end();
+            }
+
+            @Override
+            public String toString() {
+                return "Stage.sorted(top " + k + ")";
+            }
+        };
+    }
+
+    /**
+     * 并行求出排在最前的 k 个元素
+     */
+    Object[] topKParallel(int k, Comparator<? super T> comparator) {
+        return collectParallel(() -> new TopK<T>(k, comparator), TopK::add, TopK::merge).toArray();
+    }
+
     @Override
     public Flow<T> distinct() {
         return new AbstractFlow<T, T>(this) {
@@ -219,6 +433,16 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
                 };
             }
 
+            @Override
+            boolean isStateful() {
+                return true;
+            }
+
+            @Override
+            Object[] opEvaluateParallel() {
+                return AbstractFlow.this.distinctParallel();
+            }
+
             @Override
             public String toString() {
                 return "Flow.distinct";
@@ -234,9 +458,33 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
 
     @Override
     public Flow<T> sorted(Comparator<T> comparator) {
+        if (comparator == null) {
+            // 和 List.sort(null) 一样按自然顺序 TopK 等地方就不用再判空
+            return sorted();
+        }
         return new AbstractFlow<T, T>(this) {
+            /**
+             * 后面紧跟 limit 时只保留这么多个 -1 表示全部
+             */
+            private int topK = -1;
+
+            @Override
+            void limitFollowed(long maxSize) {
+                if (maxSize < MAX_ARRAY_SIZE) {
+                    topK = (int) maxSize;
+                }
+            }
+
+            @Override
+            public Optional<T> findFirst() {
+                return limit(1).findFirst();
+            }
+
             @Override
             Stage<T> wrapDownstream(Stage<T> nextStage) {
+                if (topK >= 0) {
+                    return topK(nextStage, topK, comparator);
+                }
                 return new Stage.AbstractChainedStage<T, T>(nextStage) {
                     private List<T> list;
 
@@ -277,6 +525,19 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
                 };
             }
 
+            @Override
+            boolean isStateful() {
+                return true;
+            }
+
+            @Override
+            Object[] opEvaluateParallel() {
+                if (topK >= 0) {
+                    return AbstractFlow.this.topKParallel(topK, comparator);
+                }
+                return AbstractFlow.this.sortedParallel(comparator);
+            }
+
             @Override
             public String toString() {
                 return "Flow.sorted";
@@ -284,10 +545,160 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
         };
     }
 
+    @Override
+    public Flow<T> distinct(SpillOptions<T> options) {
+        Objects.requireNonNull(options);
+        return new AbstractFlow<T, T>(this) {
+            @Override
+            Stage<T> wrapDownstream(Stage<T> nextStage) {
+                return new Stage.AbstractChainedStage<T, T>(nextStage) {
+                    private Spill.Distinct<T> distinct;
+
+                    @Override
+                    public void begin(long size) {
+                        distinct = new Spill.Distinct<>(options);
+                        downstream.begin(Visitor.UNKNOWN_SIZE);
+                    }
+
+                    @Override
+                    public void accept(T element) {
+                        if (distinct.add(element)) {
+                            downstream.accept(element);
+                        }
+                    }
+
+                    @Override
+                    public void end() {
+                        distinct.drainTo(downstream);
+                        distinct = null;
+                        downstream.end();
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "Stage.distinct(spill)";
+                    }
+                };
+            }
+
+            @Override
+            boolean isStateful() {
+                return true;
+            }
+
+            /*有内存限制 并行时上游分块求值后串行去重*/
+            @Override
+            boolean isSequentialOnly() {
+                return true;
+            }
+
+            @Override
+            int chunkSize() {
+                return spillChunkSize(options);
+            }
+
+            @Override
+            public String toString() {
+                return "Flow.distinct(spill)";
+            }
+        };
+    }
+
+    @Override
+    public Flow<T> sorted(Comparator<T> comparator, SpillOptions<T> options) {
+        Objects.requireNonNull(comparator);
+        Objects.requireNonNull(options);
+        return new AbstractFlow<T, T>(this) {
+            private int topK = -1;
+
+            /*只保留的个数在内存限制以内 就不用写文件*/
+            @Override
+            void limitFollowed(long maxSize) {
+                if (maxSize <= options.getMaxInMemory()) {
+                    topK = (int) maxSize;
+                }
+            }
+
+            @Override
+            public Optional<T> findFirst() {
+                return limit(1).findFirst();
+            }
+
+            @Override
+            Stage<T> wrapDownstream(Stage<T> nextStage) {
+                if (topK >= 0) {
+                    return topK(nextStage, topK, comparator);
+                }
+                return new Stage.AbstractChainedStage<T, T>(nextStage) {
+                    private Spill.Sorter<T> sorter;
+                    private long count;
+
+                    @Override
+                    public void begin(long size) {
+                        sorter = new Spill.Sorter<>(comparator, options);
+                        count = 0;
+                    }
+
+                    @Override
+                    public void accept(T element) {
+                        sorter.add(element);
+                        count++;
+                    }
+
+                    @Override
+                    public void end() {
+                        downstream.begin(count);
+                        sorter.drainTo(downstream);
+                        sorter = null;
+                        downstream.end();
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "Stage.sorted(spill)";
+                    }
+                };
+            }
+
+            @Override
+            boolean isStateful() {
+                return true;
+            }
+
+            /*只保留前几个时在内存中并行求; 否则有内存限制 上游分块求值后串行排序*/
+            @Override
+            boolean isSequentialOnly() {
+                return topK < 0;
+            }
+
+            @Override
+            int chunkSize() {
+                return spillChunkSize(options);
+            }
+
+            @Override
+            Object[] opEvaluateParallel() {
+                return AbstractFlow.this.topKParallel(topK, comparator);
+            }
+
+            @Override
+            public String toString() {
+                return "Flow.sorted(spill)";
+            }
+        };
+    }
+
+    /**
+     * 并行时上游每块的个数也不超过内存限制
+     */
+    private static int spillChunkSize(SpillOptions<?> options) {
+        return Math.max(Math.min(options.getMaxInMemory(), MAX_CHUNK_SIZE), 1);
+    }
+
     @Override
     public Flow<T> limit(long maxSize) {
         Preconditions.checkArgument(maxSize >= 0);
-        return new AbstractFlow<T, T>(this) {
+        AbstractFlow<T, T> flow = new AbstractFlow<T, T>(this) {
             @Override
             Stage<T> wrapDownstream(Stage<T> nextStage) {
                 return new Stage.AbstractChainedStage<T, T>(nextStage) {
@@ -311,7 +722,12 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
 
                     @Override
                     public boolean canFinish() {
-                        return count == maxSize;
+                        return count == maxSize || downstream.canFinish();
+                    }
+
+                    @Override
+                    public boolean isShortCircuit() {
+                        return true;
                     }
 
                     @Override
@@ -321,11 +737,34 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
                 };
             }
 
+            @Override
+            boolean isStateful() {
+                return !isNoOp();
+            }
+
+            @Override
+            boolean isNoOp() {
+                return maxSize == Long.MAX_VALUE;
+            }
+
+            @Override
+            boolean canPushThroughMap() {
+                return true;
+            }
+
+            @Override
+            Object[] opEvaluateParallel() {
+                return AbstractFlow.this.limitParallel(maxSize);
+            }
+
             @Override
             public String toString() {
                 return "Flow.limit";
             }
         };
+        /*前面是 sorted 时改为只保留前 maxSize 个*/
+        limitFollowed(maxSize);
+        return flow;
     }
 
     @Override
@@ -361,6 +800,21 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
                 };
             }
 
+            @Override
+            boolean isStateful() {
+                return !isNoOp();
+            }
+
+            @Override
+            boolean isNoOp() {
+                return n == 0;
+            }
+
+            @Override
+            Object[] opEvaluateParallel() {
+                return AbstractFlow.this.skipParallel(n);
+            }
+
             @Override
             public String toString() {
                 return "Flow.skip";
@@ -370,84 +824,276 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
 
     //endregion 有状态操作
 
-    //region 终止操作帮助方法
+    //region 并行
 
-    /**
-     * 终止方法
-     *
-     * @param <R>           返回类型
-     * @param terminalStage 终止操作
-     */
-    private <R> R terminal(Stage.TerminalStage<T, R> terminalStage) {
-        return terminalStage.startAndGet(source);
+    @Override
+    public Flow<T> parallel() {
+        setParallel(true);
+        return this;
+    }
+
+    @Override
+    public Flow<T> sequential() {
+        setParallel(false);
+        return this;
     }
 
+    //endregion 并行
+
+    //region 窗口和聚合
+
     /**
-     * 终止操作的基类
-     *
-     * @param <T> 流中元素类型
-     * @param <R> 该终止操作的返回类型 通过 {@link Supplier#get()} 返回结果
-     * @see Supplier#get()
+     * 依赖元素先后顺序的操作 并行执行时上游分块并行求值 本阶段和之后的操作串行执行 所以无限流也能用
      */
-    static abstract class AbstractTerminal<T, R> implements Stage.TerminalStage<T, R>, Supplier<R> {
-        private final AbstractFlow<?, T> lastFlow;
+    private <R> Flow<R> ordered(String name, Function<Stage<R>, Stage<T>> stage) {
+        return new AbstractFlow<T, R>(this) {
+            @Override
+            Stage<T> wrapDownstream(Stage<R> nextStage) {
+                return stage.apply(nextStage);
+            }
 
-        AbstractTerminal(AbstractFlow<?, T> lastFlow) {
-            Preconditions.checkArgument(!lastFlow.linkedOrConsumed, "already consumed");
-            lastFlow.linkedOrConsumed = true;
-            this.lastFlow = lastFlow;
-        }
+            @Override
+            boolean isStateful() {
+                return true;
+            }
 
-        @Override
-        public R startAndGet(Visitor<?> in) {
-            lastFlow.start(in, this);
-            return get();
-        }
+            @Override
+            boolean isSequentialOnly() {
+                return true;
+            }
 
-        @Override
-        public abstract R get();
+            @Override
+            public String toString() {
+                return "Flow." + name;
+            }
+        };
     }
 
-    /**
-     * 开始执行整串流各阶段的操作
-     *
-     * @param <S_IN> 源迭代器的元素类型
-     */
-    private <S_IN> void start(Visitor<S_IN> in, Stage.TerminalStage<T, ?> terminalStage) {
-        Stage<S_IN> stage = wrapStage(terminalStage);
-        stage.begin(in.getSizeIfKnown());
-        while (in.hasNext() && !stage.canFinish()) {
-            stage.accept(in.next());
-        }
-        stage.end();
+    @Override
+    public Flow<List<T>> window(int size) {
+        Preconditions.checkArgument(size > 0, "size should greater than 0");
+        return ordered("window", nextStage -> new Stage.AbstractChainedStage<T, List<T>>(nextStage) {
+            private List<T> current;
+
+            @Override
+            public void begin(long n) {
+                current = new ArrayList<>(Math.min(size, FlowTask.BATCH));
+                downstream.begin(n < 0 ? Visitor.UNKNOWN_SIZE : (n + size - 1) / size);
+            }
+
+            @Override
+            public void accept(T element) {
+                current.add(element);
+                if (current.size() == size) {
+                    downstream.accept(current);
+                    current = new ArrayList<>(Math.min(size, FlowTask.BATCH));
+                }
+            }
+
+            @Override
+            public void end() {
+                if (!current.isEmpty() && !downstream.canFinish()) {
+                    downstream.accept(current);
+                }
+                current = null;
+                downstream.end();
+            }
+
+            @Override
+            public String toString() {
+                return "Stage.window";
+            }
+        });
     }
 
-    /**
-     * 将每个阶段的操作串起来 真正开始处理流时调用
-     *
-     * @param stage  最后一个操作
-     * @param <S_IN> 源迭代器的元素类型
-     * @return 将整个串的每个操作串起来作为一个操作
-     */
-    @SuppressWarnings({"unchecked", "rawtypes"})
-    private <S_IN> Stage<S_IN> wrapStage(Stage<T> stage) {
-        for (AbstractFlow flow = this; flow.prev != null; flow = flow.prev) {
-            /* flow.prev != null 即头节点不参与*/
-            stage = flow.wrapDownstream(stage);
-        }
-        return (Stage<S_IN>) stage;
+    @Override
+    public Flow<List<T>> sliding(int size, int step) {
+        Preconditions.checkArgument(size > 0, "size should greater than 0");
+        Preconditions.checkArgument(step > 0, "step should greater than 0");
+        return ordered("sliding", nextStage -> new Stage.AbstractChainedStage<T, List<T>>(nextStage) {
+            /*元素可能为 null 不用 ArrayDeque*/
+            private LinkedList<T> current;
+            /**
+             * 步长大于窗口时 两个窗口之间要跳过的元素个数
+             */
+            private long skip;
+
+            @Override
+            public void begin(long n) {
+                current = new LinkedList<>();
+                skip = 0;
+                downstream.begin(Visitor.UNKNOWN_SIZE);
+            }
+
+            @Override
+            public void accept(T element) {
+                if (skip > 0) {
+                    skip--;
+                    return;
+                }
+                current.add(element);
+                if (current.size() == size) {
+                    downstream.accept(new ArrayList<>(current));
+                    if (step >= size) {
+                        current.clear();
+                        skip = step - size;
+                    } else {
+                        for (int i = 0; i < step; i++) {
+                            current.poll();
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public void end() {
+                current = null;
+                downstream.end();
+            }
+
+            @Override
+            public String toString() {
+                return "Stage.sliding";
+            }
+        });
     }
 
-    /**
-     * 各个阶段自定义如何将本阶段串入整个流串
-     * 在终止操作时调用 {@link #wrapStage(Stage)} 该方法调用本方法
-     *
-     * @param nextStage 下游操作 处理的元素是本阶段流的产出元素
-     * @return 将下游操作包裹的当前阶段操作 该操作处理的元素类型是当前流的流入类型
-     */
-    abstract Stage<S> wrapDownstream(Stage<T> nextStage);
+    @Override
+    public Flow<List<T>> windowBy(ToLongFunction<? super T> timestamp, Duration duration) {
+        Objects.requireNonNull(timestamp);
+        long millis = duration.toMillis();
+        Preconditions.checkArgument(millis > 0, "duration should greater than 0ms");
+        return ordered("windowBy", nextStage -> new Stage.AbstractChainedStage<T, List<T>>(nextStage) {
+            private List<T> current;
+            private long window;
+
+            @Override
+            public void begin(long n) {
+                current = null;
+                downstream.begin(Visitor.UNKNOWN_SIZE);
+            }
+
+            @Override
+            public void accept(T element) {
+                long w = Math.floorDiv(timestamp.applyAsLong(element), millis);
+                if (current != null && w > window) {
+                    downstream.accept(current);
+                    current = null;
+                }
+                if (current == null) {
+                    current = new ArrayList<>();
+                    window = w;
+                }
+                current.add(element);
+            }
+
+            @Override
+            public void end() {
+                if (current != null && !downstream.canFinish()) {
+                    downstream.accept(current);
+                }
+                current = null;
+                downstream.end();
+            }
+
+            @Override
+            public String toString() {
+                return "Stage.windowBy";
+            }
+        });
+    }
+
+    @Override
+    public <K> KeyedFlow<K, T> groupByKey(Function<? super T, ? extends K> keyMapper) {
+        Objects.requireNonNull(keyMapper);
+        return new KeyedFlow<K, T>() {
+            @Override
+            public <A> Flow<Map.Entry<K, A>> aggregate(Supplier<? extends A> initial,
+                    BiFunction<? super A, ? super T, ? extends A> accumulator) {
+                Objects.requireNonNull(initial);
+                Objects.requireNonNull(accumulator);
+                return ordered("aggregate", nextStage -> new Stage.AbstractChainedStage<T, Map.Entry<K, A>>(nextStage) {
+                    private Map<K, A> map;
+
+                    @Override
+                    public void begin(long size) {
+                        map = new HashMap<>();
+                        downstream.begin(size);
+                    }
+
+                    @Override
+                    public void accept(T element) {
+                        K key = keyMapper.apply(element);
+                        A value = accumulator.apply(map.containsKey(key) ? map.get(key) : initial.get(), element);
+                        map.put(key, value);
+                        downstream.accept(new AbstractMap.SimpleImmutableEntry<>(key, value));
+                    }
+
+                    @Override
+                    public void end() {
+                        map = null;
+                        downstream.end();
+                    }
 
-    //endregion 终止操作帮助方法
+                    @Override
+                    public String toString() {
+                        return "Stage.aggregate";
+                    }
+                });
+            }
+
+            @Override
+            public <A, R> Flow<Map.Entry<K, R>> aggregate(Collector<? super T, A, R> collector) {
+                Objects.requireNonNull(collector);
+                // 直接返回容器时 发出的结果会被之后的元素修改
+                Preconditions.checkArgument(
+                        !collector.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH),
+                        "collector with IDENTITY_FINISH would emit its live container, copy it in the finisher");
+                Supplier<A> supplier = collector.supplier();
+                BiConsumer<A, ? super T> accumulator = collector.accumulator();
+                Function<A, R> finisher = collector.finisher();
+                return ordered("aggregate", nextStage -> new Stage.AbstractChainedStage<T, Map.Entry<K, R>>(nextStage) {
+                    private Map<K, A> map;
+
+                    @Override
+                    public void begin(long size) {
+                        map = new HashMap<>();
+                        downstream.begin(size);
+                    }
+
+                    @Override
+                    public void accept(T element) {
+                        K key = keyMapper.apply(element);
+                        A container = map.get(key);
+                        if (container == null) {
+                            container = supplier.get();
+                            map.put(key, container);
+                        }
+                        accumulator.accept(container, element);
+                        downstream.accept(new AbstractMap.SimpleImmutableEntry<>(key, finisher.apply(container)));
+                    }
+
+                    @Override
+                    public void end() {
+                        map = null;
+                        downstream.end();
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "Stage.aggregate";
+                    }
+                });
+            }
+
+            @Override
+            public String toString() {
+                return "KeyedFlow";
+            }
+        };
+    }
+
+    //endregion 窗口和聚合
 
     //region 终止操作
 
@@ -455,7 +1101,7 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
     public void forEach(Consumer<? super T> action) {
         Objects.requireNonNull(action);
         // 遍历不需要返回内容所以是 Void
-        terminal(new AbstractTerminal<T, Void>(this) {
+        terminal(() -> new AbstractTerminal<T, Void>(this) {
             @Override
             public Void get() {
                 return null;
@@ -470,7 +1116,7 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
             public String toString() {
                 return "Stage.TerminalStage.forEach";
             }
-        });
+        }, (a, b) -> null);
     }
 
     /**
@@ -478,10 +1124,15 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
      * 不保证遍历顺序就是流中元素的顺序 因为可能是并行访问的
      * 要按流中的顺序遍历则应使用
      * {@link java.util.stream.Stream#forEachOrdered(Consumer)}
-     * 这里我们实现的更简单，{@link #forEach(Consumer)} 已经是按序的
+     * 这里我们实现的更简单，串行时 {@link #forEach(Consumer)} 已经是按序的, 并行时先收集全部元素再按序遍历
      */
     @Override
     public void forEachOrdered(Consumer<? super T> action) {
+        if (isParallel()) {
+            Objects.requireNonNull(action);
+            terminal(this::bufferTerminal, FlowTask.Buffer::concat).forEach(action);
+            return;
+        }
         forEach(action);
     }
 
@@ -494,7 +1145,11 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
     @Override
     public T[] toArray(IntFunction<T[]> generator) {
         Objects.requireNonNull(generator);
-        return terminal(new AbstractTerminal<T, T[]>(this) {
+        if (isParallel()) {
+            FlowTask.Buffer<T> buffer = terminal(this::bufferTerminal, FlowTask.Buffer::concat);
+            return buffer.toArray(generator.apply(buffer.size()));
+        }
+        return terminal(() -> new AbstractTerminal<T, T[]>(this) {
             private List<T> list;
             private T[] array;
             private int idx;
@@ -541,14 +1196,14 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
             public String toString() {
                 return "Stage.TerminalStage.toArray";
             }
-        });
+        }, null);
 
     }
 
     @Override
     public T reduce(T identity, BinaryOperator<T> accumulator) {
         Objects.requireNonNull(accumulator);
-        return terminal(new AbstractTerminal<T, T>(this) {
+        return terminal(() -> new AbstractTerminal<T, T>(this) {
             private T result;
 
             @Override
@@ -572,13 +1227,13 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
             public String toString() {
                 return "Stage.TerminalStage.reduce";
             }
-        });
+        }, accumulator);
     }
 
     @Override
     public Optional<T> reduce(BinaryOperator<T> accumulator) {
         Objects.requireNonNull(accumulator);
-        return terminal(new AbstractTerminal<T, Optional<T>>(this) {
+        return terminal(() -> new AbstractTerminal<T, Optional<T>>(this) {
             private T result;
             private boolean hasElement;
 
@@ -603,14 +1258,14 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
             public String toString() {
                 return "Stage.TerminalStage.reduce";
             }
-        });
+        }, (a, b) -> a.isPresent() && b.isPresent() ? Optional.of(accumulator.apply(a.get(), b.get())) : a.isPresent() ? a : b);
     }
 
     @Override
     public <R> R reduce(R identity, BiFunction<R, ? super T, R> accumulator, BinaryOperator<R> combiner) {
         Objects.requireNonNull(accumulator);
         Objects.requireNonNull(combiner);
-        return terminal(new AbstractTerminal<T, R>(this) {
+        return terminal(() -> new AbstractTerminal<T, R>(this) {
             private R result;
 
             @Override
@@ -634,14 +1289,14 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
             public String toString() {
                 return "Stage.TerminalStage.reduce";
             }
-        });
+        }, combiner);
     }
 
     @Override
     public <R> R collect(Supplier<R> supplier, BiConsumer<R, ? super T> accumulator, BiConsumer<R, R> combiner) {
         Objects.requireNonNull(accumulator);
         Objects.requireNonNull(combiner);
-        return terminal(new AbstractTerminal<T, R>(this) {
+        return terminal(() -> new AbstractTerminal<T, R>(this) {
             private R result;
 
             @Override
@@ -654,6 +1309,7 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
             @Override
             public void begin(long size) {
                 result = supplier.get();
+                presize(result, size);
             }
 
             @Override
@@ -665,6 +1321,9 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
             public String toString() {
                 return "Stage.TerminalStage.collect";
             }
+        }, (a, b) -> {
+            combiner.accept(a, b);
+            return a;
         });
     }
 
@@ -675,19 +1334,20 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
     @Override
     public <R, A> R collect(Collector<? super T, A, R> collector) {
         Objects.requireNonNull(collector);
-        return terminal(new AbstractTerminal<T, R>(this) {
+        A container = terminal(() -> new AbstractTerminal<T, A>(this) {
             private A tmp;
 
             @Override
-            public R get() {
+            public A get() {
                 A result = tmp;
                 tmp = null;
-                return collector.finisher().apply(result);
+                return result;
             }
 
             @Override
             public void begin(long size) {
                 tmp = collector.supplier().get();
+                presize(tmp, size);
             }
 
             @Override
@@ -699,7 +1359,8 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
             public String toString() {
                 return "Stage.TerminalStage.collect";
             }
-        });
+        }, collector.combiner());
+        return collector.finisher().apply(container);
     }
 
     @Override
@@ -720,7 +1381,7 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
     @Override
     public boolean anyMatch(Predicate<? super T> predicate) {
         Objects.requireNonNull(predicate);
-        return terminal(new AbstractTerminal<T, Boolean>(this) {
+        return terminal(() -> new AbstractTerminal<T, Boolean>(this) {
             private boolean result;
             private boolean canFinish;
 
@@ -742,17 +1403,22 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
                 return canFinish;
             }
 
+            @Override
+            public boolean isShortCircuit() {
+                return true;
+            }
+
             @Override
             public String toString() {
                 return "Stage.TerminalStage.anyMatch";
             }
-        });
+        }, (a, b) -> a || b);
     }
 
     @Override
     public boolean allMatch(Predicate<? super T> predicate) {
         Objects.requireNonNull(predicate);
-        return terminal(new AbstractTerminal<T, Boolean>(this) {
+        return terminal(() -> new AbstractTerminal<T, Boolean>(this) {
             private boolean result = true;
 
             @Override
@@ -771,13 +1437,13 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
             public String toString() {
                 return "Stage.TerminalStage.allMatch";
             }
-        });
+        }, (a, b) -> a && b);
     }
 
     @Override
     public boolean noneMatch(Predicate<? super T> predicate) {
         Objects.requireNonNull(predicate);
-        return terminal(new AbstractTerminal<T, Boolean>(this) {
+        return terminal(() -> new AbstractTerminal<T, Boolean>(this) {
             private boolean result = true;
 
             @Override
@@ -796,12 +1462,12 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
             public String toString() {
                 return "Stage.TerminalStage.noneMatch";
             }
-        });
+        }, (a, b) -> a && b);
     }
 
     @Override
     public Optional<T> findFirst() {
-        return terminal(new AbstractTerminal<T, Optional<T>>(this) {
+        return terminal(() -> new AbstractTerminal<T, Optional<T>>(this) {
             private T result;
             private boolean find;
 
@@ -825,11 +1491,21 @@ abstract class AbstractFlow<S, T> implements Flow<T> {
                 return find;
             }
 
+            @Override
+            public boolean isShortCircuit() {
+                return true;
+            }
+
             @Override
             public String toString() {
                 return "Stage.TerminalStage.findFirst";
             }
-        });
+        }, (a, b) -> a.isPresent() ? a : b);
+    }
+
+    @Override
+    public Visitor<T> visitor() {
+        return pullVisitor();
     }
 
     @Override
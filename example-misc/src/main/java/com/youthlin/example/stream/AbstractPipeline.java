@@ -0,0 +1,512 @@
+package com.youthlin.example.stream;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * 流水线的公共部分: 源迭代器 前后串联 终止操作和并行执行
+ * {@link AbstractFlow} 和基本类型的流都继承它
+ *
+ * @param <S> 流入元素类型
+ * @param <T> 流出元素类型
+ * @author youthlin.chen
+ * @date 2026-10-19 10:30
+ */
+abstract class AbstractPipeline<S, T> {
+    static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+    /**
+     * 并行执行 limit 时每次从源取出的最大个数
+     */
+    static final int MAX_CHUNK_SIZE = 1 << 20;
+    /**
+     * 整批处理时每批的个数 临时数组在 L1 缓存内
+     */
+    static final int BATCH_SIZE = 1 << 9;
+    /**
+     * 启动参数 -Dflow.batch.disabled=true 时总是逐个处理 用于对比
+     */
+    static final boolean BATCH_DISABLED = Boolean.getBoolean("flow.batch.disabled");
+    /**
+     * 最初迭代器
+     */
+    private final Visitor<?> source;
+    /**
+     * 前一个流
+     */
+    private final AbstractPipeline<?, S> prev;
+    /**
+     * 该流是否被消费过
+     */
+    private boolean linkedOrConsumed;
+    /**
+     * 是否并行执行 由最后一个流决定
+     */
+    private boolean parallel;
+
+    AbstractPipeline(Visitor<?> in) {
+        source = Objects.requireNonNull(in);
+        prev = null;
+    }
+
+    AbstractPipeline(AbstractPipeline<?, S> prev) {
+        Objects.requireNonNull(prev);
+        Preconditions.checkState(!prev.linkedOrConsumed, "already linked");
+        prev.linkedOrConsumed = true;
+        this.source = prev.source;
+        this.prev = prev;
+        this.parallel = prev.parallel;
+    }
+
+    /**
+     * @return 终止操作时是否会并行执行
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    //region 终止操作帮助方法
+
+    /**
+     * 终止方法
+     * 并行执行时每一份各生成一个终止操作 再按顺序合并结果
+     *
+     * @param <R>      返回类型
+     * @param terminal 生成终止操作
+     * @param combiner 合并相邻两份的结果 前一份在前 串行执行时不用
+     */
+    <R> R terminal(Supplier<? extends AbstractTerminal<T, R>> terminal, BinaryOperator<R> combiner) {
+        Preconditions.checkState(!linkedOrConsumed, "already consumed");
+        linkedOrConsumed = true;
+        if (parallel) {
+            return evaluateParallel(terminal, combiner);
+        }
+        return terminal.get().startAndGet(source);
+    }
+
+    /**
+     * 终止操作的基类
+     *
+     * @param <T> 流中元素类型
+     * @param <R> 该终止操作的返回类型 通过 {@link Supplier#get()} 返回结果
+     * @see Supplier#get()
+     */
+    static abstract class AbstractTerminal<T, R> implements Stage.TerminalStage<T, R>, Supplier<R> {
+        private final AbstractPipeline<?, T> lastFlow;
+
+        AbstractTerminal(AbstractPipeline<?, T> lastFlow) {
+            this.lastFlow = lastFlow;
+        }
+
+        @Override
+        public R startAndGet(Visitor<?> in) {
+            lastFlow.start(in, this);
+            return get();
+        }
+
+        @Override
+        public abstract R get();
+    }
+
+    /**
+     * 并行时在有状态操作前缓存或收集元素的终止操作 基本类型的流中上游直接传入基本类型 装箱后再处理
+     */
+    abstract static class BoxingTerminal<T, R> extends AbstractTerminal<T, R> {
+        BoxingTerminal(AbstractPipeline<?, T> lastFlow) {
+            super(lastFlow);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void accept(int value) {
+            accept((T) Integer.valueOf(value));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void accept(long value) {
+            accept((T) Long.valueOf(value));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void accept(double value) {
+            accept((T) Double.valueOf(value));
+        }
+    }
+
+    /**
+     * 开始执行整串流各阶段的操作
+     *
+     * @param <S_IN> 源迭代器的元素类型
+     */
+    private <S_IN> void start(Visitor<S_IN> in, Stage.TerminalStage<T, ?> terminalStage) {
+        Stage<S_IN> stage = wrapStage(terminalStage, null);
+        stage.begin(in.getSizeIfKnown());
+        copyInto(in, stage);
+        stage.end();
+    }
+
+    /**
+     * 把迭代器中的元素逐个交给操作 直到操作可以提前结束
+     * 基本类型的迭代器交给基本类型的操作时不装箱;
+     * 第一个操作支持整批处理且整串不会提前结束时 每次取出一批交给它
+     */
+    @SuppressWarnings("unchecked")
+    static <E> void copyInto(Visitor<E> in, Stage<E> stage) {
+        if (in instanceof Visitor.OfInt && stage instanceof Stage.IntStage) {
+            Visitor.OfInt visitor = (Visitor.OfInt) in;
+            while (visitor.hasNext() && !stage.canFinish()) {
+                stage.accept(visitor.nextInt());
+            }
+        } else if (in instanceof Visitor.OfLong && stage instanceof Stage.LongStage) {
+            Visitor.OfLong visitor = (Visitor.OfLong) in;
+            while (visitor.hasNext() && !stage.canFinish()) {
+                stage.accept(visitor.nextLong());
+            }
+        } else if (in instanceof Visitor.OfDouble && stage instanceof Stage.DoubleStage) {
+            Visitor.OfDouble visitor = (Visitor.OfDouble) in;
+            while (visitor.hasNext() && !stage.canFinish()) {
+                stage.accept(visitor.nextDouble());
+            }
+        } else if (!BATCH_DISABLED && stage instanceof Stage.AbstractChainedStage
+                && ((Stage.AbstractChainedStage<E, ?>) stage).acceptsBatch() && !stage.isShortCircuit()) {
+            Stage.AbstractChainedStage<E, ?> chained = (Stage.AbstractChainedStage<E, ?>) stage;
+            Object[] buf = new Object[BATCH_SIZE];
+            int n;
+            while ((n = in.fill(buf, 0, BATCH_SIZE)) > 0) {
+                chained.acceptBatch(buf, 0, n);
+            }
+        } else {
+            while (!stage.canFinish() && in.tryAdvance(stage)) {
+                // 每次拉取一个元素 操作可以结束时不再拉取
+            }
+        }
+    }
+
+    /**
+     * 按需拉取的迭代器 每次只从源取出必要的元素
+     * 并行的流也是串行拉取
+     */
+    @SuppressWarnings("unchecked")
+    Visitor<T> pullVisitor() {
+        Preconditions.checkState(!linkedOrConsumed, "already consumed");
+        linkedOrConsumed = true;
+        if (prev == null) {
+            return (Visitor<T>) source;
+        }
+        return new PullVisitor<>(source, this);
+    }
+
+    /**
+     * 将每个阶段的操作串起来 真正开始处理流时调用
+     *
+     * @param stage  最后一个操作
+     * @param stopAt 串到这个流为止(不包括) 为 null 时串到头节点
+     * @param <S_IN> 源迭代器的元素类型
+     * @return 将整个串的每个操作串起来作为一个操作
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    <S_IN> Stage<S_IN> wrapStage(Stage<T> stage, AbstractPipeline<?, ?> stopAt) {
+        List<AbstractPipeline> flows = new ArrayList<>();
+        for (AbstractPipeline flow = this; flow != stopAt && flow.prev != null; flow = flow.prev) {
+            /* flow.prev != null 即头节点不参与*/
+            flows.add(flow);
+        }
+        if (Fusion.DISABLED) {
+            Stage result = stage;
+            for (AbstractPipeline flow : flows) {
+                result = flow.wrapDownstream(result);
+            }
+            return (Stage<S_IN>) result;
+        }
+        flows = Fusion.optimize(flows);
+        Stage result = stage;
+        for (int i = 0; i < flows.size(); ) {
+            int j = i;
+            while (j < flows.size() && flows.get(j).fusionStep() != null) {
+                j++;
+            }
+            if (j - i > 1) {
+                /*相邻的 map/filter/peek 合并 flows 是从后往前的*/
+                List<Fusion.Step> steps = new ArrayList<>(j - i);
+                for (int k = j - 1; k >= i; k--) {
+                    steps.add(flows.get(k).fusionStep());
+                }
+                result = new Fusion.FusedStage(result, steps);
+                i = j;
+            } else {
+                result = flows.get(i).wrapDownstream(result);
+                i++;
+            }
+        }
+        return (Stage<S_IN>) result;
+    }
+
+    /**
+     * map/filter/peek 返回对应的一步 相邻的会合并成一个操作; 其他操作返回 null
+     */
+    Fusion.Step fusionStep() {
+        return null;
+    }
+
+    /**
+     * @return 是否不做任何事 如 skip(0) limit(Long.MAX_VALUE) 串联时跳过
+     */
+    boolean isNoOp() {
+        return false;
+    }
+
+    /**
+     * @return 是否可以移到紧挨着的 map 前面 如 limit: map 不改变元素个数 先 limit 可以少调用 mapper
+     */
+    boolean canPushThroughMap() {
+        return false;
+    }
+
+    /**
+     * 个数已知时 提前把容器扩容
+     */
+    static void presize(Object container, long size) {
+        if (size > 0 && container instanceof ArrayList) {
+            ((ArrayList<?>) container).ensureCapacity((int) Math.min(size, MAX_ARRAY_SIZE));
+        }
+    }
+
+    /**
+     * 各个阶段自定义如何将本阶段串入整个流串
+     * 在终止操作时调用 {@link #wrapStage(Stage, AbstractPipeline)} 该方法调用本方法
+     *
+     * @param nextStage 下游操作 处理的元素是本阶段流的产出元素
+     * @return 将下游操作包裹的当前阶段操作 该操作处理的元素类型是当前流的流入类型
+     */
+    abstract Stage<S> wrapDownstream(Stage<T> nextStage);
+
+    //endregion 终止操作帮助方法
+
+    //region 并行
+
+    /**
+     * 有状态操作需要看到上游的全部元素 并行执行时作为分界 先求出上游的结果再继续
+     *
+     * @return 是否是有状态操作
+     */
+    boolean isStateful() {
+        return false;
+    }
+
+    /**
+     * 并行执行时也只能串行执行的操作 如有内存限制的排序/去重
+     * 从这里到终止操作串行执行, 上游分块并行求值后按顺序交给它, 见 {@link #pushParallel(Stage, int)}
+     *
+     * @return 是否只能串行执行
+     */
+    boolean isSequentialOnly() {
+        return false;
+    }
+
+    /**
+     * 有状态操作的并行实现
+     *
+     * @return 本阶段流出的全部元素
+     */
+    Object[] opEvaluateParallel() {
+        throw new UnsupportedOperationException(toString());
+    }
+
+    /**
+     * 从最近的有状态操作之后开始并行执行; 有只能串行执行的操作时 从最前面的那个开始串行执行
+     */
+    @SuppressWarnings("unchecked")
+    <R> R evaluateParallel(Supplier<? extends AbstractTerminal<T, R>> terminal, BinaryOperator<R> combiner) {
+        AbstractPipeline<?, ?> sequential = null;
+        for (AbstractPipeline<?, ?> flow = this; flow.prev != null; flow = flow.prev) {
+            if (flow.isSequentialOnly()) {
+                sequential = flow;
+            }
+        }
+        if (sequential != null) {
+            AbstractTerminal<T, R> terminalStage = terminal.get();
+            Stage<Object> stage = wrapStage(terminalStage, sequential.prev);
+            stage.begin(Visitor.UNKNOWN_SIZE);
+            sequential.prev.pushParallel(stage, sequential.chunkSize());
+            stage.end();
+            return terminalStage.get();
+        }
+        AbstractPipeline<?, ?> barrier = barrier();
+        return FlowTask.invoke(this, barrier, sourceAfter(barrier), terminal, combiner);
+    }
+
+    /**
+     * @return 只能串行执行的操作 上游每块最多并行求出多少个元素
+     */
+    int chunkSize() {
+        return MAX_CHUNK_SIZE;
+    }
+
+    /**
+     * 每次从源取出一块 并行求出当前流的这部分元素 再按顺序交给 stage, 直到取完或 stage 可以结束.
+     * 块从 {@link FlowTask#BATCH} 开始每次翻倍, 上游不用一次全部放在内存中, 无限流也能停下
+     *
+     * @param stage    只能串行执行的操作(已串好后面的操作)
+     * @param maxChunk 每块最多取出的个数
+     */
+    @SuppressWarnings("unchecked")
+    void pushParallel(Stage<?> stage, int maxChunk) {
+        AbstractPipeline<?, ?> barrier = barrier();
+        Visitor<?> in = sourceAfter(barrier);
+        int chunk = Math.min(FlowTask.BATCH, maxChunk);
+        while (!stage.canFinish() && in.hasNext()) {
+            Object[] array = new Object[chunk];
+            int n = in.fill(array, 0, chunk);
+            FlowTask.Buffer<T> buffer = FlowTask.invoke(this, barrier, new ArrayVisitor<>(array, 0, n),
+                    this::bufferTerminal, FlowTask.Buffer::concat);
+            copyInto(new ArrayVisitor<>(buffer.toArray()), (Stage<Object>) stage);
+            chunk = (int) Math.min((long) chunk << 1, maxChunk);
+        }
+    }
+
+    /**
+     * @return 从当前流往前最近的有状态操作 没有时返回 null
+     */
+    AbstractPipeline<?, ?> barrier() {
+        for (AbstractPipeline<?, ?> flow = this; flow.prev != null; flow = flow.prev) {
+            if (flow.isStateful()) {
+                return flow;
+            }
+        }
+        return null;
+    }
+
+    Visitor<?> sourceAfter(AbstractPipeline<?, ?> barrier) {
+        return barrier == null ? source : new ArrayVisitor<>(barrier.opEvaluateParallel());
+    }
+
+    /**
+     * 并行求出当前流的全部元素
+     */
+    FlowTask.Buffer<T> evaluateToBuffer() {
+        return evaluateParallel(this::bufferTerminal, FlowTask.Buffer::concat);
+    }
+
+    /**
+     * 并行收集当前流的全部元素
+     */
+    <A> A collectParallel(Supplier<A> supplier, BiConsumer<A, ? super T> accumulator,
+            BinaryOperator<A> combiner) {
+        return evaluateParallel(() -> new BoxingTerminal<T, A>(this) {
+            private A container;
+
+            @Override
+            public A get() {
+                A result = container;
+                container = null;
+                return result;
+            }
+
+            @Override
+            public void begin(long size) {
+                container = supplier.get();
+            }
+
+            @Override
+            public void accept(T element) {
+                accumulator.accept(container, element);
+            }
+
+            @Override
+            public String toString() {
+                return "Stage.TerminalStage.collect";
+            }
+        }, combiner);
+    }
+
+    /**
+     * 每一份各自去重 合并时只加入前一份没有的 保留每个元素第一次出现的位置
+     */
+    Object[] distinctParallel() {
+        return collectParallel(LinkedHashSet::new, Set::add, (a, b) -> {
+            a.addAll(b);
+            return a;
+        }).toArray();
+    }
+
+    /**
+     * @param comparator 为 null 时按自然顺序
+     */
+    @SuppressWarnings("unchecked")
+    Object[] sortedParallel(Comparator<? super T> comparator) {
+        Object[] array = evaluateToBuffer().toArray();
+        Arrays.parallelSort(array, (Comparator<Object>) comparator);
+        return array;
+    }
+
+    /**
+     * 每次从源取出一块并行处理 够了就不再取 所以无限流也能结束
+     */
+    Object[] limitParallel(long maxSize) {
+        AbstractPipeline<?, ?> barrier = barrier();
+        Visitor<?> in = sourceAfter(barrier);
+        int chunk = (int) Math.min(Math.max(maxSize, FlowTask.BATCH), MAX_CHUNK_SIZE);
+        FlowTask.Buffer<T> buffer = FlowTask.Buffer.empty();
+        while (buffer.size() < maxSize && in.hasNext()) {
+            Object[] array = new Object[chunk];
+            int n = in.fill(array, 0, chunk);
+            buffer = FlowTask.Buffer.concat(buffer, FlowTask.invoke(this, barrier,
+                    new ArrayVisitor<>(array, 0, n), this::bufferTerminal, FlowTask.Buffer::concat));
+        }
+        Object[] array = buffer.toArray();
+        return array.length > maxSize ? Arrays.copyOf(array, (int) maxSize) : array;
+    }
+
+    Object[] skipParallel(long n) {
+        Object[] array = evaluateToBuffer().toArray();
+        return n >= array.length ? new Object[0] : Arrays.copyOfRange(array, (int) n, array.length);
+    }
+
+    AbstractTerminal<T, FlowTask.Buffer<T>> bufferTerminal() {
+        return new BoxingTerminal<T, FlowTask.Buffer<T>>(this) {
+            private List<T> list;
+
+            @Override
+            public FlowTask.Buffer<T> get() {
+                FlowTask.Buffer<T> buffer = FlowTask.Buffer.of(list);
+                list = null;
+                return buffer;
+            }
+
+            @Override
+            public void begin(long size) {
+                list = size > 0 ? Lists.newArrayListWithExpectedSize((int) Math.min(size, MAX_ARRAY_SIZE))
+                        : Lists.newArrayList();
+            }
+
+            @Override
+            public void accept(T element) {
+                list.add(element);
+            }
+
+            @Override
+            public String toString() {
+                return "Stage.TerminalStage.buffer";
+            }
+        };
+    }
+
+    //endregion 并行
+
+}
@@ -0,0 +1,64 @@
+package com.youthlin.example.stream;
+
+import java.util.NoSuchElementException;
+
+/**
+ * 数组迭代器 个数已知 可以对半拆分
+ *
+ * @author youthlin.chen
+ * @date 2026-10-19 09:10
+ */
+class ArrayVisitor<T> implements Visitor<T> {
+    private final Object[] array;
+    private final int fence;
+    private int index;
+
+    ArrayVisitor(Object[] array) {
+        this(array, 0, array.length);
+    }
+
+    ArrayVisitor(Object[] array, int from, int to) {
+        this.array = array;
+        this.index = from;
+        this.fence = to;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return index < fence;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (index >= fence) {
+            throw new NoSuchElementException();
+        }
+        return (T) array[index++];
+    }
+
+    @Override
+    public int fill(Object[] buf, int from, int to) {
+        int n = Math.min(to - from, fence - index);
+        System.arraycopy(array, index, buf, from, n);
+        index += n;
+        return n;
+    }
+
+    @Override
+    public long getSizeIfKnown() {
+        return fence - index;
+    }
+
+    @Override
+    public Visitor<T> trySplit() {
+        int mid = (index + fence) >>> 1;
+        if (mid <= index) {
+            return null;
+        }
+        ArrayVisitor<T> prefix = new ArrayVisitor<>(array, index, mid);
+        index = mid;
+        return prefix;
+    }
+
+}
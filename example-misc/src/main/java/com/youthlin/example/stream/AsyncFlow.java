@@ -0,0 +1,135 @@
+package com.youthlin.example.stream;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow.Publisher;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+
+/**
+ * 异步的流 就是一个 {@link Publisher}, 可以和任意 {@link Subscriber} 互通
+ * <p>
+ * 背压: 下游通过 {@link Subscription#request(long)} 要多少, 上游才发多少.
+ * {@link #mapAsync(Function, int)} 同时最多有 concurrency 个调用未完成, 结果按原来的顺序发出.
+ * 源和 {@link #mapAsync(Function, int, Executor)} 都在传入的 {@link Executor} 中执行,
+ * JDK 21 及以上可以传入 {@code Executors.newVirtualThreadPerTaskExecutor()} 在虚拟线程中执行
+ *
+ * @param <T> 元素类型
+ * @author youthlin.chen
+ * @date 2026-10-19 15:00
+ */
+@FunctionalInterface
+public interface AsyncFlow<T> extends Publisher<T> {
+
+    //region 创建
+
+    /**
+     * 包装任意 Publisher 如 {@link java.util.concurrent.SubmissionPublisher}
+     */
+    @SuppressWarnings("unchecked")
+    static <T> AsyncFlow<T> from(Publisher<? extends T> publisher) {
+        Objects.requireNonNull(publisher);
+        if (publisher instanceof AsyncFlow) {
+            return (AsyncFlow<T>) publisher;
+        }
+        return publisher::subscribe;
+    }
+
+    /**
+     * 同步的流转为异步的流 按需从流中拉取元素 只能订阅一次
+     *
+     * @param executor 在其中拉取和发出元素
+     */
+    static <T> AsyncFlow<T> of(Flow<T> flow, Executor executor) {
+        Objects.requireNonNull(flow);
+        Objects.requireNonNull(executor);
+        return subscriber -> AsyncStages.VisitorSubscription.subscribe(subscriber, flow::visitor, executor);
+    }
+
+    /**
+     * 每次订阅都重新遍历 iterable
+     *
+     * @param executor 在其中拉取和发出元素
+     */
+    static <T> AsyncFlow<T> of(Iterable<T> iterable, Executor executor) {
+        Objects.requireNonNull(iterable);
+        Objects.requireNonNull(executor);
+        return subscriber -> AsyncStages.VisitorSubscription.subscribe(subscriber,
+                () -> new VisitorImpl<>(iterable.iterator()), executor);
+    }
+
+    //endregion 创建
+
+    //region 中间操作
+
+    default <R> AsyncFlow<R> map(Function<? super T, ? extends R> mapper) {
+        Objects.requireNonNull(mapper);
+        return subscriber -> subscribe(new AsyncStages.MapSubscriber<>(subscriber, mapper));
+    }
+
+    default AsyncFlow<T> filter(Predicate<? super T> predicate) {
+        Objects.requireNonNull(predicate);
+        return subscriber -> subscribe(new AsyncStages.FilterSubscriber<>(subscriber, predicate));
+    }
+
+    /**
+     * 异步转换 如远程调用 同时最多 concurrency 个未完成 结果按元素原来的顺序发出
+     *
+     * @param mapper      返回异步的结果
+     * @param concurrency 最多同时未完成的个数
+     */
+    default <R> AsyncFlow<R> mapAsync(Function<? super T, ? extends CompletionStage<? extends R>> mapper,
+            int concurrency) {
+        Objects.requireNonNull(mapper);
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency should greater than 0");
+        }
+        return subscriber -> subscribe(new AsyncStages.MapAsyncSubscriber<>(subscriber, mapper, concurrency));
+    }
+
+    /**
+     * 在 executor 中执行阻塞的转换 同时最多 concurrency 个
+     */
+    default <R> AsyncFlow<R> mapAsync(Function<? super T, ? extends R> mapper, int concurrency, Executor executor) {
+        Objects.requireNonNull(mapper);
+        Objects.requireNonNull(executor);
+        return mapAsync(t -> CompletableFuture.supplyAsync(() -> mapper.apply(t), executor), concurrency);
+    }
+
+    //endregion 中间操作
+
+    //region 终止操作
+
+    /**
+     * 订阅并对每个元素执行操作 取消返回的 future 会取消订阅
+     *
+     * @return 全部完成时完成 出错时异常完成
+     */
+    default CompletableFuture<Void> forEach(Consumer<? super T> action) {
+        Objects.requireNonNull(action);
+        AsyncStages.CollectSubscriber<T, Void, Void> subscriber =
+                new AsyncStages.CollectSubscriber<>(() -> null, (a, t) -> action.accept(t), a -> null);
+        subscribe(subscriber);
+        return subscriber.result();
+    }
+
+    /**
+     * 订阅并收集全部元素 取消返回的 future 会取消订阅
+     */
+    default <R, A> CompletableFuture<R> collect(Collector<? super T, A, R> collector) {
+        Objects.requireNonNull(collector);
+        AsyncStages.CollectSubscriber<T, A, R> subscriber = new AsyncStages.CollectSubscriber<>(
+                collector.supplier(), collector.accumulator(), collector.finisher());
+        subscribe(subscriber);
+        return subscriber.result();
+    }
+
+    //endregion 终止操作
+
+}
@@ -0,0 +1,491 @@
+package com.youthlin.example.stream;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * {@link AsyncFlow} 各操作的实现
+ * <p>
+ * 需要在多个线程中发出信号的地方(源, mapAsync)用 wip 计数保证同一时刻只有一个线程在 drain,
+ * 其他线程只把计数加一, 正在 drain 的线程发现计数变了会再检查一遍
+ *
+ * @author youthlin.chen
+ * @date 2026-10-19 15:00
+ */
+final class AsyncStages {
+    /**
+     * 终止操作每次向上游要的个数 消费一半后再要一半
+     */
+    static final int PREFETCH = 256;
+
+    private AsyncStages() {
+    }
+
+    /**
+     * 累加请求数 溢出时为 Long.MAX_VALUE 表示不限
+     */
+    private static void add(AtomicLong requested, long n) {
+        requested.getAndUpdate(r -> r + n < 0 ? Long.MAX_VALUE : r + n);
+    }
+
+    private static IllegalArgumentException badRequest(long n) {
+        return new IllegalArgumentException("request should be positive: " + n);
+    }
+
+    /**
+     * 从迭代器拉取元素 在 executor 中执行 下游要多少发多少
+     */
+    static final class VisitorSubscription<T> implements Subscription, Runnable {
+        private final Subscriber<? super T> downstream;
+        private final Visitor<? extends T> visitor;
+        private final Executor executor;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+        private long emitted;
+
+        private VisitorSubscription(Subscriber<? super T> downstream, Visitor<? extends T> visitor, Executor executor) {
+            this.downstream = downstream;
+            this.visitor = visitor;
+            this.executor = executor;
+        }
+
+        static <T> void subscribe(Subscriber<? super T> subscriber, Supplier<? extends Visitor<? extends T>> visitor,
+                Executor executor) {
+            Objects.requireNonNull(subscriber);
+            Visitor<? extends T> in;
+            try {
+                in = visitor.get();
+            } catch (RuntimeException e) {
+                subscriber.onSubscribe(new Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(e);
+                return;
+            }
+            subscriber.onSubscribe(new VisitorSubscription<>(subscriber, in, executor));
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = badRequest(n);
+            } else {
+                add(requested, n);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            for (; ; ) {
+                if (cancelled) {
+                    return;
+                }
+                if (error != null) {
+                    cancelled = true;
+                    downstream.onError(error);
+                    return;
+                }
+                long r = requested.get();
+                try {
+                    while (emitted != r && !cancelled && visitor.hasNext()) {
+                        T next = visitor.next();
+                        emitted++;
+                        downstream.onNext(next);
+                    }
+                    /*没有请求时也检查是否已经没有元素 以便尽早结束*/
+                    if (!cancelled && !visitor.hasNext()) {
+                        cancelled = true;
+                        downstream.onComplete();
+                        return;
+                    }
+                } catch (Throwable e) {
+                    cancelled = true;
+                    downstream.onError(e);
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 一对一转发的中间操作
+     */
+    abstract static class AbstractRelay<T, R> implements Subscriber<T>, Subscription {
+        final Subscriber<? super R> downstream;
+        Subscription upstream;
+        boolean done;
+
+        AbstractRelay(Subscriber<? super R> downstream) {
+            this.downstream = Objects.requireNonNull(downstream);
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            upstream = subscription;
+            downstream.onSubscribe(this);
+        }
+
+        /**
+         * 转换或回调出错 取消上游 通知下游
+         */
+        void fail(Throwable e) {
+            upstream.cancel();
+            onError(e);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!done) {
+                done = true;
+                downstream.onError(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!done) {
+                done = true;
+                downstream.onComplete();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            upstream.cancel();
+        }
+    }
+
+    static final class MapSubscriber<T, R> extends AbstractRelay<T, R> {
+        private final Function<? super T, ? extends R> mapper;
+
+        MapSubscriber(Subscriber<? super R> downstream, Function<? super T, ? extends R> mapper) {
+            super(downstream);
+            this.mapper = mapper;
+        }
+
+        @Override
+        public void onNext(T item) {
+            if (done) {
+                return;
+            }
+            R result;
+            try {
+                result = Objects.requireNonNull(mapper.apply(item), "mapper returned null");
+            } catch (Throwable e) {
+                fail(e);
+                return;
+            }
+            downstream.onNext(result);
+        }
+    }
+
+    static final class FilterSubscriber<T> extends AbstractRelay<T, T> {
+        private final Predicate<? super T> predicate;
+
+        FilterSubscriber(Subscriber<? super T> downstream, Predicate<? super T> predicate) {
+            super(downstream);
+            this.predicate = predicate;
+        }
+
+        @Override
+        public void onNext(T item) {
+            if (done) {
+                return;
+            }
+            boolean pass;
+            try {
+                pass = predicate.test(item);
+            } catch (Throwable e) {
+                fail(e);
+                return;
+            }
+            if (pass) {
+                downstream.onNext(item);
+            } else {
+                /*过滤掉的不占下游的请求数 再向上游要一个*/
+                upstream.request(1);
+            }
+        }
+    }
+
+    /**
+     * 异步转换 最多 concurrency 个未完成 结果按顺序发出
+     * 一开始向上游要 concurrency 个, 之后每发出一个再要一个, 所以排队的加上未完成的不超过 concurrency 个
+     */
+    static final class MapAsyncSubscriber<T, R> implements Subscriber<T>, Subscription {
+        private final Subscriber<? super R> downstream;
+        private final Function<? super T, ? extends CompletionStage<? extends R>> mapper;
+        private final int concurrency;
+        private final Queue<CompletableFuture<R>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile Subscription upstream;
+        private volatile boolean upstreamDone;
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+        private long emitted;
+        private boolean terminated;
+
+        MapAsyncSubscriber(Subscriber<? super R> downstream,
+                Function<? super T, ? extends CompletionStage<? extends R>> mapper, int concurrency) {
+            this.downstream = Objects.requireNonNull(downstream);
+            this.mapper = mapper;
+            this.concurrency = concurrency;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            upstream = subscription;
+            downstream.onSubscribe(this);
+            subscription.request(concurrency);
+        }
+
+        @Override
+        public void onNext(T item) {
+            if (upstreamDone) {
+                return;
+            }
+            CompletableFuture<R> slot = new CompletableFuture<>();
+            queue.offer(slot);
+            try {
+                mapper.apply(item).whenComplete((result, e) -> {
+                    if (e != null) {
+                        slot.completeExceptionally(e);
+                    } else {
+                        slot.complete(result);
+                    }
+                    drain();
+                });
+            } catch (Throwable e) {
+                upstream.cancel();
+                onError(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!upstreamDone) {
+                error = throwable;
+                upstreamDone = true;
+                drain();
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            upstreamDone = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                upstream.cancel();
+                error = badRequest(n);
+            } else {
+                add(requested, n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            upstream.cancel();
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (; ; ) {
+                if (!terminated) {
+                    emit();
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void emit() {
+            long r = requested.get();
+            for (; ; ) {
+                if (cancelled) {
+                    terminated = true;
+                    queue.clear();
+                    return;
+                }
+                if (error != null) {
+                    terminate(error);
+                    return;
+                }
+                CompletableFuture<R> head = queue.peek();
+                if (head == null) {
+                    if (upstreamDone) {
+                        terminated = true;
+                        downstream.onComplete();
+                    }
+                    return;
+                }
+                if (!head.isDone() || emitted == r) {
+                    return;
+                }
+                queue.poll();
+                R value;
+                try {
+                    value = Objects.requireNonNull(head.join(), "mapper completed with null");
+                } catch (CompletionException e) {
+                    upstream.cancel();
+                    terminate(e.getCause() != null ? e.getCause() : e);
+                    return;
+                } catch (RuntimeException e) {
+                    upstream.cancel();
+                    terminate(e);
+                    return;
+                }
+                emitted++;
+                downstream.onNext(value);
+                upstream.request(1);
+            }
+        }
+
+        private void terminate(Throwable e) {
+            terminated = true;
+            queue.clear();
+            downstream.onError(e);
+        }
+    }
+
+    /**
+     * 终止操作 结果放在 {@link #result()} 中
+     */
+    static final class CollectSubscriber<T, A, R> implements Subscriber<T> {
+        private static final int LIMIT = PREFETCH >> 1;
+        private final Supplier<A> supplier;
+        private final BiConsumer<A, ? super T> accumulator;
+        private final Function<A, R> finisher;
+        private final CompletableFuture<R> result = new CompletableFuture<>();
+        private volatile Subscription upstream;
+        private A container;
+        private int consumed;
+
+        CollectSubscriber(Supplier<A> supplier, BiConsumer<A, ? super T> accumulator, Function<A, R> finisher) {
+            this.supplier = supplier;
+            this.accumulator = accumulator;
+            this.finisher = finisher;
+            /*取消 future 时取消订阅*/
+            result.whenComplete((r, e) -> {
+                Subscription s = upstream;
+                if (result.isCancelled() && s != null) {
+                    s.cancel();
+                }
+            });
+        }
+
+        CompletableFuture<R> result() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            if (upstream != null || result.isDone()) {
+                subscription.cancel();
+                return;
+            }
+            try {
+                container = supplier.get();
+            } catch (Throwable e) {
+                subscription.cancel();
+                result.completeExceptionally(e);
+                return;
+            }
+            upstream = subscription;
+            subscription.request(PREFETCH);
+        }
+
+        @Override
+        public void onNext(T item) {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                accumulator.accept(container, item);
+            } catch (Throwable e) {
+                upstream.cancel();
+                result.completeExceptionally(e);
+                return;
+            }
+            if (++consumed == LIMIT) {
+                consumed = 0;
+                upstream.request(LIMIT);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            container = null;
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                result.complete(finisher.apply(container));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+            container = null;
+        }
+    }
+
+}
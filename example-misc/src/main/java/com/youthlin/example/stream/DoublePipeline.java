@@ -0,0 +1,770 @@
+package com.youthlin.example.stream;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.OptionalDouble;
+import java.util.DoubleSummaryStatistics;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleToIntFunction;
+import java.util.function.DoubleToLongFunction;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.Supplier;
+
+/**
+ * {@link DoubleFlow} 的实现 元素以 double 在各阶段之间传递 不装箱
+ *
+ * @param <S> 流入元素类型
+ * @author youthlin.chen
+ * @date 2026-10-19 11:10
+ */
+abstract class DoublePipeline<S> extends AbstractPipeline<S, Double> implements DoubleFlow {
+
+    DoublePipeline(Visitor<?> in) {
+        super(in);
+    }
+
+    DoublePipeline(AbstractPipeline<?, S> prev) {
+        super(prev);
+    }
+
+    //region 无状态操作
+
+    @Override
+    public DoubleFlow filter(DoublePredicate predicate) {
+        Objects.requireNonNull(predicate);
+        return new DoublePipeline<Double>(this) {
+            @Override
+            Stage<Double> wrapDownstream(Stage<Double> nextStage) {
+                return new Stage.ChainedDoubleStage<Double>(nextStage) {
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(Visitor.UNKNOWN_SIZE);
+                    }
+
+                    @Override
+                    public void accept(double value) {
+                        if (predicate.test(value)) {
+                            downstream.accept(value);
+                        }
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "DoubleStage.filter";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "DoubleFlow.filter";
+            }
+        };
+    }
+
+    @Override
+    public DoubleFlow map(DoubleUnaryOperator mapper) {
+        Objects.requireNonNull(mapper);
+        return new DoublePipeline<Double>(this) {
+            @Override
+            Stage<Double> wrapDownstream(Stage<Double> nextStage) {
+                return new Stage.ChainedDoubleStage<Double>(nextStage) {
+                    @Override
+                    public void accept(double value) {
+                        downstream.accept(mapper.applyAsDouble(value));
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "DoubleStage.map";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "DoubleFlow.map";
+            }
+        };
+    }
+
+    @Override
+    public <R> Flow<R> mapToObj(DoubleFunction<? extends R> mapper) {
+        Objects.requireNonNull(mapper);
+        return new AbstractFlow<Double, R>(this) {
+            @Override
+            Stage<Double> wrapDownstream(Stage<R> nextStage) {
+                return new Stage.ChainedDoubleStage<R>(nextStage) {
+                    @Override
+                    public void accept(double value) {
+                        downstream.accept(mapper.apply(value));
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "DoubleStage.mapToObj";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "DoubleFlow.mapToObj";
+            }
+        };
+    }
+
+    @Override
+    public IntFlow mapToInt(DoubleToIntFunction mapper) {
+        Objects.requireNonNull(mapper);
+        return new IntPipeline<Double>(this) {
+            @Override
+            Stage<Double> wrapDownstream(Stage<Integer> nextStage) {
+                return new Stage.ChainedDoubleStage<Integer>(nextStage) {
+                    @Override
+                    public void accept(double value) {
+                        downstream.accept(mapper.applyAsInt(value));
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "DoubleStage.mapToInt";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "DoubleFlow.mapToInt";
+            }
+        };
+    }
+
+    @Override
+    public LongFlow mapToLong(DoubleToLongFunction mapper) {
+        Objects.requireNonNull(mapper);
+        return new LongPipeline<Double>(this) {
+            @Override
+            Stage<Double> wrapDownstream(Stage<Long> nextStage) {
+                return new Stage.ChainedDoubleStage<Long>(nextStage) {
+                    @Override
+                    public void accept(double value) {
+                        downstream.accept(mapper.applyAsLong(value));
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "DoubleStage.mapToLong";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "DoubleFlow.mapToLong";
+            }
+        };
+    }
+
+    @Override
+    public Flow<Double> boxed() {
+        return mapToObj(Double::valueOf);
+    }
+
+    @Override
+    public DoubleFlow peek(DoubleConsumer action) {
+        Objects.requireNonNull(action);
+        return new DoublePipeline<Double>(this) {
+            @Override
+            Stage<Double> wrapDownstream(Stage<Double> nextStage) {
+                return new Stage.ChainedDoubleStage<Double>(nextStage) {
+                    @Override
+                    public void accept(double value) {
+                        action.accept(value);
+                        downstream.accept(value);
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "DoubleStage.peek";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "DoubleFlow.peek";
+            }
+        };
+    }
+
+    //endregion 无状态操作
+
+    //region 有状态操作
+
+    @Override
+    public DoubleFlow distinct() {
+        return new DoublePipeline<Double>(this) {
+            @Override
+            Stage<Double> wrapDownstream(Stage<Double> nextStage) {
+                return new Stage.ChainedDoubleStage<Double>(nextStage) {
+                    private Set<Double> set;
+
+                    @Override
+                    public void begin(long size) {
+                        set = new HashSet<>();
+                        downstream.begin(Visitor.UNKNOWN_SIZE);
+                    }
+
+                    @Override
+                    public void accept(double value) {
+                        if (set.add(value)) {
+                            downstream.accept(value);
+                        }
+                    }
+
+                    @Override
+                    public void end() {
+                        set = null;
+                        downstream.end();
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "DoubleStage.distinct";
+                    }
+                };
+            }
+
+            @Override
+            boolean isStateful() {
+                return true;
+            }
+
+            @Override
+            Object[] opEvaluateParallel() {
+                return DoublePipeline.this.distinctParallel();
+            }
+
+            @Override
+            public String toString() {
+                return "DoubleFlow.distinct";
+            }
+        };
+    }
+
+    @Override
+    public DoubleFlow sorted() {
+        return new DoublePipeline<Double>(this) {
+            @Override
+            Stage<Double> wrapDownstream(Stage<Double> nextStage) {
+                return new Stage.ChainedDoubleStage<Double>(nextStage) {
+                    private double[] array;
+                    private int count;
+
+                    @Override
+                    public void begin(long size) {
+                        Preconditions.checkArgument(size < MAX_ARRAY_SIZE,
+                                "max array size exceed: %s", MAX_ARRAY_SIZE);
+                        array = new double[size > 0 ? (int) size : 16];
+                        count = 0;
+                    }
+
+                    @Override
+                    public void accept(double value) {
+                        if (count == array.length) {
+                            Preconditions.checkArgument(count < MAX_ARRAY_SIZE,
+                                    "max array size exceed: %s", MAX_ARRAY_SIZE);
+                            array = Arrays.copyOf(array, (int) Math.min((long) count << 1, MAX_ARRAY_SIZE));
+                        }
+                        array[count++] = value;
+                    }
+
+                    @Override
+                    public void end() {
+                        Arrays.sort(array, 0, count);
+                        downstream.begin(count);
+                        for (int i = 0; i < count && !canFinish(); i++) {
+                            downstream.accept(array[i]);
+                        }
+                        array = null;
+                        downstream.end();
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "DoubleStage.sorted";
+                    }
+                };
+            }
+
+            @Override
+            boolean isStateful() {
+                return true;
+            }
+
+            @Override
+            Object[] opEvaluateParallel() {
+                return DoublePipeline.this.sortedParallel(null);
+            }
+
+            @Override
+            public String toString() {
+                return "DoubleFlow.sorted";
+            }
+        };
+    }
+
+    @Override
+    public DoubleFlow limit(long maxSize) {
+        Preconditions.checkArgument(maxSize >= 0);
+        return new DoublePipeline<Double>(this) {
+            @Override
+            Stage<Double> wrapDownstream(Stage<Double> nextStage) {
+                return new Stage.ChainedDoubleStage<Double>(nextStage) {
+                    private long count = 0;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(size >= 0 ? Math.min(size, maxSize) : Visitor.UNKNOWN_SIZE);
+                    }
+
+                    @Override
+                    public void accept(double value) {
+                        downstream.accept(value);
+                        count++;
+                    }
+
+                    @Override
+                    public boolean canFinish() {
+                        return count == maxSize || downstream.canFinish();
+                    }
+
+                    @Override
+                    public boolean isShortCircuit() {
+                        return true;
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "DoubleStage.limit";
+                    }
+                };
+            }
+
+            @Override
+            boolean isStateful() {
+                return true;
+            }
+
+            @Override
+            Object[] opEvaluateParallel() {
+                return DoublePipeline.this.limitParallel(maxSize);
+            }
+
+            @Override
+            public String toString() {
+                return "DoubleFlow.limit";
+            }
+        };
+    }
+
+    @Override
+    public DoubleFlow skip(long n) {
+        Preconditions.checkArgument(n >= 0);
+        return new DoublePipeline<Double>(this) {
+            @Override
+            Stage<Double> wrapDownstream(Stage<Double> nextStage) {
+                return new Stage.ChainedDoubleStage<Double>(nextStage) {
+                    private long count = 0;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(size >= 0 ? Math.max(size - n, 0) : Visitor.UNKNOWN_SIZE);
+                    }
+
+                    @Override
+                    public void accept(double value) {
+                        if (count++ >= n) {
+                            downstream.accept(value);
+                        }
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "DoubleStage.skip";
+                    }
+                };
+            }
+
+            @Override
+            boolean isStateful() {
+                return true;
+            }
+
+            @Override
+            Object[] opEvaluateParallel() {
+                return DoublePipeline.this.skipParallel(n);
+            }
+
+            @Override
+            public String toString() {
+                return "DoubleFlow.skip";
+            }
+        };
+    }
+
+    //endregion 有状态操作
+
+    //region 并行
+
+    @Override
+    public DoubleFlow parallel() {
+        setParallel(true);
+        return this;
+    }
+
+    @Override
+    public DoubleFlow sequential() {
+        setParallel(false);
+        return this;
+    }
+
+    //endregion 并行
+
+    //region 终止操作
+
+    /**
+     * 基本类型流的终止操作
+     *
+     * @param <R> 该终止操作的返回类型
+     */
+    abstract static class DoubleTerminal<R> extends AbstractTerminal<Double, R> implements Stage.DoubleStage {
+        DoubleTerminal(AbstractPipeline<?, Double> lastFlow) {
+            super(lastFlow);
+        }
+    }
+
+    @Override
+    public void forEach(DoubleConsumer action) {
+        Objects.requireNonNull(action);
+        terminal(() -> new DoubleTerminal<Void>(this) {
+            @Override
+            public Void get() {
+                return null;
+            }
+
+            @Override
+            public void accept(double value) {
+                action.accept(value);
+            }
+
+            @Override
+            public String toString() {
+                return "DoubleStage.TerminalStage.forEach";
+            }
+        }, (a, b) -> null);
+    }
+
+    @Override
+    public double[] toArray() {
+        return terminal(() -> new DoubleTerminal<double[]>(this) {
+            private double[] array;
+            private int count;
+
+            @Override
+            public double[] get() {
+                double[] result = count == array.length ? array : Arrays.copyOf(array, count);
+                array = null;
+                return result;
+            }
+
+            @Override
+            public void begin(long size) {
+                Preconditions.checkArgument(size < MAX_ARRAY_SIZE, "max array size exceed: %s", MAX_ARRAY_SIZE);
+                array = new double[size >= 0 ? (int) size : 16];
+            }
+
+            @Override
+            public void accept(double value) {
+                if (count == array.length) {
+                    Preconditions.checkState(count < MAX_ARRAY_SIZE, "max array size exceed: %s", MAX_ARRAY_SIZE);
+                    array = Arrays.copyOf(array, (int) Math.min(Math.max((long) count << 1, 16), MAX_ARRAY_SIZE));
+                }
+                array[count++] = value;
+            }
+
+            @Override
+            public String toString() {
+                return "DoubleStage.TerminalStage.toArray";
+            }
+        }, (a, b) -> {
+            double[] result = Arrays.copyOf(a, a.length + b.length);
+            System.arraycopy(b, 0, result, a.length, b.length);
+            return result;
+        });
+    }
+
+    @Override
+    public double reduce(double identity, DoubleBinaryOperator op) {
+        Objects.requireNonNull(op);
+        return terminal(() -> new DoubleTerminal<Double>(this) {
+            private double result;
+
+            @Override
+            public Double get() {
+                return result;
+            }
+
+            @Override
+            public void begin(long size) {
+                result = identity;
+            }
+
+            @Override
+            public void accept(double value) {
+                result = op.applyAsDouble(result, value);
+            }
+
+            @Override
+            public String toString() {
+                return "DoubleStage.TerminalStage.reduce";
+            }
+        }, (a, b) -> op.applyAsDouble(a, b));
+    }
+
+    @Override
+    public OptionalDouble reduce(DoubleBinaryOperator op) {
+        Objects.requireNonNull(op);
+        return terminal(() -> new DoubleTerminal<OptionalDouble>(this) {
+            private double result;
+            private boolean hasElement;
+
+            @Override
+            public OptionalDouble get() {
+                return hasElement ? OptionalDouble.of(result) : OptionalDouble.empty();
+            }
+
+            @Override
+            public void accept(double value) {
+                if (hasElement) {
+                    result = op.applyAsDouble(result, value);
+                } else {
+                    result = value;
+                    hasElement = true;
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "DoubleStage.TerminalStage.reduce";
+            }
+        }, (a, b) -> a.isPresent() && b.isPresent() ? OptionalDouble.of(op.applyAsDouble(a.getAsDouble(), b.getAsDouble()))
+                : a.isPresent() ? a : b);
+    }
+
+    @Override
+    public <R> R collect(Supplier<R> supplier, ObjDoubleConsumer<R> accumulator, BiConsumer<R, R> combiner) {
+        Objects.requireNonNull(supplier);
+        Objects.requireNonNull(accumulator);
+        Objects.requireNonNull(combiner);
+        return terminal(() -> new DoubleTerminal<R>(this) {
+            private R result;
+
+            @Override
+            public R get() {
+                R ret = result;
+                result = null;
+                return ret;
+            }
+
+            @Override
+            public void begin(long size) {
+                result = supplier.get();
+            }
+
+            @Override
+            public void accept(double value) {
+                accumulator.accept(result, value);
+            }
+
+            @Override
+            public String toString() {
+                return "DoubleStage.TerminalStage.collect";
+            }
+        }, (a, b) -> {
+            combiner.accept(a, b);
+            return a;
+        });
+    }
+
+    @Override
+    public double sum() {
+        return summaryStatistics().getSum();
+    }
+
+    @Override
+    public OptionalDouble min() {
+        return reduce(Math::min);
+    }
+
+    @Override
+    public OptionalDouble max() {
+        return reduce(Math::max);
+    }
+
+    @Override
+    public long count() {
+        return terminal(() -> new DoubleTerminal<Long>(this) {
+            private long count;
+
+            @Override
+            public Long get() {
+                return count;
+            }
+
+            @Override
+            public void accept(double value) {
+                count++;
+            }
+
+            @Override
+            public String toString() {
+                return "DoubleStage.TerminalStage.count";
+            }
+        }, Long::sum);
+    }
+
+    @Override
+    public OptionalDouble average() {
+        DoubleSummaryStatistics statistics = summaryStatistics();
+        return statistics.getCount() > 0 ? OptionalDouble.of(statistics.getAverage()) : OptionalDouble.empty();
+    }
+
+    @Override
+    public DoubleSummaryStatistics summaryStatistics() {
+        return collect(DoubleSummaryStatistics::new, DoubleSummaryStatistics::accept, DoubleSummaryStatistics::combine);
+    }
+
+    @Override
+    public boolean anyMatch(DoublePredicate predicate) {
+        return match(predicate);
+    }
+
+    @Override
+    public boolean allMatch(DoublePredicate predicate) {
+        return !match(predicate.negate());
+    }
+
+    @Override
+    public boolean noneMatch(DoublePredicate predicate) {
+        return !match(predicate);
+    }
+
+    /**
+     * 遇到满足条件的元素就结束
+     *
+     * @return 是否有元素满足条件
+     */
+    private boolean match(DoublePredicate predicate) {
+        Objects.requireNonNull(predicate);
+        return terminal(() -> new DoubleTerminal<Boolean>(this) {
+            private boolean result;
+
+            @Override
+            public Boolean get() {
+                return result;
+            }
+
+            @Override
+            public void accept(double value) {
+                if (!result && predicate.test(value)) {
+                    result = true;
+                }
+            }
+
+            @Override
+            public boolean canFinish() {
+                return result;
+            }
+
+            @Override
+            public boolean isShortCircuit() {
+                return true;
+            }
+
+            @Override
+            public String toString() {
+                return "DoubleStage.TerminalStage.match";
+            }
+        }, (a, b) -> a || b);
+    }
+
+    @Override
+    public OptionalDouble findFirst() {
+        return terminal(() -> new DoubleTerminal<OptionalDouble>(this) {
+            private double result;
+            private boolean find;
+
+            @Override
+            public OptionalDouble get() {
+                return find ? OptionalDouble.of(result) : OptionalDouble.empty();
+            }
+
+            @Override
+            public void accept(double value) {
+                if (!find) {
+                    result = value;
+                    find = true;
+                }
+            }
+
+            @Override
+            public boolean canFinish() {
+                return find;
+            }
+
+            @Override
+            public boolean isShortCircuit() {
+                return true;
+            }
+
+            @Override
+            public String toString() {
+                return "DoubleStage.TerminalStage.findFirst";
+            }
+        }, (a, b) -> a.isPresent() ? a : b);
+    }
+
+    //endregion 终止操作
+
+    /**
+     * 头节点
+     */
+    static class Head<S> extends DoublePipeline<S> {
+        Head(Visitor<S> in) {
+            super(in);
+        }
+
+        @Override
+        Stage<S> wrapDownstream(Stage<Double> nextStage) {
+            throw new AssertionError("should not go to here.");
+        }
+
+        @Override
+        public String toString() {
+            return "DoubleFlow.Head";
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.youthlin.example.stream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 元素写入临时文件和读回的编码方式 sorted/distinct 超出内存限制时使用
+ *
+ * @param <T> 元素类型
+ * @author youthlin.chen
+ * @date 2026-10-19 12:20
+ * @see SpillOptions
+ */
+public interface ElementCodec<T> {
+
+    void write(DataOutput out, T element) throws IOException;
+
+    T read(DataInput in) throws IOException;
+
+    static ElementCodec<Integer> ints() {
+        return new ElementCodec<Integer>() {
+            @Override
+            public void write(DataOutput out, Integer element) throws IOException {
+                out.writeInt(element);
+            }
+
+            @Override
+            public Integer read(DataInput in) throws IOException {
+                return in.readInt();
+            }
+        };
+    }
+
+    static ElementCodec<Long> longs() {
+        return new ElementCodec<Long>() {
+            @Override
+            public void write(DataOutput out, Long element) throws IOException {
+                out.writeLong(element);
+            }
+
+            @Override
+            public Long read(DataInput in) throws IOException {
+                return in.readLong();
+            }
+        };
+    }
+
+    /**
+     * UTF-8 编码 长度不受 {@link DataOutput#writeUTF(String)} 的 64K 限制
+     */
+    static ElementCodec<String> strings() {
+        return new ElementCodec<String>() {
+            @Override
+            public void write(DataOutput out, String element) throws IOException {
+                byte[] bytes = element.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            @Override
+            public String read(DataInput in) throws IOException {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    /**
+     * Java 序列化 通用但慢 每个元素单独序列化
+     */
+    static <T extends Serializable> ElementCodec<T> serializable() {
+        return new ElementCodec<T>() {
+            @Override
+            public void write(DataOutput out, T element) throws IOException {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+                    oos.writeObject(element);
+                }
+                out.writeInt(bytes.size());
+                out.write(bytes.toByteArray());
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T read(DataInput in) throws IOException {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return (T) ois.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+            }
+        };
+    }
+
+}
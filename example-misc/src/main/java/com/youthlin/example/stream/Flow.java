@@ -1,10 +1,10 @@
 package com.youthlin.example.stream;
 
-import com.google.common.collect.Iterators;
-
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
@@ -14,6 +14,9 @@ import java.util.function.Function;
 import java.util.function.IntFunction;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collector;
 
@@ -44,6 +47,30 @@ public interface Flow<T> {
      */
     <R> Flow<R> map(Function<? super T, ? extends R> mapper);
 
+    /**
+     * 转换为 int
+     *
+     * @param mapper 转换方法
+     * @return 转换后的 int 流 之后的操作不装箱
+     */
+    IntFlow mapToInt(ToIntFunction<? super T> mapper);
+
+    /**
+     * 转换为 long
+     *
+     * @param mapper 转换方法
+     * @return 转换后的 long 流 之后的操作不装箱
+     */
+    LongFlow mapToLong(ToLongFunction<? super T> mapper);
+
+    /**
+     * 转换为 double
+     *
+     * @param mapper 转换方法
+     * @return 转换后的 double 流 之后的操作不装箱
+     */
+    DoubleFlow mapToDouble(ToDoubleFunction<? super T> mapper);
+
     /**
      * 转换元素为流
      *
@@ -82,11 +109,30 @@ public interface Flow<T> {
     /**
      * 按指定比较器排序
      *
-     * @param comparator 比较器
+     * @param comparator 比较器 为 null 时按自然顺序
      * @return 排序后的流
      */
     Flow<T> sorted(Comparator<T> comparator);
 
+    /**
+     * 去重 内存中的元素超过限制后写入临时文件 结束时再读回
+     * 并行执行时上游分块并行求值 本操作和之后的操作串行执行 内存限制同样有效
+     *
+     * @param options 内存限制和元素编码方式
+     * @return 去重后的流
+     */
+    Flow<T> distinct(SpillOptions<T> options);
+
+    /**
+     * 外部排序 内存中的元素超过限制后排好序写入临时文件 结束时多路归并
+     * 并行执行时上游分块并行求值 本操作和之后的操作串行执行 内存限制同样有效
+     *
+     * @param comparator 比较器
+     * @param options    内存限制和元素编码方式
+     * @return 排序后的流
+     */
+    Flow<T> sorted(Comparator<T> comparator, SpillOptions<T> options);
+
     /**
      * 限制元素个数
      *
@@ -105,10 +151,79 @@ public interface Flow<T> {
 
     //endregion 有状态操作
 
+    //region 窗口和聚合
+
+    /**
+     * 每 size 个元素一个窗口 最后不足 size 个的也发出
+     * 窗口满了就发出 只保存当前窗口的元素 可以用于无限流
+     *
+     * @param size 窗口大小
+     * @return 各个窗口组成的流
+     */
+    Flow<List<T>> window(int size);
+
+    /**
+     * 滑动窗口 每个窗口 size 个元素 相邻窗口的开头相差 step 个元素
+     * 只发出满了的窗口 只保存当前窗口的元素
+     *
+     * @param size 窗口大小
+     * @param step 步长 大于 size 时中间的元素不在任何窗口中
+     * @return 各个窗口组成的流
+     */
+    Flow<List<T>> sliding(int size, int step);
+
+    /**
+     * 按时间划分窗口 时间戳落在同一个 duration 区间内的元素在一个窗口
+     * 时间戳应当递增, 比当前窗口早的元素放入当前窗口; 遇到下一个区间的元素时发出当前窗口
+     *
+     * @param timestamp 元素的时间戳 毫秒
+     * @param duration  窗口时长
+     * @return 各个窗口组成的流
+     */
+    Flow<List<T>> windowBy(ToLongFunction<? super T> timestamp, Duration duration);
+
+    /**
+     * 按关键字分组 再调用 {@link KeyedFlow#aggregate} 增量聚合
+     *
+     * @param keyMapper 元素的关键字
+     * @param <K>       关键字类型
+     * @return 分组后的流
+     */
+    <K> KeyedFlow<K, T> groupByKey(Function<? super T, ? extends K> keyMapper);
+
+    //endregion 窗口和聚合
+
+    //region 执行方式
+
+    /**
+     * 并行执行
+     * 终止操作时拆分源迭代器 每一份在 {@link java.util.concurrent.ForkJoinPool#commonPool()} 中各自执行一遍所有操作,
+     * 再按元素原来的顺序合并结果. 有状态操作(去重 排序 限制个数 跳过)先求出上游的全部结果再继续并行执行后面的操作;
+     * 窗口 聚合和带内存限制的排序去重从该操作开始串行执行, 上游每次取一块并行求值
+     *
+     * @return 当前流
+     */
+    Flow<T> parallel();
+
+    /**
+     * 串行执行 默认的执行方式
+     *
+     * @return 当前流
+     */
+    Flow<T> sequential();
+
+    /**
+     * @return 终止操作时是否会并行执行
+     */
+    boolean isParallel();
+
+    //endregion 执行方式
+
     //region 终止操作
 
     /**
      * 遍历当前流的元素 终止操作
+     * 并行执行时不保证顺序 action 可能在多个线程中同时调用
      *
      * @param action 对每个元素执行的操作
      */
@@ -252,6 +367,14 @@ public interface Flow<T> {
      */
     Optional<T> findAny();
 
+    /**
+     * 转为迭代器 终止操作
+     * 每次取元素时才从源拉取 直到得到一个元素 所以可以用于无限流
+     *
+     * @return 按顺序返回流中元素的迭代器
+     */
+    Visitor<T> visitor();
+
     //endregion 终止操作
 
     //region 静态方法
@@ -286,8 +409,9 @@ public interface Flow<T> {
      * @return 迭代器对应的自定义流
      */
     @SafeVarargs
+    @SuppressWarnings("varargs")
     static <E> Flow<E> of(E... elements) {
-        return new AbstractFlow.Head<>(new VisitorImpl<>(Iterators.forArray(elements)));
+        return new AbstractFlow.Head<>(new ArrayVisitor<>(elements));
     }
 
     /**
@@ -0,0 +1,272 @@
+package com.youthlin.example.stream;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 并行执行流的一段(从 stopAt 之后到 flow 的各个操作 再接终止操作)
+ * <p>
+ * 不断拆分源迭代器, 每一份在 {@link ForkJoinPool} 中单独串一条操作链执行, 完成后按原来的顺序两两合并结果.
+ * 终止操作提前结束(如 findFirst 找到了)时取消排在它后面的任务. 对应 Java8 的 {@code java.util.stream.AbstractTask}
+ *
+ * @param <T> 这一段流出的元素类型
+ * @param <R> 终止操作的结果类型
+ * @author youthlin.chen
+ * @date 2026-10-19 09:20
+ */
+final class FlowTask<T, R> extends CountedCompleter<R> {
+    private static final long serialVersionUID = 4207615536197408112L;
+    /**
+     * 不能拆分的迭代器每次取出的元素个数 每拆一次多取这么多
+     */
+    static final int BATCH = 1 << 10;
+    private static final Object NO_RESULT = new Object();
+
+    private final AbstractPipeline<?, T> flow;
+    private final AbstractPipeline<?, ?> stopAt;
+    private final Supplier<? extends AbstractPipeline.AbstractTerminal<T, R>> terminal;
+    private final BinaryOperator<R> combiner;
+    /**
+     * 个数已知时 不超过这么多就不再拆分
+     */
+    private final long threshold;
+    private final Visitor<?> visitor;
+    private final int batch;
+    private FlowTask<T, R> left;
+    private FlowTask<T, R> right;
+    private volatile boolean canceled;
+    private Object result = NO_RESULT;
+
+    private FlowTask(AbstractPipeline<?, T> flow, AbstractPipeline<?, ?> stopAt, Visitor<?> visitor,
+            Supplier<? extends AbstractPipeline.AbstractTerminal<T, R>> terminal, BinaryOperator<R> combiner) {
+        super(null);
+        this.flow = flow;
+        this.stopAt = stopAt;
+        this.terminal = terminal;
+        this.combiner = combiner;
+        long size = visitor.getSizeIfKnown();
+        this.threshold = size < 0 ? BATCH : Math.max(size / (ForkJoinPool.getCommonPoolParallelism() << 2), 1);
+        this.visitor = visitor;
+        this.batch = BATCH;
+    }
+
+    private FlowTask(FlowTask<T, R> parent, Visitor<?> visitor) {
+        super(parent);
+        this.flow = parent.flow;
+        this.stopAt = parent.stopAt;
+        this.terminal = parent.terminal;
+        this.combiner = parent.combiner;
+        this.threshold = parent.threshold;
+        this.visitor = visitor;
+        this.batch = parent.batch + BATCH;
+    }
+
+    /**
+     * @param flow     这一段的最后一个流
+     * @param stopAt   这一段之前的流 不包括在内 为 null 表示到头结点
+     * @param in       这一段的源迭代器
+     * @param terminal 每一份各生成一个终止操作
+     * @param combiner 合并相邻两份的结果 前一份在前
+     */
+    static <T, R> R invoke(AbstractPipeline<?, T> flow, AbstractPipeline<?, ?> stopAt, Visitor<?> in,
+            Supplier<? extends AbstractPipeline.AbstractTerminal<T, R>> terminal, BinaryOperator<R> combiner) {
+        return new FlowTask<>(flow, stopAt, in, terminal, combiner).invoke();
+    }
+
+    @Override
+    public void compute() {
+        FlowTask<T, R> task = this;
+        Visitor<?> prefix;
+        while (!task.taskCanceled() && (prefix = task.trySplit()) != null) {
+            FlowTask<T, R> l = task.left = new FlowTask<>(task, prefix);
+            FlowTask<T, R> r = task.right = new FlowTask<>(task, task.visitor);
+            task.setPendingCount(1);
+            l.fork();
+            task = r;
+        }
+        if (!task.taskCanceled()) {
+            task.result = task.doLeaf();
+        }
+        task.tryComplete();
+    }
+
+    private Visitor<?> trySplit() {
+        long size = visitor.getSizeIfKnown();
+        if (size >= 0 && size <= threshold) {
+            return null;
+        }
+        Visitor<?> prefix = visitor.trySplit();
+        if (prefix != null) {
+            return prefix;
+        }
+        // 不能拆分 取出一批元素作为前一份
+        Object[] array = new Object[size < 0 ? batch : (int) Math.min(batch, size)];
+        int n = visitor.fill(array, 0, array.length);
+        return n == 0 ? null : new ArrayVisitor<>(array, 0, n);
+    }
+
+    @SuppressWarnings("unchecked")
+    private R doLeaf() {
+        AbstractPipeline.AbstractTerminal<T, R> terminalStage = terminal.get();
+        Stage<Object> stage = flow.wrapStage(terminalStage, stopAt);
+        stage.begin(visitor.getSizeIfKnown());
+        AbstractPipeline.copyInto((Visitor<Object>) visitor, stage);
+        stage.end();
+        if (terminalStage.canFinish()) {
+            cancelLaterNodes();
+        }
+        return terminalStage.get();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onCompletion(CountedCompleter<?> caller) {
+        if (left != null) {
+            if (left.result == NO_RESULT) {
+                result = right.result;
+            } else if (right.result == NO_RESULT) {
+                result = left.result;
+            } else {
+                result = combiner.apply((R) left.result, (R) right.result);
+            }
+            left = right = null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public R getRawResult() {
+        return result == NO_RESULT ? null : (R) result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private FlowTask<T, R> parent() {
+        return (FlowTask<T, R>) getCompleter();
+    }
+
+    private boolean taskCanceled() {
+        boolean c = canceled;
+        for (FlowTask<T, R> p = parent(); !c && p != null; p = p.parent()) {
+            c = p.canceled;
+        }
+        return c;
+    }
+
+    /**
+     * 取消所有排在当前任务后面的任务
+     */
+    private void cancelLaterNodes() {
+        for (FlowTask<T, R> node = this, p = parent(); p != null; node = p, p = p.parent()) {
+            FlowTask<T, R> r = p.right;
+            if (p.left == node && r != null) {
+                r.canceled = true;
+            }
+        }
+    }
+
+    /**
+     * 并行收集的元素 合并时不复制 最后一次性复制到数组
+     *
+     * @param <T> 元素类型
+     */
+    static final class Buffer<T> {
+        private static final Buffer<?> EMPTY = new Buffer<>(new Object[0], null, null);
+        private final Object[] array;
+        private final Buffer<T> left;
+        private final Buffer<T> right;
+        private final int size;
+
+        private Buffer(Object[] array, Buffer<T> left, Buffer<T> right) {
+            this.array = array;
+            this.left = left;
+            this.right = right;
+            if (array != null) {
+                size = array.length;
+            } else {
+                long sum = (long) left.size + right.size;
+                if (sum > AbstractPipeline.MAX_ARRAY_SIZE) {
+                    throw new IllegalStateException("max array size exceed: " + AbstractPipeline.MAX_ARRAY_SIZE);
+                }
+                size = (int) sum;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> Buffer<T> empty() {
+            return (Buffer<T>) EMPTY;
+        }
+
+        static <T> Buffer<T> of(List<T> list) {
+            return new Buffer<>(list.toArray(), null, null);
+        }
+
+        static <T> Buffer<T> concat(Buffer<T> left, Buffer<T> right) {
+            if (left.size == 0) {
+                return right;
+            }
+            if (right.size == 0) {
+                return left;
+            }
+            return new Buffer<>(null, left, right);
+        }
+
+        int size() {
+            return size;
+        }
+
+        Object[] toArray() {
+            return toArray(new Object[size]);
+        }
+
+        <E> E[] toArray(E[] dest) {
+            int offset = 0;
+            for (Object[] chunk : chunks()) {
+                System.arraycopy(chunk, 0, dest, offset, chunk.length);
+                offset += chunk.length;
+            }
+            return dest;
+        }
+
+        @SuppressWarnings("unchecked")
+        void forEach(Consumer<? super T> action) {
+            for (Object[] chunk : chunks()) {
+                for (Object element : chunk) {
+                    action.accept((T) element);
+                }
+            }
+        }
+
+        /**
+         * 按顺序列出所有叶子的数组 合并的层数可能很深 不用递归
+         */
+        private List<Object[]> chunks() {
+            List<Object[]> chunks = new ArrayList<>();
+            Deque<Buffer<T>> stack = new ArrayDeque<>();
+            stack.push(this);
+            while (!stack.isEmpty()) {
+                Buffer<T> buffer = stack.pop();
+                if (buffer.array != null) {
+                    chunks.add(buffer.array);
+                } else {
+                    stack.push(buffer.right);
+                    stack.push(buffer.left);
+                }
+            }
+            return chunks;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(toArray());
+        }
+    }
+
+}
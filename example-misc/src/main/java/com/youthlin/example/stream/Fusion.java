@@ -0,0 +1,185 @@
+package com.youthlin.example.stream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 终止操作开始串联各阶段时的优化
+ * <ul>
+ * <li>去掉 skip(0) limit(Long.MAX_VALUE) 这样不做任何事的操作</li>
+ * <li>limit 移到紧挨着的 map 前面 少调用 mapper</li>
+ * <li>相邻的 map/filter/peek 合并成一个 {@link FusedStage} 调用链更短 方便 JIT 内联</li>
+ * </ul>
+ * 启动参数 -Dflow.optimize.disabled=true 时不优化 用于对比
+ *
+ * @author youthlin.chen
+ * @date 2026-10-19 14:10
+ * @see AbstractPipeline#wrapStage(Stage, AbstractPipeline)
+ */
+final class Fusion {
+    static final boolean DISABLED = Boolean.getBoolean("flow.optimize.disabled");
+    private static final int MAP = 0;
+    private static final int FILTER = 1;
+    private static final int PEEK = 2;
+    private static final String[] NAMES = {"map", "filter", "peek"};
+
+    private Fusion() {
+    }
+
+    /**
+     * 可以合并的一步操作
+     */
+    static final class Step {
+        private final int kind;
+        private final Object function;
+
+        private Step(int kind, Object function) {
+            this.kind = kind;
+            this.function = function;
+        }
+
+        boolean isMap() {
+            return kind == MAP;
+        }
+    }
+
+    static Step map(Function<?, ?> mapper) {
+        return new Step(MAP, mapper);
+    }
+
+    static Step filter(Predicate<?> predicate) {
+        return new Step(FILTER, predicate);
+    }
+
+    static Step peek(Consumer<?> action) {
+        return new Step(PEEK, action);
+    }
+
+    /**
+     * @param flows 从后往前的各个流
+     * @return 优化后从后往前的各个流
+     */
+    @SuppressWarnings("rawtypes")
+    static List<AbstractPipeline> optimize(List<AbstractPipeline> flows) {
+        List<AbstractPipeline> list = new ArrayList<>(flows.size());
+        for (AbstractPipeline flow : flows) {
+            if (!flow.isNoOp()) {
+                list.add(flow);
+            }
+        }
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i).canPushThroughMap()) {
+                for (int j = i; j + 1 < list.size() && isMap(list.get(j + 1)); j++) {
+                    Collections.swap(list, j, j + 1);
+                }
+            }
+        }
+        return list;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static boolean isMap(AbstractPipeline flow) {
+        Step step = flow.fusionStep();
+        return step != null && step.isMap();
+    }
+
+    /**
+     * 合并后的操作 按顺序执行每一步
+     */
+    static final class FusedStage extends Stage.AbstractChainedStage<Object, Object> {
+        private final int[] kinds;
+        private final Object[] functions;
+        private final boolean hasFilter;
+        private final boolean hasPeek;
+
+        /**
+         * @param steps 从前往后的各步
+         */
+        FusedStage(Stage<Object> downstream, List<Step> steps) {
+            super(downstream);
+            kinds = new int[steps.size()];
+            functions = new Object[steps.size()];
+            boolean filter = false;
+            boolean peek = false;
+            for (int i = 0; i < kinds.length; i++) {
+                kinds[i] = steps.get(i).kind;
+                functions[i] = steps.get(i).function;
+                filter |= kinds[i] == FILTER;
+                peek |= kinds[i] == PEEK;
+            }
+            hasFilter = filter;
+            hasPeek = peek;
+        }
+
+        @Override
+        public void begin(long size) {
+            downstream.begin(hasFilter ? Visitor.UNKNOWN_SIZE : size);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void accept(Object element) {
+            for (int i = 0; i < kinds.length; i++) {
+                switch (kinds[i]) {
+                    case MAP:
+                        element = ((Function<Object, Object>) functions[i]).apply(element);
+                        break;
+                    case FILTER:
+                        if (!((Predicate<Object>) functions[i]).test(element)) {
+                            return;
+                        }
+                        break;
+                    default:
+                        ((Consumer<Object>) functions[i]).accept(element);
+                }
+            }
+            downstream.accept(element);
+        }
+
+        /*peek 要和下游交替执行 有 peek 时逐个处理*/
+        @Override
+        boolean acceptsBatch() {
+            return !hasPeek;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void acceptBatch(Object[] buf, int from, int to) {
+            for (int i = 0; i < kinds.length && to > from; i++) {
+                if (kinds[i] == MAP) {
+                    Function<Object, Object> mapper = (Function<Object, Object>) functions[i];
+                    for (int j = from; j < to; j++) {
+                        buf[j] = mapper.apply(buf[j]);
+                    }
+                } else {
+                    Predicate<Object> predicate = (Predicate<Object>) functions[i];
+                    int n = from;
+                    for (int j = from; j < to; j++) {
+                        Object element = buf[j];
+                        if (predicate.test(element)) {
+                            buf[n++] = element;
+                        }
+                    }
+                    to = n;
+                }
+            }
+            if (to > from) {
+                batchTo(downstream, buf, from, to);
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("Stage.fused[");
+            for (int i = 0; i < kinds.length; i++) {
+                sb.append(i == 0 ? "" : ", ").append(NAMES[kinds[i]]);
+            }
+            return sb.append(']').toString();
+        }
+    }
+
+}
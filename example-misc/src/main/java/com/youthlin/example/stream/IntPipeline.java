@@ -0,0 +1,780 @@
+package com.youthlin.example.stream;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.OptionalDouble;
+import java.util.IntSummaryStatistics;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * {@link IntFlow} 的实现 元素以 int 在各阶段之间传递 不装箱
+ *
+ * @param <S> 流入元素类型
+ * @author youthlin.chen
+ * @date 2026-10-19 11:10
+ */
+abstract class IntPipeline<S> extends AbstractPipeline<S, Integer> implements IntFlow {
+
+    IntPipeline(Visitor<?> in) {
+        super(in);
+    }
+
+    IntPipeline(AbstractPipeline<?, S> prev) {
+        super(prev);
+    }
+
+    //region 无状态操作
+
+    @Override
+    public IntFlow filter(IntPredicate predicate) {
+        Objects.requireNonNull(predicate);
+        return new IntPipeline<Integer>(this) {
+            @Override
+            Stage<Integer> wrapDownstream(Stage<Integer> nextStage) {
+                return new Stage.ChainedIntStage<Integer>(nextStage) {
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(Visitor.UNKNOWN_SIZE);
+                    }
+
+                    @Override
+                    public void accept(int value) {
+                        if (predicate.test(value)) {
+                            downstream.accept(value);
+                        }
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "IntStage.filter";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "IntFlow.filter";
+            }
+        };
+    }
+
+    @Override
+    public IntFlow map(IntUnaryOperator mapper) {
+        Objects.requireNonNull(mapper);
+        return new IntPipeline<Integer>(this) {
+            @Override
+            Stage<Integer> wrapDownstream(Stage<Integer> nextStage) {
+                return new Stage.ChainedIntStage<Integer>(nextStage) {
+                    @Override
+                    public void accept(int value) {
+                        downstream.accept(mapper.applyAsInt(value));
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "IntStage.map";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "IntFlow.map";
+            }
+        };
+    }
+
+    @Override
+    public <R> Flow<R> mapToObj(IntFunction<? extends R> mapper) {
+        Objects.requireNonNull(mapper);
+        return new AbstractFlow<Integer, R>(this) {
+            @Override
+            Stage<Integer> wrapDownstream(Stage<R> nextStage) {
+                return new Stage.ChainedIntStage<R>(nextStage) {
+                    @Override
+                    public void accept(int value) {
+                        downstream.accept(mapper.apply(value));
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "IntStage.mapToObj";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "IntFlow.mapToObj";
+            }
+        };
+    }
+
+    @Override
+    public LongFlow mapToLong(IntToLongFunction mapper) {
+        Objects.requireNonNull(mapper);
+        return new LongPipeline<Integer>(this) {
+            @Override
+            Stage<Integer> wrapDownstream(Stage<Long> nextStage) {
+                return new Stage.ChainedIntStage<Long>(nextStage) {
+                    @Override
+                    public void accept(int value) {
+                        downstream.accept(mapper.applyAsLong(value));
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "IntStage.mapToLong";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "IntFlow.mapToLong";
+            }
+        };
+    }
+
+    @Override
+    public LongFlow asLongFlow() {
+        return mapToLong(value -> value);
+    }
+
+    @Override
+    public DoubleFlow mapToDouble(IntToDoubleFunction mapper) {
+        Objects.requireNonNull(mapper);
+        return new DoublePipeline<Integer>(this) {
+            @Override
+            Stage<Integer> wrapDownstream(Stage<Double> nextStage) {
+                return new Stage.ChainedIntStage<Double>(nextStage) {
+                    @Override
+                    public void accept(int value) {
+                        downstream.accept(mapper.applyAsDouble(value));
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "IntStage.mapToDouble";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "IntFlow.mapToDouble";
+            }
+        };
+    }
+
+    @Override
+    public DoubleFlow asDoubleFlow() {
+        return mapToDouble(value -> value);
+    }
+
+    @Override
+    public Flow<Integer> boxed() {
+        return mapToObj(Integer::valueOf);
+    }
+
+    @Override
+    public IntFlow peek(IntConsumer action) {
+        Objects.requireNonNull(action);
+        return new IntPipeline<Integer>(this) {
+            @Override
+            Stage<Integer> wrapDownstream(Stage<Integer> nextStage) {
+                return new Stage.ChainedIntStage<Integer>(nextStage) {
+                    @Override
+                    public void accept(int value) {
+                        action.accept(value);
+                        downstream.accept(value);
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "IntStage.peek";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "IntFlow.peek";
+            }
+        };
+    }
+
+    //endregion 无状态操作
+
+    //region 有状态操作
+
+    @Override
+    public IntFlow distinct() {
+        return new IntPipeline<Integer>(this) {
+            @Override
+            Stage<Integer> wrapDownstream(Stage<Integer> nextStage) {
+                return new Stage.ChainedIntStage<Integer>(nextStage) {
+                    private Set<Integer> set;
+
+                    @Override
+                    public void begin(long size) {
+                        set = new HashSet<>();
+                        downstream.begin(Visitor.UNKNOWN_SIZE);
+                    }
+
+                    @Override
+                    public void accept(int value) {
+                        if (set.add(value)) {
+                            downstream.accept(value);
+                        }
+                    }
+
+                    @Override
+                    public void end() {
+                        set = null;
+                        downstream.end();
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "IntStage.distinct";
+                    }
+                };
+            }
+
+            @Override
+            boolean isStateful() {
+                return true;
+            }
+
+            @Override
+            Object[] opEvaluateParallel() {
+                return IntPipeline.this.distinctParallel();
+            }
+
+            @Override
+            public String toString() {
+                return "IntFlow.distinct";
+            }
+        };
+    }
+
+    @Override
+    public IntFlow sorted() {
+        return new IntPipeline<Integer>(this) {
+            @Override
+            Stage<Integer> wrapDownstream(Stage<Integer> nextStage) {
+                return new Stage.ChainedIntStage<Integer>(nextStage) {
+                    private int[] array;
+                    private int count;
+
+                    @Override
+                    public void begin(long size) {
+                        Preconditions.checkArgument(size < MAX_ARRAY_SIZE,
+                                "max array size exceed: %s", MAX_ARRAY_SIZE);
+                        array = new int[size > 0 ? (int) size : 16];
+                        count = 0;
+                    }
+
+                    @Override
+                    public void accept(int value) {
+                        if (count == array.length) {
+                            Preconditions.checkArgument(count < MAX_ARRAY_SIZE,
+                                    "max array size exceed: %s", MAX_ARRAY_SIZE);
+                            array = Arrays.copyOf(array, (int) Math.min((long) count << 1, MAX_ARRAY_SIZE));
+                        }
+                        array[count++] = value;
+                    }
+
+                    @Override
+                    public void end() {
+                        Arrays.sort(array, 0, count);
+                        downstream.begin(count);
+                        for (int i = 0; i < count && !canFinish(); i++) {
+                            downstream.accept(array[i]);
+                        }
+                        array = null;
+                        downstream.end();
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "IntStage.sorted";
+                    }
+                };
+            }
+
+            @Override
+            boolean isStateful() {
+                return true;
+            }
+
+            @Override
+            Object[] opEvaluateParallel() {
+                return IntPipeline.this.sortedParallel(null);
+            }
+
+            @Override
+            public String toString() {
+                return "IntFlow.sorted";
+            }
+        };
+    }
+
+    @Override
+    public IntFlow limit(long maxSize) {
+        Preconditions.checkArgument(maxSize >= 0);
+        return new IntPipeline<Integer>(this) {
+            @Override
+            Stage<Integer> wrapDownstream(Stage<Integer> nextStage) {
+                return new Stage.ChainedIntStage<Integer>(nextStage) {
+                    private long count = 0;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(size >= 0 ? Math.min(size, maxSize) : Visitor.UNKNOWN_SIZE);
+                    }
+
+                    @Override
+                    public void accept(int value) {
+                        downstream.accept(value);
+                        count++;
+                    }
+
+                    @Override
+                    public boolean canFinish() {
+                        return count == maxSize || downstream.canFinish();
+                    }
+
+                    @Override
+                    public boolean isShortCircuit() {
+                        return true;
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "IntStage.limit";
+                    }
+                };
+            }
+
+            @Override
+            boolean isStateful() {
+                return true;
+            }
+
+            @Override
+            Object[] opEvaluateParallel() {
+                return IntPipeline.this.limitParallel(maxSize);
+            }
+
+            @Override
+            public String toString() {
+                return "IntFlow.limit";
+            }
+        };
+    }
+
+    @Override
+    public IntFlow skip(long n) {
+        Preconditions.checkArgument(n >= 0);
+        return new IntPipeline<Integer>(this) {
+            @Override
+            Stage<Integer> wrapDownstream(Stage<Integer> nextStage) {
+                return new Stage.ChainedIntStage<Integer>(nextStage) {
+                    private long count = 0;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(size >= 0 ? Math.max(size - n, 0) : Visitor.UNKNOWN_SIZE);
+                    }
+
+                    @Override
+                    public void accept(int value) {
+                        if (count++ >= n) {
+                            downstream.accept(value);
+                        }
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "IntStage.skip";
+                    }
+                };
+            }
+
+            @Override
+            boolean isStateful() {
+                return true;
+            }
+
+            @Override
+            Object[] opEvaluateParallel() {
+                return IntPipeline.this.skipParallel(n);
+            }
+
+            @Override
+            public String toString() {
+                return "IntFlow.skip";
+            }
+        };
+    }
+
+    //endregion 有状态操作
+
+    //region 并行
+
+    @Override
+    public IntFlow parallel() {
+        setParallel(true);
+        return this;
+    }
+
+    @Override
+    public IntFlow sequential() {
+        setParallel(false);
+        return this;
+    }
+
+    //endregion 并行
+
+    //region 终止操作
+
+    /**
+     * 基本类型流的终止操作
+     *
+     * @param <R> 该终止操作的返回类型
+     */
+    abstract static class IntTerminal<R> extends AbstractTerminal<Integer, R> implements Stage.IntStage {
+        IntTerminal(AbstractPipeline<?, Integer> lastFlow) {
+            super(lastFlow);
+        }
+    }
+
+    @Override
+    public void forEach(IntConsumer action) {
+        Objects.requireNonNull(action);
+        terminal(() -> new IntTerminal<Void>(this) {
+            @Override
+            public Void get() {
+                return null;
+            }
+
+            @Override
+            public void accept(int value) {
+                action.accept(value);
+            }
+
+            @Override
+            public String toString() {
+                return "IntStage.TerminalStage.forEach";
+            }
+        }, (a, b) -> null);
+    }
+
+    @Override
+    public int[] toArray() {
+        return terminal(() -> new IntTerminal<int[]>(this) {
+            private int[] array;
+            private int count;
+
+            @Override
+            public int[] get() {
+                int[] result = count == array.length ? array : Arrays.copyOf(array, count);
+                array = null;
+                return result;
+            }
+
+            @Override
+            public void begin(long size) {
+                Preconditions.checkArgument(size < MAX_ARRAY_SIZE, "max array size exceed: %s", MAX_ARRAY_SIZE);
+                array = new int[size >= 0 ? (int) size : 16];
+            }
+
+            @Override
+            public void accept(int value) {
+                if (count == array.length) {
+                    Preconditions.checkState(count < MAX_ARRAY_SIZE, "max array size exceed: %s", MAX_ARRAY_SIZE);
+                    array = Arrays.copyOf(array, (int) Math.min(Math.max((long) count << 1, 16), MAX_ARRAY_SIZE));
+                }
+                array[count++] = value;
+            }
+
+            @Override
+            public String toString() {
+                return "IntStage.TerminalStage.toArray";
+            }
+        }, (a, b) -> {
+            int[] result = Arrays.copyOf(a, a.length + b.length);
+            System.arraycopy(b, 0, result, a.length, b.length);
+            return result;
+        });
+    }
+
+    @Override
+    public int reduce(int identity, IntBinaryOperator op) {
+        Objects.requireNonNull(op);
+        return terminal(() -> new IntTerminal<Integer>(this) {
+            private int result;
+
+            @Override
+            public Integer get() {
+                return result;
+            }
+
+            @Override
+            public void begin(long size) {
+                result = identity;
+            }
+
+            @Override
+            public void accept(int value) {
+                result = op.applyAsInt(result, value);
+            }
+
+            @Override
+            public String toString() {
+                return "IntStage.TerminalStage.reduce";
+            }
+        }, (a, b) -> op.applyAsInt(a, b));
+    }
+
+    @Override
+    public OptionalInt reduce(IntBinaryOperator op) {
+        Objects.requireNonNull(op);
+        return terminal(() -> new IntTerminal<OptionalInt>(this) {
+            private int result;
+            private boolean hasElement;
+
+            @Override
+            public OptionalInt get() {
+                return hasElement ? OptionalInt.of(result) : OptionalInt.empty();
+            }
+
+            @Override
+            public void accept(int value) {
+                if (hasElement) {
+                    result = op.applyAsInt(result, value);
+                } else {
+                    result = value;
+                    hasElement = true;
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "IntStage.TerminalStage.reduce";
+            }
+        }, (a, b) -> a.isPresent() && b.isPresent() ? OptionalInt.of(op.applyAsInt(a.getAsInt(), b.getAsInt()))
+                : a.isPresent() ? a : b);
+    }
+
+    @Override
+    public <R> R collect(Supplier<R> supplier, ObjIntConsumer<R> accumulator, BiConsumer<R, R> combiner) {
+        Objects.requireNonNull(supplier);
+        Objects.requireNonNull(accumulator);
+        Objects.requireNonNull(combiner);
+        return terminal(() -> new IntTerminal<R>(this) {
+            private R result;
+
+            @Override
+            public R get() {
+                R ret = result;
+                result = null;
+                return ret;
+            }
+
+            @Override
+            public void begin(long size) {
+                result = supplier.get();
+            }
+
+            @Override
+            public void accept(int value) {
+                accumulator.accept(result, value);
+            }
+
+            @Override
+            public String toString() {
+                return "IntStage.TerminalStage.collect";
+            }
+        }, (a, b) -> {
+            combiner.accept(a, b);
+            return a;
+        });
+    }
+
+    @Override
+    public int sum() {
+        return reduce(0, Integer::sum);
+    }
+
+    @Override
+    public OptionalInt min() {
+        return reduce(Math::min);
+    }
+
+    @Override
+    public OptionalInt max() {
+        return reduce(Math::max);
+    }
+
+    @Override
+    public long count() {
+        return terminal(() -> new IntTerminal<Long>(this) {
+            private long count;
+
+            @Override
+            public Long get() {
+                return count;
+            }
+
+            @Override
+            public void accept(int value) {
+                count++;
+            }
+
+            @Override
+            public String toString() {
+                return "IntStage.TerminalStage.count";
+            }
+        }, Long::sum);
+    }
+
+    @Override
+    public OptionalDouble average() {
+        IntSummaryStatistics statistics = summaryStatistics();
+        return statistics.getCount() > 0 ? OptionalDouble.of(statistics.getAverage()) : OptionalDouble.empty();
+    }
+
+    @Override
+    public IntSummaryStatistics summaryStatistics() {
+        return collect(IntSummaryStatistics::new, IntSummaryStatistics::accept, IntSummaryStatistics::combine);
+    }
+
+    @Override
+    public boolean anyMatch(IntPredicate predicate) {
+        return match(predicate);
+    }
+
+    @Override
+    public boolean allMatch(IntPredicate predicate) {
+        return !match(predicate.negate());
+    }
+
+    @Override
+    public boolean noneMatch(IntPredicate predicate) {
+        return !match(predicate);
+    }
+
+    /**
+     * 遇到满足条件的元素就结束
+     *
+     * @return 是否有元素满足条件
+     */
+    private boolean match(IntPredicate predicate) {
+        Objects.requireNonNull(predicate);
+        return terminal(() -> new IntTerminal<Boolean>(this) {
+            private boolean result;
+
+            @Override
+            public Boolean get() {
+                return result;
+            }
+
+            @Override
+            public void accept(int value) {
+                if (!result && predicate.test(value)) {
+                    result = true;
+                }
+            }
+
+            @Override
+            public boolean canFinish() {
+                return result;
+            }
+
+            @Override
+            public boolean isShortCircuit() {
+                return true;
+            }
+
+            @Override
+            public String toString() {
+                return "IntStage.TerminalStage.match";
+            }
+        }, (a, b) -> a || b);
+    }
+
+    @Override
+    public OptionalInt findFirst() {
+        return terminal(() -> new IntTerminal<OptionalInt>(this) {
+            private int result;
+            private boolean find;
+
+            @Override
+            public OptionalInt get() {
+                return find ? OptionalInt.of(result) : OptionalInt.empty();
+            }
+
+            @Override
+            public void accept(int value) {
+                if (!find) {
+                    result = value;
+                    find = true;
+                }
+            }
+
+            @Override
+            public boolean canFinish() {
+                return find;
+            }
+
+            @Override
+            public boolean isShortCircuit() {
+                return true;
+            }
+
+            @Override
+            public String toString() {
+                return "IntStage.TerminalStage.findFirst";
+            }
+        }, (a, b) -> a.isPresent() ? a : b);
+    }
+
+    //endregion 终止操作
+
+    /**
+     * 头节点
+     */
+    static class Head<S> extends IntPipeline<S> {
+        Head(Visitor<S> in) {
+            super(in);
+        }
+
+        @Override
+        Stage<S> wrapDownstream(Stage<Integer> nextStage) {
+            throw new AssertionError("should not go to here.");
+        }
+
+        @Override
+        public String toString() {
+            return "IntFlow.Head";
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.youthlin.example.stream;
+
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * 按关键字分组的流 {@link Flow#groupByKey(java.util.function.Function)} 返回
+ * <p>
+ * 聚合时每来一个元素 就发出它所在分组更新后的结果, 只保存每个关键字的聚合结果 不保存元素,
+ * 所以用在无限流上内存也只和关键字个数有关
+ *
+ * @param <K> 关键字类型
+ * @param <T> 元素类型
+ * @author youthlin.chen
+ * @date 2026-10-19 16:10
+ */
+public interface KeyedFlow<K, T> {
+
+    /**
+     * 增量聚合
+     *
+     * @param initial     每个分组的初始值
+     * @param accumulator 把元素加到分组当前的值上 返回新值
+     * @param <A>         聚合结果类型
+     * @return 每个元素对应一个(关键字, 更新后的值)
+     */
+    <A> Flow<Map.Entry<K, A>> aggregate(Supplier<? extends A> initial,
+            BiFunction<? super A, ? super T, ? extends A> accumulator);
+
+    /**
+     * 用收集器增量聚合 每次发出的是 finisher 作用在当前容器上的结果
+     * <p>
+     * <b>注意:</b> 每个分组只有一个容器 之后的元素会继续修改它.
+     * finisher 必须返回与容器无关的新值(如 {@code counting()} 的 Long, 或复制一份容器),
+     * 否则先发出的结果会被后来的元素改掉. 所以不接受 {@link Collector.Characteristics#IDENTITY_FINISH} 的收集器,
+     * 如 {@code toList()} 要写成 {@code collectingAndThen(toList(), ArrayList::new)}
+     *
+     * @param collector 收集器 finisher 会调用多次 每次应当返回新的对象
+     * @param <A>       收集器的容器类型
+     * @param <R>       聚合结果类型
+     * @return 每个元素对应一个(关键字, 更新后的结果)
+     * @throws IllegalArgumentException 收集器的 finisher 直接返回容器时
+     */
+    <A, R> Flow<Map.Entry<K, R>> aggregate(Collector<? super T, A, R> collector);
+
+}
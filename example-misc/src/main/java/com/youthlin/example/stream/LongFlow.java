@@ -0,0 +1,291 @@
+package com.youthlin.example.stream;
+
+import java.util.OptionalLong;
+import java.util.OptionalDouble;
+import java.util.LongSummaryStatistics;
+import java.util.function.BiConsumer;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongToIntFunction;
+import java.util.function.LongToDoubleFunction;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * long 元素的流 对应 {@link java.util.stream.LongStream}
+ * 各阶段之间直接传递 long 不装箱
+ *
+ * @author youthlin.chen
+ * @date 2026-10-19 11:10
+ * @see Flow#mapToLong
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public interface LongFlow {
+    //region 无状态操作
+
+    /**
+     * 过滤
+     *
+     * @param predicate 过滤条件
+     * @return 过滤掉不符合条件元素的流
+     */
+    LongFlow filter(LongPredicate predicate);
+
+    /**
+     * 转换
+     *
+     * @param mapper 转换方法
+     * @return 转换元素后的流
+     */
+    LongFlow map(LongUnaryOperator mapper);
+
+    /**
+     * 转换为对象
+     *
+     * @param mapper 转换方法
+     * @return 转换后的对象流
+     */
+    <R> Flow<R> mapToObj(LongFunction<? extends R> mapper);
+
+    /**
+     * 转换为 int
+     *
+     * @param mapper 转换方法
+     * @return 转换后的 int 流
+     */
+    IntFlow mapToInt(LongToIntFunction mapper);
+
+    /**
+     * 转换为 double
+     *
+     * @param mapper 转换方法
+     * @return 转换后的 double 流
+     */
+    DoubleFlow mapToDouble(LongToDoubleFunction mapper);
+
+    /**
+     * @return 每个元素转为 double 的流
+     */
+    DoubleFlow asDoubleFlow();
+
+    /**
+     * 装箱
+     *
+     * @return 元素装箱后的对象流
+     */
+    Flow<Long> boxed();
+
+    /**
+     * 访问每个元素
+     *
+     * @param action 访问时执行的动作
+     * @return 包含同样元素的流
+     */
+    LongFlow peek(LongConsumer action);
+
+    //endregion 无状态操作
+
+    //region 有状态操作
+
+    /**
+     * 去重
+     *
+     * @return 去重后的流
+     */
+    LongFlow distinct();
+
+    /**
+     * 从小到大排序
+     *
+     * @return 排序后的流
+     */
+    LongFlow sorted();
+
+    /**
+     * 限制元素个数
+     *
+     * @param maxSize 最大个数
+     * @return 限制个数后的流
+     */
+    LongFlow limit(long maxSize);
+
+    /**
+     * 跳过指定数目个元素
+     *
+     * @param n 指定个数
+     * @return 跳过指定个数后的流
+     */
+    LongFlow skip(long n);
+
+    //endregion 有状态操作
+
+    //region 执行方式
+
+    /**
+     * 并行执行
+     *
+     * @return 当前流
+     * @see Flow#parallel()
+     */
+    LongFlow parallel();
+
+    /**
+     * 串行执行
+     *
+     * @return 当前流
+     */
+    LongFlow sequential();
+
+    /**
+     * @return 终止操作时是否会并行执行
+     */
+    boolean isParallel();
+
+    //endregion 执行方式
+
+    //region 终止操作
+
+    /**
+     * 遍历当前流的元素
+     * 并行执行时不保证顺序
+     *
+     * @param action 对每个元素执行的操作
+     */
+    void forEach(LongConsumer action);
+
+    /**
+     * @return 包含流中元素的数组
+     */
+    long[] toArray();
+
+    /**
+     * 以指定单位值为初始值 将每个元素通过累加器加到初始值上
+     *
+     * @param identity 初始单位值
+     * @param op       累加器
+     * @return 结果
+     */
+    long reduce(long identity, LongBinaryOperator op);
+
+    /**
+     * 将每个元素通过累加器累加
+     *
+     * @param op 累加器
+     * @return 如果流中有元素则返回结果值
+     */
+    OptionalLong reduce(LongBinaryOperator op);
+
+    /**
+     * 收集元素
+     *
+     * @param supplier    生成 R 的初始值
+     * @param accumulator 累加器
+     * @param combiner    合并器 并行执行时合并每一份的结果
+     * @return 收集内容
+     */
+    <R> R collect(Supplier<R> supplier, ObjLongConsumer<R> accumulator, BiConsumer<R, R> combiner);
+
+    /**
+     * @return 所有元素的和
+     */
+    long sum();
+
+    /**
+     * @return 最小值如果有
+     */
+    OptionalLong min();
+
+    /**
+     * @return 最大值如果有
+     */
+    OptionalLong max();
+
+    /**
+     * @return 元素个数
+     */
+    long count();
+
+    /**
+     * @return 平均值 空的流返回 {@link OptionalDouble#empty()}
+     */
+    OptionalDouble average();
+
+    /**
+     * @return 个数 和 最小值 最大值 平均值
+     */
+    LongSummaryStatistics summaryStatistics();
+
+    /**
+     * 任意一个元素满足条件
+     *
+     * @param predicate 测试条件
+     * @return 任意一个元素满足条件 空的流返回 false
+     */
+    boolean anyMatch(LongPredicate predicate);
+
+    /**
+     * 所有元素满足条件
+     *
+     * @param predicate 测试条件
+     * @return 所有元素满足条件 空的流返回 true
+     */
+    boolean allMatch(LongPredicate predicate);
+
+    /**
+     * 没有元素满足条件
+     *
+     * @param predicate 测试条件
+     * @return 没有元素满足条件 空的流返回 true
+     */
+    boolean noneMatch(LongPredicate predicate);
+
+    /**
+     * @return 第一个元素如果有
+     */
+    OptionalLong findFirst();
+
+    //endregion 终止操作
+
+    //region 静态方法
+
+    /**
+     * 将数组转为流
+     *
+     * @param values 输入数组
+     * @return 数组对应的流
+     */
+    static LongFlow of(long... values) {
+        return new LongPipeline.Head<>(new PrimitiveVisitors.LongArray(values, 0, values.length));
+    }
+
+    /**
+     * @return 空的流
+     */
+    static LongFlow empty() {
+        return of();
+    }
+
+    /**
+     * @param from 起始值 包含
+     * @param to   结束值 不包含
+     * @return [from, to) 区间内每个值构成的流
+     */
+    static LongFlow range(long from, long to) {
+        return from >= to ? empty() : rangeClosed(from, to - 1);
+    }
+
+    /**
+     * @param from 起始值 包含
+     * @param to   结束值 包含
+     * @return [from, to] 区间内每个值构成的流
+     */
+    static LongFlow rangeClosed(long from, long to) {
+        return new LongPipeline.Head<>(new PrimitiveVisitors.LongRange(from, to));
+    }
+
+    //endregion 静态方法
+
+}
@@ -0,0 +1,775 @@
+package com.youthlin.example.stream;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.OptionalDouble;
+import java.util.LongSummaryStatistics;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongToIntFunction;
+import java.util.function.LongToDoubleFunction;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * {@link LongFlow} 的实现 元素以 long 在各阶段之间传递 不装箱
+ *
+ * @param <S> 流入元素类型
+ * @author youthlin.chen
+ * @date 2026-10-19 11:10
+ */
+abstract class LongPipeline<S> extends AbstractPipeline<S, Long> implements LongFlow {
+
+    LongPipeline(Visitor<?> in) {
+        super(in);
+    }
+
+    LongPipeline(AbstractPipeline<?, S> prev) {
+        super(prev);
+    }
+
+    //region 无状态操作
+
+    @Override
+    public LongFlow filter(LongPredicate predicate) {
+        Objects.requireNonNull(predicate);
+        return new LongPipeline<Long>(this) {
+            @Override
+            Stage<Long> wrapDownstream(Stage<Long> nextStage) {
+                return new Stage.ChainedLongStage<Long>(nextStage) {
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(Visitor.UNKNOWN_SIZE);
+                    }
+
+                    @Override
+                    public void accept(long value) {
+                        if (predicate.test(value)) {
+                            downstream.accept(value);
+                        }
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "LongStage.filter";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "LongFlow.filter";
+            }
+        };
+    }
+
+    @Override
+    public LongFlow map(LongUnaryOperator mapper) {
+        Objects.requireNonNull(mapper);
+        return new LongPipeline<Long>(this) {
+            @Override
+            Stage<Long> wrapDownstream(Stage<Long> nextStage) {
+                return new Stage.ChainedLongStage<Long>(nextStage) {
+                    @Override
+                    public void accept(long value) {
+                        downstream.accept(mapper.applyAsLong(value));
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "LongStage.map";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "LongFlow.map";
+            }
+        };
+    }
+
+    @Override
+    public <R> Flow<R> mapToObj(LongFunction<? extends R> mapper) {
+        Objects.requireNonNull(mapper);
+        return new AbstractFlow<Long, R>(this) {
+            @Override
+            Stage<Long> wrapDownstream(Stage<R> nextStage) {
+                return new Stage.ChainedLongStage<R>(nextStage) {
+                    @Override
+                    public void accept(long value) {
+                        downstream.accept(mapper.apply(value));
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "LongStage.mapToObj";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "LongFlow.mapToObj";
+            }
+        };
+    }
+
+    @Override
+    public IntFlow mapToInt(LongToIntFunction mapper) {
+        Objects.requireNonNull(mapper);
+        return new IntPipeline<Long>(this) {
+            @Override
+            Stage<Long> wrapDownstream(Stage<Integer> nextStage) {
+                return new Stage.ChainedLongStage<Integer>(nextStage) {
+                    @Override
+                    public void accept(long value) {
+                        downstream.accept(mapper.applyAsInt(value));
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "LongStage.mapToInt";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "LongFlow.mapToInt";
+            }
+        };
+    }
+
+    @Override
+    public DoubleFlow mapToDouble(LongToDoubleFunction mapper) {
+        Objects.requireNonNull(mapper);
+        return new DoublePipeline<Long>(this) {
+            @Override
+            Stage<Long> wrapDownstream(Stage<Double> nextStage) {
+                return new Stage.ChainedLongStage<Double>(nextStage) {
+                    @Override
+                    public void accept(long value) {
+                        downstream.accept(mapper.applyAsDouble(value));
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "LongStage.mapToDouble";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "LongFlow.mapToDouble";
+            }
+        };
+    }
+
+    @Override
+    public DoubleFlow asDoubleFlow() {
+        return mapToDouble(value -> value);
+    }
+
+    @Override
+    public Flow<Long> boxed() {
+        return mapToObj(Long::valueOf);
+    }
+
+    @Override
+    public LongFlow peek(LongConsumer action) {
+        Objects.requireNonNull(action);
+        return new LongPipeline<Long>(this) {
+            @Override
+            Stage<Long> wrapDownstream(Stage<Long> nextStage) {
+                return new Stage.ChainedLongStage<Long>(nextStage) {
+                    @Override
+                    public void accept(long value) {
+                        action.accept(value);
+                        downstream.accept(value);
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "LongStage.peek";
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return "LongFlow.peek";
+            }
+        };
+    }
+
+    //endregion 无状态操作
+
+    //region 有状态操作
+
+    @Override
+    public LongFlow distinct() {
+        return new LongPipeline<Long>(this) {
+            @Override
+            Stage<Long> wrapDownstream(Stage<Long> nextStage) {
+                return new Stage.ChainedLongStage<Long>(nextStage) {
+                    private Set<Long> set;
+
+                    @Override
+                    public void begin(long size) {
+                        set = new HashSet<>();
+                        downstream.begin(Visitor.UNKNOWN_SIZE);
+                    }
+
+                    @Override
+                    public void accept(long value) {
+                        if (set.add(value)) {
+                            downstream.accept(value);
+                        }
+                    }
+
+                    @Override
+                    public void end() {
+                        set = null;
+                        downstream.end();
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "LongStage.distinct";
+                    }
+                };
+            }
+
+            @Override
+            boolean isStateful() {
+                return true;
+            }
+
+            @Override
+            Object[] opEvaluateParallel() {
+                return LongPipeline.this.distinctParallel();
+            }
+
+            @Override
+            public String toString() {
+                return "LongFlow.distinct";
+            }
+        };
+    }
+
+    @Override
+    public LongFlow sorted() {
+        return new LongPipeline<Long>(this) {
+            @Override
+            Stage<Long> wrapDownstream(Stage<Long> nextStage) {
+                return new Stage.ChainedLongStage<Long>(nextStage) {
+                    private long[] array;
+                    private int count;
+
+                    @Override
+                    public void begin(long size) {
+                        Preconditions.checkArgument(size < MAX_ARRAY_SIZE,
+                                "max array size exceed: %s", MAX_ARRAY_SIZE);
+                        array = new long[size > 0 ? (int) size : 16];
+                        count = 0;
+                    }
+
+                    @Override
+                    public void accept(long value) {
+                        if (count == array.length) {
+                            Preconditions.checkArgument(count < MAX_ARRAY_SIZE,
+                                    "max array size exceed: %s", MAX_ARRAY_SIZE);
+                            array = Arrays.copyOf(array, (int) Math.min((long) count << 1, MAX_ARRAY_SIZE));
+                        }
+                        array[count++] = value;
+                    }
+
+                    @Override
+                    public void end() {
+                        Arrays.sort(array, 0, count);
+                        downstream.begin(count);
+                        for (int i = 0; i < count && !canFinish(); i++) {
+                            downstream.accept(array[i]);
+                        }
+                        array = null;
+                        downstream.end();
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "LongStage.sorted";
+                    }
+                };
+            }
+
+            @Override
+            boolean isStateful() {
+                return true;
+            }
+
+            @Override
+            Object[] opEvaluateParallel() {
+                return LongPipeline.this.sortedParallel(null);
+            }
+
+            @Override
+            public String toString() {
+                return "LongFlow.sorted";
+            }
+        };
+    }
+
+    @Override
+    public LongFlow limit(long maxSize) {
+        Preconditions.checkArgument(maxSize >= 0);
+        return new LongPipeline<Long>(this) {
+            @Override
+            Stage<Long> wrapDownstream(Stage<Long> nextStage) {
+                return new Stage.ChainedLongStage<Long>(nextStage) {
+                    private long count = 0;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(size >= 0 ? Math.min(size, maxSize) : Visitor.UNKNOWN_SIZE);
+                    }
+
+                    @Override
+                    public void accept(long value) {
+                        downstream.accept(value);
+                        count++;
+                    }
+
+                    @Override
+                    public boolean canFinish() {
+                        return count == maxSize || downstream.canFinish();
+                    }
+
+                    @Override
+                    public boolean isShortCircuit() {
+                        return true;
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "LongStage.limit";
+                    }
+                };
+            }
+
+            @Override
+            boolean isStateful() {
+                return true;
+            }
+
+            @Override
+            Object[] opEvaluateParallel() {
+                return LongPipeline.this.limitParallel(maxSize);
+            }
+
+            @Override
+            public String toString() {
+                return "LongFlow.limit";
+            }
+        };
+    }
+
+    @Override
+    public LongFlow skip(long n) {
+        Preconditions.checkArgument(n >= 0);
+        return new LongPipeline<Long>(this) {
+            @Override
+            Stage<Long> wrapDownstream(Stage<Long> nextStage) {
+                return new Stage.ChainedLongStage<Long>(nextStage) {
+                    private long count = 0;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(size >= 0 ? Math.max(size - n, 0) : Visitor.UNKNOWN_SIZE);
+                    }
+
+                    @Override
+                    public void accept(long value) {
+                        if (count++ >= n) {
+                            downstream.accept(value);
+                        }
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "LongStage.skip";
+                    }
+                };
+            }
+
+            @Override
+            boolean isStateful() {
+                return true;
+            }
+
+            @Override
+            Object[] opEvaluateParallel() {
+                return LongPipeline.this.skipParallel(n);
+            }
+
+            @Override
+            public String toString() {
+                return "LongFlow.skip";
+            }
+        };
+    }
+
+    //endregion 有状态操作
+
+    //region 并行
+
+    @Override
+    public LongFlow parallel() {
+        setParallel(true);
+        return this;
+    }
+
+    @Override
+    public LongFlow sequential() {
+        setParallel(false);
+        return this;
+    }
+
+    //endregion 并行
+
+    //region 终止操作
+
+    /**
+     * 基本类型流的终止操作
+     *
+     * @param <R> 该终止操作的返回类型
+     */
+    abstract static class LongTerminal<R> extends AbstractTerminal<Long, R> implements Stage.LongStage {
+        LongTerminal(AbstractPipeline<?, Long> lastFlow) {
+            super(lastFlow);
+        }
+    }
+
+    @Override
+    public void forEach(LongConsumer action) {
+        Objects.requireNonNull(action);
+        terminal(() -> new LongTerminal<Void>(this) {
+            @Override
+            public Void get() {
+                return null;
+            }
+
+            @Override
+            public void accept(long value) {
+                action.accept(value);
+            }
+
+            @Override
+            public String toString() {
+                return "LongStage.TerminalStage.forEach";
+            }
+        }, (a, b) -> null);
+    }
+
+    @Override
+    public long[] toArray() {
+        return terminal(() -> new LongTerminal<long[]>(this) {
+            private long[] array;
+            private int count;
+
+            @Override
+            public long[] get() {
+                long[] result = count == array.length ? array : Arrays.copyOf(array, count);
+                array = null;
+                return result;
+            }
+
+            @Override
+            public void begin(long size) {
+                Preconditions.checkArgument(size < MAX_ARRAY_SIZE, "max array size exceed: %s", MAX_ARRAY_SIZE);
+                array = new long[size >= 0 ? (int) size : 16];
+            }
+
+            @Override
+            public void accept(long value) {
+                if (count == array.length) {
+                    Preconditions.checkState(count < MAX_ARRAY_SIZE, "max array size exceed: %s", MAX_ARRAY_SIZE);
+                    array = Arrays.copyOf(array, (int) Math.min(Math.max((long) count << 1, 16), MAX_ARRAY_SIZE));
+                }
+                array[count++] = value;
+            }
+
+            @Override
+            public String toString() {
+                return "LongStage.TerminalStage.toArray";
+            }
+        }, (a, b) -> {
+            long[] result = Arrays.copyOf(a, a.length + b.length);
+            System.arraycopy(b, 0, result, a.length, b.length);
+            return result;
+        });
+    }
+
+    @Override
+    public long reduce(long identity, LongBinaryOperator op) {
+        Objects.requireNonNull(op);
+        return terminal(() -> new LongTerminal<Long>(this) {
+            private long result;
+
+            @Override
+            public Long get() {
+                return result;
+            }
+
+            @Override
+            public void begin(long size) {
+                result = identity;
+            }
+
+            @Override
+            public void accept(long value) {
+                result = op.applyAsLong(result, value);
+            }
+
+            @Override
+            public String toString() {
+                return "LongStage.TerminalStage.reduce";
+            }
+        }, (a, b) -> op.applyAsLong(a, b));
+    }
+
+    @Override
+    public OptionalLong reduce(LongBinaryOperator op) {
+        Objects.requireNonNull(op);
+        return terminal(() -> new LongTerminal<OptionalLong>(this) {
+            private long result;
+            private boolean hasElement;
+
+            @Override
+            public OptionalLong get() {
+                return hasElement ? OptionalLong.of(result) : OptionalLong.empty();
+            }
+
+            @Override
+            public void accept(long value) {
+                if (hasElement) {
+                    result = op.applyAsLong(result, value);
+                } else {
+                    result = value;
+                    hasElement = true;
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "LongStage.TerminalStage.reduce";
+            }
+        }, (a, b) -> a.isPresent() && b.isPresent() ? OptionalLong.of(op.applyAsLong(a.getAsLong(), b.getAsLong()))
+                : a.isPresent() ? a : b);
+    }
+
+    @Override
+    public <R> R collect(Supplier<R> supplier, ObjLongConsumer<R> accumulator, BiConsumer<R, R> combiner) {
+        Objects.requireNonNull(supplier);
+        Objects.requireNonNull(accumulator);
+        Objects.requireNonNull(combiner);
+        return terminal(() -> new LongTerminal<R>(this) {
+            private R result;
+
+            @Override
+            public R get() {
+                R ret = result;
+                result = null;
+                return ret;
+            }
+
+            @Override
+            public void begin(long size) {
+                result = supplier.get();
+            }
+
+            @Override
+            public void accept(long value) {
+                accumulator.accept(result, value);
+            }
+
+            @Override
+            public String toString() {
+                return "LongStage.TerminalStage.collect";
+            }
+        }, (a, b) -> {
+            combiner.accept(a, b);
+            return a;
+        });
+    }
+
+    @Override
+    public long sum() {
+        return reduce(0, Long::sum);
+    }
+
+    @Override
+    public OptionalLong min() {
+        return reduce(Math::min);
+    }
+
+    @Override
+    public OptionalLong max() {
+        return reduce(Math::max);
+    }
+
+    @Override
+    public long count() {
+        return terminal(() -> new LongTerminal<Long>(this) {
+            private long count;
+
+            @Override
+            public Long get() {
+                return count;
+            }
+
+            @Override
+            public void accept(long value) {
+                count++;
+            }
+
+            @Override
+            public String toString() {
+                return "LongStage.TerminalStage.count";
+            }
+        }, Long::sum);
+    }
+
+    @Override
+    public OptionalDouble average() {
+        LongSummaryStatistics statistics = summaryStatistics();
+        return statistics.getCount() > 0 ? OptionalDouble.of(statistics.getAverage()) : OptionalDouble.empty();
+    }
+
+    @Override
+    public LongSummaryStatistics summaryStatistics() {
+        return collect(LongSummaryStatistics::new, LongSummaryStatistics::accept, LongSummaryStatistics::combine);
+    }
+
+    @Override
+    public boolean anyMatch(LongPredicate predicate) {
+        return match(predicate);
+    }
+
+    @Override
+    public boolean allMatch(LongPredicate predicate) {
+        return !match(predicate.negate());
+    }
+
+    @Override
+    public boolean noneMatch(LongPredicate predicate) {
+        return !match(predicate);
+    }
+
+    /**
+     * 遇到满足条件的元素就结束
+     *
+     * @return 是否有元素满足条件
+     */
+    private boolean match(LongPredicate predicate) {
+        Objects.requireNonNull(predicate);
+        return terminal(() -> new LongTerminal<Boolean>(this) {
+            private boolean result;
+
+            @Override
+            public Boolean get() {
+                return result;
+            }
+
+            @Override
+            public void accept(long value) {
+                if (!result && predicate.test(value)) {
+                    result = true;
+                }
+            }
+
+            @Override
+            public boolean canFinish() {
+                return result;
+            }
+
+            @Override
+            public boolean isShortCircuit() {
+                return true;
+            }
+
+            @Override
+            public String toString() {
+                return "LongStage.TerminalStage.match";
+            }
+        }, (a, b) -> a || b);
+    }
+
+    @Override
+    public OptionalLong findFirst() {
+        return terminal(() -> new LongTerminal<OptionalLong>(this) {
+            private long result;
+            private boolean find;
+
+            @Override
+            public OptionalLong get() {
+                return find ? OptionalLong.of(result) : OptionalLong.empty();
+            }
+
+            @Override
+            public void accept(long value) {
+                if (!find) {
+                    result = value;
+                    find = true;
+                }
+            }
+
+            @Override
+            public boolean canFinish() {
+                return find;
+            }
+
+            @Override
+            public boolean isShortCircuit() {
+                return true;
+            }
+
+            @Override
+            public String toString() {
+                return "LongStage.TerminalStage.findFirst";
+            }
+        }, (a, b) -> a.isPresent() ? a : b);
+    }
+
+    //endregion 终止操作
+
+    /**
+     * 头节点
+     */
+    static class Head<S> extends LongPipeline<S> {
+        Head(Visitor<S> in) {
+            super(in);
+        }
+
+        @Override
+        Stage<S> wrapDownstream(Stage<Long> nextStage) {
+            throw new AssertionError("should not go to here.");
+        }
+
+        @Override
+        public String toString() {
+            return "LongFlow.Head";
+        }
+    }
+
+}
@@ -0,0 +1,261 @@
+package com.youthlin.example.stream;
+
+import java.util.NoSuchElementException;
+
+/**
+ * 基本类型的数组和区间迭代器
+ *
+ * @author youthlin.chen
+ * @date 2026-10-19 11:00
+ */
+final class PrimitiveVisitors {
+    private PrimitiveVisitors() {
+    }
+
+    /**
+     * int 数组 可以对半拆分
+     */
+    static final class IntArray implements Visitor.OfInt {
+        private final int[] array;
+        private final int fence;
+        private int index;
+
+        IntArray(int[] array, int from, int to) {
+            this.array = array;
+            this.index = from;
+            this.fence = to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < fence;
+        }
+
+        @Override
+        public int nextInt() {
+            if (index >= fence) {
+                throw new NoSuchElementException();
+            }
+            return array[index++];
+        }
+
+        @Override
+        public long getSizeIfKnown() {
+            return fence - index;
+        }
+
+        @Override
+        public Visitor<Integer> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            IntArray prefix = new IntArray(array, index, mid);
+            index = mid;
+            return prefix;
+        }
+    }
+
+    /**
+     * long 数组 可以对半拆分
+     */
+    static final class LongArray implements Visitor.OfLong {
+        private final long[] array;
+        private final int fence;
+        private int index;
+
+        LongArray(long[] array, int from, int to) {
+            this.array = array;
+            this.index = from;
+            this.fence = to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < fence;
+        }
+
+        @Override
+        public long nextLong() {
+            if (index >= fence) {
+                throw new NoSuchElementException();
+            }
+            return array[index++];
+        }
+
+        @Override
+        public long getSizeIfKnown() {
+            return fence - index;
+        }
+
+        @Override
+        public Visitor<Long> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            LongArray prefix = new LongArray(array, index, mid);
+            index = mid;
+            return prefix;
+        }
+    }
+
+    /**
+     * double 数组 可以对半拆分
+     */
+    static final class DoubleArray implements Visitor.OfDouble {
+        private final double[] array;
+        private final int fence;
+        private int index;
+
+        DoubleArray(double[] array, int from, int to) {
+            this.array = array;
+            this.index = from;
+            this.fence = to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < fence;
+        }
+
+        @Override
+        public double nextDouble() {
+            if (index >= fence) {
+                throw new NoSuchElementException();
+            }
+            return array[index++];
+        }
+
+        @Override
+        public long getSizeIfKnown() {
+            return fence - index;
+        }
+
+        @Override
+        public Visitor<Double> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            DoubleArray prefix = new DoubleArray(array, index, mid);
+            index = mid;
+            return prefix;
+        }
+    }
+
+    /**
+     * [from, last] 的 int 区间 可以对半拆分
+     */
+    static final class IntRange implements Visitor.OfInt {
+        private final int last;
+        private int from;
+        /**
+         * last 是最大值时无法用 from &gt; last 表示已经结束
+         */
+        private boolean done;
+
+        IntRange(int from, int last) {
+            this.from = from;
+            this.last = last;
+            this.done = from > last;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !done;
+        }
+
+        @Override
+        public int nextInt() {
+            if (done) {
+                throw new NoSuchElementException();
+            }
+            int value = from;
+            if (value == last) {
+                done = true;
+            } else {
+                from++;
+            }
+            return value;
+        }
+
+        @Override
+        public long getSizeIfKnown() {
+            if (done) {
+                return 0;
+            }
+            long size = (long) last - from + 1;
+            return size > 0 ? size : UNKNOWN_SIZE;
+        }
+
+        @Override
+        public Visitor<Integer> trySplit() {
+            if (done || from == last) {
+                return null;
+            }
+            int mid = from + ((last - from) >>> 1);
+            IntRange prefix = new IntRange(from, mid);
+            from = mid + 1;
+            return prefix;
+        }
+    }
+
+    /**
+     * [from, last] 的 long 区间 可以对半拆分
+     */
+    static final class LongRange implements Visitor.OfLong {
+        private final long last;
+        private long from;
+        /**
+         * last 是最大值时无法用 from &gt; last 表示已经结束
+         */
+        private boolean done;
+
+        LongRange(long from, long last) {
+            this.from = from;
+            this.last = last;
+            this.done = from > last;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !done;
+        }
+
+        @Override
+        public long nextLong() {
+            if (done) {
+                throw new NoSuchElementException();
+            }
+            long value = from;
+            if (value == last) {
+                done = true;
+            } else {
+                from++;
+            }
+            return value;
+        }
+
+        @Override
+        public long getSizeIfKnown() {
+            if (done) {
+                return 0;
+            }
+            long size = last - from + 1;
+            return size > 0 ? size : UNKNOWN_SIZE;
+        }
+
+        @Override
+        public Visitor<Long> trySplit() {
+            if (done || from == last) {
+                return null;
+            }
+            long mid = from + ((last - from) >>> 1);
+            LongRange prefix = new LongRange(from, mid);
+            from = mid + 1;
+            return prefix;
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.youthlin.example.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 按需拉取的迭代器: 需要元素时才从源取一个元素经过整串操作, 直到得到结果
+ * <p>
+ * 最后的操作在收到元素后就表示可以结束({@link Stage#canFinish()}), flatMap 等操作据此暂停推送,
+ * 剩下的在下次拉取时通过 {@link Stage#resume()} 继续, 所以子流是无限流也没关系.
+ * 源取完后调用 end, 此时 sorted 等操作一次推出全部元素. 对应 Java8 的 {@code StreamSpliterators.WrappingSpliterator}
+ *
+ * @param <T> 流出的元素类型
+ * @author youthlin.chen
+ * @date 2026-10-19 11:50
+ */
+final class PullVisitor<T> implements Visitor<T> {
+    private final Visitor<?> source;
+    private final AbstractPipeline<?, T> flow;
+    private final List<T> buffer = new ArrayList<>();
+    private int index;
+    private Stage<Object> stage;
+    private boolean ending;
+    private boolean finished;
+
+    PullVisitor(Visitor<?> source, AbstractPipeline<?, T> flow) {
+        this.source = source;
+        this.flow = flow;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (index < buffer.size()) {
+            return true;
+        }
+        buffer.clear();
+        index = 0;
+        if (stage == null) {
+            stage = flow.wrapStage(new BufferStage(), null);
+            stage.begin(source.getSizeIfKnown());
+        }
+        while (buffer.isEmpty() && !finished) {
+            if (stage.resume()) {
+                continue;
+            }
+            if (stage.canFinish() || !source.tryAdvance(stage)) {
+                finished = true;
+                ending = true;
+                stage.end();
+            }
+        }
+        return !buffer.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return buffer.get(index++);
+    }
+
+    private class BufferStage implements Stage<T> {
+        @Override
+        public void accept(T element) {
+            buffer.add(element);
+        }
+
+        @Override
+        public boolean canFinish() {
+            return !ending && !buffer.isEmpty();
+        }
+
+        @Override
+        public boolean isShortCircuit() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "Stage.pull";
+        }
+    }
+
+}
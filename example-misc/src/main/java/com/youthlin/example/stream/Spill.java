@@ -0,0 +1,555 @@
+package com.youthlin.example.stream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * sorted/distinct 超出内存限制时写临时文件
+ * <ul>
+ * <li>{@link Sorter} 外部排序: 内存满了就排好序写成一个文件, 结束时多路归并</li>
+ * <li>{@link Distinct} 内存满了之后按哈希分到多个文件, 结束时每个文件单独去重(还放不下就再分), 再按出现顺序归并</li>
+ * </ul>
+ * 写完的文件先关闭 归并时才打开; 超过 {@link #MAX_FAN_IN} 个文件时分多趟归并, 同时打开的文件数有上限
+ *
+ * @author youthlin.chen
+ * @date 2026-10-19 12:30
+ */
+final class Spill {
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * 每次按哈希分成几个文件
+     */
+    private static final int PARTITIONS = 16;
+    /**
+     * 最多再分几次 哈希都一样时分不开 只能放内存
+     */
+    private static final int MAX_DEPTH = 4;
+    /**
+     * 一次最多归并几个文件 每个文件一个读缓冲
+     */
+    static final int MAX_FAN_IN = 64;
+
+    private Spill() {
+    }
+
+    /**
+     * 外部排序 相等的元素保持原来的顺序
+     *
+     * @param <T> 元素类型
+     */
+    static final class Sorter<T> implements Closeable {
+        private final Comparator<? super T> comparator;
+        private final SpillOptions<T> options;
+        private final List<File> files = new ArrayList<>();
+        private final List<FileRun<?>> readers = new ArrayList<>();
+        private List<Run> runs = new ArrayList<>();
+        private List<T> list = new ArrayList<>();
+
+        Sorter(Comparator<? super T> comparator, SpillOptions<T> options) {
+            this.comparator = comparator;
+            this.options = options;
+        }
+
+        void add(T element) {
+            list.add(element);
+            if (list.size() >= options.getMaxInMemory()) {
+                list.sort(comparator);
+                try {
+                    RunWriter<T> writer = new RunWriter<>(options, options.getCodec(), "flow-sorted", files);
+                    for (T t : list) {
+                        writer.write(t);
+                    }
+                    runs.add(writer.finish());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                list.clear();
+            }
+        }
+
+        /**
+         * 按顺序交给下游 直到下游可以结束
+         */
+        void drainTo(Stage<? super T> downstream) {
+            try {
+                list.sort(comparator);
+                Visitor<T> in = new VisitorImpl<>(list.iterator());
+                if (!runs.isEmpty()) {
+                    // 内存中的元素最后出现 作为最后一路
+                    in = merge(runs, in, comparator, options, options.getCodec(), "flow-sorted", files, readers);
+                }
+                while (!downstream.canFinish() && in.tryAdvance(downstream)) {
+                    // 逐个交给下游
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                close();
+            }
+        }
+
+        @Override
+        public void close() {
+            list = null;
+            runs = null;
+            closeAll(readers, files);
+        }
+    }
+
+    /**
+     * 去重 每个元素第一次出现的位置不变
+     * 内存放得下时第一次出现就交给下游, 放不下之后的元素先分到文件中 结束时再交给下游
+     *
+     * @param <T> 元素类型
+     */
+    static final class Distinct<T> implements Closeable {
+        private final SpillOptions<T> options;
+        private final ElementCodec<Seq<T>> codec;
+        private final List<File> files = new ArrayList<>();
+        private final List<FileRun<?>> readers = new ArrayList<>();
+        /**
+         * 每个分区去重后的结果 按出现顺序
+         */
+        private final List<Run> runs = new ArrayList<>();
+        private Set<T> set = new HashSet<>();
+        private List<RunWriter<Seq<T>>> partitions;
+        private long seq;
+
+        Distinct(SpillOptions<T> options) {
+            this.options = options;
+            this.codec = seqCodec(options.getCodec());
+        }
+
+        /**
+         * @return 是否可以马上交给下游
+         */
+        boolean add(T element) {
+            try {
+                if (partitions == null) {
+                    if (set.contains(element)) {
+                        return false;
+                    }
+                    if (set.size() < options.getMaxInMemory()) {
+                        set.add(element);
+                        return true;
+                    }
+                    /*已经交给下游的元素也要分到文件中 seq 为 -1 用于去掉后面重复的*/
+                    partitions = newPartitions();
+                    for (T t : set) {
+                        partitions.get(partition(t, 0)).write(new Seq<>(-1, t));
+                    }
+                    set = null;
+                }
+                partitions.get(partition(element, 0)).write(new Seq<>(seq++, element));
+                return false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * 把放在文件中的元素按出现顺序交给下游
+         */
+        void drainTo(Stage<? super T> downstream) {
+            try {
+                if (partitions == null) {
+                    return;
+                }
+                List<Run> written = finishAll(partitions);
+                partitions = null;
+                for (Run partition : written) {
+                    dedup(partition, 1);
+                }
+                Visitor<Seq<T>> in = merge(runs, null, Comparator.comparingLong(s -> s.seq), options, codec,
+                        "flow-distinct", files, readers);
+                while (!downstream.canFinish() && in.hasNext()) {
+                    downstream.accept(in.next().element);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * 一个分区去重 结果按出现顺序写入一个文件; 内存放不下时再分
+         */
+        private void dedup(Run partition, int depth) throws IOException {
+            Set<T> seen = new HashSet<>();
+            RunWriter<Seq<T>> out = new RunWriter<>(options, codec, "flow-distinct", files);
+            boolean tooMany = false;
+            try (FileRun<Seq<T>> in = partition.open(codec)) {
+                while (in.hasNext()) {
+                    Seq<T> record = in.next();
+                    if (seen.size() >= options.getMaxInMemory() && depth < MAX_DEPTH
+                            && !seen.contains(record.element)) {
+                        tooMany = true;
+                        break;
+                    }
+                    if (seen.add(record.element) && record.seq >= 0) {
+                        out.write(record);
+                    }
+                }
+            }
+            if (tooMany) {
+                out.delete();
+                repartition(partition, depth);
+                return;
+            }
+            partition.delete();
+            runs.add(out.finish());
+        }
+
+        private void repartition(Run partition, int depth) throws IOException {
+            List<RunWriter<Seq<T>>> children = newPartitions();
+            try (FileRun<Seq<T>> in = partition.open(codec)) {
+                while (in.hasNext()) {
+                    Seq<T> record = in.next();
+                    children.get(partition(record.element, depth)).write(record);
+                }
+            } catch (IOException | RuntimeException e) {
+                for (RunWriter<Seq<T>> child : children) {
+                    child.closeQuietly();
+                }
+                throw e;
+            }
+            partition.delete();
+            // 先全部写完关闭 再逐个去重 同时打开的文件不会随层数增加
+            for (Run child : finishAll(children)) {
+                dedup(child, depth + 1);
+            }
+        }
+
+        private List<RunWriter<Seq<T>>> newPartitions() throws IOException {
+            List<RunWriter<Seq<T>>> list = new ArrayList<>(PARTITIONS);
+            for (int i = 0; i < PARTITIONS; i++) {
+                list.add(new RunWriter<>(options, codec, "flow-distinct", files));
+            }
+            return list;
+        }
+
+        @Override
+        public void close() {
+            set = null;
+            if (partitions != null) {
+                for (RunWriter<Seq<T>> partition : partitions) {
+                    partition.closeQuietly();
+                }
+            }
+            closeAll(readers, files);
+        }
+    }
+
+    /**
+     * 各路归并成一个 Visitor; 超过 {@link #MAX_FAN_IN} 路时先把相邻的每 MAX_FAN_IN 路归并成一个文件, 直到不超过为止.
+     * 只归并相邻的路 相等时排在前面的路先出 所以保持原来的顺序
+     *
+     * @param runs    已排好序的各个文件 归并后删除
+     * @param last    排在最后的一路(内存中的元素) 可以为 null
+     * @param readers 最后一趟打开的文件 由调用方关闭
+     */
+    private static <T> Visitor<T> merge(List<Run> runs, Visitor<T> last, Comparator<? super T> comparator,
+            SpillOptions<?> options, ElementCodec<T> codec, String prefix, List<File> files,
+            List<FileRun<?>> readers) throws IOException {
+        int fanIn = last == null ? MAX_FAN_IN : MAX_FAN_IN - 1;
+        while (runs.size() > fanIn) {
+            List<Run> next = new ArrayList<>();
+            for (int from = 0; from < runs.size(); from += MAX_FAN_IN) {
+                List<Run> group = runs.subList(from, Math.min(from + MAX_FAN_IN, runs.size()));
+                if (group.size() == 1) {
+                    next.add(group.get(0));
+                    continue;
+                }
+                List<FileRun<?>> opened = new ArrayList<>(group.size());
+                try {
+                    List<Visitor<T>> in = new ArrayList<>(group.size());
+                    for (Run run : group) {
+                        FileRun<T> reader = run.open(codec);
+                        opened.add(reader);
+                        in.add(reader);
+                    }
+                    RunWriter<T> writer = new RunWriter<>(options, codec, prefix, files);
+                    try {
+                        Visitor<T> merged = new MergeVisitor<>(in, comparator);
+                        while (merged.hasNext()) {
+                            writer.write(merged.next());
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        writer.delete();
+                        throw e;
+                    }
+                    next.add(writer.finish());
+                } finally {
+                    for (FileRun<?> reader : opened) {
+                        reader.close();
+                    }
+                }
+                for (Run run : group) {
+                    run.delete();
+                }
+            }
+            runs = next;
+        }
+        List<Visitor<T>> all = new ArrayList<>(runs.size() + 1);
+        for (Run run : runs) {
+            FileRun<T> reader = run.open(codec);
+            readers.add(reader);
+            all.add(reader);
+        }
+        if (last != null) {
+            all.add(last);
+        }
+        return new MergeVisitor<>(all, comparator);
+    }
+
+    /**
+     * 写完并关闭 出错时也关闭其余的
+     */
+    private static <T> List<Run> finishAll(List<RunWriter<T>> writers) throws IOException {
+        List<Run> list = new ArrayList<>(writers.size());
+        try {
+            for (RunWriter<T> writer : writers) {
+                list.add(writer.finish());
+            }
+        } finally {
+            for (RunWriter<T> writer : writers) {
+                writer.closeQuietly();
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 每层用不同的哈希 上一层分到同一个文件的元素这一层能分开
+     */
+    private static int partition(Object element, int depth) {
+        int h = Objects.hashCode(element) * 0x9E3779B9 + depth * 0x7F4A7C15;
+        h ^= h >>> 15;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return (h & Integer.MAX_VALUE) % PARTITIONS;
+    }
+
+    private static void closeAll(List<? extends FileRun<?>> readers, List<File> files) {
+        for (FileRun<?> reader : readers) {
+            reader.close();
+        }
+        readers.clear();
+        for (File file : files) {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+        files.clear();
+    }
+
+    /**
+     * 元素和它第一次出现的序号
+     */
+    private static final class Seq<T> {
+        private final long seq;
+        private final T element;
+
+        private Seq(long seq, T element) {
+            this.seq = seq;
+            this.element = element;
+        }
+    }
+
+    private static <T> ElementCodec<Seq<T>> seqCodec(ElementCodec<T> codec) {
+        return new ElementCodec<Seq<T>>() {
+            @Override
+            public void write(DataOutput out, Seq<T> element) throws IOException {
+                out.writeLong(element.seq);
+                codec.write(out, element.element);
+            }
+
+            @Override
+            public Seq<T> read(DataInput in) throws IOException {
+                long seq = in.readLong();
+                return new Seq<>(seq, codec.read(in));
+            }
+        };
+    }
+
+    /**
+     * 写一个临时文件
+     */
+    private static final class RunWriter<T> {
+        private final File file;
+        private final ElementCodec<T> codec;
+        private final DataOutputStream out;
+        private long count;
+
+        RunWriter(SpillOptions<?> options, ElementCodec<T> codec, String prefix, List<File> files)
+                throws IOException {
+            this.file = options.createTempFile(prefix);
+            files.add(file);
+            this.codec = codec;
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+        }
+
+        void write(T element) throws IOException {
+            codec.write(out, element);
+            count++;
+        }
+
+        /**
+         * 写完并关闭 读取时再打开
+         */
+        Run finish() throws IOException {
+            out.close();
+            return new Run(file, count);
+        }
+
+        void closeQuietly() {
+            try {
+                out.close();
+            } catch (IOException ignore) {
+            }
+        }
+
+        void delete() {
+            closeQuietly();
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    /**
+     * 写完的临时文件 不占用文件句柄
+     */
+    private static final class Run {
+        private final File file;
+        private final long count;
+
+        Run(File file, long count) {
+            this.file = file;
+            this.count = count;
+        }
+
+        <T> FileRun<T> open(ElementCodec<T> codec) throws IOException {
+            return new FileRun<>(file, count, codec);
+        }
+
+        void delete() {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    /**
+     * 读一个临时文件
+     */
+    private static final class FileRun<T> implements Visitor<T>, Closeable {
+        private final ElementCodec<T> codec;
+        private final DataInputStream in;
+        private long remaining;
+
+        FileRun(File file, long count, ElementCodec<T> codec) throws IOException {
+            this.codec = codec;
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+            this.remaining = count;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public T next() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            try {
+                return codec.read(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public long getSizeIfKnown() {
+            return remaining;
+        }
+
+        @Override
+        public void close() {
+            remaining = 0;
+            try {
+                in.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    /**
+     * 多路归并 各路都已按 comparator 排好序; 相等时排在前面的路先出
+     */
+    private static final class MergeVisitor<T> implements Visitor<T> {
+        private final PriorityQueue<Cursor<T>> queue;
+
+        MergeVisitor(List<Visitor<T>> runs, Comparator<? super T> comparator) {
+            Comparator<Cursor<T>> byValue = (a, b) -> comparator.compare(a.value, b.value);
+            queue = new PriorityQueue<>(Math.max(runs.size(), 1), byValue.thenComparingInt(c -> c.order));
+            for (int i = 0; i < runs.size(); i++) {
+                Visitor<T> run = runs.get(i);
+                if (run.hasNext()) {
+                    queue.add(new Cursor<>(run, i));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            Cursor<T> cursor = queue.poll();
+            if (cursor == null) {
+                throw new NoSuchElementException();
+            }
+            T value = cursor.value;
+            if (cursor.run.hasNext()) {
+                cursor.value = cursor.run.next();
+                queue.add(cursor);
+            }
+            return value;
+        }
+    }
+
+    private static final class Cursor<T> {
+        private final Visitor<T> run;
+        private final int order;
+        private T value;
+
+        Cursor(Visitor<T> run, int order) {
+            this.run = run;
+            this.order = order;
+            this.value = run.next();
+        }
+    }
+
+}
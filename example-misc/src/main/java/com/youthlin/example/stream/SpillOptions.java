@@ -0,0 +1,69 @@
+package com.youthlin.example.stream;
+
+import com.google.common.base.Preconditions;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * sorted/distinct 的内存限制: 内存中的元素超过 {@link #getMaxInMemory()} 个时
+ * 通过 {@link ElementCodec} 写入临时文件, 结束时再从文件读回
+ *
+ * @param <T> 元素类型
+ * @author youthlin.chen
+ * @date 2026-10-19 12:20
+ * @see Flow#sorted(java.util.Comparator, SpillOptions)
+ * @see Flow#distinct(SpillOptions)
+ */
+public final class SpillOptions<T> {
+    private final ElementCodec<T> codec;
+    private final int maxInMemory;
+    private final File directory;
+
+    private SpillOptions(ElementCodec<T> codec, int maxInMemory, File directory) {
+        Preconditions.checkArgument(maxInMemory > 0, "maxInMemory should greater than 0");
+        this.codec = Objects.requireNonNull(codec);
+        this.maxInMemory = maxInMemory;
+        this.directory = directory;
+    }
+
+    /**
+     * @param maxInMemory 内存中最多保留的元素个数
+     */
+    public static <T> SpillOptions<T> of(ElementCodec<T> codec, int maxInMemory) {
+        return new SpillOptions<>(codec, maxInMemory, null);
+    }
+
+    /**
+     * @param directory 临时文件目录 为 null 时使用 java.io.tmpdir
+     */
+    public SpillOptions<T> withDirectory(File directory) {
+        return new SpillOptions<>(codec, maxInMemory, directory);
+    }
+
+    public ElementCodec<T> getCodec() {
+        return codec;
+    }
+
+    public int getMaxInMemory() {
+        return maxInMemory;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 由使用方在用完后删除 不调用 deleteOnExit 以免长时间运行的 JVM 中记录越积越多
+     */
+    File createTempFile(String prefix) throws IOException {
+        return File.createTempFile(prefix, ".spill", directory);
+    }
+
+    @Override
+    public String toString() {
+        return "SpillOptions{maxInMemory=" + maxInMemory + ", directory=" + directory + '}';
+    }
+
+}
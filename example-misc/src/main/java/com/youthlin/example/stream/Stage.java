@@ -34,6 +34,40 @@ interface Stage<T> extends Consumer<T> {
         return false;
     }
 
+    /**
+     * 是否可能提前结束(如 limit, findFirst) 这样的操作链不整批处理 以免多处理结束之后的元素
+     *
+     * @return true if {@link #canFinish()} may return true
+     */
+    default boolean isShortCircuit() {
+        return false;
+    }
+
+    /**
+     * 继续推送之前因为下游暂时不再接收而留下的元素(如 flatMap 中没推完的子流)
+     * 按需拉取时 在从源取下一个元素之前调用
+     *
+     * @return 是否推出了元素
+     */
+    default boolean resume() {
+        return false;
+    }
+
+    /**
+     * 基本类型的流中 上游直接传入基本类型 只有对应的基本类型操作才支持
+     */
+    default void accept(int value) {
+        throw new IllegalStateException("called wrong accept method: " + this);
+    }
+
+    default void accept(long value) {
+        throw new IllegalStateException("called wrong accept method: " + this);
+    }
+
+    default void accept(double value) {
+        throw new IllegalStateException("called wrong accept method: " + this);
+    }
+
     /**
      * 操作链
      *
@@ -55,6 +89,89 @@ interface Stage<T> extends Consumer<T> {
         @Override
         public abstract void accept(T t);
 
+        /**
+         * @return 是否有整批处理的实现 没有时整批的元素仍逐个交给 {@link #accept(Object)}
+         */
+        boolean acceptsBatch() {
+            return false;
+        }
+
+        /**
+         * 整批处理 buf[from, to) 中的元素
+         * buf 是临时数组 可以原地改写 处理完后会被覆盖 不能保存
+         */
+        @SuppressWarnings("unchecked")
+        void acceptBatch(Object[] buf, int from, int to) {
+            for (int i = from; i < to && !canFinish(); i++) {
+                accept((T) buf[i]);
+            }
+        }
+
+        /**
+         * 把一批元素交给下游 下游不支持整批处理时逐个交给它
+         */
+        @SuppressWarnings("unchecked")
+        static <E> void batchTo(Stage<E> stage, Object[] buf, int from, int to) {
+            if (stage instanceof AbstractChainedStage && ((AbstractChainedStage<E, ?>) stage).acceptsBatch()) {
+                ((AbstractChainedStage<E, ?>) stage).acceptBatch(buf, from, to);
+                return;
+            }
+            for (int i = from; i < to && !stage.canFinish(); i++) {
+                stage.accept((E) buf[i]);
+            }
+        }
+
+        @Override
+        public void end() {
+            downstream.end();
+        }
+
+        @Override
+        public boolean canFinish() {
+            return downstream.canFinish();
+        }
+
+        @Override
+        public boolean isShortCircuit() {
+            return downstream.isShortCircuit();
+        }
+
+        @Override
+        public boolean resume() {
+            return downstream.resume();
+        }
+    }
+
+    /**
+     * 处理 int 的操作 装箱的元素拆箱后处理
+     */
+    interface IntStage extends Stage<Integer> {
+        @Override
+        void accept(int value);
+
+        @Override
+        default void accept(Integer value) {
+            accept(value.intValue());
+        }
+    }
+
+    /**
+     * 处理 int 的操作链
+     *
+     * @param <R> 下游元素类型
+     */
+    abstract class ChainedIntStage<R> implements IntStage {
+        final Stage<R> downstream;
+
+        ChainedIntStage(Stage<R> downstream) {
+            this.downstream = Objects.requireNonNull(downstream);
+        }
+
+        @Override
+        public void begin(long size) {
+            downstream.begin(size);
+        }
+
         @Override
         public void end() {
             downstream.end();
@@ -64,6 +181,118 @@ interface Stage<T> extends Consumer<T> {
         public boolean canFinish() {
             return downstream.canFinish();
         }
+
+        @Override
+        public boolean isShortCircuit() {
+            return downstream.isShortCircuit();
+        }
+
+        @Override
+        public boolean resume() {
+            return downstream.resume();
+        }
+    }
+
+    /**
+     * 处理 long 的操作 装箱的元素拆箱后处理
+     */
+    interface LongStage extends Stage<Long> {
+        @Override
+        void accept(long value);
+
+        @Override
+        default void accept(Long value) {
+            accept(value.longValue());
+        }
+    }
+
+    /**
+     * 处理 long 的操作链
+     *
+     * @param <R> 下游元素类型
+     */
+    abstract class ChainedLongStage<R> implements LongStage {
+        final Stage<R> downstream;
+
+        ChainedLongStage(Stage<R> downstream) {
+            this.downstream = Objects.requireNonNull(downstream);
+        }
+
+        @Override
+        public void begin(long size) {
+            downstream.begin(size);
+        }
+
+        @Override
+        public void end() {
+            downstream.end();
+        }
+
+        @Override
+        public boolean canFinish() {
+            return downstream.canFinish();
+        }
+
+        @Override
+        public boolean isShortCircuit() {
+            return downstream.isShortCircuit();
+        }
+
+        @Override
+        public boolean resume() {
+            return downstream.resume();
+        }
+    }
+
+    /**
+     * 处理 double 的操作 装箱的元素拆箱后处理
+     */
+    interface DoubleStage extends Stage<Double> {
+        @Override
+        void accept(double value);
+
+        @Override
+        default void accept(Double value) {
+            accept(value.doubleValue());
+        }
+    }
+
+    /**
+     * 处理 double 的操作链
+     *
+     * @param <R> 下游元素类型
+     */
+    abstract class ChainedDoubleStage<R> implements DoubleStage {
+        final Stage<R> downstream;
+
+        ChainedDoubleStage(Stage<R> downstream) {
+            this.downstream = Objects.requireNonNull(downstream);
+        }
+
+        @Override
+        public void begin(long size) {
+            downstream.begin(size);
+        }
+
+        @Override
+        public void end() {
+            downstream.end();
+        }
+
+        @Override
+        public boolean canFinish() {
+            return downstream.canFinish();
+        }
+
+        @Override
+        public boolean isShortCircuit() {
+            return downstream.isShortCircuit();
+        }
+
+        @Override
+        public boolean resume() {
+            return downstream.resume();
+        }
     }
 
     /**
@@ -0,0 +1,80 @@
+package com.youthlin.example.stream;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * 按比较器排在最前的 k 个元素 用于 sorted().limit(k)
+ * <p>
+ * 大小为 k 的堆 堆顶是目前排在最后的那个, 新元素比它小才替换: 内存 O(k), 时间 O(N log k).
+ * 相等的元素先来的排在前面 和 sorted 的稳定排序一致
+ *
+ * @param <T> 元素类型
+ * @author youthlin.chen
+ * @date 2026-10-19 13:30
+ */
+final class TopK<T> {
+    private final int k;
+    private final Comparator<? super T> comparator;
+    private final Comparator<Entry<T>> order;
+    private final PriorityQueue<Entry<T>> heap;
+    private long seq;
+
+    TopK(int k, Comparator<? super T> comparator) {
+        this.k = k;
+        this.comparator = comparator;
+        this.order = (a, b) -> {
+            int c = comparator.compare(a.element, b.element);
+            return c != 0 ? c : Long.compare(a.seq, b.seq);
+        };
+        this.heap = new PriorityQueue<>(Math.max(Math.min(k, FlowTask.BATCH), 1), order.reversed());
+    }
+
+    void add(T element) {
+        if (heap.size() < k) {
+            heap.add(new Entry<>(element, seq++));
+        } else if (k > 0 && comparator.compare(element, heap.peek().element) < 0) {
+            Entry<T> last = heap.poll();
+            last.element = element;
+            last.seq = seq++;
+            heap.add(last);
+        }
+    }
+
+    /**
+     * 合并 other 中的元素都排在当前元素之后
+     */
+    @SuppressWarnings("unchecked")
+    TopK<T> merge(TopK<T> other) {
+        for (Object element : other.toArray()) {
+            add((T) element);
+        }
+        return this;
+    }
+
+    /**
+     * @return 排好序的元素
+     */
+    @SuppressWarnings("unchecked")
+    Object[] toArray() {
+        Entry<T>[] entries = (Entry<T>[]) heap.toArray(new Entry<?>[0]);
+        Arrays.sort(entries, order);
+        Object[] array = new Object[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            array[i] = entries[i].element;
+        }
+        return array;
+    }
+
+    private static final class Entry<T> {
+        private T element;
+        private long seq;
+
+        private Entry(T element, long seq) {
+            this.element = element;
+            this.seq = seq;
+        }
+    }
+
+}
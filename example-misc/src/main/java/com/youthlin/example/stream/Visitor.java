@@ -1,6 +1,7 @@
 package com.youthlin.example.stream;
 
 import java.util.Iterator;
+import java.util.function.Consumer;
 
 /**
  * 自定义迭代器
@@ -20,4 +21,77 @@ public interface Visitor<T> extends Iterator<T> {
         return UNKNOWN_SIZE;
     }
 
+    /**
+     * 拆出前面一部分元素 并行执行时调用
+     * 不能拆分时返回 null, 此时会按批取出元素交给其他线程
+     *
+     * @return 前面一部分元素的迭代器 当前迭代器剩下后面的元素
+     */
+    default Visitor<T> trySplit() {
+        return null;
+    }
+
+    /**
+     * 拉取一个元素交给 action
+     *
+     * @return 没有剩余元素时返回 false
+     */
+    default boolean tryAdvance(Consumer<? super T> action) {
+        if (hasNext()) {
+            action.accept(next());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 取出最多 to-from 个元素放入 buf[from, to) 整批处理时调用
+     * 数组和集合的迭代器可以覆盖这个方法一次性复制
+     *
+     * @return 取出的个数 没有剩余元素时返回 0
+     */
+    default int fill(Object[] buf, int from, int to) {
+        int i = from;
+        while (i < to && hasNext()) {
+            buf[i++] = next();
+        }
+        return i - from;
+    }
+
+    /**
+     * int 迭代器 {@link #nextInt()} 不装箱
+     */
+    interface OfInt extends Visitor<Integer> {
+        int nextInt();
+
+        @Override
+        default Integer next() {
+            return nextInt();
+        }
+    }
+
+    /**
+     * long 迭代器 {@link #nextLong()} 不装箱
+     */
+    interface OfLong extends Visitor<Long> {
+        long nextLong();
+
+        @Override
+        default Long next() {
+            return nextLong();
+        }
+    }
+
+    /**
+     * double 迭代器 {@link #nextDouble()} 不装箱
+     */
+    interface OfDouble extends Visitor<Double> {
+        double nextDouble();
+
+        @Override
+        default Double next() {
+            return nextDouble();
+        }
+    }
+
 }
@@ -26,9 +26,28 @@ class VisitorImpl<T> implements Visitor<T> {
 
     static <E> VisitorImpl<E> of(Collection<E> collection) {
         return new VisitorImpl<E>(collection.iterator()) {
+            private long remaining = collection.size();
+
+            @Override
+            public E next() {
+                E next = super.next();
+                remaining--;
+                return next;
+            }
+
+            @Override
+            public int fill(Object[] buf, int from, int to) {
+                int i = from;
+                while (i < to && hasNext()) {
+                    buf[i++] = super.next();
+                }
+                remaining -= i - from;
+                return i - from;
+            }
+
             @Override
             public long getSizeIfKnown() {
-                return collection.size();
+                return remaining;
             }
         };
     }
@@ -1,31 +1,47 @@
 package com.youthlin.example.tree;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Lists;
 import org.jetbrains.annotations.NotNull;
 
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
 import java.io.Serializable;
+import java.lang.management.ManagementFactory;
 import java.util.AbstractMap;
 import java.util.AbstractSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * @author youthlin.chen
  * @date 2019-03-15 20:33
  * @link https://www.cnblogs.com/nullzx/p/8729425.html
  */
-public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Cloneable, Serializable {
+public class BplusTree<K, V> extends AbstractMap<K, V> implements NavigableMap<K, V>, Cloneable, Serializable {
     private static final long serialVersionUID = -244544544703860023L;
 
     /**
      * 结点
+     * 关键字、值、子孩子都放在数组里 结点内用二分查找定位
      */
     private static class Node<K, V> {
         /**
@@ -33,39 +49,184 @@ public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clo
          */
         private Node<K, V> parent;
         /**
-         * 结点的关键字
+         * 结点的关键字 有效范围是 [0, size)
          */
-        private List<Entry<K, V>> data = Lists.newLinkedList();
+        private final Object[] keys;
+        /**
+         * 叶子结点的值 与 keys 一一对应
+         * 为 null 说明是内结点
+         */
+        private final Object[] values;
         /**
          * n个关键字则有n+1个子孩子
          * 为 null 说明是叶结点
          */
-        private List<Node<K, V>> children;
+        private final Node<K, V>[] children;
+        /**
+         * 关键字个数
+         */
+        private int size;
+        /**
+         * 子树中的元素个数 只有内结点使用 叶子结点就是 size
+         */
+        private int count;
         private Node<K, V> prev;
         /**
          * 同层次的下一个结点
          */
         private Node<K, V> next;
+        /**
+         * 创建该结点时树的版本 小于树的当前版本说明结点属于某个快照 不能再修改
+         */
+        private final int epoch;
+        /**
+         * 写时复制后的新结点 持有旧结点的迭代器通过它找到最新的结点
+         */
+        private Node<K, V> replacement;
 
-        private void addChild(Node<K, V> child) {
-            children.add(child);
-            child.parent = this;
+        @SuppressWarnings("unchecked")
+        private Node(int capacity, boolean leaf, int epoch) {
+            this.epoch = epoch;
+            keys = new Object[capacity];
+            if (leaf) {
+                values = new Object[capacity];
+                children = null;
+            } else {
+                values = null;
+                children = (Node<K, V>[]) new Node<?, ?>[capacity + 1];
+            }
+        }
+
+        private boolean isLeaf() {
+            return children == null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private K key(int index) {
+            return (K) keys[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        private V value(int index) {
+            return (V) values[index];
+        }
+
+        /**
+         * 在 index 处插入关键字(叶子结点同时插入值)
+         */
+        private void insert(int index, Object key, Object value) {
+            int move = size - index;
+            if (move > 0) {
+                System.arraycopy(keys, index, keys, index + 1, move);
+                if (values != null) {
+                    System.arraycopy(values, index, values, index + 1, move);
+                }
+            }
+            keys[index] = key;
+            if (values != null) {
+                values[index] = value;
+            }
+            size++;
+        }
+
+        /**
+         * 删除 index 处的关键字(叶子结点同时删除值)
+         */
+        private void delete(int index) {
+            int move = size - index - 1;
+            if (move > 0) {
+                System.arraycopy(keys, index + 1, keys, index, move);
+                if (values != null) {
+                    System.arraycopy(values, index + 1, values, index, move);
+                }
+            }
+            size--;
+            keys[size] = null;
+            if (values != null) {
+                values[size] = null;
+            }
         }
 
-        private void addChild(int index, Node<K, V> child) {
-            children.add(index, child);
+        /**
+         * 在 index 处插入子孩子 子孩子个数总是 size+1 所以要在调整 size 之前调用
+         */
+        private void insertChild(int index, Node<K, V> child) {
+            int move = size + 1 - index;
+            if (move > 0) {
+                System.arraycopy(children, index, children, index + 1, move);
+            }
+            children[index] = child;
             child.parent = this;
         }
 
-        private void addChildren(Collection<Node<K, V>> children) {
-            this.children.addAll(children);
-            for (Node<K, V> child : children) {
-                child.parent = this;
+        /**
+         * 删除 index 处的子孩子 要在调整 size 之前调用
+         */
+        private Node<K, V> deleteChild(int index) {
+            Node<K, V> child = children[index];
+            int move = size - index;
+            if (move > 0) {
+                System.arraycopy(children, index + 1, children, index, move);
+            }
+            children[size] = null;
+            return child;
+        }
+
+        /**
+         * 复制关键字、值、子孩子和链接 不修改本结点
+         */
+        private Node<K, V> copy(int epoch) {
+            Node<K, V> copy = new Node<>(keys.length, isLeaf(), epoch);
+            System.arraycopy(keys, 0, copy.keys, 0, size);
+            if (values != null) {
+                System.arraycopy(values, 0, copy.values, 0, size);
+            } else {
+                System.arraycopy(children, 0, copy.children, 0, size + 1);
+            }
+            copy.size = size;
+            copy.count = count;
+            copy.parent = parent;
+            copy.prev = prev;
+            copy.next = next;
+            return copy;
+        }
+
+        /**
+         * 子孩子在本结点中的下标
+         */
+        private int indexOf(Node<K, V> child) {
+            for (int i = 0; i <= size; i++) {
+                if (children[i] == child) {
+                    return i;
+                }
+            }
+            throw new IllegalStateException("not a child of this node");
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(keys[i]);
+                if (values != null) {
+                    sb.append('=').append(values[i]);
+                }
             }
+            return sb.append(']').toString();
         }
     }
 
-    private static final int DEFAULT_MAX_ELEMENT_PER_NODE = 5;
+    /**
+     * 关键字数组正好占两个 64 字节缓存行(压缩指针) 百万级元素时只有四五层
+     */
+    private static final int DEFAULT_MAX_ELEMENT_PER_NODE = 32;
+    /**
+     * clone 和反序列化时批量构建使用的填充因子 留一些空位给之后的插入
+     */
+    private static final double DEFAULT_FILL_FACTOR = 0.75;
     /**
      * 根结点
      */
@@ -77,12 +238,23 @@ public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clo
     /**
      * 阶数
      * m 阶 B+ 树内个节点最多存放 m-1 项数据, 最多 m 个子孩子
+     * 叶子结点可以使用不同的阶数 见 {@link #leafMaxChildren}
      */
     private final int maxChildren;
     /**
      * 每个节点最少需要的记录数
      */
     private final int minElementPerNode;
+    /**
+     * 叶子结点的阶数 叶子结点最多存放 leafMaxChildren-1 项数据
+     * 由 {@link #order} 得出 不序列化
+     */
+    private transient int leafMaxChildren;
+    private transient int leafMinElementPerNode;
+    /**
+     * 构造时指定或实测选出的阶数 旧版本序列化的数据中没有 反序列化后为 null
+     */
+    private NodeOrder order;
     /**
      * 比较器 如果为 null 则使用 {@link K} 的自然顺序, 此时要求 {@link K}  实现了 {@link Comparable}  接口
      */
@@ -90,6 +262,24 @@ public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clo
     private transient int size;
     private transient int modCount;
     private transient Set<Map.Entry<K, V>> entrySet;
+    private transient NavigableSet<K> navigableKeySet;
+    private transient NavigableMap<K, V> descendingMap;
+    /**
+     * 版本号 每次创建快照加一 之后修改旧版本的结点需要先复制
+     */
+    private transient int epoch;
+    /**
+     * 分裂 借用 合并和比较次数的计数器
+     */
+    private transient TreeCounters counters = new TreeCounters();
+    /**
+     * 延迟删除模式: 删除只从叶子结点中移除 不借用不合并 留给 {@link #compact(double, int)} 批量整理
+     */
+    private transient boolean lazyDeletion;
+    /**
+     * 下一批整理从这个关键字所在的叶子结点开始 null 表示从头开始
+     */
+    private transient Object compactCursor;
 
     //region 构造方法
 
@@ -121,11 +311,409 @@ public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clo
         Preconditions.checkArgument(minElementPerNode > 0, "minElementPerNode should greater than 0");
         this.maxChildren = maxChildren;
         this.minElementPerNode = minElementPerNode;
+        this.leafMaxChildren = maxChildren;
+        this.leafMinElementPerNode = minElementPerNode;
+        this.order = NodeOrder.of(maxChildren, maxChildren);
         this.comparator = comparator;
     }
 
+    /**
+     * 叶子结点和内结点使用不同的阶数 每个结点最少需要的记录数都是阶数的一半
+     */
+    public BplusTree(NodeOrder order, Comparator<? super K> comparator) {
+        this.maxChildren = order.getInnerMaxChildren();
+        this.minElementPerNode = maxChildren >> 1;
+        this.leafMaxChildren = order.getLeafMaxChildren();
+        this.leafMinElementPerNode = leafMaxChildren >> 1;
+        this.order = order;
+        this.comparator = comparator;
+    }
+
+    /**
+     * 用预热样本实测结点内查找的开销 自动选择叶子结点和内结点的阶数
+     *
+     * @param warmUpKeys 样本关键字 数量也作为预计的元素个数
+     * @see NodeOrder#tune(Collection, int, Comparator)
+     */
+    public BplusTree(Collection<? extends K> warmUpKeys, Comparator<? super K> comparator) {
+        this(NodeOrder.tune(warmUpKeys, warmUpKeys.size(), comparator), comparator);
+    }
+
     //endregion 构造方法
 
+    //region 批量构建
+
+    /**
+     * 从有序的数据批量构建 B+ 树
+     * 先从左到右填满叶子结点 再自底向上逐层构建内结点 不需要从根结点逐个查找插入 也不会反复分裂
+     *
+     * @param sorted     按关键字严格递增的数据
+     * @param fillFactor 每个结点的填充比例 取值 (0, 1] 1 表示每个结点都填满 maxChildren-1 个关键字
+     * @throws IllegalArgumentException 关键字不是严格递增时
+     */
+    public static <K, V> BplusTree<K, V> bulkLoad(Iterator<? extends Map.Entry<? extends K, ? extends V>> sorted,
+            double fillFactor) {
+        return bulkLoad(DEFAULT_MAX_ELEMENT_PER_NODE, null, sorted, fillFactor);
+    }
+
+    /**
+     * 以指定阶数和比较器从有序的数据批量构建 B+ 树
+     *
+     * @see #bulkLoad(Iterator, double)
+     */
+    public static <K, V> BplusTree<K, V> bulkLoad(int maxChildren, Comparator<? super K> comparator,
+            Iterator<? extends Map.Entry<? extends K, ? extends V>> sorted, double fillFactor) {
+        BplusTree<K, V> tree = new BplusTree<>(maxChildren, comparator);
+        tree.buildFromSorted(sorted, fillFactor);
+        return tree;
+    }
+
+    /**
+     * 空树时从有序数据批量构建
+     * 1. 依次把数据追加到当前叶子结点 满了(达到填充因子)就新建一个叶子结点链到后面
+     * 2. 最后一个叶子结点不足时与前一个叶子结点合并或平分
+     * 3. 将一层结点按顺序平均分组 每组作为一个父结点的子孩子 子孩子的最小关键字作为父结点的关键字
+     * 4. 重复第 3 步直到只剩一个结点 作为根结点
+     */
+    private void buildFromSorted(Iterator<? extends Map.Entry<? extends K, ? extends V>> sorted,
+            double fillFactor) {
+        Preconditions.checkArgument(fillFactor > 0 && fillFactor <= 1, "fillFactor should in (0, 1]");
+        Preconditions.checkState(root == null, "tree should be empty");
+        int perLeaf = perNode(leafMaxChildren, leafMinElementPerNode, fillFactor);
+        int perNode = perNode(maxChildren, minElementPerNode, fillFactor);
+        Node<K, V> first = null;
+        Node<K, V> last = null;
+        int count = 0;
+        K prevKey = null;
+        while (sorted.hasNext()) {
+            Map.Entry<? extends K, ? extends V> entry = sorted.next();
+            K key = Objects.requireNonNull(entry.getKey());
+            if (prevKey != null && compare(prevKey, key) >= 0) {
+                throw new IllegalArgumentException("keys should be strictly ascending: " + prevKey + ", " + key);
+            }
+            if (last == null || last.size == perLeaf) {
+                Node<K, V> leaf = newLeaf();
+                if (last == null) {
+                    first = leaf;
+                } else {
+                    link(last, leaf);
+                }
+                last = leaf;
+                count++;
+            }
+            last.insert(last.size, key, entry.getValue());
+            size++;
+            prevKey = key;
+        }
+        if (first == null) {
+            return;
+        }
+        if (count > 1 && tooLess(last)) {
+            if (rebalanceLastLeaf(last)) {
+                count--;
+            }
+        }
+        min = first;
+        Node<K, V> level = first;
+        while (count > 1) {
+            int groups = (count + perNode) / (perNode + 1);
+            level = buildParentLevel(level, count, groups);
+            count = groups;
+        }
+        root = level;
+        modCount++;
+    }
+
+    /**
+     * 按填充因子每个结点放多少个关键字
+     */
+    private static int perNode(int maxChildren, int minElementPerNode, double fillFactor) {
+        int perNode = Math.max(minElementPerNode, (int) Math.ceil((maxChildren - 1) * fillFactor));
+        return Math.max(1, Math.min(maxChildren - 1, perNode));
+    }
+
+    /**
+     * 最后一个叶子结点数据不足时 能放进前一个结点就合并 否则两个结点平分
+     *
+     * @return 是否合并到了前一个结点
+     */
+    private boolean rebalanceLastLeaf(Node<K, V> last) {
+        Node<K, V> prev = last.prev;
+        int total = prev.size + last.size;
+        if (total < leafMaxChildren) {
+            System.arraycopy(last.keys, 0, prev.keys, prev.size, last.size);
+            System.arraycopy(last.values, 0, prev.values, prev.size, last.size);
+            prev.size = total;
+            prev.next = null;
+            return true;
+        }
+        int move = (total >> 1) - last.size;
+        System.arraycopy(last.keys, 0, last.keys, move, last.size);
+        System.arraycopy(last.values, 0, last.values, move, last.size);
+        int from = prev.size - move;
+        System.arraycopy(prev.keys, from, last.keys, 0, move);
+        System.arraycopy(prev.values, from, last.values, 0, move);
+        for (int i = from; i < prev.size; i++) {
+            prev.keys[i] = null;
+            prev.values[i] = null;
+        }
+        prev.size = from;
+        last.size += move;
+        return false;
+    }
+
+    /**
+     * 把一层的 count 个结点平均分成 groups 组 每组构建一个父结点
+     *
+     * @param first 该层第一个结点 同层结点通过 next 相连
+     * @return 父结点层的第一个结点
+     */
+    private Node<K, V> buildParentLevel(Node<K, V> first, int count, int groups) {
+        int base = count / groups;
+        int extra = count % groups;
+        Node<K, V> child = first;
+        Node<K, V> firstParent = null;
+        Node<K, V> lastParent = null;
+        for (int i = 0; i < groups; i++) {
+            int childCount = i < extra ? base + 1 : base;
+            Node<K, V> parent = newInnerNode();
+            for (int j = 0; j < childCount; j++) {
+                if (j > 0) {
+                    parent.keys[j - 1] = lowestKey(child);
+                }
+                parent.children[j] = child;
+                child.parent = parent;
+                child = child.next;
+            }
+            parent.size = childCount - 1;
+            recount(parent);
+            if (lastParent == null) {
+                firstParent = parent;
+            } else {
+                link(lastParent, parent);
+            }
+            lastParent = parent;
+        }
+        return firstParent;
+    }
+
+    /**
+     * 子树中的最小关键字
+     */
+    private Object lowestKey(Node<K, V> node) {
+        while (!node.isLeaf()) {
+            node = node.children[0];
+        }
+        return node.keys[0];
+    }
+
+    //endregion 批量构建
+
+    //region 批量读写
+
+    /**
+     * 批量查找 关键字有序时只从根结点下降一次 之后沿着叶子结点向右推进
+     * 下一个关键字超出当前结点的范围时才回退到能包含它的祖先结点再下降
+     * 所以 k 个相邻的关键字只需 O(log n + k) 次比较
+     *
+     * @return 找到的关键字及其值 按关键字顺序
+     */
+    public Map<K, V> getAll(@NotNull SortedSet<K> keys) {
+        Map<K, V> result = new LinkedHashMap<>();
+        if (root == null || keys.isEmpty()) {
+            return result;
+        }
+        Finger finger = new Finger();
+        for (K key : sameOrder(keys.comparator()) ? keys : sortedCopy(keys)) {
+            Node<K, V> leaf = finger.seek(Objects.requireNonNull(key));
+            int index = getExactIndex(key, leaf);
+            if (index >= 0) {
+                result.put(key, leaf.value(index));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按关键字顺序批量插入
+     * 空树时直接自底向上批量构建; 否则沿叶子结点向右推进逐个插入, 叶子结点满了才分裂并向上进位
+     */
+    public void putAll(@NotNull SortedMap<? extends K, ? extends V> map) {
+        if (map.isEmpty()) {
+            return;
+        }
+        if (!sameOrder(map.comparator())) {
+            super.putAll(map);
+            return;
+        }
+        if (root == null) {
+            buildFromSorted(map.entrySet().iterator(), DEFAULT_FILL_FACTOR);
+            return;
+        }
+        Finger finger = new Finger();
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            K key = Objects.requireNonNull(entry.getKey());
+            Node<K, V> found = finger.seek(key);
+            Node<K, V> leaf = own(found);
+            // 写时复制或分裂改变了路径上的结点 之后从根结点重新开始
+            boolean reset = leaf != found;
+            int index = getExactIndex(key, leaf);
+            if (index >= 0) {
+                leaf.values[index] = entry.getValue();
+            } else {
+                leaf.insert(-index - 1, key, entry.getValue());
+                addCount(leaf, 1);
+                size++;
+                if (shouldSplit(leaf)) {
+                    Node<K, V> current = splitLeaf(leaf);
+                    while (shouldSplit(current)) {
+                        current = splitInnerNode(current);
+                    }
+                    reset = true;
+                }
+            }
+            if (reset) {
+                finger = new Finger();
+            }
+        }
+        modCount++;
+    }
+
+    /**
+     * 有序的 Map 走批量插入
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void putAll(@NotNull Map<? extends K, ? extends V> map) {
+        if (map instanceof SortedMap) {
+            putAll((SortedMap<? extends K, ? extends V>) map);
+        } else {
+            super.putAll(map);
+        }
+    }
+
+    /**
+     * 与本树的排序方式相同
+     */
+    private boolean sameOrder(Comparator<?> other) {
+        return Objects.equals(comparator, other);
+    }
+
+    private SortedSet<K> sortedCopy(Collection<K> keys) {
+        SortedSet<K> sorted = new TreeSet<>(comparator);
+        sorted.addAll(keys);
+        return sorted;
+    }
+
+    /**
+     * 记录从根结点到当前叶子结点的路径 以及路径上每个结点的上界(不包含)
+     * 只支持按升序定位
+     */
+    private final class Finger {
+        private final Node<K, V>[] nodes;
+        /**
+         * 为 null 表示没有上界
+         */
+        private final Object[] highs;
+        private int depth;
+
+        @SuppressWarnings("unchecked")
+        private Finger() {
+            int height = 1;
+            for (Node<K, V> node = root; !node.isLeaf(); node = node.children[0]) {
+                height++;
+            }
+            nodes = (Node<K, V>[]) new Node<?, ?>[height];
+            highs = new Object[height];
+            nodes[0] = root;
+            depth = 1;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Node<K, V> seek(K key) {
+            counters.descents.increment();
+            int level = depth - 1;
+            while (level > 0 && highs[level] != null && compare(key, (K) highs[level]) >= 0) {
+                level--;
+            }
+            Node<K, V> node = nodes[level];
+            while (!node.isLeaf()) {
+                int index = getInsertIndex(node, key);
+                Object high = index < node.size ? node.keys[index] : highs[level];
+                node = node.children[index];
+                level++;
+                nodes[level] = node;
+                highs[level] = high;
+            }
+            depth = level + 1;
+            return node;
+        }
+    }
+
+    //endregion 批量读写
+
+    //region 快照
+
+    /**
+     * O(1) 创建只读快照
+     * 快照持有当前的根结点 并把树的版本号加一. 之后写入时, 要修改的结点如果是旧版本的, 先复制它以及到根结点的路径再修改,
+     * 所以快照看到的结点内容不会再变化. 快照只通过关键字和子孩子数组自顶向下访问, 不使用 parent/prev/next,
+     * 写入方修改这些链接不影响快照. 读快照不需要加锁 可以交给其他线程
+     */
+    public SortedMap<K, V> snapshot() {
+        Snapshot snapshot = new Snapshot(root, size, null, null);
+        epoch++;
+        return snapshot;
+    }
+
+    /**
+     * 修改结点前调用: 结点属于快照时复制一份替换到树中(父结点也一样处理 直到根结点)
+     *
+     * @return 可以修改的结点
+     */
+    private Node<K, V> own(Node<K, V> node) {
+        if (node.epoch == epoch) {
+            return node;
+        }
+        Node<K, V> copy = node.copy(epoch);
+        node.replacement = copy;
+        Node<K, V> parent = node.parent;
+        if (parent == null) {
+            root = copy;
+        } else {
+            parent = own(parent);
+            parent.children[parent.indexOf(node)] = copy;
+            copy.parent = parent;
+        }
+        if (copy.prev != null) {
+            copy.prev.next = copy;
+        }
+        if (copy.next != null) {
+            copy.next.prev = copy;
+        }
+        if (min == node) {
+            min = copy;
+        }
+        if (!copy.isLeaf()) {
+            for (int i = 0; i <= copy.size; i++) {
+                copy.children[i].parent = copy;
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * 迭代器可能持有已被复制的旧结点 找到树中当前的结点
+     */
+    private static <K, V> Node<K, V> latest(Node<K, V> node) {
+        while (node.replacement != null) {
+            node = node.replacement;
+        }
+        return node;
+    }
+
+    //endregion 快照
+
     //region 重写父类方法
 
     @Override
@@ -136,13 +724,19 @@ public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clo
     @Override
     public boolean containsKey(@NotNull Object key) {
         @SuppressWarnings("unchecked") K k = (K) Objects.requireNonNull(key);
+        if (root == null) {
+            return false;
+        }
         Node<K, V> leaf = findLeafNode(k);
-        return getExactIndex(k, leaf) != -1;
+        return getExactIndex(k, leaf) >= 0;
     }
 
     @Override
     public V get(@NotNull Object key) {
         @SuppressWarnings("unchecked") K k = (K) Objects.requireNonNull(key);
+        if (root == null) {
+            return null;
+        }
         Node<K, V> leaf = findLeafNode(k);
         return getOnLeafOrNull(k, leaf);
     }
@@ -150,7 +744,7 @@ public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clo
     /**
      * 插入
      * 1. 若为空树 创建一个叶子结点 插入 此时root,min也是该叶子结点 结束
-     * 2. 定位到要插入的叶子结点
+     * 2. 定位到要插入的叶子结点 若已有该关键字 替换值 结束
      * 3. 针对叶子结点
      * 3.1 插入记录，若当前叶子结点记录数小于等于 maxChildren-1 结束
      * 3.2 否则将该叶子结点分裂为左右两个叶子结点，左边包含前 maxChildren/2 个，右边包含剩下的
@@ -162,12 +756,23 @@ public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clo
      * 中间的记录进位到父结点中 进位的该关键字左右子孩子分别是刚分裂的左右内结点
      * 4.3 将当前结点指向父结点 重复第 4 步
      *
-     * @return the put value always
+     * @return 该关键字原来对应的值 原来没有该关键字则返回 null
      */
     @Override
     public V put(@NotNull K key, V value) {
-        Node<K, V> leaf = findLeafNode(Objects.requireNonNull(key));
-        insertToLeafNode(leaf, key, value);
+        Objects.requireNonNull(key);
+        if (root == null) {
+            min = root = newLeaf();
+        }
+        Node<K, V> leaf = own(findLeafNode(key));
+        int index = getExactIndex(key, leaf);
+        if (index >= 0) {
+            V old = leaf.value(index);
+            leaf.values[index] = value;
+            return old;
+        }
+        leaf.insert(-index - 1, key, value);
+        addCount(leaf, 1);
         if (shouldSplit(leaf)) {
             Node<K, V> current = splitLeaf(leaf);
             while (shouldSplit(current)) {
@@ -176,21 +781,31 @@ public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clo
         }
         size++;
         modCount++;
-        return value;
+        return null;
     }
 
     @Override
     public V remove(Object key) {
         @SuppressWarnings("unchecked") K k = (K) Objects.requireNonNull(key);
+        if (root == null) {
+            return null;
+        }
         Node<K, V> leaf = findLeafNode(k);
         int index = getExactIndex(k, leaf);
-        if (index == -1) {
+        if (index < 0) {
             //叶子结点没有相应的 key 删除失败
             return null;
         }
         return removeOnLeafNode(leaf, index);
     }
 
+    @Override
+    public void clear() {
+        root = min = null;
+        size = 0;
+        modCount++;
+    }
+
     @Override
     @NotNull
     public Set<Map.Entry<K, V>> entrySet() {
@@ -212,7 +827,11 @@ public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clo
         clone.root = clone.min = null;
         clone.size = clone.modCount = 0;
         clone.entrySet = null;
-        clone.putAll(this);
+        clone.navigableKeySet = null;
+        clone.descendingMap = null;
+        clone.counters = new TreeCounters();
+        clone.compactCursor = null;
+        clone.buildFromSorted(entrySet().iterator(), DEFAULT_FILL_FACTOR);
         return clone;
     }
 
@@ -228,9 +847,51 @@ public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clo
     @SuppressWarnings("unchecked")
     private void readObject(java.io.ObjectInputStream s) throws java.io.IOException, ClassNotFoundException {
         s.defaultReadObject();
+        if (order == null) {
+            order = NodeOrder.of(maxChildren, maxChildren);
+        }
+        leafMaxChildren = order.getLeafMaxChildren();
+        // 叶子和内结点阶数相同时 与构造时一样使用 minElementPerNode
+        leafMinElementPerNode = leafMaxChildren == maxChildren ? minElementPerNode : leafMaxChildren >> 1;
+        counters = new TreeCounters();
         int size = s.readInt();
-        for (int i = 0; i < size; i++) {
-            put((K) s.readObject(), (V) s.readObject());
+        // 写出时就是有序的 直接批量构建
+        Iterator<Map.Entry<K, V>> iterator = new Iterator<Map.Entry<K, V>>() {
+            private int read;
+
+            @Override
+            public boolean hasNext() {
+                return read < size;
+            }
+
+            @Override
+            public Map.Entry<K, V> next() {
+                read++;
+                try {
+                    return new SimpleImmutableEntry<>((K) s.readObject(), (V) s.readObject());
+                } catch (java.io.IOException | ClassNotFoundException e) {
+                    throw new ReadObjectException(e);
+                }
+            }
+        };
+        try {
+            buildFromSorted(iterator, DEFAULT_FILL_FACTOR);
+        } catch (ReadObjectException e) {
+            if (e.getCause() instanceof ClassNotFoundException) {
+                throw (ClassNotFoundException) e.getCause();
+            }
+            throw (java.io.IOException) e.getCause();
+        }
+    }
+
+    /**
+     * 反序列化时在迭代器中包装受检异常
+     */
+    private static class ReadObjectException extends RuntimeException {
+        private static final long serialVersionUID = 2874412309542961731L;
+
+        private ReadObjectException(Exception cause) {
+            super(cause);
         }
     }
 
@@ -241,100 +902,434 @@ public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clo
 
     //endregion 重写父类方法
 
-    private Node<K, V> findLeafNode(K key) {
-        if (root == null) {
-            min = root = new Node<>();
-            return root;
-        } else {
-            Node<K, V> current = root;
-            while (current.children != null) {
-                int index = getInsertIndex(current, key);
-                current = current.children.get(index);
-            }
-            return current;
-        }
+    //region NavigableMap
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return comparator;
     }
 
-    /**
-     * 在一个结点中定位要插入的元素应该插在哪个下标
-     */
-    private int getInsertIndex(Node<K, V> node, Entry<K, V> entry) {
-        return getInsertIndex(node, entry.getKey());
+    @Override
+    public Map.Entry<K, V> firstEntry() {
+        return exportEntry(getFirstEntry());
     }
 
+    @Override
+    public Map.Entry<K, V> lastEntry() {
+        return exportEntry(getLastEntry());
+    }
+
+    @Override
+    public Map.Entry<K, V> pollFirstEntry() {
+        return pollEntry(getFirstEntry());
+    }
+
+    @Override
+    public Map.Entry<K, V> pollLastEntry() {
+        return pollEntry(getLastEntry());
+    }
+
+    @Override
+    public K firstKey() {
+        return key(getFirstEntry());
+    }
+
+    @Override
+    public K lastKey() {
+        return key(getLastEntry());
+    }
+
+    @Override
+    public Map.Entry<K, V> lowerEntry(K key) {
+        return exportEntry(getLowerEntry(key));
+    }
+
+    @Override
+    public K lowerKey(K key) {
+        return keyOrNull(getLowerEntry(key));
+    }
+
+    @Override
+    public Map.Entry<K, V> floorEntry(K key) {
+        return exportEntry(getFloorEntry(key));
+    }
+
+    @Override
+    public K floorKey(K key) {
+        return keyOrNull(getFloorEntry(key));
+    }
+
+    @Override
+    public Map.Entry<K, V> ceilingEntry(K key) {
+        return exportEntry(getCeilingEntry(key));
+    }
+
+    @Override
+    public K ceilingKey(K key) {
+        return keyOrNull(getCeilingEntry(key));
+    }
+
+    @Override
+    public Map.Entry<K, V> higherEntry(K key) {
+        return exportEntry(getHigherEntry(key));
+    }
+
+    @Override
+    public K higherKey(K key) {
+        return keyOrNull(getHigherEntry(key));
+    }
+
+    @Override
+    @NotNull
+    public NavigableSet<K> keySet() {
+        return navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<K> navigableKeySet() {
+        if (navigableKeySet == null) {
+            navigableKeySet = new KeySet<>(this);
+        }
+        return navigableKeySet;
+    }
+
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return descendingMap().navigableKeySet();
+    }
+
+    @Override
+    public NavigableMap<K, V> descendingMap() {
+        if (descendingMap == null) {
+            descendingMap = new SubMap(true, null, true, true, null, true, true);
+        }
+        return descendingMap;
+    }
+
+    @Override
+    public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        if (compare(Objects.requireNonNull(fromKey), Objects.requireNonNull(toKey)) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        return new SubMap(false, fromKey, fromInclusive, false, toKey, toInclusive, false);
+    }
+
+    @Override
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+        compare(Objects.requireNonNull(toKey), toKey);
+        return new SubMap(true, null, true, false, toKey, inclusive, false);
+    }
+
+    @Override
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        compare(Objects.requireNonNull(fromKey), fromKey);
+        return new SubMap(false, fromKey, inclusive, true, null, true, false);
+    }
+
+    @Override
+    @NotNull
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    @NotNull
+    public SortedMap<K, V> headMap(K toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    @NotNull
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    //endregion NavigableMap
+
+    //region 定位
+
+    /**
+     * 以下定位方法都只从根结点下降一次 之后沿叶子结点的 prev/next 移动
+     */
+    private LeafEntry getFirstEntry() {
+        return size == 0 ? null : entryAtOrAfter(min, 0);
+    }
+
+    private LeafEntry getLastEntry() {
+        if (size == 0) {
+            return null;
+        }
+        Node<K, V> current = root;
+        while (!current.isLeaf()) {
+            current = current.children[current.size];
+        }
+        return entryAtOrBefore(current, current.size - 1);
+    }
+
+    /**
+     * 第一个大于等于 key 的项
+     */
+    private LeafEntry getCeilingEntry(K key) {
+        if (root == null) {
+            return null;
+        }
+        Node<K, V> leaf = findLeafNode(Objects.requireNonNull(key));
+        int index = getExactIndex(key, leaf);
+        return entryAtOrAfter(leaf, index >= 0 ? index : -index - 1);
+    }
+
+    /**
+     * 第一个大于 key 的项
+     */
+    private LeafEntry getHigherEntry(K key) {
+        if (root == null) {
+            return null;
+        }
+        Node<K, V> leaf = findLeafNode(Objects.requireNonNull(key));
+        int index = getExactIndex(key, leaf);
+        return entryAtOrAfter(leaf, index >= 0 ? index + 1 : -index - 1);
+    }
+
+    /**
+     * 最后一个小于等于 key 的项
+     */
+    private LeafEntry getFloorEntry(K key) {
+        if (root == null) {
+            return null;
+        }
+        Node<K, V> leaf = findLeafNode(Objects.requireNonNull(key));
+        int index = getExactIndex(key, leaf);
+        return entryAtOrBefore(leaf, index >= 0 ? index : -index - 2);
+    }
+
+    /**
+     * 最后一个小于 key 的项
+     */
+    private LeafEntry getLowerEntry(K key) {
+        if (root == null) {
+            return null;
+        }
+        Node<K, V> leaf = findLeafNode(Objects.requireNonNull(key));
+        int index = getExactIndex(key, leaf);
+        return entryAtOrBefore(leaf, index >= 0 ? index - 1 : -index - 2);
+    }
+
+    private LeafEntry successor(LeafEntry entry) {
+        return entryAtOrAfter(latest(entry.leaf), entry.index + 1);
+    }
+
+    private LeafEntry predecessor(LeafEntry entry) {
+        return entryAtOrBefore(latest(entry.leaf), entry.index - 1);
+    }
+
+    /**
+     * 叶子结点的 index 处 如果超出该结点则是后面结点的第一个
+     */
+    private LeafEntry entryAtOrAfter(Node<K, V> leaf, int index) {
+        while (leaf != null && index >= leaf.size) {
+            leaf = leaf.next;
+            index = 0;
+        }
+        return leaf == null ? null : new LeafEntry(leaf, index);
+    }
+
+    /**
+     * 叶子结点的 index 处 如果小于 0 则是前面结点的最后一个
+     */
+    private LeafEntry entryAtOrBefore(Node<K, V> leaf, int index) {
+        while (leaf != null && index < 0) {
+            leaf = leaf.prev;
+            index = leaf == null ? -1 : leaf.size - 1;
+        }
+        return leaf == null ? null : new LeafEntry(leaf, index);
+    }
+
+    private Map.Entry<K, V> pollEntry(LeafEntry entry) {
+        Map.Entry<K, V> result = exportEntry(entry);
+        if (entry != null) {
+            removeOnLeafNode(entry.leaf, entry.index);
+        }
+        return result;
+    }
+
+    /**
+     * 对外返回的项不支持 setValue 同 {@link java.util.TreeMap}
+     */
+    private static <K, V> Map.Entry<K, V> exportEntry(Map.Entry<K, V> entry) {
+        return entry == null ? null : new SimpleImmutableEntry<>(entry);
+    }
+
+    private static <K> K keyOrNull(Map.Entry<K, ?> entry) {
+        return entry == null ? null : entry.getKey();
+    }
+
+    private static <K> K key(Map.Entry<K, ?> entry) {
+        if (entry == null) {
+            throw new NoSuchElementException();
+        }
+        return entry.getKey();
+    }
+
+    //endregion 定位
+
+    /**
+     * 结点容量
+     * 分裂前结点最多会有 maxChildren 个关键字
+     * 合并时两个结点关键字加上父结点下移的一个关键字最多 2*minElementPerNode 个
+     */
+    private static int nodeCapacity(int maxChildren, int minElementPerNode) {
+        return Math.max(maxChildren, minElementPerNode << 1);
+    }
+
+    private Node<K, V> newLeaf() {
+        return new Node<>(nodeCapacity(leafMaxChildren, leafMinElementPerNode), true, epoch);
+    }
+
+    private Node<K, V> newInnerNode() {
+        return new Node<>(nodeCapacity(maxChildren, minElementPerNode), false, epoch);
+    }
+
+    private Node<K, V> findLeafNode(K key) {
+        counters.descents.increment();
+        Node<K, V> current = root;
+        while (!current.isLeaf()) {
+            int index = getInsertIndex(current, key);
+            current = current.children[index];
+        }
+        return current;
+    }
+
+    /**
+     * 在一个结点中定位要插入的元素应该插在哪个下标
+     * 即第一个大于 key 的关键字的下标 对于内结点也就是 key 所在子孩子的下标
+     */
     private int getInsertIndex(Node<K, V> node, K key) {
-        int index = 0;
-        for (Entry<K, V> inNode : node.data) {
-            if (compare(inNode.getKey(), key) <= 0) {
-                index++;
-            } else {
-                break;
+        int index = binarySearch(node, key);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * 在结点内二分查找
+     *
+     * @return 找到则返回下标 否则返回 -(插入点)-1 同 {@link java.util.Arrays#binarySearch(Object[], Object)}
+     */
+    private int binarySearch(Node<K, V> node, K key) {
+        Object[] keys = node.keys;
+        int low = 0;
+        int high = node.size - 1;
+        int compared = 0;
+        if (comparator != null) {
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                compared++;
+                @SuppressWarnings("unchecked") int cmp = comparator.compare((K) keys[mid], key);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    counters.comparisons.add(compared);
+                    return mid;
+                }
+            }
+        } else {
+            @SuppressWarnings("unchecked") Comparable<? super K> k = toComparable(key);
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                compared++;
+                @SuppressWarnings("unchecked") int cmp = k.compareTo((K) keys[mid]);
+                if (cmp > 0) {
+                    low = mid + 1;
+                } else if (cmp < 0) {
+                    high = mid - 1;
+                } else {
+                    counters.comparisons.add(compared);
+                    return mid;
+                }
             }
         }
-        return index;
+        counters.comparisons.add(compared);
+        return -(low + 1);
     }
 
     @SuppressWarnings("unchecked")
+    private Comparable<? super K> toComparable(K key) {
+        if (key instanceof Comparable) {
+            return (Comparable<? super K>) key;
+        }
+        throw new ClassCastException("key should be Comparable when comparator not specified.");
+    }
+
     private int compare(K left, K right) {
         if (comparator != null) {
             return comparator.compare(left, right);
         }
-        if (left instanceof Comparable && right instanceof Comparable) {
-            return ((Comparable) left).compareTo(right);
-        }
-        throw new ClassCastException("key should be Comparable when comparator not specified.");
+        return toComparable(left).compareTo(right);
     }
 
     /**
      * 获取结点中指定key的下标
+     *
+     * @return 找到则返回下标 否则返回 -(插入点)-1
      */
     private int getExactIndex(K key, Node<K, V> node) {
-        int index = -1;
-        for (Entry<K, V> entry : node.data) {
-            index++;
-            int compare = compare(entry.getKey(), key);
-            if (compare == 0) {
-                return index;
-            }
-            if (compare > 0) {
-                return -1;
-            }
-        }
-        return -1;
+        return binarySearch(node, key);
     }
 
     private V getOnLeafOrNull(K key, Node<K, V> leaf) {
-        for (Entry<K, V> entry : leaf.data) {
-            int compare = compare(entry.getKey(), key);
-            if (compare == 0) {
-                return entry.getValue();
-            }
-            if (compare > 0) {
-                break;
-            }
+        int index = binarySearch(leaf, key);
+        return index >= 0 ? leaf.value(index) : null;
+    }
+
+    /**
+     * 子树中的元素个数
+     */
+    private static int count(Node<?, ?> node) {
+        return node.isLeaf() ? node.size : node.count;
+    }
+
+    /**
+     * 内结点的子孩子变化后重新累加子树元素个数
+     */
+    private static void recount(Node<?, ?> node) {
+        int count = 0;
+        for (int i = 0; i <= node.size; i++) {
+            count += count(node.children[i]);
         }
-        return null;
+        node.count = count;
     }
 
-    private void insertToLeafNode(Node<K, V> leaf, K key, V value) {
-        int index = getInsertIndex(leaf, key);
-        leaf.data.add(index, new SimpleEntry<>(key, value));
+    /**
+     * 叶子结点增删元素后 更新所有祖先的子树元素个数
+     * 叶子结点已经 own 过 所以祖先结点都是当前版本的 可以直接修改
+     */
+    private static void addCount(Node<?, ?> leaf, int delta) {
+        for (Node<?, ?> node = leaf.parent; node != null; node = node.parent) {
+            node.count += delta;
+        }
     }
 
     private boolean shouldSplit(Node<K, V> node) {
-        return node.data.size() >= maxChildren;
+        return node.size >= (node.isLeaf() ? leafMaxChildren : maxChildren);
     }
 
     private Node<K, V> splitLeaf(Node<K, V> leaf) {
+        counters.leafSplits.increment();
         //分裂
-        Node<K, V> right = new Node<>();
-        for (int i = maxChildren >> 1; i < leaf.data.size(); ) {
-            right.data.add(leaf.data.remove(i));
+        Node<K, V> right = newLeaf();
+        int from = leafMaxChildren >> 1;
+        int count = leaf.size - from;
+        System.arraycopy(leaf.keys, from, right.keys, 0, count);
+        System.arraycopy(leaf.values, from, right.values, 0, count);
+        for (int i = from; i < leaf.size; i++) {
+            leaf.keys[i] = null;
+            leaf.values[i] = null;
         }
+        leaf.size = from;
+        right.size = count;
         link(leaf, right);
         //进位
-        Entry<K, V> up = right.data.get(0);
-        return insertToUp(leaf, right, up);
+        return insertToUp(leaf, right, right.keys[0]);
     }
 
     private void link(Node<K, V> left, Node<K, V> right) {
@@ -346,50 +1341,58 @@ public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clo
         }
     }
 
-    private Node<K, V> insertToUp(Node<K, V> left, Node<K, V> right, Entry<K, V> up) {
-        Node<K, V> parent = left.parent;
+    private Node<K, V> insertToUp(Node<K, V> left, Node<K, V> right, Object up) {
+        Node<K, V> parent = left.parent == null ? null : own(left.parent);
         if (parent == null) {
-            parent = new Node<>();
-            parent.children = Lists.newArrayList();
+            parent = newInnerNode();
+            parent.children[0] = left;
+            parent.count = count(left) + count(right);
+            left.parent = parent;
             root = parent;
         }
-        int index = getInsertIndex(parent, up);
-        parent.data.add(index, up);
-        //noinspection StatementWithEmptyBody
-        if (index < parent.children.size() && parent.children.get(index) == left) {
-            //已经在不用再添加
-        } else {
-            parent.addChild(index, left);
-        }
-        parent.addChild(index + 1, right);
+        int index = parent.indexOf(left);
+        parent.insertChild(index + 1, right);
+        parent.insert(index, up, null);
         return parent;
     }
 
     private Node<K, V> splitInnerNode(Node<K, V> node) {
+        counters.innerSplits.increment();
         //分裂
-        Node<K, V> right = new Node<>();
-        right.children = Lists.newLinkedList();
+        Node<K, V> right = newInnerNode();
         int center = maxChildren >> 1;
-        for (int i = center + 1; i < node.data.size(); ) {
-            right.data.add(node.data.remove(i));
-            right.addChild(node.children.remove(i));
+        int count = node.size - center - 1;
+        System.arraycopy(node.keys, center + 1, right.keys, 0, count);
+        System.arraycopy(node.children, center + 1, right.children, 0, count + 1);
+        for (int i = 0; i <= count; i++) {
+            right.children[i].parent = right;
+        }
+        right.size = count;
+        Object up = node.keys[center];
+        for (int i = center; i < node.size; i++) {
+            node.keys[i] = null;
+            node.children[i + 1] = null;
         }
-        right.addChild(node.children.remove(center + 1));
+        node.size = center;
+        recount(node);
+        recount(right);
         link(node, right);
         //进位
-        Entry<K, V> up = node.data.remove(center);
         return insertToUp(node, right, up);
     }
 
     private V removeOnLeafNode(Node<K, V> leaf, int index) {
         //1 删除叶子结点
-        Entry<K, V> remove = leaf.data.remove(index);
+        leaf = own(leaf);
+        V remove = leaf.value(index);
+        leaf.delete(index);
+        addCount(leaf, -1);
         // 删除后叶子结点key个数符合填充因子则结束 否则:
-        if (tooLess(leaf)) {
+        if (leaf != root && tooLess(leaf) && !(lazyDeletion && leaf.size > 0)) {
             Node<K, V> richNeighborNode = findRichNeighborNode(leaf);
             if (richNeighborNode != null) {
                 //2 如果兄弟有富余
-                borrowFormLeafNeighbor(leaf, index, richNeighborNode);
+                borrowFormLeafNeighbor(leaf, richNeighborNode);
             } else {
                 //3 兄弟结点没有富余 那么与兄弟合并 并删除父节点中的key 将当前结点指向父结点
                 joinWithLeafNeighbor(leaf);
@@ -397,11 +1400,11 @@ public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clo
         }
         size--;
         modCount++;
-        return remove.getValue();
+        return remove;
     }
 
     private boolean tooLess(Node<K, V> node) {
-        return node.data.size() < minElementPerNode;
+        return node.size < (node.isLeaf() ? leafMinElementPerNode : minElementPerNode);
     }
 
     private Node<K, V> findRichNeighborNode(Node<K, V> current) {
@@ -421,10 +1424,13 @@ public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clo
     }
 
     private boolean rich(Node<K, V> node) {
-        return node.data.size() > minElementPerNode;
+        return node.size > (node.isLeaf() ? leafMinElementPerNode : minElementPerNode);
     }
 
-    private void borrowFormLeafNeighbor(Node<K, V> leaf, int removeIndexOnLeaf, Node<K, V> richNeighborNode) {
+    private void borrowFormLeafNeighbor(Node<K, V> leaf, Node<K, V> richNeighborNode) {
+        counters.leafBorrows.increment();
+        richNeighborNode = own(richNeighborNode);
+        Node<K, V> parent = own(leaf.parent);
         if (richNeighborNode == leaf.prev) {
             //左边最后一个借过来 同时更新当前叶子的父结点为借过来的值
             //    7      11
@@ -432,12 +1438,10 @@ public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clo
             //
             //    7    9
             // 5,6  7,8  9,11
-            Entry<K, V> borrow = richNeighborNode.data.remove(richNeighborNode.data.size() - 1);
-            leaf.data.add(0, borrow);
-            int parentIndex = getExactIndex(richNeighborNode.data.get(0).getKey(), richNeighborNode.parent);
-            Preconditions.checkArgument(parentIndex > -1);
-            richNeighborNode.parent.data.remove(parentIndex + 1);
-            richNeighborNode.parent.data.add(parentIndex + 1, borrow);
+            int last = richNeighborNode.size - 1;
+            leaf.insert(0, richNeighborNode.keys[last], richNeighborNode.values[last]);
+            richNeighborNode.delete(last);
+            parent.keys[parent.indexOf(leaf) - 1] = leaf.keys[0];
         } else if (richNeighborNode == leaf.next) {
             //右边第一个借过来 同时更新右边结点的父结点为借过来后剩下的那个最小值
             //     7   8
@@ -445,43 +1449,38 @@ public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clo
             //
             //     7    9
             // 5,6  7,8  9,10
-            Entry<K, V> borrow = richNeighborNode.data.remove(0);
-            leaf.data.add(borrow);
-            int parentIndex = getExactIndex(borrow.getKey(), richNeighborNode.parent);
-            Preconditions.checkArgument(parentIndex > -1);
-            richNeighborNode.parent.data.remove(parentIndex);
-            richNeighborNode.parent.data.add(parentIndex, richNeighborNode.data.get(0));
-            if (parentIndex > 0 && removeIndexOnLeaf == 0) {
-                //删除的是中间叶子结点的最小值
-                //    8     10
-                // 67  <8>,9  10,11,12
-                //
-                //    9    11
-                // 67  9,10   11,12
-                richNeighborNode.parent.data.remove(parentIndex - 1);
-                richNeighborNode.parent.data.add(parentIndex - 1, leaf.data.get(0));
-            }
+            leaf.insert(leaf.size, richNeighborNode.keys[0], richNeighborNode.values[0]);
+            richNeighborNode.delete(0);
+            parent.keys[parent.indexOf(leaf)] = richNeighborNode.keys[0];
         } else {
             throw new IllegalStateException();
         }
     }
 
     private void joinWithLeafNeighbor(Node<K, V> leaf) {
-        if (leaf.prev != null) {
-            leaf = leaf.prev;
+        counters.leafJoins.increment();
+        // 只与同一父结点下的兄弟合并 总是把右边的合并到左边
+        Node<K, V> left = leaf;
+        if (leaf.prev != null && leaf.prev.parent == leaf.parent) {
+            left = own(leaf.prev);
         }
-        if (leaf.next != null) {
-            Entry<K, V> removeInUp = leaf.next.data.get(0);
-            leaf.data.addAll(leaf.next.data);
-            unLinkNext(leaf);
-            int indexInParent = getExactIndex(removeInUp.getKey(), leaf.parent);
-            Preconditions.checkArgument(indexInParent > -1);
-            leaf.parent.data.remove(indexInParent);
-            leaf.parent.children.remove(indexInParent + 1);
-            Node<K, V> currentInnerNode = leaf.parent;
-            //4 若内结点的key个数符合填充因子则结束 否则:
-            removeOnInnerNode(currentInnerNode);
+        Node<K, V> right = left.next;
+        Preconditions.checkState(right != null && right.parent == left.parent);
+        System.arraycopy(right.keys, 0, left.keys, left.size, right.size);
+        System.arraycopy(right.values, 0, left.values, left.size, right.size);
+        left.size += right.size;
+        unLinkNext(left);
+        Node<K, V> parent = own(left.parent);
+        int indexInParent = parent.indexOf(right);
+        parent.deleteChild(indexInParent);
+        parent.delete(indexInParent - 1);
+        if (shouldSplit(left)) {
+            //合并后太多 重新分裂 父结点关键字个数不变
+            splitLeaf(left);
+            return;
         }
+        //4 若内结点的key个数符合填充因子则结束 否则:
+        removeOnInnerNode(parent);
     }
 
     private void unLinkNext(Node<K, V> left) {
@@ -493,10 +1492,10 @@ public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clo
 
     private void removeOnInnerNode(Node<K, V> currentInnerNode) {
         if (currentInnerNode == root) {
-            if (root.data.size() == 0) {
-                Node<K, V> leaf = root.children.get(0);
-                root.children.clear();
-                root = leaf;
+            if (root.size == 0) {
+                Node<K, V> child = root.children[0];
+                root.children[0] = null;
+                root = child;
                 root.parent = null;
             }
             return;
@@ -515,135 +1514,1010 @@ public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clo
     }
 
     private void borrowFromInnerNeighbor(Node<K, V> currentInnerNode, Node<K, V> richNeighborNode) {
+        counters.innerBorrows.increment();
+        richNeighborNode = own(richNeighborNode);
+        Node<K, V> parent = own(currentInnerNode.parent);
+        int indexInParent = parent.indexOf(currentInnerNode);
         if (richNeighborNode == currentInnerNode.prev) {
             //        16
             // 7,9,10    <20>
             //      10
             // 7,9     16,20
-            Entry<K, V> up = currentInnerNode.prev.data.remove(currentInnerNode.parent.data.size() - 1);
-            int indexInParent = getInsertIndex(currentInnerNode.parent, up);
-            Entry<K, V> down = currentInnerNode.parent.data.remove(indexInParent);
-            currentInnerNode.parent.data.add(indexInParent, up);
-            currentInnerNode.data.add(0, down);
-            Node<K, V> lastChildToRight =
-                    currentInnerNode.prev.children.remove(currentInnerNode.prev.children.size() - 1);
-            currentInnerNode.addChild(0, lastChildToRight);
+            int last = richNeighborNode.size - 1;
+            Object up = richNeighborNode.keys[last];
+            Node<K, V> lastChildToRight = richNeighborNode.deleteChild(last + 1);
+            richNeighborNode.delete(last);
+            Object down = parent.keys[indexInParent - 1];
+            parent.keys[indexInParent - 1] = up;
+            currentInnerNode.insertChild(0, lastChildToRight);
+            currentInnerNode.insert(0, down, null);
+            richNeighborNode.count -= count(lastChildToRight);
+            currentInnerNode.count += count(lastChildToRight);
         } else if (richNeighborNode == currentInnerNode.next) {
             //      16
             // <7>      18,20,22
             //
             //        18
             // 7,16         20,22
-            Entry<K, V> up = currentInnerNode.next.data.remove(0);
-            int indexInParent = getInsertIndex(currentInnerNode.parent, up) - 1;
-            Entry<K, V> down = currentInnerNode.parent.data.remove(indexInParent);
-            currentInnerNode.parent.data.add(indexInParent, up);
-            currentInnerNode.data.add(down);
-            Node<K, V> firstChildToLeft = currentInnerNode.next.children.remove(0);
-            currentInnerNode.addChild(firstChildToLeft);
+            Object up = richNeighborNode.keys[0];
+            Node<K, V> firstChildToLeft = richNeighborNode.deleteChild(0);
+            richNeighborNode.delete(0);
+            Object down = parent.keys[indexInParent];
+            parent.keys[indexInParent] = up;
+            currentInnerNode.insertChild(currentInnerNode.size + 1, firstChildToLeft);
+            currentInnerNode.insert(currentInnerNode.size, down, null);
+            richNeighborNode.count -= count(firstChildToLeft);
+            currentInnerNode.count += count(firstChildToLeft);
         } else {
             throw new IllegalStateException();
         }
     }
 
     private void joinWithInnerNeighbor(Node<K, V> currentInnerNode) {
-        if (currentInnerNode.prev != null) {
-            //    18
-            // 9,16  <20>
-            //
-            // 9,16,18,20
-            currentInnerNode = currentInnerNode.prev;
+        counters.innerJoins.increment();
+        //    18
+        // 9,16  <20>
+        //
+        // 9,16,18,20
+        Node<K, V> left = currentInnerNode;
+        if (currentInnerNode.prev != null && currentInnerNode.prev.parent == currentInnerNode.parent) {
+            left = own(currentInnerNode.prev);
         }
-        if (currentInnerNode.next != null) {
-            //    16
-            // <9> 18,20
-            //
-            // 9,16,18,20
-            int indexInParent = getInsertIndex(currentInnerNode.parent, currentInnerNode.next.data.get(0)) - 1;
-            Entry<K, V> down = currentInnerNode.parent.data.remove(indexInParent);
-            currentInnerNode.parent.children.remove(indexInParent + 1);
-            currentInnerNode.data.add(down);
-            currentInnerNode.data.addAll(currentInnerNode.next.data);
-            currentInnerNode.addChildren(currentInnerNode.next.children);
-            currentInnerNode.next.data.clear();
-            currentInnerNode.next.children.clear();
-            unLinkNext(currentInnerNode);
-            currentInnerNode = currentInnerNode.parent;
-            removeOnInnerNode(currentInnerNode);
+        Node<K, V> right = left.next;
+        Preconditions.checkState(right != null && right.parent == left.parent);
+        Node<K, V> parent = own(left.parent);
+        int indexInParent = parent.indexOf(right);
+        left.keys[left.size] = parent.keys[indexInParent - 1];
+        System.arraycopy(right.keys, 0, left.keys, left.size + 1, right.size);
+        System.arraycopy(right.children, 0, left.children, left.size + 1, right.size + 1);
+        for (int i = 0; i <= right.size; i++) {
+            right.children[i].parent = left;
+        }
+        left.size += right.size + 1;
+        left.count += right.count;
+        unLinkNext(left);
+        parent.deleteChild(indexInParent);
+        parent.delete(indexInParent - 1);
+        if (shouldSplit(left)) {
+            //阶数为偶数时 合并后可能有 maxChildren 个关键字 需要重新分裂 父结点关键字个数不变
+            splitInnerNode(left);
+            return;
         }
+        removeOnInnerNode(parent);
     }
 
     final class EntrySet extends AbstractSet<Entry<K, V>> {
         @Override
         public Iterator<Entry<K, V>> iterator() {
-            return new Iterator<Map.Entry<K, V>>() {
-                Node<K, V> currentNode = min;
-                int index = 0;
-                int expectMod = modCount;
-
-                @Override
-                public void remove() {
-                    checkModCount(expectMod);
-                    BplusTree.this.removeOnLeafNode(currentNode, index);
-                    expectMod = modCount;
-                }
+            return new EntryIterator(getFirstEntry(), false, null);
+        }
 
-                @Override
-                public boolean hasNext() {
-                    checkModCount(expectMod);
-                    return currentNode != null && (index < currentNode.data.size() || currentNode.next != null);
-                }
+        @Override
+        public Spliterator<Entry<K, V>> spliterator() {
+            return new TreeSpliterator<>(false);
+        }
 
-                @Override
-                public Map.Entry<K, V> next() {
-                    checkModCount(expectMod);
-                    Entry<K, V> entry = currentNode.data.get(index++);
-                    if (index >= currentNode.data.size()) {
-                        index = 0;
-                        currentNode = currentNode.next;
-                    }
-                    return entry;
-                }
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            Object key = entry.getKey();
+            return key != null && containsKey(key) && Objects.equals(get(key), entry.getValue());
+        }
 
-            };
+        @Override
+        public boolean remove(Object o) {
+            if (!contains(o)) {
+                return false;
+            }
+            BplusTree.this.remove(((Map.Entry<?, ?>) o).getKey());
+            return true;
         }
 
         @Override
         public int size() {
             return size;
         }
-    }
 
-    private void checkModCount(int expectModCount) {
-        if (expectModCount != modCount) {
-            throw new ConcurrentModificationException();
+        @Override
+        public void clear() {
+            BplusTree.this.clear();
         }
     }
 
-    private String innerToString() {
-        if (root == null) {
-            return "{}";
+    /**
+     * 沿叶子结点链表遍历
+     * 有范围时越过边界即停止
+     */
+    final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private final boolean descending;
+        private final SubMap range;
+        private LeafEntry next;
+        private LeafEntry lastReturned;
+        private int expectMod = modCount;
+
+        EntryIterator(LeafEntry first, boolean descending, SubMap range) {
+            this.descending = descending;
+            this.range = range;
+            this.next = fence(first);
         }
-        int expectModCount = this.modCount;
-        StringBuilder sb = new StringBuilder("{");
-        Node<K, V> currentLevel = root;
-        Node<K, V> current;
-        int level = 0;
-        while (currentLevel != null) {
-            current = currentLevel;
-            sb.append(level++).append("=[");
-            while (current != null) {
-                checkModCount(expectModCount);
-                sb.append('(').append(current.data).append(')');
-                current = current.next;
-                if (current != null) {
-                    sb.append(',');
-                }
+
+        private LeafEntry fence(LeafEntry entry) {
+            if (entry == null || range == null) {
+                return entry;
             }
-            sb.append("]");
-            if (currentLevel.children != null) {
-                sb.append(',');
-                currentLevel = currentLevel.children.get(0);
+            K key = entry.getKey();
+            return (descending ? range.tooLow(key) : range.tooHigh(key)) ? null : entry;
+        }
+
+        @Override
+        public boolean hasNext() {
+            checkModCount(expectMod);
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            checkModCount(expectMod);
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            next = fence(descending ? predecessor(next) : successor(next));
+            return lastReturned;
+        }
+
+        @Override
+        public void remove() {
+            Preconditions.checkState(lastReturned != null);
+            checkModCount(expectMod);
+            BplusTree.this.remove(lastReturned.getKey());
+            lastReturned = null;
+            expectMod = modCount;
+            // 删除可能引起结点合并 重新定位到下一个元素
+            if (next != null) {
+                next = getCeilingEntry(next.getKey());
+            }
+        }
+    }
+
+    /**
+     * 子视图 [lo, hi] 是按树的顺序的范围 descending 表示视图的顺序与树相反
+     */
+    final class SubMap extends AbstractMap<K, V> implements NavigableMap<K, V> {
+        private final boolean fromStart;
+        private final K lo;
+        private final boolean loInclusive;
+        private final boolean toEnd;
+        private final K hi;
+        private final boolean hiInclusive;
+        private final boolean descending;
+        private Set<Map.Entry<K, V>> entrySetView;
+        private NavigableSet<K> navigableKeySetView;
+
+        SubMap(boolean fromStart, K lo, boolean loInclusive,
+                boolean toEnd, K hi, boolean hiInclusive, boolean descending) {
+            this.fromStart = fromStart;
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.toEnd = toEnd;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            this.descending = descending;
+        }
+
+        //region 范围检查
+
+        private boolean tooLow(K key) {
+            if (!fromStart) {
+                int c = compare(key, lo);
+                return c < 0 || (c == 0 && !loInclusive);
+            }
+            return false;
+        }
+
+        private boolean tooHigh(K key) {
+            if (!toEnd) {
+                int c = compare(key, hi);
+                return c > 0 || (c == 0 && !hiInclusive);
+            }
+            return false;
+        }
+
+        private boolean inRange(K key) {
+            return !tooLow(key) && !tooHigh(key);
+        }
+
+        private boolean inClosedRange(K key) {
+            return (fromStart || compare(key, lo) >= 0) && (toEnd || compare(hi, key) >= 0);
+        }
+
+        private boolean inRange(K key, boolean inclusive) {
+            return inclusive ? inRange(key) : inClosedRange(key);
+        }
+
+        @SuppressWarnings("unchecked")
+        private boolean inRangeObject(Object key) {
+            return inRange((K) Objects.requireNonNull(key));
+        }
+
+        //endregion 范围检查
+
+        //region 按树的顺序定位
+
+        private LeafEntry absLowest() {
+            LeafEntry e = fromStart ? getFirstEntry() : (loInclusive ? getCeilingEntry(lo) : getHigherEntry(lo));
+            return e == null || tooHigh(e.getKey()) ? null : e;
+        }
+
+        private LeafEntry absHighest() {
+            LeafEntry e = toEnd ? getLastEntry() : (hiInclusive ? getFloorEntry(hi) : getLowerEntry(hi));
+            return e == null || tooLow(e.getKey()) ? null : e;
+        }
+
+        private LeafEntry absCeiling(K key) {
+            if (tooLow(key)) {
+                return absLowest();
+            }
+            LeafEntry e = getCeilingEntry(key);
+            return e == null || tooHigh(e.getKey()) ? null : e;
+        }
+
+        private LeafEntry absHigher(K key) {
+            if (tooLow(key)) {
+                return absLowest();
+            }
+            LeafEntry e = getHigherEntry(key);
+            return e == null || tooHigh(e.getKey()) ? null : e;
+        }
+
+        private LeafEntry absFloor(K key) {
+            if (tooHigh(key)) {
+                return absHighest();
+            }
+            LeafEntry e = getFloorEntry(key);
+            return e == null || tooLow(e.getKey()) ? null : e;
+        }
+
+        private LeafEntry absLower(K key) {
+            if (tooHigh(key)) {
+                return absHighest();
+            }
+            LeafEntry e = getLowerEntry(key);
+            return e == null || tooLow(e.getKey()) ? null : e;
+        }
+
+        //endregion 按树的顺序定位
+
+        //region 按视图的顺序定位
+
+        private LeafEntry lowest() {
+            return descending ? absHighest() : absLowest();
+        }
+
+        private LeafEntry highest() {
+            return descending ? absLowest() : absHighest();
+        }
+
+        private LeafEntry ceiling(K key) {
+            return descending ? absFloor(key) : absCeiling(key);
+        }
+
+        private LeafEntry higher(K key) {
+            return descending ? absLower(key) : absHigher(key);
+        }
+
+        private LeafEntry floor(K key) {
+            return descending ? absCeiling(key) : absFloor(key);
+        }
+
+        private LeafEntry lower(K key) {
+            return descending ? absHigher(key) : absLower(key);
+        }
+
+        //endregion 按视图的顺序定位
+
+        @Override
+        public int size() {
+            if (fromStart && toEnd) {
+                return BplusTree.this.size;
+            }
+            int count = 0;
+            for (Iterator<Map.Entry<K, V>> it = entrySet().iterator(); it.hasNext(); it.next()) {
+                count++;
+            }
+            return count;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return absLowest() == null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return inRangeObject(key) && BplusTree.this.containsKey(key);
+        }
+
+        @Override
+        public V get(Object key) {
+            return inRangeObject(key) ? BplusTree.this.get(key) : null;
+        }
+
+        @Override
+        public V put(K key, V value) {
+            if (!inRange(Objects.requireNonNull(key))) {
+                throw new IllegalArgumentException("key out of range");
+            }
+            return BplusTree.this.put(key, value);
+        }
+
+        @Override
+        public V remove(Object key) {
+            return inRangeObject(key) ? BplusTree.this.remove(key) : null;
+        }
+
+        @Override
+        @NotNull
+        public Set<Map.Entry<K, V>> entrySet() {
+            if (entrySetView == null) {
+                entrySetView = new AbstractSet<Map.Entry<K, V>>() {
+                    @Override
+                    public Iterator<Map.Entry<K, V>> iterator() {
+                        return new EntryIterator(lowest(), descending, SubMap.this);
+                    }
+
+                    @Override
+                    public int size() {
+                        return SubMap.this.size();
+                    }
+
+                    @Override
+                    public boolean isEmpty() {
+                        return SubMap.this.isEmpty();
+                    }
+
+                    @Override
+                    public boolean contains(Object o) {
+                        if (!(o instanceof Map.Entry)) {
+                            return false;
+                        }
+                        Object key = ((Map.Entry<?, ?>) o).getKey();
+                        return key != null && inRangeObject(key) && BplusTree.this.entrySet().contains(o);
+                    }
+
+                    @Override
+                    public boolean remove(Object o) {
+                        return contains(o) && BplusTree.this.entrySet().remove(o);
+                    }
+                };
+            }
+            return entrySetView;
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return descending ? Collections.reverseOrder(comparator) : comparator;
+        }
+
+        @Override
+        public Map.Entry<K, V> firstEntry() {
+            return exportEntry(lowest());
+        }
+
+        @Override
+        public Map.Entry<K, V> lastEntry() {
+            return exportEntry(highest());
+        }
+
+        @Override
+        public Map.Entry<K, V> pollFirstEntry() {
+            return pollEntry(lowest());
+        }
+
+        @Override
+        public Map.Entry<K, V> pollLastEntry() {
+            return pollEntry(highest());
+        }
+
+        @Override
+        public K firstKey() {
+            return key(lowest());
+        }
+
+        @Override
+        public K lastKey() {
+            return key(highest());
+        }
+
+        @Override
+        public Map.Entry<K, V> lowerEntry(K key) {
+            return exportEntry(lower(key));
+        }
+
+        @Override
+        public K lowerKey(K key) {
+            return keyOrNull(lower(key));
+        }
+
+        @Override
+        public Map.Entry<K, V> floorEntry(K key) {
+            return exportEntry(floor(key));
+        }
+
+        @Override
+        public K floorKey(K key) {
+            return keyOrNull(floor(key));
+        }
+
+        @Override
+        public Map.Entry<K, V> ceilingEntry(K key) {
+            return exportEntry(ceiling(key));
+        }
+
+        @Override
+        public K ceilingKey(K key) {
+            return keyOrNull(ceiling(key));
+        }
+
+        @Override
+        public Map.Entry<K, V> higherEntry(K key) {
+            return exportEntry(higher(key));
+        }
+
+        @Override
+        public K higherKey(K key) {
+            return keyOrNull(higher(key));
+        }
+
+        @Override
+        @NotNull
+        public NavigableSet<K> keySet() {
+            return navigableKeySet();
+        }
+
+        @Override
+        public NavigableSet<K> navigableKeySet() {
+            if (navigableKeySetView == null) {
+                navigableKeySetView = new KeySet<>(this);
+            }
+            return navigableKeySetView;
+        }
+
+        @Override
+        public NavigableSet<K> descendingKeySet() {
+            return descendingMap().navigableKeySet();
+        }
+
+        @Override
+        public NavigableMap<K, V> descendingMap() {
+            return new SubMap(fromStart, lo, loInclusive, toEnd, hi, hiInclusive, !descending);
+        }
+
+        @Override
+        public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+            if (!inRange(Objects.requireNonNull(fromKey), fromInclusive)) {
+                throw new IllegalArgumentException("fromKey out of range");
+            }
+            if (!inRange(Objects.requireNonNull(toKey), toInclusive)) {
+                throw new IllegalArgumentException("toKey out of range");
+            }
+            if (descending) {
+                if (compare(toKey, fromKey) > 0) {
+                    throw new IllegalArgumentException("fromKey > toKey");
+                }
+                return new SubMap(false, toKey, toInclusive, false, fromKey, fromInclusive, true);
+            }
+            if (compare(fromKey, toKey) > 0) {
+                throw new IllegalArgumentException("fromKey > toKey");
+            }
+            return new SubMap(false, fromKey, fromInclusive, false, toKey, toInclusive, false);
+        }
+
+        @Override
+        public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+            if (!inRange(Objects.requireNonNull(toKey), inclusive)) {
+                throw new IllegalArgumentException("toKey out of range");
+            }
+            if (descending) {
+                return new SubMap(false, toKey, inclusive, toEnd, hi, hiInclusive, true);
+            }
+            return new SubMap(fromStart, lo, loInclusive, false, toKey, inclusive, false);
+        }
+
+        @Override
+        public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+            if (!inRange(Objects.requireNonNull(fromKey), inclusive)) {
+                throw new IllegalArgumentException("fromKey out of range");
+            }
+            if (descending) {
+                return new SubMap(fromStart, lo, loInclusive, false, fromKey, inclusive, true);
+            }
+            return new SubMap(false, fromKey, inclusive, toEnd, hi, hiInclusive, false);
+        }
+
+        @Override
+        @NotNull
+        public SortedMap<K, V> subMap(K fromKey, K toKey) {
+            return subMap(fromKey, true, toKey, false);
+        }
+
+        @Override
+        @NotNull
+        public SortedMap<K, V> headMap(K toKey) {
+            return headMap(toKey, false);
+        }
+
+        @Override
+        @NotNull
+        public SortedMap<K, V> tailMap(K fromKey) {
+            return tailMap(fromKey, true);
+        }
+    }
+
+    /**
+     * 关键字视图 对应的 map 可以是树本身也可以是子视图
+     */
+    static final class KeySet<E> extends AbstractSet<E> implements NavigableSet<E> {
+        private final NavigableMap<E, ?> map;
+
+        KeySet(NavigableMap<E, ?> map) {
+            this.map = map;
+        }
+
+        @Override
+        @NotNull
+        public Iterator<E> iterator() {
+            Iterator<? extends Map.Entry<E, ?>> iterator = map.entrySet().iterator();
+            return new Iterator<E>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public E next() {
+                    return iterator.next().getKey();
+                }
+
+                @Override
+                public void remove() {
+                    iterator.remove();
+                }
+            };
+        }
+
+        @Override
+        @NotNull
+        public Iterator<E> descendingIterator() {
+            return descendingSet().iterator();
+        }
+
+        @Override
+        @NotNull
+        @SuppressWarnings("unchecked")
+        public Spliterator<E> spliterator() {
+            if (map instanceof BplusTree) {
+                return ((BplusTree<E, ?>) map).keySpliterator();
+            }
+            return NavigableSet.super.spliterator();
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return map.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return map.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (map.containsKey(o)) {
+                map.remove(o);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+
+        @Override
+        public E lower(E e) {
+            return map.lowerKey(e);
+        }
+
+        @Override
+        public E floor(E e) {
+            return map.floorKey(e);
+        }
+
+        @Override
+        public E ceiling(E e) {
+            return map.ceilingKey(e);
+        }
+
+        @Override
+        public E higher(E e) {
+            return map.higherKey(e);
+        }
+
+        @Override
+        public E first() {
+            return map.firstKey();
+        }
+
+        @Override
+        public E last() {
+            return map.lastKey();
+        }
+
+        @Override
+        public Comparator<? super E> comparator() {
+            return map.comparator();
+        }
+
+        @Override
+        public E pollFirst() {
+            return keyOrNull(map.pollFirstEntry());
+        }
+
+        @Override
+        public E pollLast() {
+            return keyOrNull(map.pollLastEntry());
+        }
+
+        @Override
+        public NavigableSet<E> descendingSet() {
+            return new KeySet<>(map.descendingMap());
+        }
+
+        @Override
+        public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+            return new KeySet<>(map.subMap(fromElement, fromInclusive, toElement, toInclusive));
+        }
+
+        @Override
+        public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+            return new KeySet<>(map.headMap(toElement, inclusive));
+        }
+
+        @Override
+        public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+            return new KeySet<>(map.tailMap(fromElement, inclusive));
+        }
+
+        @Override
+        @NotNull
+        public SortedSet<E> subSet(E fromElement, E toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        @NotNull
+        public SortedSet<E> headSet(E toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        @NotNull
+        public SortedSet<E> tailSet(E fromElement) {
+            return tailSet(fromElement, true);
+        }
+    }
+
+    /**
+     * 只读快照 见 {@link #snapshot()}
+     * 子视图的范围是 [lo, hi) 为 null 表示不限
+     */
+    private final class Snapshot extends AbstractMap<K, V> implements SortedMap<K, V> {
+        private final Node<K, V> root;
+        /**
+         * 子视图为 -1 需要遍历计数
+         */
+        private final int size;
+        private final K lo;
+        private final K hi;
+
+        private Snapshot(Node<K, V> root, int size, K lo, K hi) {
+            this.root = root;
+            this.size = size;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        public int size() {
+            if (size >= 0) {
+                return size;
+            }
+            int count = 0;
+            for (Iterator<Entry<K, V>> it = new SnapshotIterator(root, lo, hi); it.hasNext(); it.next()) {
+                count++;
+            }
+            return count;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public V get(Object key) {
+            int index = indexOf(key);
+            return index >= 0 ? leafOf(key).value(index) : null;
+        }
+
+        @Override
+        @NotNull
+        public Set<Entry<K, V>> entrySet() {
+            return new AbstractSet<Entry<K, V>>() {
+                @Override
+                @NotNull
+                public Iterator<Entry<K, V>> iterator() {
+                    return new SnapshotIterator(root, lo, hi);
+                }
+
+                @Override
+                public int size() {
+                    return Snapshot.this.size();
+                }
+            };
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return comparator;
+        }
+
+        @Override
+        @NotNull
+        public SortedMap<K, V> subMap(K fromKey, K toKey) {
+            Preconditions.checkArgument(compare(fromKey, toKey) <= 0, "fromKey > toKey");
+            return new Snapshot(root, -1, bound(fromKey), bound(toKey));
+        }
+
+        @Override
+        @NotNull
+        public SortedMap<K, V> headMap(K toKey) {
+            return new Snapshot(root, -1, lo, bound(toKey));
+        }
+
+        @Override
+        @NotNull
+        public SortedMap<K, V> tailMap(K fromKey) {
+            return new Snapshot(root, -1, bound(fromKey), hi);
+        }
+
+        @Override
+        public K firstKey() {
+            Iterator<Entry<K, V>> it = new SnapshotIterator(root, lo, hi);
+            if (!it.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return it.next().getKey();
+        }
+
+        @Override
+        public K lastKey() {
+            K key = root == null ? null : lastKeyBelow(root);
+            if (key == null || (lo != null && compare(key, lo) < 0)) {
+                throw new NoSuchElementException();
+            }
+            return key;
+        }
+
+        /**
+         * 子树中小于 hi 的最大关键字
+         */
+        private K lastKeyBelow(Node<K, V> node) {
+            if (node.isLeaf()) {
+                int index = node.size - 1;
+                if (hi != null) {
+                    int found = binarySearch(node, hi);
+                    index = found >= 0 ? found - 1 : -found - 2;
+                }
+                return index >= 0 ? node.key(index) : null;
+            }
+            for (int i = hi == null ? node.size : getInsertIndex(node, hi); i >= 0; i--) {
+                K key = lastKeyBelow(node.children[i]);
+                if (key != null) {
+                    return key;
+                }
+            }
+            return null;
+        }
+
+        private K bound(K key) {
+            Objects.requireNonNull(key);
+            Preconditions.checkArgument(inRange(key), "key out of range: %s", key);
+            return key;
+        }
+
+        private boolean inRange(K key) {
+            return (lo == null || compare(key, lo) >= 0) && (hi == null || compare(key, hi) <= 0);
+        }
+
+        @SuppressWarnings("unchecked")
+        private int indexOf(Object key) {
+            K k = (K) Objects.requireNonNull(key);
+            if (root == null || (lo != null && compare(k, lo) < 0) || (hi != null && compare(k, hi) >= 0)) {
+                return -1;
+            }
+            return binarySearch(leafOf(k), k);
+        }
+
+        @SuppressWarnings("unchecked")
+        private Node<K, V> leafOf(Object key) {
+            Node<K, V> node = root;
+            while (!node.isLeaf()) {
+                node = node.children[getInsertIndex(node, (K) key)];
+            }
+            return node;
+        }
+    }
+
+    /**
+     * 快照的迭代器 用栈记录从根结点到当前叶子结点的路径
+     */
+    private final class SnapshotIterator implements Iterator<Map.Entry<K, V>> {
+        private final Node<K, V>[] path;
+        /**
+         * 内结点: 正在遍历的子孩子下标; 叶子结点: 下一项的下标
+         */
+        private final int[] indexes;
+        private final K hi;
+        private int depth;
+        private Map.Entry<K, V> next;
+
+        @SuppressWarnings("unchecked")
+        private SnapshotIterator(Node<K, V> root, K lo, K hi) {
+            this.hi = hi;
+            int height = 0;
+            for (Node<K, V> node = root; node != null; node = node.isLeaf() ? null : node.children[0]) {
+                height++;
+            }
+            path = (Node<K, V>[]) new Node<?, ?>[height];
+            indexes = new int[height];
+            Node<K, V> node = root;
+            while (node != null) {
+                path[depth] = node;
+                if (node.isLeaf()) {
+                    int index = lo == null ? 0 : binarySearch(node, lo);
+                    indexes[depth++] = index >= 0 ? index : -index - 1;
+                    node = null;
+                } else {
+                    int index = lo == null ? 0 : getInsertIndex(node, lo);
+                    indexes[depth++] = index;
+                    node = node.children[index];
+                }
+            }
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (depth > 0) {
+                int level = depth - 1;
+                Node<K, V> node = path[level];
+                if (node.isLeaf()) {
+                    int index = indexes[level];
+                    if (index < node.size) {
+                        K key = node.key(index);
+                        if (hi != null && compare(key, hi) >= 0) {
+                            depth = 0;
+                            return;
+                        }
+                        next = new SimpleImmutableEntry<>(key, node.value(index));
+                        indexes[level]++;
+                        return;
+                    }
+                    depth--;
+                    continue;
+                }
+                int index = ++indexes[level];
+                if (index > node.size) {
+                    depth--;
+                    continue;
+                }
+                // 下降到下一个子孩子的最左边
+                Node<K, V> child = node.children[index];
+                while (true) {
+                    level++;
+                    path[level] = child;
+                    indexes[level] = 0;
+                    if (child.isLeaf()) {
+                        break;
+                    }
+                    child = child.children[0];
+                }
+                depth = level + 1;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<K, V> result = next;
+            advance();
+            return result;
+        }
+    }
+
+    /**
+     * 叶子结点中的一项 setValue 会写回叶子结点
+     */
+    private final class LeafEntry extends SimpleEntry<K, V> {
+        private static final long serialVersionUID = 6521347016289390541L;
+        private final transient Node<K, V> leaf;
+        private final int index;
+        private final int expectModCount;
+
+        private LeafEntry(Node<K, V> leaf, int index) {
+            super(leaf.key(index), leaf.value(index));
+            this.leaf = leaf;
+            this.index = index;
+            this.expectModCount = modCount;
+        }
+
+        @Override
+        public V setValue(V value) {
+            checkModCount(expectModCount);
+            own(latest(leaf)).values[index] = value;
+            return super.setValue(value);
+        }
+    }
+
+    private void checkModCount(int expectModCount) {
+        if (expectModCount != modCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    private String innerToString() {
+        if (root == null) {
+            return "{}";
+        }
+        int expectModCount = this.modCount;
+        StringBuilder sb = new StringBuilder("{");
+        Node<K, V> currentLevel = root;
+        Node<K, V> current;
+        int level = 0;
+        while (currentLevel != null) {
+            current = currentLevel;
+            sb.append(level++).append("=[");
+            while (current != null) {
+                checkModCount(expectModCount);
+                sb.append('(').append(current).append(')');
+                current = current.next;
+                if (current != null) {
+                    sb.append(',');
+                }
+            }
+            sb.append("]");
+            if (currentLevel.children != null) {
+                sb.append(',');
+                currentLevel = currentLevel.children[0];
                 checkModCount(expectModCount);
             } else {
                 currentLevel = null;
@@ -654,6 +2528,416 @@ public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clo
         return sb.toString();
     }
 
+    //region 排名与并行遍历
+
+    /**
+     * 排名 O(阶数 * 层数)
+     * 内结点记录了每棵子树的元素个数 下降时累加左边兄弟子树的个数
+     *
+     * @return 小于 key 的元素个数 key 存在时就是它的下标
+     */
+    public int rank(@NotNull K key) {
+        Objects.requireNonNull(key);
+        if (root == null) {
+            return 0;
+        }
+        int rank = 0;
+        Node<K, V> node = root;
+        while (!node.isLeaf()) {
+            int index = getInsertIndex(node, key);
+            for (int i = 0; i < index; i++) {
+                rank += count(node.children[i]);
+            }
+            node = node.children[index];
+        }
+        int index = getExactIndex(key, node);
+        return rank + (index >= 0 ? index : -index - 1);
+    }
+
+    /**
+     * 按下标取元素 O(阶数 * 层数)
+     *
+     * @param index 从 0 开始
+     * @throws IndexOutOfBoundsException 下标越界
+     */
+    public Map.Entry<K, V> select(int index) {
+        Preconditions.checkElementIndex(index, size);
+        Node<K, V> node = root;
+        while (!node.isLeaf()) {
+            int i = 0;
+            while (index >= count(node.children[i])) {
+                index -= count(node.children[i]);
+                i++;
+            }
+            node = node.children[i];
+        }
+        return exportEntry(new LeafEntry(node, index));
+    }
+
+    Spliterator<K> keySpliterator() {
+        return new TreeSpliterator<>(true);
+    }
+
+    /**
+     * 沿内结点的子孩子边界拆分的 Spliterator
+     * 覆盖某个结点的一段子孩子 [from, to) (叶子结点则是一段元素), 拆分时取前一半子孩子;
+     * 只剩一个子孩子时下降到该子孩子再拆分. 每段的元素个数由子树元素个数累加 是精确的
+     * 开始遍历后从该段最左边的叶子结点沿叶子链表走 estimate 个元素, 不再拆分
+     */
+    final class TreeSpliterator<T> implements Spliterator<T> {
+        private final boolean keys;
+        private Node<K, V> node;
+        private int from;
+        private int to;
+        private int estimate;
+        private Node<K, V> leaf;
+        private int index;
+        private final int expectModCount;
+
+        private TreeSpliterator(boolean keys) {
+            this(keys, root, 0, root == null ? 0 : root.isLeaf() ? root.size : root.size + 1);
+        }
+
+        private TreeSpliterator(boolean keys, Node<K, V> node, int from, int to) {
+            this.keys = keys;
+            this.node = node;
+            this.from = from;
+            this.to = to;
+            this.estimate = countRange(node, from, to);
+            this.expectModCount = modCount;
+        }
+
+        private int countRange(Node<K, V> node, int from, int to) {
+            if (node == null || node.isLeaf()) {
+                return to - from;
+            }
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                count += count(node.children[i]);
+            }
+            return count;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            if (leaf != null || node == null) {
+                return null;
+            }
+            while (!node.isLeaf() && to - from == 1) {
+                node = node.children[from];
+                from = 0;
+                to = node.isLeaf() ? node.size : node.size + 1;
+            }
+            if (to - from < 2) {
+                return null;
+            }
+            int mid = (from + to) >>> 1;
+            TreeSpliterator<T> prefix = new TreeSpliterator<>(keys, node, from, mid);
+            from = mid;
+            estimate -= prefix.estimate;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            if (!start()) {
+                return false;
+            }
+            action.accept(next());
+            checkModCount(expectModCount);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            while (start()) {
+                action.accept(next());
+            }
+            checkModCount(expectModCount);
+        }
+
+        /**
+         * 第一次调用时定位到最左边的叶子结点
+         *
+         * @return 是否还有元素
+         */
+        private boolean start() {
+            if (estimate == 0) {
+                return false;
+            }
+            if (leaf == null) {
+                if (node.isLeaf()) {
+                    leaf = node;
+                    index = from;
+                } else {
+                    leaf = node.children[from];
+                    while (!leaf.isLeaf()) {
+                        leaf = leaf.children[0];
+                    }
+                    index = 0;
+                }
+            }
+            while (index >= leaf.size) {
+                leaf = leaf.next;
+                index = 0;
+            }
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        private T next() {
+            estimate--;
+            int i = index++;
+            return keys ? (T) leaf.key(i) : (T) new LeafEntry(leaf, i);
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL
+                    | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Comparator<? super T> getComparator() {
+            if (keys) {
+                return (Comparator<? super T>) comparator;
+            }
+            Comparator<Map.Entry<K, V>> byKey = comparator == null
+                    ? (left, right) -> compare(left.getKey(), right.getKey())
+                    : Map.Entry.comparingByKey(comparator);
+            return (Comparator<? super T>) byKey;
+        }
+    }
+
+    //endregion 排名与并行遍历
+
+    //region 延迟删除
+
+    /**
+     * 开启后删除只从叶子结点中移除元素, 叶子结点不足半满也不向兄弟借用或合并, 避免一次删除引起逐层合并.
+     * 叶子结点删空时仍按原来的方式处理 所以树中没有空的叶子结点.
+     * 不足半满的叶子结点由 {@link #compact(double, int)} 或 {@link #scheduleCompaction} 分批整理
+     */
+    public void setLazyDeletion(boolean lazyDeletion) {
+        this.lazyDeletion = lazyDeletion;
+    }
+
+    public boolean isLazyDeletion() {
+        return lazyDeletion;
+    }
+
+    /**
+     * 整理一批叶子结点: 从上次停下的位置开始检查最多 maxLeaves 个叶子结点,
+     * 填充比例低于 fillThreshold 的向兄弟借用 兄弟没有富余时与兄弟合并(可能引起父结点合并).
+     * 检查到最后一个叶子结点后下一批从头开始
+     *
+     * @param fillThreshold 叶子结点关键字个数 / (叶子结点阶数 - 1), 取值 (0, 1],
+     *                      超过正常删除时的最小填充比例时按最小填充比例算
+     * @param maxLeaves     这一批最多检查的叶子结点个数
+     * @return 整理了的叶子结点个数
+     */
+    @SuppressWarnings("unchecked")
+    public int compact(double fillThreshold, int maxLeaves) {
+        Preconditions.checkArgument(fillThreshold > 0 && fillThreshold <= 1, "fillThreshold should in (0, 1]");
+        Preconditions.checkArgument(maxLeaves > 0, "maxLeaves should greater than 0");
+        if (root == null || root.isLeaf()) {
+            compactCursor = null;
+            return 0;
+        }
+        int target = Math.min(leafMinElementPerNode,
+                Math.max(1, (int) Math.ceil(fillThreshold * (leafMaxChildren - 1))));
+        Node<K, V> leaf = compactCursor == null ? min : findLeafNode((K) compactCursor);
+        int compacted = 0;
+        for (int i = 0; i < maxLeaves && leaf != null; i++) {
+            if (leaf != root && leaf.size < target) {
+                Object first = leaf.keys[0];
+                leaf = own(leaf);
+                Node<K, V> richNeighborNode;
+                while (leaf.size < target && (richNeighborNode = findRichNeighborNode(leaf)) != null) {
+                    borrowFormLeafNeighbor(leaf, richNeighborNode);
+                }
+                if (leaf.size < target) {
+                    joinWithLeafNeighbor(leaf);
+                }
+                compacted++;
+                // 合并后原来的结点可能已不在树中 重新定位
+                leaf = findLeafNode((K) first);
+            }
+            leaf = leaf.next;
+        }
+        compactCursor = leaf == null ? null : leaf.keys[0];
+        if (compacted > 0) {
+            modCount++;
+        }
+        return compacted;
+    }
+
+    /**
+     * 在后台线程中定期整理 每次整理一批 见 {@link #compact(double, int)}.
+     * 整理时以树本身为锁, 所以调度期间所有对树的访问(包括迭代)都要 {@code synchronized (tree)}
+     *
+     * @return 取消后停止整理
+     */
+    public ScheduledFuture<?> scheduleCompaction(ScheduledExecutorService executor, long period, TimeUnit unit,
+            double fillThreshold, int maxLeaves) {
+        Preconditions.checkArgument(fillThreshold > 0 && fillThreshold <= 1, "fillThreshold should in (0, 1]");
+        Preconditions.checkArgument(maxLeaves > 0, "maxLeaves should greater than 0");
+        return executor.scheduleWithFixedDelay(() -> {
+            synchronized (this) {
+                compact(fillThreshold, maxLeaves);
+            }
+        }, period, period, unit);
+    }
+
+    //endregion 延迟删除
+
+    //region 统计
+
+    /**
+     * 统计树的形状(遍历所有结点 O(结点数)) 并读取计数器
+     * 计数器从创建树或上次 {@link #resetCounters()} 开始累计, clone 和反序列化得到的树重新开始计数
+     */
+    public BplusTreeStats stats() {
+        int height = 0;
+        for (Node<K, V> node = root; node != null; node = node.isLeaf() ? null : node.children[0]) {
+            height++;
+        }
+        int[] nodesPerLevel = new int[height];
+        long[] keysPerLevel = new long[height];
+        Node<K, V> first = root;
+        for (int level = 0; level < height; level++) {
+            for (Node<K, V> node = first; node != null; node = node.next) {
+                nodesPerLevel[level]++;
+                keysPerLevel[level] += node.size;
+            }
+            first = first.isLeaf() ? null : first.children[0];
+        }
+        return new BplusTreeStats(size, leafMaxChildren, maxChildren, nodesPerLevel, keysPerLevel, counters);
+    }
+
+    public void resetCounters() {
+        counters.reset();
+    }
+
+    /**
+     * 注册为 JMX MBean 可以在 JConsole 等工具中查看
+     *
+     * @param name 如 com.youthlin.example:type=BplusTree,name=orders
+     * @return 注册的名字 不用时可以通过 MBeanServer 注销
+     * @throws IllegalArgumentException 名字不合法或已被注册
+     */
+    public ObjectName registerMBean(String name) {
+        try {
+            ObjectName objectName = new ObjectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBeanImpl(), objectName);
+            return objectName;
+        } catch (InstanceAlreadyExistsException e) {
+            throw new IllegalArgumentException("MBean already registered: " + name, e);
+        } catch (JMException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * 需要遍历树的属性在并发修改时可能抛出异常 返回 -1
+     */
+    private final class MXBeanImpl implements BplusTreeMXBean {
+        @Override
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public int getHeight() {
+            try {
+                return stats().getHeight();
+            } catch (RuntimeException e) {
+                return -1;
+            }
+        }
+
+        @Override
+        public long getNodeCount() {
+            try {
+                return stats().getNodeCount();
+            } catch (RuntimeException e) {
+                return -1;
+            }
+        }
+
+        @Override
+        public double getFillFactor() {
+            try {
+                return stats().getFillFactor();
+            } catch (RuntimeException e) {
+                return -1;
+            }
+        }
+
+        @Override
+        public double getLeafFillFactor() {
+            try {
+                return stats().getLeafFillFactor();
+            } catch (RuntimeException e) {
+                return -1;
+            }
+        }
+
+        @Override
+        public long getLeafSplits() {
+            return counters.leafSplits.sum();
+        }
+
+        @Override
+        public long getInnerSplits() {
+            return counters.innerSplits.sum();
+        }
+
+        @Override
+        public long getLeafBorrows() {
+            return counters.leafBorrows.sum();
+        }
+
+        @Override
+        public long getInnerBorrows() {
+            return counters.innerBorrows.sum();
+        }
+
+        @Override
+        public long getLeafJoins() {
+            return counters.leafJoins.sum();
+        }
+
+        @Override
+        public long getInnerJoins() {
+            return counters.innerJoins.sum();
+        }
+
+        @Override
+        public double getComparisonsPerOperation() {
+            long descents = counters.descents.sum();
+            return descents == 0 ? Double.NaN : (double) counters.comparisons.sum() / descents;
+        }
+
+        @Override
+        public void resetCounters() {
+            BplusTree.this.resetCounters();
+        }
+    }
+
+    //endregion 统计
+
+    /**
+     * @return 内结点的阶数 未单独指定叶子结点阶数时也是叶子结点的阶数
+     */
     public int getMaxChildren() {
         return maxChildren;
     }
@@ -662,4 +2946,19 @@ public class BplusTree<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clo
         return minElementPerNode;
     }
 
+    public int getLeafMaxChildren() {
+        return leafMaxChildren;
+    }
+
+    public int getLeafMinElementPerNode() {
+        return leafMinElementPerNode;
+    }
+
+    /**
+     * @return 叶子结点和内结点的阶数 实测选出时还包含估算的耗时
+     */
+    public NodeOrder getOrder() {
+        return order;
+    }
+
 }
@@ -0,0 +1,39 @@
+package com.youthlin.example.tree;
+
+/**
+ * 通过 JMX 查看 B+ 树的统计信息 见 {@link BplusTree#registerMBean(String)}
+ * <p>
+ * 计数器可以在任何线程读取; 高度 结点数 填充率需要遍历树, 与写入并发时可能不准确, 读取失败时返回 -1
+ *
+ * @author youthlin.chen
+ * @date 2026-10-18 23:10
+ * @see BplusTreeStats
+ */
+public interface BplusTreeMXBean {
+    int getSize();
+
+    int getHeight();
+
+    long getNodeCount();
+
+    double getFillFactor();
+
+    double getLeafFillFactor();
+
+    long getLeafSplits();
+
+    long getInnerSplits();
+
+    long getLeafBorrows();
+
+    long getInnerBorrows();
+
+    long getLeafJoins();
+
+    long getInnerJoins();
+
+    double getComparisonsPerOperation();
+
+    void resetCounters();
+
+}
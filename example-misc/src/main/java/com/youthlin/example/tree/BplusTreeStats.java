@@ -0,0 +1,177 @@
+package com.youthlin.example.tree;
+
+import java.util.Arrays;
+
+/**
+ * {@link BplusTree#stats()} 的结果 创建后不再变化
+ * <ul>
+ * <li>形状: 高度 每层结点数和关键字数 填充率(关键字数 / 结点最多能放的关键字数)</li>
+ * <li>计数器: 分裂 借用 合并的次数 以及平均每次定位比较关键字的次数 从创建树或上次重置开始累计</li>
+ * </ul>
+ * 删除较多后叶子结点填充率偏低 说明可以重建(如 clone 或 bulkLoad)来压缩
+ *
+ * @author youthlin.chen
+ * @date 2026-10-18 23:05
+ */
+public final class BplusTreeStats {
+    private final int size;
+    private final int height;
+    private final int leafMaxChildren;
+    private final int innerMaxChildren;
+    /**
+     * 下标 0 是根结点所在层 最后一层是叶子结点
+     */
+    private final int[] nodesPerLevel;
+    private final long[] keysPerLevel;
+    private final long leafSplits;
+    private final long innerSplits;
+    private final long leafBorrows;
+    private final long innerBorrows;
+    private final long leafJoins;
+    private final long innerJoins;
+    private final long descents;
+    private final long comparisons;
+
+    BplusTreeStats(int size, int leafMaxChildren, int innerMaxChildren, int[] nodesPerLevel, long[] keysPerLevel,
+            TreeCounters counters) {
+        this.size = size;
+        this.height = nodesPerLevel.length;
+        this.leafMaxChildren = leafMaxChildren;
+        this.innerMaxChildren = innerMaxChildren;
+        this.nodesPerLevel = nodesPerLevel;
+        this.keysPerLevel = keysPerLevel;
+        this.leafSplits = counters.leafSplits.sum();
+        this.innerSplits = counters.innerSplits.sum();
+        this.leafBorrows = counters.leafBorrows.sum();
+        this.innerBorrows = counters.innerBorrows.sum();
+        this.leafJoins = counters.leafJoins.sum();
+        this.innerJoins = counters.innerJoins.sum();
+        this.descents = counters.descents.sum();
+        this.comparisons = counters.comparisons.sum();
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return 层数 空树为 0 只有一个叶子结点时为 1
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    public int getLeafMaxChildren() {
+        return leafMaxChildren;
+    }
+
+    public int getInnerMaxChildren() {
+        return innerMaxChildren;
+    }
+
+    public int[] getNodesPerLevel() {
+        return nodesPerLevel.clone();
+    }
+
+    public long[] getKeysPerLevel() {
+        return keysPerLevel.clone();
+    }
+
+    public long getNodeCount() {
+        long count = 0;
+        for (int nodes : nodesPerLevel) {
+            count += nodes;
+        }
+        return count;
+    }
+
+    public int getLeafCount() {
+        return height == 0 ? 0 : nodesPerLevel[height - 1];
+    }
+
+    /**
+     * @return 第 level 层的平均填充率 根结点所在层为 0
+     */
+    public double getFillFactor(int level) {
+        int maxChildren = level == height - 1 ? leafMaxChildren : innerMaxChildren;
+        return (double) keysPerLevel[level] / ((long) nodesPerLevel[level] * (maxChildren - 1));
+    }
+
+    /**
+     * @return 所有结点的平均填充率 空树为 NaN
+     */
+    public double getFillFactor() {
+        long keys = 0;
+        long capacity = 0;
+        for (int i = 0; i < height; i++) {
+            keys += keysPerLevel[i];
+            capacity += (long) nodesPerLevel[i] * ((i == height - 1 ? leafMaxChildren : innerMaxChildren) - 1);
+        }
+        return (double) keys / capacity;
+    }
+
+    /**
+     * @return 叶子结点的平均填充率 空树为 NaN
+     */
+    public double getLeafFillFactor() {
+        return height == 0 ? Double.NaN : getFillFactor(height - 1);
+    }
+
+    public long getLeafSplits() {
+        return leafSplits;
+    }
+
+    public long getInnerSplits() {
+        return innerSplits;
+    }
+
+    public long getLeafBorrows() {
+        return leafBorrows;
+    }
+
+    public long getInnerBorrows() {
+        return innerBorrows;
+    }
+
+    public long getLeafJoins() {
+        return leafJoins;
+    }
+
+    public long getInnerJoins() {
+        return innerJoins;
+    }
+
+    /**
+     * @return 从根结点下降到叶子结点的次数
+     */
+    public long getDescents() {
+        return descents;
+    }
+
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * @return 平均每次定位(从根结点到叶子结点内)比较关键字的次数 没有定位过为 NaN
+     */
+    public double getComparisonsPerOperation() {
+        return descents == 0 ? Double.NaN : (double) comparisons / descents;
+    }
+
+    @Override
+    public String toString() {
+        return "BplusTreeStats{size=" + size
+                + ", height=" + height
+                + ", order=" + leafMaxChildren + "/" + innerMaxChildren
+                + ", nodesPerLevel=" + Arrays.toString(nodesPerLevel)
+                + ", fillFactor=" + String.format("%.3f", getFillFactor())
+                + ", leafFillFactor=" + String.format("%.3f", getLeafFillFactor())
+                + ", splits=" + leafSplits + "/" + innerSplits
+                + ", borrows=" + leafBorrows + "/" + innerBorrows
+                + ", joins=" + leafJoins + "/" + innerJoins
+                + ", comparisonsPerOperation=" + String.format("%.2f", getComparisonsPerOperation())
+                + '}';
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.youthlin.example.tree;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 定长的二进制编解码器 {@link PagedBplusTree} 用它把关键字和值写进页里
+ * 读写都使用绝对位置 不改变 buffer 的 position
+ *
+ * @param <T> 类型
+ * @author youthlin.chen
+ * @date 2026-10-18 15:40
+ */
+public interface Codec<T> {
+    /**
+     * @return 编码后占用的字节数 所有值都相同
+     */
+    int width();
+
+    void write(ByteBuffer buffer, int offset, T value);
+
+    T read(ByteBuffer buffer, int offset);
+
+    Codec<Integer> INT = new Codec<Integer>() {
+        @Override
+        public int width() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Integer value) {
+            buffer.putInt(offset, value);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buffer, int offset) {
+            return buffer.getInt(offset);
+        }
+    };
+
+    Codec<Long> LONG = new Codec<Long>() {
+        @Override
+        public int width() {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Long value) {
+            buffer.putLong(offset, value);
+        }
+
+        @Override
+        public Long read(ByteBuffer buffer, int offset) {
+            return buffer.getLong(offset);
+        }
+    };
+
+    Codec<Double> DOUBLE = new Codec<Double>() {
+        @Override
+        public int width() {
+            return Double.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Double value) {
+            buffer.putDouble(offset, value);
+        }
+
+        @Override
+        public Double read(ByteBuffer buffer, int offset) {
+            return buffer.getDouble(offset);
+        }
+    };
+
+    /**
+     * 最多 maxBytes 字节的字节数组 前两个字节存放实际长度
+     */
+    static Codec<byte[]> bytes(int maxBytes) {
+        Preconditions.checkArgument(maxBytes > 0 && maxBytes <= Short.MAX_VALUE, "maxBytes out of range");
+        return new Codec<byte[]>() {
+            @Override
+            public int width() {
+                return Short.BYTES + maxBytes;
+            }
+
+            @Override
+            public void write(ByteBuffer buffer, int offset, byte[] value) {
+                Preconditions.checkArgument(value.length <= maxBytes, "value too long: %s > %s", value.length, maxBytes);
+                buffer.putShort(offset, (short) value.length);
+                for (int i = 0; i < value.length; i++) {
+                    buffer.put(offset + Short.BYTES + i, value[i]);
+                }
+            }
+
+            @Override
+            public byte[] read(ByteBuffer buffer, int offset) {
+                byte[] value = new byte[buffer.getShort(offset)];
+                for (int i = 0; i < value.length; i++) {
+                    value[i] = buffer.get(offset + Short.BYTES + i);
+                }
+                return value;
+            }
+        };
+    }
+
+    /**
+     * UTF-8 编码后最多 maxBytes 字节的字符串
+     */
+    static Codec<String> string(int maxBytes) {
+        Codec<byte[]> bytes = bytes(maxBytes);
+        return new Codec<String>() {
+            @Override
+            public int width() {
+                return bytes.width();
+            }
+
+            @Override
+            public void write(ByteBuffer buffer, int offset, String value) {
+                bytes.write(buffer, offset, value.getBytes(StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public String read(ByteBuffer buffer, int offset) {
+                return new String(bytes.read(buffer, offset), StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String toString() {
+                return "Codec.string(" + maxBytes + ")";
+            }
+        };
+    }
+
+    /**
+     * 字节数组按无符号字典序比较 可以作为 bytes 关键字的比较器
+     */
+    static int compareBytes(byte[] left, byte[] right) {
+        int length = Math.min(left.length, right.length);
+        for (int i = 0; i < length; i++) {
+            int cmp = Integer.compare(left[i] & 0xFF, right[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(left.length, right.length);
+    }
+
+}
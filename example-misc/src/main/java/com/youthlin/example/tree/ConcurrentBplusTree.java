@@ -0,0 +1,647 @@
+package com.youthlin.example.tree;
+
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 支持并发的 B+ 树 使用乐观锁耦合(Optimistic Lock Coupling)
+ * <p>
+ * 每个结点有一个 {@link StampedLock} 其戳记就是结点的版本号:
+ * <ul>
+ * <li>读: 记下结点版本号 读结点内容 读到子孩子后再校验父结点版本号没有变化 变了就从根结点重新开始 读操作不加锁也不会阻塞</li>
+ * <li>写: 同样乐观地下降到叶子结点 只把要修改的叶子结点由乐观读升级为写锁</li>
+ * <li>插入时下降途中遇到满的结点就提前分裂 分裂只需锁住该结点和它的父结点 不会向上传递</li>
+ * <li>删除只在叶子结点内进行 不做借和合并 所以最左边的叶子结点始终不变 作为遍历的起点</li>
+ * </ul>
+ * 和 {@link java.util.concurrent.ConcurrentSkipListMap} 一样 不允许 null 关键字和 null 值 迭代器是弱一致的
+ *
+ * @author youthlin.chen
+ * @date 2026-10-18 14:20
+ * @link https://db.in.tum.de/~leis/papers/artsync.pdf
+ */
+public class ConcurrentBplusTree<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+    /**
+     * 并发时树越矮 失败重试的代价越小 所以默认阶数比 {@link BplusTree} 大
+     */
+    private static final int DEFAULT_MAX_CHILDREN = 32;
+    /**
+     * 读到不一致的结点内容 需要重试
+     */
+    private static final int RESTART = Integer.MIN_VALUE;
+
+    /**
+     * 结点 内容只在持有写锁时修改
+     */
+    private static final class Node<K, V> {
+        private final StampedLock lock = new StampedLock();
+        private final Object[] keys;
+        /**
+         * 为 null 说明是内结点
+         */
+        private final Object[] values;
+        /**
+         * 为 null 说明是叶子结点
+         */
+        private final Node<K, V>[] children;
+        private int size;
+        /**
+         * 叶子结点链表
+         */
+        private Node<K, V> next;
+
+        @SuppressWarnings("unchecked")
+        private Node(int capacity, boolean leaf) {
+            keys = new Object[capacity];
+            if (leaf) {
+                values = new Object[capacity];
+                children = null;
+            } else {
+                values = null;
+                children = (Node<K, V>[]) new Node<?, ?>[capacity + 1];
+            }
+        }
+
+        private boolean isLeaf() {
+            return children == null;
+        }
+
+        private void insert(int index, Object key, Object value) {
+            int move = size - index;
+            if (move > 0) {
+                System.arraycopy(keys, index, keys, index + 1, move);
+                if (values != null) {
+                    System.arraycopy(values, index, values, index + 1, move);
+                }
+            }
+            keys[index] = key;
+            if (values != null) {
+                values[index] = value;
+            }
+            size++;
+        }
+
+        private void delete(int index) {
+            int move = size - index - 1;
+            if (move > 0) {
+                System.arraycopy(keys, index + 1, keys, index, move);
+                System.arraycopy(values, index + 1, values, index, move);
+            }
+            size--;
+            keys[size] = null;
+            values[size] = null;
+        }
+    }
+
+    /**
+     * 阶数 每个结点最多 maxChildren-1 个关键字
+     */
+    private final int maxChildren;
+    private final Comparator<? super K> comparator;
+    /**
+     * 最左边的叶子结点
+     */
+    private final Node<K, V> head;
+    private volatile Node<K, V> root;
+    private final LongAdder count = new LongAdder();
+    private Set<Map.Entry<K, V>> entrySet;
+
+    //region 构造方法
+
+    public ConcurrentBplusTree() {
+        this(DEFAULT_MAX_CHILDREN, null);
+    }
+
+    public ConcurrentBplusTree(int maxChildren) {
+        this(maxChildren, null);
+    }
+
+    public ConcurrentBplusTree(Comparator<? super K> comparator) {
+        this(DEFAULT_MAX_CHILDREN, comparator);
+    }
+
+    public ConcurrentBplusTree(int maxChildren, Comparator<? super K> comparator) {
+        Preconditions.checkArgument(maxChildren > 3, "maxChildren should greater than 3");
+        this.maxChildren = maxChildren;
+        this.comparator = comparator;
+        head = root = new Node<>(maxChildren - 1, true);
+    }
+
+    //endregion 构造方法
+
+    //region 重写父类方法
+
+    @Override
+    public int size() {
+        long sum = count.sum();
+        return sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) Math.max(sum, 0);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return !entrySet().iterator().hasNext();
+    }
+
+    @Override
+    public boolean containsKey(@NotNull Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(@NotNull Object key) {
+        K k = (K) Objects.requireNonNull(key);
+        restart:
+        for (; ; ) {
+            Node<K, V> node = root;
+            long version = node.lock.tryOptimisticRead();
+            if (version == 0 || node != root) {
+                Thread.yield();
+                continue;
+            }
+            while (!node.isLeaf()) {
+                Node<K, V> child = readChild(node, version, k);
+                if (child == null) {
+                    continue restart;
+                }
+                long childVersion = child.lock.tryOptimisticRead();
+                if (childVersion == 0 || !node.lock.validate(version)) {
+                    continue restart;
+                }
+                node = child;
+                version = childVersion;
+            }
+            int index = search(node, k);
+            if (index == RESTART) {
+                continue;
+            }
+            Object value = index >= 0 ? node.values[index] : null;
+            if (node.lock.validate(version)) {
+                return (V) value;
+            }
+        }
+    }
+
+    @Override
+    public V put(@NotNull K key, @NotNull V value) {
+        return doPut(key, value, false);
+    }
+
+    @Override
+    public V putIfAbsent(@NotNull K key, @NotNull V value) {
+        return doPut(key, value, true);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(@NotNull Object key) {
+        return doRemove((K) Objects.requireNonNull(key), null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(@NotNull Object key, Object value) {
+        return value != null && doRemove((K) Objects.requireNonNull(key), value) != null;
+    }
+
+    @Override
+    public boolean replace(@NotNull K key, @NotNull V oldValue, @NotNull V newValue) {
+        Objects.requireNonNull(oldValue);
+        Objects.requireNonNull(newValue);
+        Node<K, V> leaf = lockLeaf(Objects.requireNonNull(key), false);
+        try {
+            int index = search(leaf, key);
+            if (index >= 0 && oldValue.equals(leaf.values[index])) {
+                leaf.values[index] = newValue;
+                return true;
+            }
+            return false;
+        } finally {
+            leaf.lock.tryUnlockWrite();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V replace(@NotNull K key, @NotNull V value) {
+        Objects.requireNonNull(value);
+        Node<K, V> leaf = lockLeaf(Objects.requireNonNull(key), false);
+        try {
+            int index = search(leaf, key);
+            if (index >= 0) {
+                V old = (V) leaf.values[index];
+                leaf.values[index] = value;
+                return old;
+            }
+            return null;
+        } finally {
+            leaf.lock.tryUnlockWrite();
+        }
+    }
+
+    /**
+     * 从根结点开始逐层对所有结点加写锁 清空叶子结点 最左边的叶子结点作为新的根结点
+     * 其他线程只会在持有父结点写锁时锁子孩子 且不会阻塞等待 所以按从上到下的顺序加锁不会死锁;
+     * 解锁后旧结点的版本号都变了 正在旧结点上乐观读的操作校验失败 会从新的根结点重新开始
+     */
+    @Override
+    public void clear() {
+        Node<K, V> oldRoot;
+        for (; ; ) {
+            oldRoot = root;
+            oldRoot.lock.writeLock();
+            if (oldRoot == root) {
+                break;
+            }
+            oldRoot.lock.tryUnlockWrite();
+        }
+        List<Node<K, V>> locked = new ArrayList<>();
+        locked.add(oldRoot);
+        try {
+            // 持有父结点的写锁时子孩子不会分裂 children 不变
+            for (int i = 0; i < locked.size(); i++) {
+                Node<K, V> node = locked.get(i);
+                if (!node.isLeaf()) {
+                    for (int j = 0; j <= node.size; j++) {
+                        Node<K, V> child = node.children[j];
+                        child.lock.writeLock();
+                        locked.add(child);
+                    }
+                }
+            }
+            for (Node<K, V> node : locked) {
+                if (node.isLeaf()) {
+                    Arrays.fill(node.keys, 0, node.size, null);
+                    Arrays.fill(node.values, 0, node.size, null);
+                    node.size = 0;
+                    node.next = null;
+                }
+            }
+            // 所有叶子结点都已加锁 没有正在进行的增删 计数可以直接归零
+            count.reset();
+            root = head;
+        } finally {
+            for (Node<K, V> node : locked) {
+                node.lock.tryUnlockWrite();
+            }
+        }
+    }
+
+    @Override
+    @NotNull
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    //endregion 重写父类方法
+
+    public int getMaxChildren() {
+        return maxChildren;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V doPut(K key, V value, boolean onlyIfAbsent) {
+        Objects.requireNonNull(value);
+        Node<K, V> leaf = lockLeaf(Objects.requireNonNull(key), true);
+        try {
+            int index = search(leaf, key);
+            if (index >= 0) {
+                V old = (V) leaf.values[index];
+                if (!onlyIfAbsent) {
+                    leaf.values[index] = value;
+                }
+                return old;
+            }
+            leaf.insert(-index - 1, key, value);
+            count.increment();
+            return null;
+        } finally {
+            leaf.lock.tryUnlockWrite();
+        }
+    }
+
+    /**
+     * @param expect 不为 null 时只有当前值与之相等才删除
+     */
+    @SuppressWarnings("unchecked")
+    private V doRemove(K key, Object expect) {
+        Node<K, V> leaf = lockLeaf(key, false);
+        try {
+            int index = search(leaf, key);
+            if (index < 0) {
+                return null;
+            }
+            V old = (V) leaf.values[index];
+            if (expect != null && !expect.equals(old)) {
+                return null;
+            }
+            leaf.delete(index);
+            count.decrement();
+            return old;
+        } finally {
+            leaf.lock.tryUnlockWrite();
+        }
+    }
+
+    /**
+     * 乐观地下降到 key 所在的叶子结点 并对该叶子结点加写锁
+     *
+     * @param splitFull 是否分裂途中满的结点 插入时需要 保证叶子结点有空位且分裂不会向上传递
+     * @return 已加写锁的叶子结点 调用方负责释放
+     */
+    private Node<K, V> lockLeaf(K key, boolean splitFull) {
+        restart:
+        for (; ; ) {
+            Node<K, V> node = root;
+            long version = node.lock.tryOptimisticRead();
+            if (version == 0 || node != root) {
+                Thread.yield();
+                continue;
+            }
+            Node<K, V> parent = null;
+            long parentVersion = 0;
+            for (; ; ) {
+                if (splitFull && node.size >= maxChildren - 1) {
+                    split(parent, parentVersion, node, version);
+                    continue restart;
+                }
+                if (node.isLeaf()) {
+                    break;
+                }
+                Node<K, V> child = readChild(node, version, key);
+                if (child == null) {
+                    continue restart;
+                }
+                long childVersion = child.lock.tryOptimisticRead();
+                if (childVersion == 0 || !node.lock.validate(version)) {
+                    continue restart;
+                }
+                parent = node;
+                parentVersion = version;
+                node = child;
+                version = childVersion;
+            }
+            // 版本没变说明从父结点读到该叶子结点之后它没有分裂过 仍然是 key 所在的叶子结点
+            if (node.lock.tryConvertToWriteLock(version) != 0) {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * 在乐观读的结点中找到 key 所在的子孩子
+     *
+     * @return 读到不一致的内容时返回 null
+     */
+    private Node<K, V> readChild(Node<K, V> node, long version, K key) {
+        int index = search(node, key);
+        if (index == RESTART) {
+            return null;
+        }
+        Node<K, V> child = node.children[index >= 0 ? index + 1 : -index - 1];
+        if (child == null || !node.lock.validate(version)) {
+            return null;
+        }
+        return child;
+    }
+
+    /**
+     * 分裂满的结点 需要同时锁住该结点和父结点 任意一个版本变了就放弃 由调用方重试
+     * 父结点在下降时已经确认不满 所以进位不会引起父结点分裂
+     */
+    private void split(Node<K, V> parent, long parentVersion, Node<K, V> node, long version) {
+        if (parent != null && parent.lock.tryConvertToWriteLock(parentVersion) == 0) {
+            Thread.yield();
+            return;
+        }
+        if (node.lock.tryConvertToWriteLock(version) == 0) {
+            if (parent != null) {
+                parent.lock.tryUnlockWrite();
+            }
+            Thread.yield();
+            return;
+        }
+        try {
+            if (parent == null && node != root) {
+                return;
+            }
+            Node<K, V> right;
+            Object up;
+            int mid = node.size >> 1;
+            if (node.isLeaf()) {
+                right = new Node<>(maxChildren - 1, true);
+                int moved = node.size - mid;
+                System.arraycopy(node.keys, mid, right.keys, 0, moved);
+                System.arraycopy(node.values, mid, right.values, 0, moved);
+                right.size = moved;
+                up = right.keys[0];
+                right.next = node.next;
+                for (int i = mid; i < node.size; i++) {
+                    node.keys[i] = null;
+                    node.values[i] = null;
+                }
+                node.size = mid;
+                node.next = right;
+            } else {
+                right = new Node<>(maxChildren - 1, false);
+                int moved = node.size - mid - 1;
+                System.arraycopy(node.keys, mid + 1, right.keys, 0, moved);
+                System.arraycopy(node.children, mid + 1, right.children, 0, moved + 1);
+                right.size = moved;
+                up = node.keys[mid];
+                for (int i = mid; i < node.size; i++) {
+                    node.keys[i] = null;
+                    node.children[i + 1] = null;
+                }
+                node.size = mid;
+            }
+            if (parent == null) {
+                Node<K, V> newRoot = new Node<>(maxChildren - 1, false);
+                newRoot.keys[0] = up;
+                newRoot.children[0] = node;
+                newRoot.children[1] = right;
+                newRoot.size = 1;
+                root = newRoot;
+            } else {
+                @SuppressWarnings("unchecked") int index = -search(parent, (K) up) - 1;
+                System.arraycopy(parent.children, index + 1, parent.children, index + 2, parent.size - index);
+                parent.children[index + 1] = right;
+                parent.insert(index, up, null);
+            }
+        } finally {
+            node.lock.tryUnlockWrite();
+            if (parent != null) {
+                parent.lock.tryUnlockWrite();
+            }
+        }
+    }
+
+    /**
+     * 结点内二分查找 可能在乐观读时调用 此时读到的内容可能不一致 遇到空位就返回 {@link #RESTART}
+     *
+     * @return 找到则返回下标 否则返回 -(插入点)-1
+     */
+    private int search(Node<K, V> node, K key) {
+        Object[] keys = node.keys;
+        int low = 0;
+        int high = Math.min(node.size, keys.length) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Object midKey = keys[mid];
+            if (midKey == null) {
+                return RESTART;
+            }
+            int cmp = compare(midKey, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Object left, K right) {
+        if (comparator != null) {
+            return comparator.compare((K) left, right);
+        }
+        if (left instanceof Comparable) {
+            return ((Comparable<? super K>) left).compareTo(right);
+        }
+        throw new ClassCastException("key should be Comparable when comparator not specified.");
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        @Override
+        @NotNull
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            Object key = entry.getKey();
+            if (key == null) {
+                return false;
+            }
+            V value = get(key);
+            return value != null && value.equals(entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return entry.getKey() != null && ConcurrentBplusTree.this.remove(entry.getKey(), entry.getValue());
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentBplusTree.this.size();
+        }
+
+        @Override
+        public void clear() {
+            ConcurrentBplusTree.this.clear();
+        }
+    }
+
+    /**
+     * 弱一致的迭代器 沿叶子结点链表 每个叶子结点乐观地复制一份快照再遍历
+     * 不会抛出 {@link java.util.ConcurrentModificationException}
+     */
+    final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private final Object[] keys = new Object[maxChildren - 1];
+        private final Object[] values = new Object[maxChildren - 1];
+        private int snapshotSize;
+        private int index;
+        /**
+         * 下一个要读取的叶子结点
+         */
+        private Node<K, V> nextLeaf = head;
+        private K lastReturned;
+        private boolean canRemove;
+
+        @Override
+        public boolean hasNext() {
+            while (index >= snapshotSize) {
+                if (nextLeaf == null) {
+                    return false;
+                }
+                snapshot(nextLeaf);
+            }
+            return true;
+        }
+
+        private void snapshot(Node<K, V> leaf) {
+            for (; ; ) {
+                long version = leaf.lock.tryOptimisticRead();
+                if (version == 0) {
+                    Thread.yield();
+                    continue;
+                }
+                int size = Math.min(leaf.size, keys.length);
+                System.arraycopy(leaf.keys, 0, keys, 0, size);
+                System.arraycopy(leaf.values, 0, values, 0, size);
+                Node<K, V> next = leaf.next;
+                if (leaf.lock.validate(version)) {
+                    snapshotSize = size;
+                    nextLeaf = next;
+                    break;
+                }
+            }
+            index = 0;
+            // 与上一个叶子结点的快照之间可能发生了分裂 跳过已经返回过的
+            while (lastReturned != null && index < snapshotSize && compare(keys[index], lastReturned) <= 0) {
+                index++;
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = (K) keys[index];
+            canRemove = true;
+            V value = (V) values[index];
+            index++;
+            return new SimpleImmutableEntry<>(lastReturned, value);
+        }
+
+        @Override
+        public void remove() {
+            Preconditions.checkState(canRemove);
+            canRemove = false;
+            ConcurrentBplusTree.this.remove(lastReturned);
+        }
+    }
+
+}
@@ -0,0 +1,423 @@
+package com.youthlin.example.tree;
+
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 带预写日志的 {@link BplusTree} 进程崩溃后可以恢复
+ * <p>
+ * 目录下有两个文件:
+ * <ul>
+ * <li>checkpoint: 检查点 树的全量快照(按关键字顺序的定长记录) 以及快照对应的日志序号</li>
+ * <li>wal: 检查点之后的每次修改 只追加 见 {@link WriteAheadLog}</li>
+ * </ul>
+ * 修改时先写日志再改内存中的树. 日志按 {@link Options#syncBatchSize} 条一批 fsync,
+ * 另外可以设置定时 fsync, 崩溃时最多丢失还没 fsync 的那一批.
+ * 日志累积到 {@link Options#checkpointRecords} 条时做检查点: 快照写入临时文件 fsync 后原子改名, 然后清空日志.
+ * 启动时用 {@link BplusTree#bulkLoad} 载入检查点 再回放日志中序号更大的记录.
+ * <p>
+ * 和 {@link BplusTree} 一样不是线程安全的 只有定时 fsync 在后台线程执行
+ *
+ * @param <K> 关键字类型
+ * @param <V> 值类型
+ * @author youthlin.chen
+ * @date 2026-10-18 17:30
+ */
+public class DurableBplusTree<K, V> implements Closeable {
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String CHECKPOINT_TMP = "checkpoint.tmp";
+    private static final String WAL = "wal";
+    private static final int CHECKPOINT_MAGIC = 0x42504350;
+    private static final int CHECKPOINT_HEADER = Integer.BYTES + Long.BYTES + Long.BYTES;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 持久化选项
+     */
+    public static class Options {
+        private int maxChildren = 32;
+        private int syncBatchSize = 1;
+        private long syncIntervalMillis;
+        private long checkpointRecords = 1_000_000;
+        private double fillFactor = 0.75;
+
+        /**
+         * 树的阶数
+         */
+        public Options maxChildren(int maxChildren) {
+            this.maxChildren = maxChildren;
+            return this;
+        }
+
+        /**
+         * 每攒够多少条日志 fsync 一次 默认 1 即每次修改都 fsync 后才返回
+         */
+        public Options syncBatchSize(int syncBatchSize) {
+            this.syncBatchSize = syncBatchSize;
+            return this;
+        }
+
+        /**
+         * 后台定时 fsync 的间隔 限制未落盘日志的最长时间 默认 0 不启用
+         */
+        public Options syncIntervalMillis(long syncIntervalMillis) {
+            this.syncIntervalMillis = syncIntervalMillis;
+            return this;
+        }
+
+        /**
+         * 日志累积多少条时自动做检查点 0 表示只在 {@link #checkpoint()} 时做
+         */
+        public Options checkpointRecords(long checkpointRecords) {
+            this.checkpointRecords = checkpointRecords;
+            return this;
+        }
+
+        /**
+         * 从检查点载入时结点的填充比例
+         */
+        public Options fillFactor(double fillFactor) {
+            this.fillFactor = fillFactor;
+            return this;
+        }
+    }
+
+    private final Path dir;
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private final Options options;
+    private final BplusTree<K, V> tree;
+    private final WriteAheadLog<K, V> wal;
+    private final ScheduledExecutorService syncer;
+    /**
+     * 上次检查点之后的日志条数
+     */
+    private long records;
+    private boolean closed;
+
+    //region 构造方法
+
+    public DurableBplusTree(Path dir, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+        this(dir, keyCodec, valueCodec, null, new Options());
+    }
+
+    /**
+     * 打开目录 有检查点和日志时先恢复
+     */
+    public DurableBplusTree(Path dir, Codec<K> keyCodec, Codec<V> valueCodec, Comparator<? super K> comparator,
+            Options options) throws IOException {
+        Preconditions.checkArgument(options.syncIntervalMillis >= 0, "syncIntervalMillis should not less than 0");
+        Preconditions.checkArgument(options.checkpointRecords >= 0, "checkpointRecords should not less than 0");
+        this.dir = Files.createDirectories(dir);
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.options = options;
+        Files.deleteIfExists(dir.resolve(CHECKPOINT_TMP));
+        long[] checkpointLsn = new long[1];
+        tree = loadCheckpoint(comparator, checkpointLsn);
+        wal = new WriteAheadLog<>(dir.resolve(WAL), keyCodec, valueCodec, options.syncBatchSize);
+        try {
+            records = wal.replay(checkpointLsn[0], this::apply);
+        } catch (IOException | RuntimeException e) {
+            wal.close();
+            throw e;
+        }
+        if (options.syncIntervalMillis > 0) {
+            syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-sync-" + dir.getFileName());
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncer.scheduleWithFixedDelay(this::syncQuietly, options.syncIntervalMillis,
+                    options.syncIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            syncer = null;
+        }
+    }
+
+    //endregion 构造方法
+
+    //region 公开方法
+
+    public int size() {
+        return tree.size();
+    }
+
+    public boolean isEmpty() {
+        return tree.isEmpty();
+    }
+
+    public boolean containsKey(@NotNull K key) {
+        return tree.containsKey(key);
+    }
+
+    public V get(@NotNull K key) {
+        return tree.get(key);
+    }
+
+    public V put(@NotNull K key, @NotNull V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        log(WriteAheadLog.PUT, key, value);
+        V old = tree.put(key, value);
+        afterWrite();
+        return old;
+    }
+
+    public V remove(@NotNull K key) {
+        if (!tree.containsKey(key)) {
+            return null;
+        }
+        log(WriteAheadLog.REMOVE, key, null);
+        V old = tree.remove(key);
+        afterWrite();
+        return old;
+    }
+
+    public void clear() {
+        log(WriteAheadLog.CLEAR, null, null);
+        tree.clear();
+        afterWrite();
+    }
+
+    /**
+     * 只读视图 修改请通过本类的方法
+     */
+    public NavigableMap<K, V> view() {
+        return Collections.unmodifiableNavigableMap(tree);
+    }
+
+    /**
+     * 立即 fsync 还没落盘的日志
+     */
+    public void sync() throws IOException {
+        checkOpen();
+        wal.sync();
+    }
+
+    /**
+     * 写检查点并清空日志
+     */
+    public void checkpoint() throws IOException {
+        checkOpen();
+        long lsn = wal.lastLsn();
+        Path tmp = dir.resolve(CHECKPOINT_TMP);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int entryLength = keyCodec.width() + valueCodec.width();
+            ByteBuffer buffer = ByteBuffer.allocate(Math.max(BUFFER_SIZE, CHECKPOINT_HEADER + entryLength));
+            buffer.putInt(CHECKPOINT_MAGIC).putLong(lsn).putLong(tree.size());
+            for (Map.Entry<K, V> entry : tree.entrySet()) {
+                if (buffer.remaining() < entryLength) {
+                    write(channel, buffer);
+                }
+                int offset = buffer.position();
+                keyCodec.write(buffer, offset, entry.getKey());
+                valueCodec.write(buffer, offset + keyCodec.width(), entry.getValue());
+                buffer.position(offset + entryLength);
+            }
+            write(channel, buffer);
+            channel.force(true);
+        }
+        Files.move(tmp, dir.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // 重命名落盘后才能清空日志 否则崩溃后可能是旧的检查点和空的日志
+        syncDirectory(dir);
+        wal.truncate();
+        records = 0;
+    }
+
+    public long getWalLength() {
+        return wal.length();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (syncer != null) {
+            syncer.shutdown();
+        }
+        wal.close();
+    }
+
+    @Override
+    public String toString() {
+        return "DurableBplusTree{" +
+                "dir=" + dir +
+                ", size=" + tree.size() +
+                ", walRecords=" + records +
+                ", lsn=" + wal.lastLsn() +
+                '}';
+    }
+
+    //endregion 公开方法
+
+    //region 工具方法
+
+    /**
+     * 修改树之前先写日志
+     */
+    private void log(byte type, K key, V value) {
+        checkOpen();
+        try {
+            wal.append(type, key, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 修改已应用到树上 日志太多时做检查点
+     */
+    private void afterWrite() {
+        if (++records >= options.checkpointRecords && options.checkpointRecords > 0) {
+            try {
+                checkpoint();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void apply(byte type, K key, V value) {
+        switch (type) {
+            case WriteAheadLog.PUT:
+                tree.put(key, value);
+                break;
+            case WriteAheadLog.REMOVE:
+                tree.remove(key);
+                break;
+            default:
+                tree.clear();
+        }
+    }
+
+    private BplusTree<K, V> loadCheckpoint(Comparator<? super K> comparator, long[] lsn) throws IOException {
+        Path path = dir.resolve(CHECKPOINT);
+        if (!Files.exists(path)) {
+            return new BplusTree<>(options.maxChildren, comparator);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.limit(0);
+            read(channel, buffer, CHECKPOINT_HEADER);
+            if (buffer.getInt() != CHECKPOINT_MAGIC) {
+                throw new IOException("not a checkpoint file: " + path);
+            }
+            lsn[0] = buffer.getLong();
+            long count = buffer.getLong();
+            int entryLength = keyCodec.width() + valueCodec.width();
+            if (channel.size() != CHECKPOINT_HEADER + count * entryLength) {
+                throw new IOException("checkpoint length mismatch: " + path);
+            }
+            Iterator<Map.Entry<K, V>> iterator = new Iterator<Map.Entry<K, V>>() {
+                private long remaining = count;
+
+                @Override
+                public boolean hasNext() {
+                    return remaining > 0;
+                }
+
+                @Override
+                public Map.Entry<K, V> next() {
+                    if (remaining == 0) {
+                        throw new NoSuchElementException();
+                    }
+                    remaining--;
+                    try {
+                        read(channel, buffer, entryLength);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    int offset = buffer.position();
+                    K key = keyCodec.read(buffer, offset);
+                    V value = valueCodec.read(buffer, offset + keyCodec.width());
+                    buffer.position(offset + entryLength);
+                    return new AbstractMap.SimpleImmutableEntry<>(key, value);
+                }
+            };
+            try {
+                return BplusTree.bulkLoad(options.maxChildren, comparator, iterator, options.fillFactor);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * 保证 buffer 中至少有 length 字节未读
+     */
+    private static void read(FileChannel channel, ByteBuffer buffer, int length) throws IOException {
+        if (buffer.remaining() >= length) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < length) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("unexpected end of checkpoint");
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * fsync 目录 使其中的重命名落盘; Windows 不支持打开目录 跳过
+     */
+    private static void syncDirectory(Path dir) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            if (!System.getProperty("os.name", "").startsWith("Windows")) {
+                throw e;
+            }
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void syncQuietly() {
+        try {
+            wal.sync();
+        } catch (IOException ignore) {
+            // 下一次修改或定时任务会重试
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("closed: " + dir);
+        }
+    }
+
+    //endregion 工具方法
+
+}
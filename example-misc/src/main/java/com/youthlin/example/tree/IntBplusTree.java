@@ -0,0 +1,708 @@
+package com.youthlin.example.tree;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * 关键字为 int 的 B+ 树
+ * 结点的关键字直接存放在 int[] 中 查找、插入、删除都不需要装箱
+ * 分裂、借、合并的规则与 {@link BplusTree} 相同
+ *
+ * @param <V> 值类型
+ * @author youthlin.chen
+ * @date 2026-10-18 11:52
+ * @see LongBplusTree
+ */
+public class IntBplusTree<V> {
+
+    /**
+     * 遍历时对每一项执行的操作
+     *
+     * @param <V> 值类型
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(int key, V value);
+    }
+
+    /**
+     * 结点
+     */
+    private static class Node<V> {
+        /**
+         * 为 null 说明是 root 结点
+         */
+        private Node<V> parent;
+        /**
+         * 结点的关键字 有效范围是 [0, size)
+         */
+        private final int[] keys;
+        /**
+         * 叶子结点的值 为 null 说明是内结点
+         */
+        private final Object[] values;
+        /**
+         * n个关键字则有n+1个子孩子 为 null 说明是叶结点
+         */
+        private final Node<V>[] children;
+        private int size;
+        private Node<V> prev;
+        /**
+         * 同层次的下一个结点
+         */
+        private Node<V> next;
+
+        @SuppressWarnings("unchecked")
+        private Node(int capacity, boolean leaf) {
+            keys = new int[capacity];
+            if (leaf) {
+                values = new Object[capacity];
+                children = null;
+            } else {
+                values = null;
+                children = (Node<V>[]) new Node<?>[capacity + 1];
+            }
+        }
+
+        private boolean isLeaf() {
+            return children == null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private V value(int index) {
+            return (V) values[index];
+        }
+
+        private void insert(int index, int key, Object value) {
+            int move = size - index;
+            if (move > 0) {
+                System.arraycopy(keys, index, keys, index + 1, move);
+                if (values != null) {
+                    System.arraycopy(values, index, values, index + 1, move);
+                }
+            }
+            keys[index] = key;
+            if (values != null) {
+                values[index] = value;
+            }
+            size++;
+        }
+
+        private void delete(int index) {
+            int move = size - index - 1;
+            if (move > 0) {
+                System.arraycopy(keys, index + 1, keys, index, move);
+                if (values != null) {
+                    System.arraycopy(values, index + 1, values, index, move);
+                }
+            }
+            size--;
+            if (values != null) {
+                values[size] = null;
+            }
+        }
+
+        /**
+         * 在 index 处插入子孩子 要在调整 size 之前调用
+         */
+        private void insertChild(int index, Node<V> child) {
+            int move = size + 1 - index;
+            if (move > 0) {
+                System.arraycopy(children, index, children, index + 1, move);
+            }
+            children[index] = child;
+            child.parent = this;
+        }
+
+        /**
+         * 删除 index 处的子孩子 要在调整 size 之前调用
+         */
+        private Node<V> deleteChild(int index) {
+            Node<V> child = children[index];
+            int move = size - index;
+            if (move > 0) {
+                System.arraycopy(children, index + 1, children, index, move);
+            }
+            children[size] = null;
+            return child;
+        }
+
+        private int indexOf(Node<V> child) {
+            for (int i = 0; i <= size; i++) {
+                if (children[i] == child) {
+                    return i;
+                }
+            }
+            throw new IllegalStateException("not a child of this node");
+        }
+
+        /**
+         * @return 找到则返回下标 否则返回 -(插入点)-1
+         */
+        private int binarySearch(int key) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midKey = keys[mid];
+                if (midKey < key) {
+                    low = mid + 1;
+                } else if (midKey > key) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(keys[i]);
+                if (values != null) {
+                    sb.append('=').append(values[i]);
+                }
+            }
+            return sb.append(']').toString();
+        }
+    }
+
+    /**
+     * 游标 从某个关键字开始沿叶子结点链表向后遍历 整个遍历过程只分配游标本身
+     * <pre>
+     * Cursor&lt;V&gt; cursor = tree.cursor(from);
+     * while (cursor.next() &amp;&amp; cursor.key() &lt; to) {
+     *     use(cursor.key(), cursor.value());
+     * }
+     * </pre>
+     *
+     * @param <V> 值类型
+     */
+    public static final class Cursor<V> {
+        private final IntBplusTree<V> tree;
+        private final int expectModCount;
+        private Node<V> node;
+        private int index;
+
+        private Cursor(IntBplusTree<V> tree, Node<V> node, int index) {
+            this.tree = tree;
+            this.expectModCount = tree.modCount;
+            this.node = node;
+            // 第一次 next() 时移动到 index
+            this.index = index - 1;
+        }
+
+        /**
+         * 移动到下一项
+         *
+         * @return 是否还有元素
+         */
+        public boolean next() {
+            tree.checkModCount(expectModCount);
+            if (node == null) {
+                return false;
+            }
+            index++;
+            while (index >= node.size) {
+                node = node.next;
+                index = 0;
+                if (node == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public int key() {
+            return current().keys[index];
+        }
+
+        public V value() {
+            return current().value(index);
+        }
+
+        private Node<V> current() {
+            tree.checkModCount(expectModCount);
+            if (node == null || index < 0) {
+                throw new NoSuchElementException();
+            }
+            return node;
+        }
+    }
+
+    private static final int DEFAULT_MAX_ELEMENT_PER_NODE = 5;
+    private Node<V> root;
+    /**
+     * 最小的结点
+     */
+    private Node<V> min;
+    /**
+     * 阶数
+     * m 阶 B+ 树内个节点最多存放 m-1 项数据, 最多 m 个子孩子
+     */
+    private final int maxChildren;
+    /**
+     * 每个节点最少需要的记录数
+     */
+    private final int minElementPerNode;
+    private int size;
+    private int modCount;
+
+    //region 构造方法
+
+    public IntBplusTree() {
+        this(DEFAULT_MAX_ELEMENT_PER_NODE);
+    }
+
+    public IntBplusTree(int maxChildren) {
+        this(maxChildren, maxChildren >> 1);
+    }
+
+    public IntBplusTree(int maxChildren, int minElementPerNode) {
+        Preconditions.checkArgument(maxChildren > 2, "maxChildren should greater than 2");
+        Preconditions.checkArgument(minElementPerNode > 0, "minElementPerNode should greater than 0");
+        this.maxChildren = maxChildren;
+        this.minElementPerNode = minElementPerNode;
+    }
+
+    //endregion 构造方法
+
+    //region 公开方法
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return root != null && findLeafNode(key).binarySearch(key) >= 0;
+    }
+
+    public V get(int key) {
+        if (root == null) {
+            return null;
+        }
+        Node<V> leaf = findLeafNode(key);
+        int index = leaf.binarySearch(key);
+        return index >= 0 ? leaf.value(index) : null;
+    }
+
+    /**
+     * 插入 步骤同 {@link BplusTree#put(Object, Object)}
+     *
+     * @return 该关键字原来对应的值 原来没有该关键字则返回 null
+     */
+    public V put(int key, V value) {
+        if (root == null) {
+            min = root = newLeaf();
+        }
+        Node<V> leaf = findLeafNode(key);
+        int index = leaf.binarySearch(key);
+        if (index >= 0) {
+            V old = leaf.value(index);
+            leaf.values[index] = value;
+            return old;
+        }
+        leaf.insert(-index - 1, key, value);
+        if (shouldSplit(leaf)) {
+            Node<V> current = splitLeaf(leaf);
+            while (shouldSplit(current)) {
+                current = splitInnerNode(current);
+            }
+        }
+        size++;
+        modCount++;
+        return null;
+    }
+
+    public V remove(int key) {
+        if (root == null) {
+            return null;
+        }
+        Node<V> leaf = findLeafNode(key);
+        int index = leaf.binarySearch(key);
+        if (index < 0) {
+            return null;
+        }
+        return removeOnLeafNode(leaf, index);
+    }
+
+    public void clear() {
+        root = min = null;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * 按关键字从小到大遍历
+     */
+    public void forEach(EntryConsumer<? super V> action) {
+        forEachInRange(Integer.MIN_VALUE, true, Integer.MAX_VALUE, true, action);
+    }
+
+    /**
+     * 遍历 [fromKey, toKey) 范围内的元素
+     */
+    public void forEachInRange(int fromKey, int toKey, EntryConsumer<? super V> action) {
+        forEachInRange(fromKey, true, toKey, false, action);
+    }
+
+    /**
+     * 遍历指定范围内的元素 只下降一次找到起始叶子结点 之后沿叶子链表向后
+     */
+    public void forEachInRange(int fromKey, boolean fromInclusive, int toKey, boolean toInclusive,
+            EntryConsumer<? super V> action) {
+        if (root == null) {
+            return;
+        }
+        int expectModCount = modCount;
+        Node<V> leaf = findLeafNode(fromKey);
+        int index = leaf.binarySearch(fromKey);
+        if (index < 0) {
+            index = -index - 1;
+        } else if (!fromInclusive) {
+            index++;
+        }
+        for (; leaf != null; leaf = leaf.next, index = 0) {
+            for (; index < leaf.size; index++) {
+                int key = leaf.keys[index];
+                if (key > toKey || (key == toKey && !toInclusive)) {
+                    return;
+                }
+                action.accept(key, leaf.value(index));
+                checkModCount(expectModCount);
+            }
+        }
+    }
+
+    /**
+     * @return 从第一个大于等于 fromKey 的元素开始的游标
+     */
+    public Cursor<V> cursor(int fromKey) {
+        if (root == null) {
+            return new Cursor<>(this, null, 0);
+        }
+        Node<V> leaf = findLeafNode(fromKey);
+        int index = leaf.binarySearch(fromKey);
+        return new Cursor<>(this, leaf, index >= 0 ? index : -index - 1);
+    }
+
+    /**
+     * @return 从最小元素开始的游标
+     */
+    public Cursor<V> cursor() {
+        return new Cursor<>(this, min, 0);
+    }
+
+    /**
+     * @throws NoSuchElementException 树为空
+     */
+    public int firstKey() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return min.keys[0];
+    }
+
+    /**
+     * @throws NoSuchElementException 树为空
+     */
+    public int lastKey() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        Node<V> current = root;
+        while (!current.isLeaf()) {
+            current = current.children[current.size];
+        }
+        return current.keys[current.size - 1];
+    }
+
+    public int getMaxChildren() {
+        return maxChildren;
+    }
+
+    public int getMinElementPerNode() {
+        return minElementPerNode;
+    }
+
+    @Override
+    public String toString() {
+        if (root == null) {
+            return "{}";
+        }
+        StringBuilder sb = new StringBuilder("{");
+        Node<V> currentLevel = root;
+        int level = 0;
+        while (currentLevel != null) {
+            sb.append(level++).append("=[");
+            for (Node<V> current = currentLevel; current != null; current = current.next) {
+                sb.append('(').append(current).append(')');
+                if (current.next != null) {
+                    sb.append(',');
+                }
+            }
+            sb.append("]");
+            if (currentLevel.isLeaf()) {
+                currentLevel = null;
+            } else {
+                sb.append(',');
+                currentLevel = currentLevel.children[0];
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    //endregion 公开方法
+
+    private int nodeCapacity() {
+        return Math.max(maxChildren, minElementPerNode << 1);
+    }
+
+    private Node<V> newLeaf() {
+        return new Node<>(nodeCapacity(), true);
+    }
+
+    private Node<V> newInnerNode() {
+        return new Node<>(nodeCapacity(), false);
+    }
+
+    private Node<V> findLeafNode(int key) {
+        Node<V> current = root;
+        while (!current.isLeaf()) {
+            int index = current.binarySearch(key);
+            current = current.children[index >= 0 ? index + 1 : -index - 1];
+        }
+        return current;
+    }
+
+    private boolean shouldSplit(Node<V> node) {
+        return node.size >= maxChildren;
+    }
+
+    private Node<V> splitLeaf(Node<V> leaf) {
+        Node<V> right = newLeaf();
+        int from = maxChildren >> 1;
+        int count = leaf.size - from;
+        System.arraycopy(leaf.keys, from, right.keys, 0, count);
+        System.arraycopy(leaf.values, from, right.values, 0, count);
+        for (int i = from; i < leaf.size; i++) {
+            leaf.values[i] = null;
+        }
+        leaf.size = from;
+        right.size = count;
+        link(leaf, right);
+        return insertToUp(leaf, right, right.keys[0]);
+    }
+
+    private void link(Node<V> left, Node<V> right) {
+        right.next = left.next;
+        left.next = right;
+        right.prev = left;
+        if (right.next != null) {
+            right.next.prev = right;
+        }
+    }
+
+    private Node<V> insertToUp(Node<V> left, Node<V> right, int up) {
+        Node<V> parent = left.parent;
+        if (parent == null) {
+            parent = newInnerNode();
+            parent.children[0] = left;
+            left.parent = parent;
+            root = parent;
+        }
+        int index = parent.indexOf(left);
+        parent.insertChild(index + 1, right);
+        parent.insert(index, up, null);
+        return parent;
+    }
+
+    private Node<V> splitInnerNode(Node<V> node) {
+        Node<V> right = newInnerNode();
+        int center = maxChildren >> 1;
+        int count = node.size - center - 1;
+        System.arraycopy(node.keys, center + 1, right.keys, 0, count);
+        System.arraycopy(node.children, center + 1, right.children, 0, count + 1);
+        for (int i = 0; i <= count; i++) {
+            right.children[i].parent = right;
+        }
+        right.size = count;
+        int up = node.keys[center];
+        for (int i = center + 1; i <= node.size; i++) {
+            node.children[i] = null;
+        }
+        node.size = center;
+        link(node, right);
+        return insertToUp(node, right, up);
+    }
+
+    private V removeOnLeafNode(Node<V> leaf, int index) {
+        V remove = leaf.value(index);
+        leaf.delete(index);
+        if (leaf != root && tooLess(leaf)) {
+            Node<V> richNeighborNode = findRichNeighborNode(leaf);
+            if (richNeighborNode != null) {
+                borrowFormLeafNeighbor(leaf, richNeighborNode);
+            } else {
+                joinWithLeafNeighbor(leaf);
+            }
+        }
+        size--;
+        modCount++;
+        return remove;
+    }
+
+    private boolean tooLess(Node<V> node) {
+        return node.size < minElementPerNode;
+    }
+
+    private boolean rich(Node<V> node) {
+        return node.size > minElementPerNode;
+    }
+
+    private Node<V> findRichNeighborNode(Node<V> current) {
+        Node<V> prev = current.prev;
+        if (prev != null && prev.parent == current.parent && rich(prev)) {
+            return prev;
+        }
+        Node<V> next = current.next;
+        if (next != null && next.parent == current.parent && rich(next)) {
+            return next;
+        }
+        return null;
+    }
+
+    private void borrowFormLeafNeighbor(Node<V> leaf, Node<V> richNeighborNode) {
+        Node<V> parent = leaf.parent;
+        if (richNeighborNode == leaf.prev) {
+            int last = richNeighborNode.size - 1;
+            leaf.insert(0, richNeighborNode.keys[last], richNeighborNode.values[last]);
+            richNeighborNode.delete(last);
+            parent.keys[parent.indexOf(leaf) - 1] = leaf.keys[0];
+        } else if (richNeighborNode == leaf.next) {
+            leaf.insert(leaf.size, richNeighborNode.keys[0], richNeighborNode.values[0]);
+            richNeighborNode.delete(0);
+            parent.keys[parent.indexOf(leaf)] = richNeighborNode.keys[0];
+        } else {
+            throw new IllegalStateException();
+        }
+    }
+
+    private void joinWithLeafNeighbor(Node<V> leaf) {
+        Node<V> left = leaf;
+        if (leaf.prev != null && leaf.prev.parent == leaf.parent) {
+            left = leaf.prev;
+        }
+        Node<V> right = left.next;
+        Preconditions.checkState(right != null && right.parent == left.parent);
+        System.arraycopy(right.keys, 0, left.keys, left.size, right.size);
+        System.arraycopy(right.values, 0, left.values, left.size, right.size);
+        left.size += right.size;
+        unLinkNext(left);
+        Node<V> parent = left.parent;
+        int indexInParent = parent.indexOf(right);
+        parent.deleteChild(indexInParent);
+        parent.delete(indexInParent - 1);
+        if (shouldSplit(left)) {
+            splitLeaf(left);
+            return;
+        }
+        removeOnInnerNode(parent);
+    }
+
+    private void unLinkNext(Node<V> left) {
+        left.next = left.next.next;
+        if (left.next != null) {
+            left.next.prev = left;
+        }
+    }
+
+    private void removeOnInnerNode(Node<V> currentInnerNode) {
+        if (currentInnerNode == root) {
+            if (root.size == 0) {
+                Node<V> child = root.children[0];
+                root.children[0] = null;
+                root = child;
+                root.parent = null;
+            }
+            return;
+        }
+        if (tooLess(currentInnerNode)) {
+            Node<V> richNeighborNode = findRichNeighborNode(currentInnerNode);
+            if (richNeighborNode != null) {
+                borrowFromInnerNeighbor(currentInnerNode, richNeighborNode);
+            } else {
+                joinWithInnerNeighbor(currentInnerNode);
+            }
+        }
+    }
+
+    private void borrowFromInnerNeighbor(Node<V> currentInnerNode, Node<V> richNeighborNode) {
+        Node<V> parent = currentInnerNode.parent;
+        int indexInParent = parent.indexOf(currentInnerNode);
+        if (richNeighborNode == currentInnerNode.prev) {
+            int last = richNeighborNode.size - 1;
+            int up = richNeighborNode.keys[last];
+            Node<V> lastChildToRight = richNeighborNode.deleteChild(last + 1);
+            richNeighborNode.delete(last);
+            int down = parent.keys[indexInParent - 1];
+            parent.keys[indexInParent - 1] = up;
+            currentInnerNode.insertChild(0, lastChildToRight);
+            currentInnerNode.insert(0, down, null);
+        } else if (richNeighborNode == currentInnerNode.next) {
+            int up = richNeighborNode.keys[0];
+            Node<V> firstChildToLeft = richNeighborNode.deleteChild(0);
+            richNeighborNode.delete(0);
+            int down = parent.keys[indexInParent];
+            parent.keys[indexInParent] = up;
+            currentInnerNode.insertChild(currentInnerNode.size + 1, firstChildToLeft);
+            currentInnerNode.insert(currentInnerNode.size, down, null);
+        } else {
+            throw new IllegalStateException();
+        }
+    }
+
+    private void joinWithInnerNeighbor(Node<V> currentInnerNode) {
+        Node<V> left = currentInnerNode;
+        if (currentInnerNode.prev != null && currentInnerNode.prev.parent == currentInnerNode.parent) {
+            left = currentInnerNode.prev;
+        }
+        Node<V> right = left.next;
+        Preconditions.checkState(right != null && right.parent == left.parent);
+        Node<V> parent = left.parent;
+        int indexInParent = parent.indexOf(right);
+        left.keys[left.size] = parent.keys[indexInParent - 1];
+        System.arraycopy(right.keys, 0, left.keys, left.size + 1, right.size);
+        System.arraycopy(right.children, 0, left.children, left.size + 1, right.size + 1);
+        for (int i = 0; i <= right.size; i++) {
+            right.children[i].parent = left;
+        }
+        left.size += right.size + 1;
+        unLinkNext(left);
+        parent.deleteChild(indexInParent);
+        parent.delete(indexInParent - 1);
+        if (shouldSplit(left)) {
+            splitInnerNode(left);
+            return;
+        }
+        removeOnInnerNode(parent);
+    }
+
+    private void checkModCount(int expectModCount) {
+        if (expectModCount != modCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+}
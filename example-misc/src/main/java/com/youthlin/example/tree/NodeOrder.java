@@ -0,0 +1,196 @@
+package com.youthlin.example.tree;
+
+import com.google.common.base.Preconditions;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * B+ 树叶子结点和内结点的阶数
+ * <p>
+ * {@link #tune(Collection, int, Comparator)} 用样本关键字实测结点内二分查找和插入移动的耗时, 按估算的总开销选阶数:
+ * 查找 = 内结点层数 * 内结点查找 + 叶子结点查找, 插入再加上叶子结点内移动一半元素的开销.
+ * 阶数越大树越矮 但每个结点内查找和移动越慢. 候选阶数都让关键字数组正好占满整数个 64 字节缓存行(按压缩指针 4 字节算),
+ * 最大的结点(关键字+值/子孩子两个数组)也不超过 L1 缓存的一部分
+ *
+ * @author youthlin.chen
+ * @date 2026-10-18 22:30
+ * @see BplusTree#BplusTree(NodeOrder, Comparator)
+ */
+public final class NodeOrder implements Serializable {
+    private static final long serialVersionUID = 4519617215393041770L;
+    private static final int CACHE_LINE = 64;
+    private static final int REFERENCE_SIZE = 4;
+    private static final int[] CANDIDATES = {16, 32, 64, 128, 256};
+    /**
+     * 批量构建和随机插入后结点的平均填充比例
+     */
+    private static final double FILL = 0.75;
+    private static final int PROBES = 1024;
+    private static final int ROUNDS = 64;
+    private static volatile int sink;
+
+    private final int leafMaxChildren;
+    private final int innerMaxChildren;
+    private final boolean tuned;
+    private final double estimatedLookupNanos;
+    private final double estimatedInsertNanos;
+
+    private NodeOrder(int leafMaxChildren, int innerMaxChildren, boolean tuned, double lookup, double insert) {
+        Preconditions.checkArgument(leafMaxChildren > 2, "leafMaxChildren should greater than 2");
+        Preconditions.checkArgument(innerMaxChildren > 2, "innerMaxChildren should greater than 2");
+        this.leafMaxChildren = leafMaxChildren;
+        this.innerMaxChildren = innerMaxChildren;
+        this.tuned = tuned;
+        this.estimatedLookupNanos = lookup;
+        this.estimatedInsertNanos = insert;
+    }
+
+    public static NodeOrder of(int leafMaxChildren, int innerMaxChildren) {
+        return new NodeOrder(leafMaxChildren, innerMaxChildren, false, Double.NaN, Double.NaN);
+    }
+
+    /**
+     * 实测选出阶数 耗时几十毫秒 适合在启动预热时调用
+     *
+     * @param sample       样本关键字 至少两个不同的关键字 越接近真实分布越好
+     * @param expectedSize 预计树中的元素个数 用来估算层数
+     * @param comparator   为 null 时使用自然顺序
+     */
+    public static <K> NodeOrder tune(Collection<? extends K> sample, int expectedSize,
+            Comparator<? super K> comparator) {
+        TreeSet<K> set = new TreeSet<>(comparator);
+        set.addAll(sample);
+        Preconditions.checkArgument(set.size() > 1, "sample should contain at least 2 distinct keys");
+        Object[] sorted = set.toArray();
+        Object[] probes = new Object[PROBES];
+        Random random = new Random(sorted.length);
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = sorted[random.nextInt(sorted.length)];
+        }
+        double[] search = new double[CANDIDATES.length];
+        double[] shift = new double[CANDIDATES.length];
+        // 第一遍让 JIT 编译 取第二遍的结果
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < CANDIDATES.length; i++) {
+                Object[] node = nodeOf(sorted, (int) (CANDIDATES[i] * FILL));
+                search[i] = measureSearch(node, probes, comparator);
+                shift[i] = measureShift(CANDIDATES[i]);
+            }
+        }
+        int n = Math.max(expectedSize, sorted.length);
+        double bestLookup = 0;
+        double bestInsert = 0;
+        double bestCost = Double.MAX_VALUE;
+        int bestLeaf = 0;
+        int bestInner = 0;
+        for (int l = 0; l < CANDIDATES.length; l++) {
+            double leaves = Math.max(1, n / (CANDIDATES[l] * FILL));
+            for (int i = 0; i < CANDIDATES.length; i++) {
+                double height = Math.ceil(Math.log(leaves) / Math.log(CANDIDATES[i] * FILL));
+                double lookup = height * search[i] + search[l];
+                double insert = lookup + shift[l];
+                if (lookup + insert < bestCost) {
+                    bestCost = lookup + insert;
+                    bestLookup = lookup;
+                    bestInsert = insert;
+                    bestLeaf = CANDIDATES[l];
+                    bestInner = CANDIDATES[i];
+                }
+            }
+        }
+        return new NodeOrder(bestLeaf, bestInner, true, bestLookup, bestInsert);
+    }
+
+    /**
+     * 从有序样本中均匀取 size 个关键字 模拟一个结点
+     */
+    private static Object[] nodeOf(Object[] sorted, int size) {
+        size = Math.min(size, sorted.length);
+        Object[] node = new Object[size];
+        for (int i = 0; i < size; i++) {
+            node[i] = sorted[(int) ((long) i * sorted.length / size)];
+        }
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> double measureSearch(Object[] node, Object[] probes, Comparator<? super K> comparator) {
+        int found = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (Object probe : probes) {
+                found += comparator == null ? Arrays.binarySearch(node, probe)
+                        : Arrays.binarySearch((K[]) node, (K) probe, comparator);
+            }
+        }
+        long cost = System.nanoTime() - start;
+        sink = found;
+        return (double) cost / (ROUNDS * PROBES);
+    }
+
+    /**
+     * 叶子结点插入时关键字和值两个数组平均各移动一半
+     */
+    private static double measureShift(int order) {
+        Object[] keys = new Object[order];
+        Object[] values = new Object[order];
+        int half = (int) (order * FILL) >> 1;
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS * PROBES; round++) {
+            System.arraycopy(keys, 0, keys, 1, half);
+            System.arraycopy(values, 0, values, 1, half);
+        }
+        long cost = System.nanoTime() - start;
+        sink = keys.length;
+        return (double) cost / (ROUNDS * PROBES);
+    }
+
+    public int getLeafMaxChildren() {
+        return leafMaxChildren;
+    }
+
+    public int getInnerMaxChildren() {
+        return innerMaxChildren;
+    }
+
+    /**
+     * @return 是否是实测选出的
+     */
+    public boolean isTuned() {
+        return tuned;
+    }
+
+    /**
+     * @return 实测估算的一次查找耗时 不是实测选出的则为 NaN
+     */
+    public double getEstimatedLookupNanos() {
+        return estimatedLookupNanos;
+    }
+
+    /**
+     * @return 实测估算的一次插入耗时 不是实测选出的则为 NaN
+     */
+    public double getEstimatedInsertNanos() {
+        return estimatedInsertNanos;
+    }
+
+    /**
+     * @return 叶子结点关键字数组占用的缓存行数
+     */
+    public int getLeafCacheLines() {
+        return (leafMaxChildren * REFERENCE_SIZE + CACHE_LINE - 1) / CACHE_LINE;
+    }
+
+    @Override
+    public String toString() {
+        return "NodeOrder{leaf=" + leafMaxChildren + ", inner=" + innerMaxChildren
+                + (tuned ? String.format(", lookup=%.1fns, insert=%.1fns", estimatedLookupNanos, estimatedInsertNanos)
+                : "") + '}';
+    }
+
+}
@@ -0,0 +1,207 @@
+package com.youthlin.example.tree;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 堆外内存分配器
+ * <p>
+ * 内存来自若干块 direct {@link ByteBuffer}(slab), 按 2 的幂划分大小等级, 每个等级一个空闲链表(这里用 long 栈).
+ * 每个块开头 4 字节记录数据长度. 地址 = slab 下标 &lt;&lt; 32 | 块在 slab 内的偏移.
+ * 超过 slab 大小的数据单独分配一块 slab, 释放时直接丢弃.
+ * 非线程安全
+ *
+ * @author youthlin.chen
+ * @date 2026-10-18 21:20
+ */
+class OffHeapArena {
+    private static final int HEADER = Integer.BYTES;
+    private static final int MIN_SHIFT = 4;
+    static final int DEFAULT_SLAB_SIZE = 1 << 20;
+
+    private final int slabSize;
+    private final int maxShift;
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    /**
+     * 每个大小等级的空闲块地址
+     */
+    private final long[][] freeLists;
+    private final int[] freeCounts;
+    /**
+     * 正在切分的 slab 下标和已用到的位置
+     */
+    private int current = -1;
+    private int top;
+    private long reservedBytes;
+    private long usedBytes;
+
+    OffHeapArena(int slabSize) {
+        Preconditions.checkArgument(slabSize >= 1 << MIN_SHIFT && Integer.bitCount(slabSize) == 1,
+                "slabSize should be a power of 2 and not less than %s", 1 << MIN_SHIFT);
+        this.slabSize = slabSize;
+        this.maxShift = Integer.numberOfTrailingZeros(slabSize);
+        this.freeLists = new long[maxShift + 1][];
+        this.freeCounts = new int[maxShift + 1];
+        for (int i = MIN_SHIFT; i <= maxShift; i++) {
+            freeLists[i] = new long[8];
+        }
+    }
+
+    /**
+     * 分配一块内存并写入数据
+     *
+     * @return 地址
+     */
+    long allocate(byte[] value) {
+        int shift = shiftOf(value.length);
+        long address;
+        if (shift > maxShift) {
+            ByteBuffer slab = ByteBuffer.allocateDirect(HEADER + value.length);
+            address = (long) addSlab(slab) << 32;
+            reservedBytes += slab.capacity();
+        } else if (freeCounts[shift] > 0) {
+            address = freeLists[shift][--freeCounts[shift]];
+        } else {
+            int block = 1 << shift;
+            if (current < 0 || top + block > slabSize) {
+                current = addSlab(ByteBuffer.allocateDirect(slabSize));
+                top = 0;
+                reservedBytes += slabSize;
+            }
+            address = (long) current << 32 | top;
+            top += block;
+        }
+        usedBytes += blockSize(shift, value.length);
+        write(address, value);
+        return address;
+    }
+
+    /**
+     * 新数据与原来的块属于同一大小等级时原地覆盖 否则重新分配
+     *
+     * @return 新地址
+     */
+    long reallocate(long address, byte[] value) {
+        int length = length(address);
+        if (shiftOf(length) == shiftOf(value.length) && shiftOf(length) <= maxShift) {
+            write(address, value);
+            return address;
+        }
+        free(address);
+        return allocate(value);
+    }
+
+    void free(long address) {
+        int length = length(address);
+        int shift = shiftOf(length);
+        usedBytes -= blockSize(shift, length);
+        if (shift > maxShift) {
+            int index = (int) (address >>> 32);
+            reservedBytes -= slabs.get(index).capacity();
+            slabs.set(index, null);
+            return;
+        }
+        if (freeCounts[shift] == freeLists[shift].length) {
+            freeLists[shift] = Arrays.copyOf(freeLists[shift], freeLists[shift].length << 1);
+        }
+        freeLists[shift][freeCounts[shift]++] = address;
+    }
+
+    int length(long address) {
+        return slab(address).getInt(offset(address));
+    }
+
+    /**
+     * 复制出数据
+     */
+    byte[] read(long address) {
+        ByteBuffer slab = slab(address);
+        int offset = offset(address);
+        byte[] value = new byte[slab.getInt(offset)];
+        ByteBuffer view = slab.duplicate();
+        view.position(offset + HEADER);
+        view.get(value);
+        return value;
+    }
+
+    /**
+     * 只读视图 不复制 块被释放或覆盖后视图中的内容也会变
+     */
+    ByteBuffer view(long address) {
+        ByteBuffer slab = slab(address);
+        int offset = offset(address);
+        ByteBuffer view = slab.duplicate();
+        view.position(offset + HEADER).limit(offset + HEADER + slab.getInt(offset));
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * 丢弃所有 slab 内存在 ByteBuffer 被回收时释放
+     */
+    void clear() {
+        slabs.clear();
+        Arrays.fill(freeCounts, 0);
+        current = -1;
+        top = 0;
+        reservedBytes = 0;
+        usedBytes = 0;
+    }
+
+    /**
+     * 向系统申请的堆外内存字节数
+     */
+    long getReservedBytes() {
+        return reservedBytes;
+    }
+
+    /**
+     * 已分配出去的块的总字节数(按块大小算)
+     */
+    long getUsedBytes() {
+        return usedBytes;
+    }
+
+    private void write(long address, byte[] value) {
+        ByteBuffer slab = slab(address);
+        int offset = offset(address);
+        slab.putInt(offset, value.length);
+        ByteBuffer view = slab.duplicate();
+        view.position(offset + HEADER);
+        view.put(value);
+    }
+
+    private int addSlab(ByteBuffer slab) {
+        int index = slabs.indexOf(null);
+        if (index < 0) {
+            slabs.add(slab);
+            return slabs.size() - 1;
+        }
+        slabs.set(index, slab);
+        return index;
+    }
+
+    private ByteBuffer slab(long address) {
+        return slabs.get((int) (address >>> 32));
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    /**
+     * 能放下 length 字节数据(含头部)的最小等级
+     */
+    private static int shiftOf(int length) {
+        int size = HEADER + length;
+        return Math.max(MIN_SHIFT, 32 - Integer.numberOfLeadingZeros(size - 1));
+    }
+
+    private int blockSize(int shift, int length) {
+        return shift > maxShift ? HEADER + length : 1 << shift;
+    }
+
+}
@@ -0,0 +1,605 @@
+package com.youthlin.example.tree;
+
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * 值放在堆外的 B+ 树
+ * <p>
+ * 叶子结点只保存 long 地址, 值(byte[])由 {@link OffHeapArena} 放在 direct ByteBuffer 中, 堆上只有关键字和结点,
+ * 老年代占用不再随值的总量增长.
+ * {@link #get(Object)} 返回值的副本, {@link #getBuffer(Object)} 返回不复制的只读视图.
+ * 按 Map 的约定 put/remove 要返回旧值的副本, 不需要旧值时用 {@link #set(Object, byte[])} {@link #delete(Object)} 可以省掉复制.
+ * <p>
+ * 删除后结点不足时与兄弟结点合并, 合并后太多则两个结点平分. 非线程安全, 不用了要 {@link #close()}
+ *
+ * @author youthlin.chen
+ * @date 2026-10-18 21:40
+ * @see BplusTree
+ */
+public class OffHeapBplusTree<K> extends AbstractMap<K, byte[]> implements Closeable {
+    /**
+     * 结点
+     */
+    private static class Node {
+        /**
+         * 为 null 说明是 root 结点
+         */
+        private Node parent;
+        private final Object[] keys;
+        /**
+         * 叶子结点的值的地址 为 null 说明是内结点
+         */
+        private final long[] addresses;
+        /**
+         * n个关键字则有n+1个子孩子 为 null 说明是叶结点
+         */
+        private final Node[] children;
+        private int size;
+        private Node prev;
+        /**
+         * 同层次的下一个结点
+         */
+        private Node next;
+
+        private Node(int capacity, boolean leaf) {
+            keys = new Object[capacity];
+            if (leaf) {
+                addresses = new long[capacity];
+                children = null;
+            } else {
+                addresses = null;
+                children = new Node[capacity + 1];
+            }
+        }
+
+        private boolean isLeaf() {
+            return children == null;
+        }
+
+        private int indexOf(Node child) {
+            for (int i = 0; i <= size; i++) {
+                if (children[i] == child) {
+                    return i;
+                }
+            }
+            throw new IllegalStateException("not a child of this node");
+        }
+    }
+
+    private static final int DEFAULT_MAX_ELEMENT_PER_NODE = 32;
+    private final OffHeapArena arena;
+    private Node root;
+    /**
+     * 最小的结点
+     */
+    private Node min;
+    /**
+     * 阶数
+     * m 阶 B+ 树内个节点最多存放 m-1 项数据, 最多 m 个子孩子
+     */
+    private final int maxChildren;
+    /**
+     * 每个节点最少需要的记录数 (m-1)/2 保证平分后两边都不少于它
+     */
+    private final int minElementPerNode;
+    private final Comparator<? super K> comparator;
+    private int size;
+    private int modCount;
+    private Set<Map.Entry<K, byte[]>> entrySet;
+
+    //region 构造方法
+
+    public OffHeapBplusTree() {
+        this(DEFAULT_MAX_ELEMENT_PER_NODE, null);
+    }
+
+    public OffHeapBplusTree(Comparator<? super K> comparator) {
+        this(DEFAULT_MAX_ELEMENT_PER_NODE, comparator);
+    }
+
+    public OffHeapBplusTree(int maxChildren, Comparator<? super K> comparator) {
+        this(maxChildren, comparator, OffHeapArena.DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * @param slabSize 每次向系统申请的堆外内存大小 2 的幂 超过它的值单独分配
+     */
+    public OffHeapBplusTree(int maxChildren, Comparator<? super K> comparator, int slabSize) {
+        Preconditions.checkArgument(maxChildren > 3, "maxChildren should greater than 3");
+        this.maxChildren = maxChildren;
+        this.minElementPerNode = (maxChildren - 1) >> 1;
+        this.comparator = comparator;
+        this.arena = new OffHeapArena(slabSize);
+    }
+
+    //endregion 构造方法
+
+    //region 重写父类方法
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean containsKey(@NotNull Object key) {
+        return root != null && binarySearch(findLeafNode((K) key), (K) key) >= 0;
+    }
+
+    /**
+     * @return 值的副本
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public byte[] get(@NotNull Object key) {
+        long address = addressOf((K) key);
+        return address < 0 ? null : arena.read(address);
+    }
+
+    /**
+     * @return 旧值的副本
+     */
+    @Override
+    public byte[] put(@NotNull K key, @NotNull byte[] value) {
+        Objects.requireNonNull(value);
+        Node leaf = prepareLeaf(key);
+        int index = binarySearch(leaf, key);
+        if (index >= 0) {
+            byte[] old = arena.read(leaf.addresses[index]);
+            leaf.addresses[index] = arena.reallocate(leaf.addresses[index], value);
+            return old;
+        }
+        insert(leaf, -index - 1, key, arena.allocate(value));
+        return null;
+    }
+
+    /**
+     * @return 旧值的副本
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public byte[] remove(@NotNull Object key) {
+        if (root == null) {
+            return null;
+        }
+        Node leaf = findLeafNode((K) key);
+        int index = binarySearch(leaf, (K) key);
+        if (index < 0) {
+            return null;
+        }
+        byte[] old = arena.read(leaf.addresses[index]);
+        removeOnLeafNode(leaf, index);
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        root = min = null;
+        size = 0;
+        modCount++;
+        arena.clear();
+    }
+
+    @Override
+    public Set<Map.Entry<K, byte[]>> entrySet() {
+        Set<Map.Entry<K, byte[]>> es = entrySet;
+        return es != null ? es : (entrySet = new EntrySet());
+    }
+
+    //endregion 重写父类方法
+
+    //region 堆外相关
+
+    /**
+     * 不复制的只读视图 该关键字被覆盖或删除后视图失效
+     *
+     * @return 没有该关键字时返回 null
+     */
+    public ByteBuffer getBuffer(@NotNull K key) {
+        long address = addressOf(key);
+        return address < 0 ? null : arena.view(address);
+    }
+
+    /**
+     * 同 put 但不返回旧值 新值与旧值大小相近时原地覆盖
+     */
+    public void set(@NotNull K key, @NotNull byte[] value) {
+        Objects.requireNonNull(value);
+        Node leaf = prepareLeaf(key);
+        int index = binarySearch(leaf, key);
+        if (index >= 0) {
+            leaf.addresses[index] = arena.reallocate(leaf.addresses[index], value);
+        } else {
+            insert(leaf, -index - 1, key, arena.allocate(value));
+        }
+    }
+
+    /**
+     * 同 remove 但不返回旧值
+     *
+     * @return 是否删除了
+     */
+    public boolean delete(@NotNull K key) {
+        if (root == null) {
+            return false;
+        }
+        Node leaf = findLeafNode(key);
+        int index = binarySearch(leaf, key);
+        if (index < 0) {
+            return false;
+        }
+        removeOnLeafNode(leaf, index);
+        return true;
+    }
+
+    /**
+     * 按关键字从小到大遍历 值是只读视图 只在回调内有效
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachBuffer(BiConsumer<? super K, ? super ByteBuffer> action) {
+        int expectModCount = modCount;
+        for (Node leaf = min; leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.size; i++) {
+                action.accept((K) leaf.keys[i], arena.view(leaf.addresses[i]));
+                if (expectModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 向系统申请的堆外内存字节数
+     */
+    public long getOffHeapReservedBytes() {
+        return arena.getReservedBytes();
+    }
+
+    /**
+     * @return 值实际占用的堆外内存字节数
+     */
+    public long getOffHeapUsedBytes() {
+        return arena.getUsedBytes();
+    }
+
+    public int getMaxChildren() {
+        return maxChildren;
+    }
+
+    /**
+     * 释放堆外内存 之后树为空 仍可继续使用
+     */
+    @Override
+    public void close() {
+        clear();
+    }
+
+    //endregion 堆外相关
+
+    //region 内部实现
+
+    private class EntrySet extends AbstractSet<Map.Entry<K, byte[]>> {
+        @Override
+        public Iterator<Map.Entry<K, byte[]>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            OffHeapBplusTree.this.clear();
+        }
+    }
+
+    /**
+     * 沿叶子链表遍历 值在 next() 时复制出来
+     */
+    private class EntryIterator implements Iterator<Map.Entry<K, byte[]>> {
+        private Node leaf = min;
+        private int index;
+        private K lastReturned;
+        private int expectModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            skipExhaustedLeaf();
+            return leaf != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, byte[]> next() {
+            if (expectModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = (K) leaf.keys[index];
+            byte[] value = arena.read(leaf.addresses[index]);
+            index++;
+            return new SimpleImmutableEntry<>(lastReturned, value);
+        }
+
+        /**
+         * 删除可能引起合并 删除后按下一个关键字重新定位
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public void remove() {
+            Preconditions.checkState(lastReturned != null);
+            if (expectModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            K nextKey = hasNext() ? (K) leaf.keys[index] : null;
+            delete(lastReturned);
+            lastReturned = null;
+            expectModCount = modCount;
+            if (nextKey == null) {
+                leaf = null;
+            } else {
+                leaf = findLeafNode(nextKey);
+                index = binarySearch(leaf, nextKey);
+            }
+        }
+
+        private void skipExhaustedLeaf() {
+            while (leaf != null && index >= leaf.size) {
+                leaf = leaf.next;
+                index = 0;
+            }
+        }
+    }
+
+    private long addressOf(K key) {
+        if (root == null) {
+            return -1;
+        }
+        Node leaf = findLeafNode(key);
+        int index = binarySearch(leaf, key);
+        return index >= 0 ? leaf.addresses[index] : -1;
+    }
+
+    private Node prepareLeaf(K key) {
+        if (root == null) {
+            compare(key, key);
+            min = root = new Node(maxChildren, true);
+        }
+        return findLeafNode(key);
+    }
+
+    private void insert(Node leaf, int index, K key, long address) {
+        System.arraycopy(leaf.keys, index, leaf.keys, index + 1, leaf.size - index);
+        System.arraycopy(leaf.addresses, index, leaf.addresses, index + 1, leaf.size - index);
+        leaf.keys[index] = key;
+        leaf.addresses[index] = address;
+        leaf.size++;
+        if (shouldSplit(leaf)) {
+            Node current = splitLeaf(leaf);
+            while (shouldSplit(current)) {
+                current = splitInnerNode(current);
+            }
+        }
+        size++;
+        modCount++;
+    }
+
+    private void removeOnLeafNode(Node leaf, int index) {
+        arena.free(leaf.addresses[index]);
+        System.arraycopy(leaf.keys, index + 1, leaf.keys, index, leaf.size - index - 1);
+        System.arraycopy(leaf.addresses, index + 1, leaf.addresses, index, leaf.size - index - 1);
+        leaf.keys[--leaf.size] = null;
+        if (leaf != root && leaf.size < minElementPerNode) {
+            rebalance(leaf);
+        }
+        size--;
+        modCount++;
+    }
+
+    private Node findLeafNode(K key) {
+        Node current = root;
+        while (!current.isLeaf()) {
+            int index = binarySearch(current, key);
+            current = current.children[index >= 0 ? index + 1 : -index - 1];
+        }
+        return current;
+    }
+
+    /**
+     * 在结点内二分查找
+     *
+     * @return 找到则返回下标 否则返回 -(插入点)-1
+     */
+    @SuppressWarnings("unchecked")
+    private int binarySearch(Node node, K key) {
+        int low = 0;
+        int high = node.size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare((K) node.keys[mid], key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(K left, K right) {
+        if (comparator != null) {
+            return comparator.compare(left, right);
+        }
+        if (left instanceof Comparable) {
+            return ((Comparable<? super K>) left).compareTo(right);
+        }
+        throw new ClassCastException("key should be Comparable when comparator not specified.");
+    }
+
+    private boolean shouldSplit(Node node) {
+        return node.size >= maxChildren;
+    }
+
+    private Node splitLeaf(Node leaf) {
+        Node right = new Node(maxChildren, true);
+        int from = maxChildren >> 1;
+        int count = leaf.size - from;
+        System.arraycopy(leaf.keys, from, right.keys, 0, count);
+        System.arraycopy(leaf.addresses, from, right.addresses, 0, count);
+        Arrays.fill(leaf.keys, from, leaf.size, null);
+        leaf.size = from;
+        right.size = count;
+        link(leaf, right);
+        return insertToUp(leaf, right, right.keys[0]);
+    }
+
+    private Node splitInnerNode(Node node) {
+        Node right = new Node(maxChildren, false);
+        int center = maxChildren >> 1;
+        Object up = node.keys[center];
+        int count = node.size - center - 1;
+        System.arraycopy(node.keys, center + 1, right.keys, 0, count);
+        System.arraycopy(node.children, center + 1, right.children, 0, count + 1);
+        for (int i = 0; i <= count; i++) {
+            right.children[i].parent = right;
+        }
+        Arrays.fill(node.keys, center, node.size, null);
+        Arrays.fill(node.children, center + 1, node.size + 1, null);
+        node.size = center;
+        right.size = count;
+        link(node, right);
+        return insertToUp(node, right, up);
+    }
+
+    private void link(Node left, Node right) {
+        right.next = left.next;
+        left.next = right;
+        right.prev = left;
+        if (right.next != null) {
+            right.next.prev = right;
+        }
+    }
+
+    private Node insertToUp(Node left, Node right, Object up) {
+        Node parent = left.parent;
+        if (parent == null) {
+            parent = new Node(maxChildren, false);
+            parent.children[0] = left;
+            left.parent = parent;
+            root = parent;
+        }
+        int index = parent.indexOf(left);
+        System.arraycopy(parent.keys, index, parent.keys, index + 1, parent.size - index);
+        System.arraycopy(parent.children, index + 1, parent.children, index + 2, parent.size - index);
+        parent.keys[index] = up;
+        parent.children[index + 1] = right;
+        right.parent = parent;
+        parent.size++;
+        return parent;
+    }
+
+    /**
+     * 删除后结点关键字不足时调用
+     * 和同一父结点下相邻的兄弟拼起来(内结点再加上父结点里的分隔关键字), 总数小于阶数就合并到左边, 否则从中间平分.
+     * 叶子结点只搬动 long 地址 值仍在 {@link OffHeapArena} 原来的块中 不需要复制或释放堆外内存;
+     * 合并时右兄弟整个丢弃 平分时两边的 addresses 数组原地覆盖
+     */
+    private void rebalance(Node node) {
+        Node parent = node.parent;
+        int index = parent.indexOf(node);
+        int separator = index > 0 ? index - 1 : 0;
+        Node left = parent.children[separator];
+        Node right = parent.children[separator + 1];
+        boolean leaf = node.isLeaf();
+        int total = left.size + right.size + (leaf ? 0 : 1);
+        Object[] keys = Arrays.copyOf(left.keys, total);
+        if (!leaf) {
+            keys[left.size] = parent.keys[separator];
+        }
+        System.arraycopy(right.keys, 0, keys, total - right.size, right.size);
+        long[] addresses = null;
+        Node[] children = null;
+        if (leaf) {
+            addresses = new long[total];
+            System.arraycopy(left.addresses, 0, addresses, 0, left.size);
+            System.arraycopy(right.addresses, 0, addresses, left.size, right.size);
+        } else {
+            children = new Node[total + 1];
+            System.arraycopy(left.children, 0, children, 0, left.size + 1);
+            System.arraycopy(right.children, 0, children, left.size + 1, right.size + 1);
+        }
+        if (total < maxChildren) {
+            // 合并到左边
+            fill(left, keys, addresses, children, 0, total);
+            left.next = right.next;
+            if (left.next != null) {
+                left.next.prev = left;
+            }
+            System.arraycopy(parent.keys, separator + 1, parent.keys, separator, parent.size - separator - 1);
+            System.arraycopy(parent.children, separator + 2, parent.children, separator + 1,
+                    parent.size - separator - 1);
+            parent.keys[parent.size - 1] = null;
+            parent.children[parent.size] = null;
+            parent.size--;
+            if (parent == root) {
+                if (root.size == 0) {
+                    root = left;
+                    left.parent = null;
+                }
+            } else if (parent.size < minElementPerNode) {
+                rebalance(parent);
+            }
+            return;
+        }
+        // 平分 右边第一个关键字(内结点是中间那个)作为新的分隔关键字
+        int mid = total >> 1;
+        fill(left, keys, addresses, children, 0, mid);
+        fill(right, keys, addresses, children, leaf ? mid : mid + 1, total);
+        parent.keys[separator] = keys[mid];
+    }
+
+    /**
+     * 用 keys[from, to) 和对应的地址(叶子结点)或子孩子(内结点)重建结点
+     */
+    private void fill(Node node, Object[] keys, long[] addresses, Node[] children, int from, int to) {
+        int count = to - from;
+        System.arraycopy(keys, from, node.keys, 0, count);
+        Arrays.fill(node.keys, count, node.keys.length, null);
+        if (node.isLeaf()) {
+            System.arraycopy(addresses, from, node.addresses, 0, count);
+        } else {
+            for (int i = 0; i <= count; i++) {
+                node.children[i] = children[from + i];
+                node.children[i].parent = node;
+            }
+            Arrays.fill(node.children, count + 1, node.children.length, null);
+        }
+        node.size = count;
+    }
+
+    //endregion 内部实现
+
+}
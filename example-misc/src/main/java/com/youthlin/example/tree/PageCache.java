@@ -0,0 +1,192 @@
+package com.youthlin.example.tree;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 定长页的缓存 使用 Clock 算法(近似 LRU)淘汰
+ * <ul>
+ * <li>{@link #pin(long)} 取得页并钉住 用完必须 {@link #unpin(Page)} 被钉住的页不会被淘汰</li>
+ * <li>修改过的页要 {@link #markDirty(Page)} 脏页在被淘汰或 {@link #flush()} 时才写回文件</li>
+ * </ul>
+ * 只有访问到的页才会被读入或写出 非线程安全
+ *
+ * @author youthlin.chen
+ * @date 2026-10-18 15:50
+ */
+class PageCache {
+    static final class Page {
+        final ByteBuffer buffer;
+        private long id = -1;
+        private boolean dirty;
+        /**
+         * Clock 算法的访问位
+         */
+        private boolean referenced;
+        private int pin;
+
+        private Page(int pageSize) {
+            buffer = ByteBuffer.allocate(pageSize);
+        }
+
+        long id() {
+            return id;
+        }
+
+        byte[] array() {
+            return buffer.array();
+        }
+    }
+
+    private final FileChannel channel;
+    private final int pageSize;
+    private final Page[] frames;
+    private final Map<Long, Page> table = new HashMap<>();
+    /**
+     * Clock 指针
+     */
+    private int hand;
+    private int used;
+    private long hits;
+    private long misses;
+    private long writes;
+
+    PageCache(FileChannel channel, int pageSize, int capacity) {
+        Preconditions.checkArgument(capacity > 0, "capacity should greater than 0");
+        this.channel = channel;
+        this.pageSize = pageSize;
+        this.frames = new Page[capacity];
+    }
+
+    /**
+     * 读取已有的页
+     */
+    Page pin(long id) {
+        Page page = table.get(id);
+        if (page != null) {
+            hits++;
+        } else {
+            misses++;
+            page = victim(id);
+            read(page);
+        }
+        page.referenced = true;
+        page.pin++;
+        return page;
+    }
+
+    /**
+     * 新分配的页 内容全为 0 不读文件
+     */
+    Page allocate(long id) {
+        Preconditions.checkState(!table.containsKey(id), "page %s already cached", id);
+        Page page = victim(id);
+        Arrays.fill(page.array(), (byte) 0);
+        page.dirty = true;
+        page.referenced = true;
+        page.pin++;
+        return page;
+    }
+
+    void unpin(Page page) {
+        Preconditions.checkState(page.pin > 0, "page %s not pinned", page.id);
+        page.pin--;
+    }
+
+    void markDirty(Page page) {
+        page.dirty = true;
+    }
+
+    /**
+     * 所有脏页写回文件 不调用 force
+     */
+    void flush() {
+        for (int i = 0; i < used; i++) {
+            if (frames[i].dirty) {
+                write(frames[i]);
+            }
+        }
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getMisses() {
+        return misses;
+    }
+
+    long getWrites() {
+        return writes;
+    }
+
+    /**
+     * 找一个空闲的帧 没有空闲时转动时钟指针: 跳过被钉住的页 访问位为 1 的清零给第二次机会 为 0 的淘汰
+     */
+    private Page victim(long id) {
+        Page page;
+        if (used < frames.length) {
+            page = frames[used++] = new Page(pageSize);
+        } else {
+            page = null;
+            for (int i = 0; i < frames.length * 2 && page == null; i++) {
+                Page candidate = frames[hand];
+                hand = (hand + 1) % frames.length;
+                if (candidate.pin > 0) {
+                    continue;
+                }
+                if (candidate.referenced) {
+                    candidate.referenced = false;
+                } else {
+                    page = candidate;
+                }
+            }
+            Preconditions.checkState(page != null, "all %s pages are pinned", frames.length);
+            if (page.dirty) {
+                write(page);
+            }
+            table.remove(page.id);
+        }
+        page.id = id;
+        table.put(id, page);
+        return page;
+    }
+
+    private void read(Page page) {
+        ByteBuffer buffer = ByteBuffer.wrap(page.array());
+        long position = page.id * pageSize;
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Arrays.fill(page.array(), buffer.position(), pageSize, (byte) 0);
+        page.dirty = false;
+    }
+
+    private void write(Page page) {
+        ByteBuffer buffer = ByteBuffer.wrap(page.array());
+        long position = page.id * pageSize;
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        page.dirty = false;
+        writes++;
+    }
+
+}
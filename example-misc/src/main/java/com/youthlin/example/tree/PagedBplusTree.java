@@ -0,0 +1,630 @@
+package com.youthlin.example.tree;
+
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * 存放在文件里的 B+ 树 每个结点是一个定长的页
+ * <p>
+ * 文件布局: 第 0 页是元数据页(根结点页号、树高、页数、元素个数等) 之后每页一个结点.
+ * 打开文件时只读元数据页 其他页按需通过 {@link PageCache} 读入, 脏页在淘汰或 {@link #flush()} 时写回.
+ * 所以启动时间与树的大小无关, flush 也只写修改过的页.
+ * 脏页被淘汰时会原地覆盖写回, 所以两次 flush 之间崩溃后文件可能处于不一致的状态;
+ * flush 只保证调用时的状态落盘, 不提供崩溃一致性(需要的话用 {@link DurableBplusTree})
+ * <p>
+ * 页内布局: 16 字节页头(类型 关键字个数 下一叶子页号) 之后是关键字数组 再之后是值数组(叶子)或子孩子页号数组(内结点).
+ * 关键字和值都由 {@link Codec} 编码为定长字节 所以每页容纳的关键字个数由页大小算出
+ * <p>
+ * 删除只在叶子结点内进行 不做借和合并(和多数数据库的实现一样) 空出来的位置留给以后的插入.
+ * 非线程安全
+ *
+ * @param <K> 关键字类型
+ * @param <V> 值类型
+ * @author youthlin.chen
+ * @date 2026-10-18 16:05
+ */
+public class PagedBplusTree<K, V> implements Closeable {
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+    public static final int DEFAULT_CACHE_PAGES = 1024;
+    private static final int MIN_CACHE_PAGES = 8;
+
+    //region 元数据页
+    private static final int MAGIC = 0x42505452;
+    private static final int FORMAT_VERSION = 1;
+    private static final int META_MAGIC = 0;
+    private static final int META_VERSION = 4;
+    private static final int META_PAGE_SIZE = 8;
+    private static final int META_KEY_WIDTH = 12;
+    private static final int META_VALUE_WIDTH = 16;
+    private static final int META_HEIGHT = 20;
+    private static final int META_ROOT = 24;
+    private static final int META_HEAD = 32;
+    private static final int META_PAGE_COUNT = 40;
+    private static final int META_SIZE = 48;
+    private static final int META_LENGTH = 56;
+    //endregion 元数据页
+
+    //region 结点页
+    private static final byte LEAF = 1;
+    private static final byte INNER = 2;
+    private static final int TYPE_OFFSET = 0;
+    private static final int SIZE_OFFSET = 4;
+    private static final int NEXT_OFFSET = 8;
+    private static final int HEADER = 16;
+    /**
+     * 第 0 页是元数据页 所以 0 可以表示没有下一页
+     */
+    private static final long NO_PAGE = 0;
+    //endregion 结点页
+
+    private final Path path;
+    private final FileChannel channel;
+    private final PageCache cache;
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private final Comparator<? super K> comparator;
+    private final int pageSize;
+    private final int keyWidth;
+    private final int valueWidth;
+    /**
+     * 每个叶子结点最多的关键字个数
+     */
+    private final int leafCapacity;
+    /**
+     * 每个内结点最多的关键字个数 子孩子比它多一个
+     */
+    private final int innerCapacity;
+    /**
+     * 插入前先把关键字和值编码到这里 编码失败时页还没有被修改
+     */
+    private final ByteBuffer keyScratch;
+    private final ByteBuffer valueScratch;
+    private long root;
+    /**
+     * 最左边的叶子结点 不做合并所以它不会变
+     */
+    private long head;
+    private int height;
+    private long pageCount;
+    private long size;
+    private boolean closed;
+
+    //region 构造方法
+
+    public PagedBplusTree(Path path, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+        this(path, keyCodec, valueCodec, null, DEFAULT_PAGE_SIZE, DEFAULT_CACHE_PAGES);
+    }
+
+    public PagedBplusTree(Path path, Codec<K> keyCodec, Codec<V> valueCodec, Comparator<? super K> comparator)
+            throws IOException {
+        this(path, keyCodec, valueCodec, comparator, DEFAULT_PAGE_SIZE, DEFAULT_CACHE_PAGES);
+    }
+
+    /**
+     * 打开或创建文件 已有的文件页大小和编码宽度必须一致
+     *
+     * @param cachePages 缓存的页数 至少为 8
+     */
+    public PagedBplusTree(Path path, Codec<K> keyCodec, Codec<V> valueCodec, Comparator<? super K> comparator,
+            int pageSize, int cachePages) throws IOException {
+        Preconditions.checkArgument(cachePages >= MIN_CACHE_PAGES, "cachePages should not less than %s", MIN_CACHE_PAGES);
+        Preconditions.checkArgument(pageSize >= META_LENGTH, "pageSize too small");
+        this.path = path;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.comparator = comparator;
+        this.pageSize = pageSize;
+        this.keyWidth = keyCodec.width();
+        this.valueWidth = valueCodec.width();
+        this.leafCapacity = (pageSize - HEADER) / (keyWidth + valueWidth);
+        this.innerCapacity = (pageSize - HEADER - Long.BYTES) / (keyWidth + Long.BYTES);
+        Preconditions.checkArgument(leafCapacity >= 3 && innerCapacity >= 3,
+                "pageSize %s too small for key width %s and value width %s", pageSize, keyWidth, valueWidth);
+        this.keyScratch = ByteBuffer.allocate(keyWidth);
+        this.valueScratch = ByteBuffer.allocate(valueWidth);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        cache = new PageCache(channel, pageSize, cachePages);
+        try {
+            if (channel.size() == 0) {
+                create();
+            } else {
+                readMeta();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void create() throws IOException {
+        root = head = 1;
+        pageCount = 2;
+        height = 1;
+        PageCache.Page page = cache.allocate(root);
+        page.buffer.put(TYPE_OFFSET, LEAF);
+        cache.unpin(page);
+        flush();
+    }
+
+    private void readMeta() throws IOException {
+        ByteBuffer meta = ByteBuffer.allocate(META_LENGTH);
+        while (meta.hasRemaining()) {
+            if (channel.read(meta, meta.position()) < 0) {
+                throw new IOException("meta page truncated: " + path);
+            }
+        }
+        if (meta.getInt(META_MAGIC) != MAGIC || meta.getInt(META_VERSION) != FORMAT_VERSION) {
+            throw new IOException("not a PagedBplusTree file: " + path);
+        }
+        if (meta.getInt(META_PAGE_SIZE) != pageSize || meta.getInt(META_KEY_WIDTH) != keyWidth
+                || meta.getInt(META_VALUE_WIDTH) != valueWidth) {
+            throw new IOException("page size or codec width mismatch: " + path);
+        }
+        height = meta.getInt(META_HEIGHT);
+        root = meta.getLong(META_ROOT);
+        head = meta.getLong(META_HEAD);
+        pageCount = meta.getLong(META_PAGE_COUNT);
+        size = meta.getLong(META_SIZE);
+    }
+
+    //endregion 构造方法
+
+    //region 公开方法
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(@NotNull K key) {
+        return get(key) != null;
+    }
+
+    public V get(@NotNull K key) {
+        Objects.requireNonNull(key);
+        checkOpen();
+        long pageId = root;
+        for (; ; ) {
+            PageCache.Page page = cache.pin(pageId);
+            try {
+                ByteBuffer buffer = page.buffer;
+                if (isLeaf(buffer)) {
+                    int index = search(buffer, key);
+                    return index >= 0 ? value(buffer, index) : null;
+                }
+                pageId = child(buffer, childIndex(buffer, key));
+            } finally {
+                cache.unpin(page);
+            }
+        }
+    }
+
+    /**
+     * 插入或替换
+     *
+     * @return 旧值
+     */
+    public V put(@NotNull K key, @NotNull V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        checkOpen();
+        keyCodec.write(keyScratch, 0, key);
+        valueCodec.write(valueScratch, 0, value);
+        long[] path = new long[height];
+        int[] indexes = new int[height];
+        long pageId = root;
+        for (int level = 0; ; level++) {
+            PageCache.Page page = cache.pin(pageId);
+            ByteBuffer buffer = page.buffer;
+            if (!isLeaf(buffer)) {
+                path[level] = pageId;
+                indexes[level] = childIndex(buffer, key);
+                pageId = child(buffer, indexes[level]);
+                cache.unpin(page);
+                continue;
+            }
+            PageCache.Page right = null;
+            K separator;
+            try {
+                int index = search(buffer, key);
+                cache.markDirty(page);
+                if (index >= 0) {
+                    V old = value(buffer, index);
+                    System.arraycopy(valueScratch.array(), 0, page.array(), valueOffset(index), valueWidth);
+                    return old;
+                }
+                index = -index - 1;
+                if (size(buffer) < leafCapacity) {
+                    insertOnLeaf(buffer, index);
+                    size++;
+                    return null;
+                }
+                right = splitLeaf(page);
+                int mid = size(buffer);
+                if (index <= mid) {
+                    insertOnLeaf(buffer, index);
+                } else {
+                    insertOnLeaf(right.buffer, index - mid);
+                }
+                size++;
+                separator = key(right.buffer, 0);
+            } finally {
+                cache.unpin(page);
+                if (right != null) {
+                    cache.unpin(right);
+                }
+            }
+            insertToUp(path, indexes, level - 1, separator, right.id());
+            return null;
+        }
+    }
+
+    /**
+     * 删除只在叶子结点内移动 不会影响其他结点
+     *
+     * @return 旧值
+     */
+    public V remove(@NotNull K key) {
+        Objects.requireNonNull(key);
+        checkOpen();
+        long pageId = root;
+        for (; ; ) {
+            PageCache.Page page = cache.pin(pageId);
+            try {
+                ByteBuffer buffer = page.buffer;
+                if (!isLeaf(buffer)) {
+                    pageId = child(buffer, childIndex(buffer, key));
+                    continue;
+                }
+                int index = search(buffer, key);
+                if (index < 0) {
+                    return null;
+                }
+                V old = value(buffer, index);
+                int move = size(buffer) - index - 1;
+                byte[] array = page.array();
+                System.arraycopy(array, keyOffset(index + 1), array, keyOffset(index), move * keyWidth);
+                System.arraycopy(array, valueOffset(index + 1), array, valueOffset(index), move * valueWidth);
+                size(buffer, size(buffer) - 1);
+                cache.markDirty(page);
+                size--;
+                return old;
+            } finally {
+                cache.unpin(page);
+            }
+        }
+    }
+
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        checkOpen();
+        scan(head, 0, null, action);
+    }
+
+    /**
+     * 遍历 [fromKey, toKey) 范围内的元素 遍历期间不能修改树
+     */
+    public void forEachInRange(@NotNull K fromKey, @NotNull K toKey, BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(fromKey);
+        Objects.requireNonNull(toKey);
+        checkOpen();
+        long pageId = root;
+        int index;
+        for (; ; ) {
+            PageCache.Page page = cache.pin(pageId);
+            try {
+                ByteBuffer buffer = page.buffer;
+                if (isLeaf(buffer)) {
+                    index = search(buffer, fromKey);
+                    break;
+                }
+                pageId = child(buffer, childIndex(buffer, fromKey));
+            } finally {
+                cache.unpin(page);
+            }
+        }
+        scan(pageId, index >= 0 ? index : -index - 1, toKey, action);
+    }
+
+    /**
+     * 把脏页和元数据页写回文件并刷盘 使当前状态持久化.
+     * 淘汰的脏页在两次 flush 之间就会原地写回 所以这里写下的元数据页不是崩溃后可恢复的一致点
+     */
+    public void flush() throws IOException {
+        checkOpen();
+        cache.flush();
+        channel.force(false);
+        ByteBuffer meta = ByteBuffer.allocate(META_LENGTH);
+        meta.putInt(META_MAGIC, MAGIC);
+        meta.putInt(META_VERSION, FORMAT_VERSION);
+        meta.putInt(META_PAGE_SIZE, pageSize);
+        meta.putInt(META_KEY_WIDTH, keyWidth);
+        meta.putInt(META_VALUE_WIDTH, valueWidth);
+        meta.putInt(META_HEIGHT, height);
+        meta.putLong(META_ROOT, root);
+        meta.putLong(META_HEAD, head);
+        meta.putLong(META_PAGE_COUNT, pageCount);
+        meta.putLong(META_SIZE, size);
+        while (meta.hasRemaining()) {
+            channel.write(meta, meta.position());
+        }
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getLeafCapacity() {
+        return leafCapacity;
+    }
+
+    public int getInnerCapacity() {
+        return innerCapacity;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public long getPageCount() {
+        return pageCount;
+    }
+
+    @Override
+    public String toString() {
+        return "PagedBplusTree{" +
+                "path=" + path +
+                ", size=" + size +
+                ", height=" + height +
+                ", pageCount=" + pageCount +
+                ", cacheHits=" + cache.getHits() +
+                ", cacheMisses=" + cache.getMisses() +
+                ", pageWrites=" + cache.getWrites() +
+                '}';
+    }
+
+    //endregion 公开方法
+
+    //region 插入
+
+    /**
+     * 满的叶子结点分裂出右兄弟 左边保留一半
+     *
+     * @return 新的右兄弟 已钉住
+     */
+    private PageCache.Page splitLeaf(PageCache.Page page) {
+        ByteBuffer buffer = page.buffer;
+        PageCache.Page right = cache.allocate(pageCount++);
+        ByteBuffer rightBuffer = right.buffer;
+        int total = size(buffer);
+        int mid = total / 2;
+        int move = total - mid;
+        System.arraycopy(page.array(), keyOffset(mid), right.array(), keyOffset(0), move * keyWidth);
+        System.arraycopy(page.array(), valueOffset(mid), right.array(), valueOffset(0), move * valueWidth);
+        rightBuffer.put(TYPE_OFFSET, LEAF);
+        size(rightBuffer, move);
+        size(buffer, mid);
+        rightBuffer.putLong(NEXT_OFFSET, buffer.getLong(NEXT_OFFSET));
+        buffer.putLong(NEXT_OFFSET, right.id());
+        return right;
+    }
+
+    /**
+     * 子孩子分裂后 把分隔关键字和新的右孩子插入父结点 父结点满了就继续分裂
+     *
+     * @param level 父结点在 path 中的下标 为 -1 时说明分裂的是根结点
+     */
+    private void insertToUp(long[] path, int[] indexes, int level, K key, long rightChild) {
+        for (; level >= 0; level--) {
+            PageCache.Page page = cache.pin(path[level]);
+            PageCache.Page right = null;
+            try {
+                ByteBuffer buffer = page.buffer;
+                int index = indexes[level];
+                cache.markDirty(page);
+                if (size(buffer) < innerCapacity) {
+                    insertOnInner(buffer, index, key, rightChild);
+                    return;
+                }
+                right = cache.allocate(pageCount++);
+                ByteBuffer rightBuffer = right.buffer;
+                int total = size(buffer);
+                int mid = total / 2;
+                K up = key(buffer, mid);
+                int move = total - mid - 1;
+                System.arraycopy(page.array(), keyOffset(mid + 1), right.array(), keyOffset(0), move * keyWidth);
+                System.arraycopy(page.array(), childOffset(mid + 1), right.array(), childOffset(0), (move + 1) * Long.BYTES);
+                rightBuffer.put(TYPE_OFFSET, INNER);
+                size(rightBuffer, move);
+                size(buffer, mid);
+                if (index <= mid) {
+                    insertOnInner(buffer, index, key, rightChild);
+                } else {
+                    insertOnInner(rightBuffer, index - mid - 1, key, rightChild);
+                }
+                key = up;
+                rightChild = right.id();
+            } finally {
+                cache.unpin(page);
+                if (right != null) {
+                    cache.unpin(right);
+                }
+            }
+        }
+        PageCache.Page newRoot = cache.allocate(pageCount++);
+        ByteBuffer buffer = newRoot.buffer;
+        buffer.put(TYPE_OFFSET, INNER);
+        keyCodec.write(buffer, keyOffset(0), key);
+        buffer.putLong(childOffset(0), root);
+        buffer.putLong(childOffset(1), rightChild);
+        size(buffer, 1);
+        root = newRoot.id();
+        height++;
+        cache.unpin(newRoot);
+    }
+
+    /**
+     * 把已编码好的关键字和值插入 index 处
+     */
+    private void insertOnLeaf(ByteBuffer buffer, int index) {
+        byte[] array = buffer.array();
+        int move = size(buffer) - index;
+        System.arraycopy(array, keyOffset(index), array, keyOffset(index + 1), move * keyWidth);
+        System.arraycopy(array, valueOffset(index), array, valueOffset(index + 1), move * valueWidth);
+        System.arraycopy(keyScratch.array(), 0, array, keyOffset(index), keyWidth);
+        System.arraycopy(valueScratch.array(), 0, array, valueOffset(index), valueWidth);
+        size(buffer, size(buffer) + 1);
+    }
+
+    /**
+     * 关键字插入 index 处 右孩子插入 index+1 处
+     */
+    private void insertOnInner(ByteBuffer buffer, int index, K key, long rightChild) {
+        byte[] array = buffer.array();
+        int move = size(buffer) - index;
+        System.arraycopy(array, keyOffset(index), array, keyOffset(index + 1), move * keyWidth);
+        System.arraycopy(array, childOffset(index + 1), array, childOffset(index + 2), move * Long.BYTES);
+        keyCodec.write(buffer, keyOffset(index), key);
+        buffer.putLong(childOffset(index + 1), rightChild);
+        size(buffer, size(buffer) + 1);
+    }
+
+    //endregion 插入
+
+    //region 工具方法
+
+    /**
+     * 从指定叶子结点的指定位置开始顺着叶子链表遍历
+     *
+     * @param toKey 不包含 为 null 时遍历到最后
+     */
+    private void scan(long pageId, int index, K toKey, BiConsumer<? super K, ? super V> action) {
+        while (pageId != NO_PAGE) {
+            PageCache.Page page = cache.pin(pageId);
+            try {
+                ByteBuffer buffer = page.buffer;
+                int size = size(buffer);
+                for (; index < size; index++) {
+                    K key = key(buffer, index);
+                    if (toKey != null && compare(key, toKey) >= 0) {
+                        return;
+                    }
+                    action.accept(key, value(buffer, index));
+                }
+                pageId = buffer.getLong(NEXT_OFFSET);
+                index = 0;
+            } finally {
+                cache.unpin(page);
+            }
+        }
+    }
+
+    /**
+     * 二分查找
+     *
+     * @return 找到时返回下标 否则返回 -(插入点)-1
+     */
+    private int search(ByteBuffer buffer, K key) {
+        int low = 0;
+        int high = size(buffer) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(key(buffer, mid), key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * 内结点中关键字所在的子孩子下标 等于分隔关键字的走右边
+     */
+    private int childIndex(ByteBuffer buffer, K key) {
+        int index = search(buffer, key);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(K left, K right) {
+        if (comparator != null) {
+            return comparator.compare(left, right);
+        }
+        return ((Comparable<? super K>) left).compareTo(right);
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("closed: " + path);
+        }
+    }
+
+    private static boolean isLeaf(ByteBuffer buffer) {
+        return buffer.get(TYPE_OFFSET) == LEAF;
+    }
+
+    private static int size(ByteBuffer buffer) {
+        return buffer.getInt(SIZE_OFFSET);
+    }
+
+    private static void size(ByteBuffer buffer, int size) {
+        buffer.putInt(SIZE_OFFSET, size);
+    }
+
+    private K key(ByteBuffer buffer, int index) {
+        return keyCodec.read(buffer, keyOffset(index));
+    }
+
+    private V value(ByteBuffer buffer, int index) {
+        return valueCodec.read(buffer, valueOffset(index));
+    }
+
+    private long child(ByteBuffer buffer, int index) {
+        return buffer.getLong(childOffset(index));
+    }
+
+    private int keyOffset(int index) {
+        return HEADER + index * keyWidth;
+    }
+
+    private int valueOffset(int index) {
+        return HEADER + leafCapacity * keyWidth + index * valueWidth;
+    }
+
+    private int childOffset(int index) {
+        return HEADER + innerCapacity * keyWidth + index * Long.BYTES;
+    }
+
+    //endregion 工具方法
+
+}
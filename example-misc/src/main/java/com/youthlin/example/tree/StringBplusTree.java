@@ -0,0 +1,705 @@
+package com.youthlin.example.tree;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * 关键字为 String 的 B+ 树 结点内做前缀压缩
+ * <p>
+ * 关键字按 UTF-8 编码后的字节存放: 每个结点保存所有关键字的公共前缀 prefix, 各关键字去掉前缀后的后缀依次紧凑地放在一个 byte[] 中,
+ * 用 offsets 记录每个后缀的起止位置. 结点内的关键字是有序的, 所以公共前缀就是第一个和最后一个关键字的公共前缀.
+ * 查找时先与结点的前缀比较一次, 之后二分查找只比较后缀.
+ * <p>
+ * 关键字按 UTF-8 字节的无符号字典序(即 Unicode 码点顺序)排列, 只有在包含增补字符时与 {@link String#compareTo} 不同.
+ * 删除后结点不足时与兄弟结点合并, 合并后太多则两个结点平分
+ *
+ * @param <V> 值类型
+ * @author youthlin.chen
+ * @date 2026-10-18 19:10
+ * @see BplusTree
+ */
+public class StringBplusTree<V> {
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * 结点
+     */
+    private static class Node<V> {
+        /**
+         * 为 null 说明是 root 结点
+         */
+        private Node<V> parent;
+        /**
+         * 所有关键字的公共前缀
+         */
+        private byte[] prefix = EMPTY;
+        /**
+         * 各关键字的后缀
+         */
+        private byte[] suffixes;
+        /**
+         * 第 i 个关键字的后缀是 suffixes[offsets[i], offsets[i+1])
+         */
+        private final int[] offsets;
+        /**
+         * 叶子结点的值 为 null 说明是内结点
+         */
+        private final Object[] values;
+        /**
+         * n个关键字则有n+1个子孩子 为 null 说明是叶结点
+         */
+        private final Node<V>[] children;
+        private int size;
+        private Node<V> prev;
+        /**
+         * 同层次的下一个结点
+         */
+        private Node<V> next;
+
+        @SuppressWarnings("unchecked")
+        private Node(int capacity, boolean leaf) {
+            offsets = new int[capacity + 1];
+            suffixes = new byte[capacity * 8];
+            if (leaf) {
+                values = new Object[capacity];
+                children = null;
+            } else {
+                values = null;
+                children = (Node<V>[]) new Node<?>[capacity + 1];
+            }
+        }
+
+        private boolean isLeaf() {
+            return children == null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private V value(int index) {
+            return (V) values[index];
+        }
+
+        /**
+         * 完整的关键字 前缀+后缀
+         */
+        private byte[] key(int index) {
+            int from = offsets[index];
+            int length = offsets[index + 1] - from;
+            byte[] key = Arrays.copyOf(prefix, prefix.length + length);
+            System.arraycopy(suffixes, from, key, prefix.length, length);
+            return key;
+        }
+
+        private String keyString(int index) {
+            return new String(key(index), StandardCharsets.UTF_8);
+        }
+
+        private byte[][] keys() {
+            byte[][] keys = new byte[size][];
+            for (int i = 0; i < size; i++) {
+                keys[i] = key(i);
+            }
+            return keys;
+        }
+
+        /**
+         * 二分查找 先比较前缀 前缀不同时可以直接确定位置
+         *
+         * @return 找到则返回下标 否则返回 -(插入点)-1
+         */
+        private int binarySearch(byte[] key) {
+            int p = prefix.length;
+            int m = mismatch(prefix, key, p);
+            if (m < p) {
+                if (m == key.length || (key[m] & 0xFF) < (prefix[m] & 0xFF)) {
+                    return -1;
+                }
+                return -(size + 1);
+            }
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compareSuffix(mid, key, p);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        /**
+         * 第 index 个后缀与 key[from, key.length) 比较
+         */
+        private int compareSuffix(int index, byte[] key, int from) {
+            int i = offsets[index];
+            int end = offsets[index + 1];
+            int j = from;
+            for (; i < end && j < key.length; i++, j++) {
+                int cmp = (suffixes[i] & 0xFF) - (key[j] & 0xFF);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return (end - i) - (key.length - j);
+        }
+
+        /**
+         * 在 index 处插入关键字(叶子结点同时插入值) 关键字不以当前前缀开头时先缩短前缀
+         */
+        private void insert(int index, byte[] key, Object value) {
+            if (size == 0) {
+                prefix = key.clone();
+            } else {
+                int common = mismatch(prefix, key, prefix.length);
+                if (common < prefix.length) {
+                    shrinkPrefix(common);
+                }
+            }
+            int length = key.length - prefix.length;
+            int end = offsets[size];
+            if (end + length > suffixes.length) {
+                suffixes = Arrays.copyOf(suffixes, Math.max(suffixes.length << 1, end + length));
+            }
+            int at = offsets[index];
+            System.arraycopy(suffixes, at, suffixes, at + length, end - at);
+            System.arraycopy(key, prefix.length, suffixes, at, length);
+            for (int i = size; i >= index; i--) {
+                offsets[i + 1] = offsets[i] + length;
+            }
+            if (values != null) {
+                System.arraycopy(values, index, values, index + 1, size - index);
+                values[index] = value;
+            }
+            size++;
+        }
+
+        /**
+         * 删除 index 处的关键字(叶子结点同时删除值) 前缀仍然是剩下关键字的公共前缀
+         */
+        private void delete(int index) {
+            int at = offsets[index];
+            int length = offsets[index + 1] - at;
+            System.arraycopy(suffixes, at + length, suffixes, at, offsets[size] - at - length);
+            for (int i = index + 1; i < size; i++) {
+                offsets[i] = offsets[i + 1] - length;
+            }
+            offsets[size] = 0;
+            if (values != null) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                values[size - 1] = null;
+            }
+            size--;
+            if (size == 0) {
+                prefix = EMPTY;
+            }
+        }
+
+        /**
+         * 前缀缩短为 length 字节 去掉的部分补到每个后缀前面
+         */
+        private void shrinkPrefix(int length) {
+            int dropped = prefix.length - length;
+            byte[] rebuilt = new byte[Math.max(suffixes.length, offsets[size] + size * dropped)];
+            for (int i = 0; i < size; i++) {
+                int from = offsets[i];
+                int to = offsets[i + 1];
+                int at = from + i * dropped;
+                System.arraycopy(prefix, length, rebuilt, at, dropped);
+                System.arraycopy(suffixes, from, rebuilt, at + dropped, to - from);
+            }
+            for (int i = 1; i <= size; i++) {
+                offsets[i] += i * dropped;
+            }
+            suffixes = rebuilt;
+            prefix = Arrays.copyOf(prefix, length);
+        }
+
+        /**
+         * 用有序的 keys[from, to) 重建关键字 分裂与合并时使用
+         */
+        private void setKeys(byte[][] keys, int from, int to) {
+            size = to - from;
+            prefix = size == 0 ? EMPTY : Arrays.copyOf(keys[from], mismatch(keys[from], keys[to - 1], keys[from].length));
+            int total = 0;
+            for (int i = from; i < to; i++) {
+                total += keys[i].length - prefix.length;
+            }
+            if (total > suffixes.length) {
+                suffixes = new byte[total];
+            }
+            int at = 0;
+            for (int i = 0; i < size; i++) {
+                byte[] key = keys[from + i];
+                offsets[i] = at;
+                System.arraycopy(key, prefix.length, suffixes, at, key.length - prefix.length);
+                at += key.length - prefix.length;
+            }
+            offsets[size] = at;
+            Arrays.fill(offsets, size + 1, offsets.length, 0);
+        }
+
+        /**
+         * 在 index 处插入子孩子 子孩子个数总是 size+1 所以要在调整 size 之前调用
+         */
+        private void insertChild(int index, Node<V> child) {
+            System.arraycopy(children, index, children, index + 1, size + 1 - index);
+            children[index] = child;
+            child.parent = this;
+        }
+
+        /**
+         * 删除 index 处的子孩子 要在调整 size 之前调用
+         */
+        private void deleteChild(int index) {
+            System.arraycopy(children, index + 1, children, index, size - index);
+            children[size] = null;
+        }
+
+        private int indexOf(Node<V> child) {
+            for (int i = 0; i <= size; i++) {
+                if (children[i] == child) {
+                    return i;
+                }
+            }
+            throw new IllegalStateException("not a child of this node");
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append('"').append(new String(prefix, StandardCharsets.UTF_8)).append("\"[");
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(new String(suffixes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8));
+                if (values != null) {
+                    sb.append('=').append(values[i]);
+                }
+            }
+            return sb.append(']').toString();
+        }
+    }
+
+    private static final int DEFAULT_MAX_ELEMENT_PER_NODE = 32;
+    private Node<V> root;
+    /**
+     * 最小的结点
+     */
+    private Node<V> min;
+    /**
+     * 阶数
+     * m 阶 B+ 树内个节点最多存放 m-1 项数据, 最多 m 个子孩子
+     */
+    private final int maxChildren;
+    /**
+     * 每个节点最少需要的关键字个数 (m-1)/2
+     * 按个数而不是字节数计算 前缀压缩只影响结点占用的字节
+     */
+    private final int minElementPerNode;
+    private int size;
+    private int modCount;
+
+    //region 构造方法
+
+    public StringBplusTree() {
+        this(DEFAULT_MAX_ELEMENT_PER_NODE);
+    }
+
+    public StringBplusTree(int maxChildren) {
+        Preconditions.checkArgument(maxChildren > 3, "maxChildren should greater than 3");
+        this.maxChildren = maxChildren;
+        this.minElementPerNode = (maxChildren - 1) >> 1;
+    }
+
+    //endregion 构造方法
+
+    //region 公开方法
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(String key) {
+        byte[] bytes = bytes(key);
+        return root != null && findLeafNode(bytes).binarySearch(bytes) >= 0;
+    }
+
+    public V get(String key) {
+        if (root == null) {
+            return null;
+        }
+        byte[] bytes = bytes(key);
+        Node<V> leaf = findLeafNode(bytes);
+        int index = leaf.binarySearch(bytes);
+        return index >= 0 ? leaf.value(index) : null;
+    }
+
+    /**
+     * 插入 步骤同 {@link BplusTree#put(Object, Object)}
+     *
+     * @return 该关键字原来对应的值 原来没有该关键字则返回 null
+     */
+    public V put(String key, V value) {
+        byte[] bytes = bytes(key);
+        if (root == null) {
+            min = root = new Node<>(maxChildren, true);
+        }
+        Node<V> leaf = findLeafNode(bytes);
+        int index = leaf.binarySearch(bytes);
+        if (index >= 0) {
+            V old = leaf.value(index);
+            leaf.values[index] = value;
+            return old;
+        }
+        leaf.insert(-index - 1, bytes, value);
+        if (shouldSplit(leaf)) {
+            Node<V> current = splitLeaf(leaf);
+            while (shouldSplit(current)) {
+                current = splitInnerNode(current);
+            }
+        }
+        size++;
+        modCount++;
+        return null;
+    }
+
+    public V remove(String key) {
+        if (root == null) {
+            return null;
+        }
+        byte[] bytes = bytes(key);
+        Node<V> leaf = findLeafNode(bytes);
+        int index = leaf.binarySearch(bytes);
+        if (index < 0) {
+            return null;
+        }
+        V old = leaf.value(index);
+        leaf.delete(index);
+        if (leaf != root && leaf.size < minElementPerNode) {
+            rebalance(leaf);
+        }
+        size--;
+        modCount++;
+        return old;
+    }
+
+    public void clear() {
+        root = min = null;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * 按关键字从小到大遍历
+     */
+    public void forEach(BiConsumer<String, ? super V> action) {
+        if (root != null) {
+            scan(min, 0, null, false, action);
+        }
+    }
+
+    /**
+     * 遍历 [fromKey, toKey) 范围内的元素
+     */
+    public void forEachInRange(String fromKey, String toKey, BiConsumer<String, ? super V> action) {
+        if (root == null) {
+            return;
+        }
+        byte[] from = bytes(fromKey);
+        Node<V> leaf = findLeafNode(from);
+        int index = leaf.binarySearch(from);
+        scan(leaf, index >= 0 ? index : -index - 1, bytes(toKey), false, action);
+    }
+
+    /**
+     * 遍历以 prefix 开头的关键字 如路径字典中某个目录下的所有路径
+     */
+    public void forEachWithPrefix(String prefix, BiConsumer<String, ? super V> action) {
+        if (root == null) {
+            return;
+        }
+        byte[] from = bytes(prefix);
+        Node<V> leaf = findLeafNode(from);
+        int index = leaf.binarySearch(from);
+        scan(leaf, index >= 0 ? index : -index - 1, from, true, action);
+    }
+
+    /**
+     * @throws NoSuchElementException 树为空
+     */
+    public String firstKey() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return min.keyString(0);
+    }
+
+    /**
+     * @throws NoSuchElementException 树为空
+     */
+    public String lastKey() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        Node<V> current = root;
+        while (!current.isLeaf()) {
+            current = current.children[current.size];
+        }
+        return current.keyString(current.size - 1);
+    }
+
+    public int getMaxChildren() {
+        return maxChildren;
+    }
+
+    public int getMinElementPerNode() {
+        return minElementPerNode;
+    }
+
+    @Override
+    public String toString() {
+        if (root == null) {
+            return "{}";
+        }
+        StringBuilder sb = new StringBuilder("{");
+        Node<V> currentLevel = root;
+        int level = 0;
+        while (currentLevel != null) {
+            sb.append(level++).append("=[");
+            for (Node<V> current = currentLevel; current != null; current = current.next) {
+                sb.append('(').append(current).append(')');
+                if (current.next != null) {
+                    sb.append(',');
+                }
+            }
+            sb.append("]");
+            if (currentLevel.isLeaf()) {
+                currentLevel = null;
+            } else {
+                sb.append(',');
+                currentLevel = currentLevel.children[0];
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    //endregion 公开方法
+
+    //region 工具方法
+
+    private static byte[] bytes(String key) {
+        return Objects.requireNonNull(key).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return left 与 right 第一个不同字节的下标 不超过 limit
+     */
+    private static int mismatch(byte[] left, byte[] right, int limit) {
+        int length = Math.min(limit, Math.min(left.length, right.length));
+        for (int i = 0; i < length; i++) {
+            if (left[i] != right[i]) {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    private static boolean startsWith(byte[] key, byte[] prefix) {
+        return key.length >= prefix.length && mismatch(key, prefix, prefix.length) == prefix.length;
+    }
+
+    /**
+     * 从叶子结点的 index 处沿叶子链表向后遍历
+     *
+     * @param bound    为 null 时遍历到最后
+     * @param isPrefix bound 是前缀(遍历以它开头的关键字) 还是上界(不包含)
+     */
+    private void scan(Node<V> leaf, int index, byte[] bound, boolean isPrefix, BiConsumer<String, ? super V> action) {
+        int expectModCount = modCount;
+        for (; leaf != null; leaf = leaf.next, index = 0) {
+            for (; index < leaf.size; index++) {
+                byte[] key = leaf.key(index);
+                if (bound != null) {
+                    if (isPrefix ? !startsWith(key, bound) : compare(key, bound) >= 0) {
+                        return;
+                    }
+                }
+                action.accept(new String(key, StandardCharsets.UTF_8), leaf.value(index));
+                if (expectModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+    }
+
+    private static int compare(byte[] left, byte[] right) {
+        int m = mismatch(left, right, Integer.MAX_VALUE);
+        if (m < left.length && m < right.length) {
+            return (left[m] & 0xFF) - (right[m] & 0xFF);
+        }
+        return left.length - right.length;
+    }
+
+    private Node<V> findLeafNode(byte[] key) {
+        Node<V> current = root;
+        while (!current.isLeaf()) {
+            int index = current.binarySearch(key);
+            current = current.children[index >= 0 ? index + 1 : -index - 1];
+        }
+        return current;
+    }
+
+    private boolean shouldSplit(Node<V> node) {
+        return node.size >= maxChildren;
+    }
+
+    private Node<V> splitLeaf(Node<V> leaf) {
+        byte[][] keys = leaf.keys();
+        int from = maxChildren >> 1;
+        int count = leaf.size - from;
+        Node<V> right = new Node<>(maxChildren, true);
+        right.setKeys(keys, from, keys.length);
+        System.arraycopy(leaf.values, from, right.values, 0, count);
+        Arrays.fill(leaf.values, from, keys.length, null);
+        leaf.setKeys(keys, 0, from);
+        link(leaf, right);
+        return insertToUp(leaf, right, keys[from]);
+    }
+
+    private Node<V> splitInnerNode(Node<V> node) {
+        byte[][] keys = node.keys();
+        int center = maxChildren >> 1;
+        int count = node.size - center - 1;
+        Node<V> right = new Node<>(maxChildren, false);
+        right.setKeys(keys, center + 1, keys.length);
+        System.arraycopy(node.children, center + 1, right.children, 0, count + 1);
+        for (int i = 0; i <= count; i++) {
+            right.children[i].parent = right;
+        }
+        Arrays.fill(node.children, center + 1, keys.length + 1, null);
+        node.setKeys(keys, 0, center);
+        link(node, right);
+        return insertToUp(node, right, keys[center]);
+    }
+
+    private void link(Node<V> left, Node<V> right) {
+        right.next = left.next;
+        left.next = right;
+        right.prev = left;
+        if (right.next != null) {
+            right.next.prev = right;
+        }
+    }
+
+    private void unLinkNext(Node<V> left) {
+        left.next = left.next.next;
+        if (left.next != null) {
+            left.next.prev = left;
+        }
+    }
+
+    private Node<V> insertToUp(Node<V> left, Node<V> right, byte[] up) {
+        Node<V> parent = left.parent;
+        if (parent == null) {
+            parent = new Node<>(maxChildren, false);
+            parent.children[0] = left;
+            left.parent = parent;
+            root = parent;
+        }
+        int index = parent.indexOf(left);
+        parent.insertChild(index + 1, right);
+        parent.insert(index, up, null);
+        return parent;
+    }
+
+    /**
+     * 删除后结点关键字不足时调用
+     * 结点内的关键字去掉了公共前缀 不能在两个结点之间直接搬动后缀,
+     * 所以先把两个结点的关键字都还原成完整的字节数组 连同值或子孩子拼成一个序列,
+     * 再用 {@link Node#setKeys(byte[][], int, int)} 重建: 放得下就都放到左边(左边的公共前缀可能变短),
+     * 否则从中间切开 两边各自重新计算公共前缀
+     */
+    private void rebalance(Node<V> node) {
+        Node<V> parent = node.parent;
+        int index = parent.indexOf(node);
+        int separator = index > 0 ? index - 1 : 0;
+        Node<V> left = parent.children[separator];
+        Node<V> right = parent.children[separator + 1];
+        byte[][] leftKeys = left.keys();
+        byte[][] rightKeys = right.keys();
+        boolean leaf = node.isLeaf();
+        int total = leftKeys.length + rightKeys.length + (leaf ? 0 : 1);
+        byte[][] keys = Arrays.copyOf(leftKeys, total);
+        if (!leaf) {
+            keys[leftKeys.length] = parent.key(separator);
+        }
+        System.arraycopy(rightKeys, 0, keys, total - rightKeys.length, rightKeys.length);
+        Object[] items = leaf ? new Object[total] : new Object[total + 1];
+        if (leaf) {
+            System.arraycopy(left.values, 0, items, 0, left.size);
+            System.arraycopy(right.values, 0, items, left.size, right.size);
+        } else {
+            System.arraycopy(left.children, 0, items, 0, left.size + 1);
+            System.arraycopy(right.children, 0, items, left.size + 1, right.size + 1);
+        }
+        if (total < maxChildren) {
+            // 合并到左边
+            fill(left, keys, items, 0, total);
+            unLinkNext(left);
+            parent.deleteChild(separator + 1);
+            parent.delete(separator);
+            if (parent == root) {
+                if (root.size == 0) {
+                    root = left;
+                    left.parent = null;
+                }
+            } else if (parent.size < minElementPerNode) {
+                rebalance(parent);
+            }
+            return;
+        }
+        // 平分 右边第一个关键字(内结点是中间那个)作为新的分隔关键字
+        int mid = total >> 1;
+        fill(left, keys, items, 0, mid);
+        fill(right, keys, items, leaf ? mid : mid + 1, total);
+        parent.delete(separator);
+        parent.insert(separator, keys[mid], null);
+    }
+
+    /**
+     * 用 keys[from, to) 和对应的值(叶子结点)或子孩子(内结点)重建结点
+     */
+    @SuppressWarnings("unchecked")
+    private void fill(Node<V> node, byte[][] keys, Object[] items, int from, int to) {
+        node.setKeys(keys, from, to);
+        int count = to - from;
+        if (node.isLeaf()) {
+            System.arraycopy(items, from, node.values, 0, count);
+            Arrays.fill(node.values, count, node.values.length, null);
+        } else {
+            for (int i = 0; i <= count; i++) {
+                node.children[i] = (Node<V>) items[from + i];
+                node.children[i].parent = node;
+            }
+            Arrays.fill(node.children, count + 1, node.children.length, null);
+        }
+    }
+
+    //endregion 工具方法
+
+}
@@ -0,0 +1,41 @@
+package com.youthlin.example.tree;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * B+ 树结构变化和比较次数的计数器
+ * <p>
+ * 用 {@link LongAdder} 累加 多线程读写或通过 JMX 读取时不会互相争用
+ *
+ * @author youthlin.chen
+ * @date 2026-10-18 23:00
+ * @see BplusTreeStats
+ */
+final class TreeCounters {
+    final LongAdder leafSplits = new LongAdder();
+    final LongAdder innerSplits = new LongAdder();
+    final LongAdder leafBorrows = new LongAdder();
+    final LongAdder innerBorrows = new LongAdder();
+    final LongAdder leafJoins = new LongAdder();
+    final LongAdder innerJoins = new LongAdder();
+    /**
+     * 从根结点下降到叶子结点的次数 每次查找/插入/删除各一次
+     */
+    final LongAdder descents = new LongAdder();
+    /**
+     * 结点内二分查找比较关键字的次数
+     */
+    final LongAdder comparisons = new LongAdder();
+
+    void reset() {
+        leafSplits.reset();
+        innerSplits.reset();
+        leafBorrows.reset();
+        innerBorrows.reset();
+        leafJoins.reset();
+        innerJoins.reset();
+        descents.reset();
+        comparisons.reset();
+    }
+
+}
@@ -0,0 +1,209 @@
+package com.youthlin.example.tree;
+
+import com.google.common.base.Preconditions;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * 预写日志 只追加
+ * <p>
+ * 每条记录: 类型(1) 序号(8) 关键字 值 CRC32(4), 关键字和值由 {@link Codec} 定长编码, 删除没有值, 清空没有关键字.
+ * 记录先追加到内存缓冲区 攒够 syncBatchSize 条(或调用 {@link #sync()})时一次写入并 fsync, 即组提交.
+ * 回放时遇到不完整或校验失败的记录就认为是崩溃时写了一半的尾部 截断丢弃
+ *
+ * @author youthlin.chen
+ * @date 2026-10-18 17:05
+ */
+class WriteAheadLog<K, V> implements Closeable {
+    static final byte PUT = 1;
+    static final byte REMOVE = 2;
+    static final byte CLEAR = 3;
+    private static final int HEADER = 1 + Long.BYTES;
+    private static final int CHECKSUM = Integer.BYTES;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 回放时处理每条记录
+     */
+    interface Handler<K, V> {
+        /**
+         * @param key   类型为 CLEAR 时为 null
+         * @param value 类型不是 PUT 时为 null
+         */
+        void apply(byte type, K key, V value);
+    }
+
+    private final FileChannel channel;
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private final int syncBatchSize;
+    private final ByteBuffer buffer;
+    private final CRC32 crc = new CRC32();
+    private long writePosition;
+    /**
+     * 最后一条记录的序号
+     */
+    private long lsn;
+    /**
+     * 还没有 fsync 的记录数
+     */
+    private int pending;
+
+    WriteAheadLog(Path path, Codec<K> keyCodec, Codec<V> valueCodec, int syncBatchSize) throws IOException {
+        Preconditions.checkArgument(syncBatchSize > 0, "syncBatchSize should greater than 0");
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.syncBatchSize = syncBatchSize;
+        this.buffer = ByteBuffer.allocate(Math.max(BUFFER_SIZE, recordLength(PUT)));
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    /**
+     * 回放序号大于 afterLsn 的记录 并截掉损坏的尾部
+     *
+     * @return 回放的记录数
+     */
+    synchronized long replay(long afterLsn, Handler<K, V> handler) throws IOException {
+        lsn = afterLsn;
+        long position = 0;
+        long count = 0;
+        InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(0)), BUFFER_SIZE);
+        DataInputStream data = new DataInputStream(in);
+        byte[] record = new byte[recordLength(PUT)];
+        for (; ; ) {
+            int type = data.read();
+            if (type != PUT && type != REMOVE && type != CLEAR) {
+                break;
+            }
+            int length = recordLength((byte) type);
+            record[0] = (byte) type;
+            try {
+                data.readFully(record, 1, length - 1);
+            } catch (EOFException e) {
+                break;
+            }
+            ByteBuffer view = ByteBuffer.wrap(record, 0, length);
+            crc.reset();
+            crc.update(record, 0, length - CHECKSUM);
+            if ((int) crc.getValue() != view.getInt(length - CHECKSUM)) {
+                break;
+            }
+            long recordLsn = view.getLong(1);
+            if (recordLsn > afterLsn) {
+                K key = type == CLEAR ? null : keyCodec.read(view, HEADER);
+                V value = type == PUT ? valueCodec.read(view, HEADER + keyCodec.width()) : null;
+                handler.apply((byte) type, key, value);
+                lsn = recordLsn;
+                count++;
+            }
+            position += length;
+        }
+        channel.truncate(position);
+        writePosition = position;
+        return count;
+    }
+
+    /**
+     * 追加一条记录 攒够一批时写入并 fsync
+     *
+     * @return 记录的序号
+     */
+    synchronized long append(byte type, K key, V value) throws IOException {
+        int length = recordLength(type);
+        if (buffer.remaining() < length) {
+            writeBuffer();
+        }
+        int offset = buffer.position();
+        buffer.put(offset, type);
+        buffer.putLong(offset + 1, ++lsn);
+        if (type != CLEAR) {
+            keyCodec.write(buffer, offset + HEADER, key);
+        }
+        if (type == PUT) {
+            valueCodec.write(buffer, offset + HEADER + keyCodec.width(), value);
+        }
+        crc.reset();
+        crc.update(buffer.array(), offset, length - CHECKSUM);
+        buffer.putInt(offset + length - CHECKSUM, (int) crc.getValue());
+        buffer.position(offset + length);
+        if (++pending >= syncBatchSize) {
+            sync();
+        }
+        return lsn;
+    }
+
+    /**
+     * 写入缓冲区中的记录并 fsync
+     */
+    synchronized void sync() throws IOException {
+        if (pending == 0 && buffer.position() == 0) {
+            return;
+        }
+        writeBuffer();
+        channel.force(false);
+        pending = 0;
+    }
+
+    /**
+     * 检查点完成后清空日志 序号继续递增
+     */
+    synchronized void truncate() throws IOException {
+        buffer.clear();
+        pending = 0;
+        channel.truncate(0);
+        channel.force(true);
+        writePosition = 0;
+    }
+
+    synchronized long lastLsn() {
+        return lsn;
+    }
+
+    synchronized long length() {
+        return writePosition + buffer.position();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            writePosition += channel.write(buffer, writePosition);
+        }
+        buffer.clear();
+    }
+
+    private int recordLength(byte type) {
+        switch (type) {
+            case PUT:
+                return HEADER + keyCodec.width() + valueCodec.width() + CHECKSUM;
+            case REMOVE:
+                return HEADER + keyCodec.width() + CHECKSUM;
+            default:
+                return HEADER + CHECKSUM;
+        }
+    }
+
+}
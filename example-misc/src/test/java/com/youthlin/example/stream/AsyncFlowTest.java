@@ -0,0 +1,143 @@
+package com.youthlin.example.stream;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author youthlin.chen
+ * @date 2026-10-19 15:40
+ */
+public class AsyncFlowTest {
+
+    @Test
+    public void testMapAsync() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Integer> list = IntStream.range(0, 20000).boxed().collect(Collectors.toList());
+            assertEquals(list.stream().filter(x -> x % 3 == 0).map(x -> x * 2).collect(Collectors.toList()),
+                    AsyncFlow.of(Flow.of(list), executor).filter(x -> x % 3 == 0).map(x -> x * 2)
+                            .collect(Collectors.toList()).get(10, TimeUnit.SECONDS));
+
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger maxInFlight = new AtomicInteger();
+            List<String> result = AsyncFlow.of(list, executor).mapAsync(x -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    if (x % 1000 == 0) {
+                        Thread.sleep(1);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                inFlight.decrementAndGet();
+                return "v" + x;
+            }, 4, executor).collect(Collectors.toList()).get(10, TimeUnit.SECONDS);
+            assertEquals(list.stream().map(x -> "v" + x).collect(Collectors.toList()), result);
+            assertTrue(maxInFlight.get() <= 4);
+
+            CompletableFuture<List<Integer>> failed = AsyncFlow.of(list, executor)
+                    .mapAsync(x -> x == 500 ? CompletableFuture.failedFuture(new IllegalStateException("boom"))
+                            : CompletableFuture.completedFuture(x), 8)
+                    .collect(Collectors.toList());
+            try {
+                failed.get(10, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertEquals("boom", e.getCause().getMessage());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AtomicInteger pulled = new AtomicInteger();
+            List<Integer> received = new ArrayList<>();
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            AsyncFlow.of(Flow.iterate(0, x -> x + 1).peek(x -> pulled.incrementAndGet()), executor)
+                    .map(x -> x * 10).subscribe(new Subscriber<Integer>() {
+                private Subscription subscription;
+
+                @Override
+                public void onSubscribe(Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(3);
+                }
+
+                @Override
+                public void onNext(Integer item) {
+                    received.add(item);
+                    if (received.size() == 3) {
+                        subscription.cancel();
+                        done.complete(null);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    done.completeExceptionally(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    done.complete(null);
+                }
+            });
+            done.get(10, TimeUnit.SECONDS);
+            executor.submit(() -> null).get();
+            assertEquals(List.of(0, 10, 20), received);
+            assertTrue(pulled.get() <= 4);
+
+            // 只能订阅一次
+            AsyncFlow<Integer> once = AsyncFlow.of(Flow.of(1, 2, 3), executor);
+            assertEquals(6, (int) once.collect(Collectors.summingInt(x -> x)).get(10, TimeUnit.SECONDS));
+            try {
+                once.forEach(x -> {
+                }).get(10, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPublisher() throws Exception {
+        SubmissionPublisher<Integer> publisher = new SubmissionPublisher<>();
+        try {
+            CompletableFuture<List<Integer>> future = AsyncFlow.from(publisher).filter(x -> x % 2 == 1)
+                    .map(x -> x + 1).collect(Collectors.toList());
+            for (int i = 0; i < 1000; i++) {
+                publisher.submit(i);
+            }
+            publisher.close();
+            assertEquals(IntStream.range(0, 1000).filter(x -> x % 2 == 1).map(x -> x + 1).boxed()
+                    .collect(Collectors.toList()), future.get(10, TimeUnit.SECONDS));
+        } finally {
+            publisher.close();
+        }
+    }
+
+}
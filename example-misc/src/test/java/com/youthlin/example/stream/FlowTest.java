@@ -0,0 +1,397 @@
+package com.youthlin.example.stream;
+
+import org.junit.Test;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author youthlin.chen
+ * @date 2026-10-19 09:50
+ */
+public class FlowTest {
+    private static List<Integer> randomList(int size) {
+        Random random = new Random(size);
+        List<Integer> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(random.nextInt(size));
+        }
+        return list;
+    }
+
+    @Test
+    public void testParallel() {
+        List<Integer> list = randomList(100000);
+        assertTrue(Flow.of(list).parallel().isParallel());
+        assertFalse(Flow.of(list).parallel().map(x -> x).sequential().isParallel());
+
+        assertEquals(list.stream().filter(x -> x % 3 == 0).map(x -> x * 2).collect(Collectors.toList()),
+                Flow.of(list).parallel().filter(x -> x % 3 == 0).map(x -> x * 2).collect(Collectors.toList()));
+        assertEquals(list.stream().distinct().sorted().skip(10).limit(1000).collect(Collectors.toList()),
+                Flow.of(list).parallel().distinct().sorted().skip(10).limit(1000).collect(Collectors.toList()));
+        assertEquals(list.stream().sorted(Comparator.reverseOrder()).map(String::valueOf).limit(50)
+                        .collect(Collectors.toList()),
+                Arrays.asList(Flow.of(list).parallel().sorted(Comparator.reverseOrder()).map(String::valueOf)
+                        .limit(50).toArray(String[]::new)));
+        assertEquals(list.stream().mapToLong(Integer::longValue).sum(),
+                Flow.of(list).parallel().map(Integer::longValue).reduce(0L, Long::sum).longValue());
+        assertEquals(list.stream().max(Comparator.naturalOrder()),
+                Flow.of(list).parallel().max(Comparator.naturalOrder()));
+        assertEquals(list.size(), Flow.of(list).parallel().count());
+        assertEquals(list.stream().flatMap(x -> IntStream.range(0, x % 3).boxed()).collect(Collectors.toList()),
+                Flow.of(list).parallel().flatMap(x -> Flow.of(IntStream.range(0, x % 3).boxed().toArray(Integer[]::new)))
+                        .collect(ArrayList::new, ArrayList::add, ArrayList::addAll));
+
+        Integer[] array = list.toArray(new Integer[0]);
+        assertArrayEquals(list.stream().filter(x -> x > 500).toArray(),
+                Flow.of(array).parallel().filter(x -> x > 500).toArray());
+        List<Integer> ordered = new ArrayList<>();
+        Flow.of(array).parallel().skip(3).forEachOrdered(ordered::add);
+        assertEquals(list.subList(3, list.size()), ordered);
+        Set<Integer> seen = ConcurrentHashMap.newKeySet();
+        Flow.of(list).parallel().forEach(seen::add);
+        assertEquals(list.stream().distinct().count(), seen.size());
+
+        Optional<Integer> first = list.stream().filter(x -> x > 99990).findFirst();
+        assertEquals(first, Flow.of(list).parallel().filter(x -> x > 99990).findFirst());
+        assertTrue(Flow.of(list).parallel().anyMatch(x -> x.equals(first.get())));
+        assertTrue(Flow.of(list).parallel().noneMatch(x -> x < 0));
+        assertFalse(Flow.of(list).parallel().allMatch(x -> x < 50000));
+    }
+
+    @Test
+    public void testParallelInfinite() {
+        assertEquals(IntStream.range(0, 100).map(x -> x * x).boxed().collect(Collectors.toList()),
+                Flow.iterate(0, x -> x + 1).parallel().map(x -> x * x).limit(100).collect(Collectors.toList()));
+        assertEquals(Optional.of(12345), Flow.iterate(0, x -> x + 1).parallel().filter(x -> x >= 12345).findFirst());
+        AtomicInteger counter = new AtomicInteger();
+        assertEquals(10, Flow.generate(counter::incrementAndGet).parallel().limit(10).distinct().count());
+    }
+
+
+    @Test
+    public void testPrimitive() {
+        List<Integer> list = randomList(10000);
+        int[] ints = list.stream().mapToInt(Integer::intValue).toArray();
+        assertEquals(IntStream.of(ints).sum(), Flow.of(list).mapToInt(Integer::intValue).sum());
+        assertEquals(IntStream.of(ints).summaryStatistics().toString(),
+                IntFlow.of(ints).summaryStatistics().toString());
+        assertEquals(IntStream.of(ints).average(), IntFlow.of(ints).average());
+        assertArrayEquals(IntStream.of(ints).filter(x -> x % 3 == 0).map(x -> x * 2).sorted().distinct().skip(5)
+                .limit(100).toArray(), IntFlow.of(ints).filter(x -> x % 3 == 0).map(x -> x * 2).sorted().distinct()
+                .skip(5).limit(100).toArray());
+        assertArrayEquals(IntStream.of(ints).sorted().toArray(), IntFlow.of(ints).parallel().sorted().toArray());
+        assertEquals(IntStream.of(ints).max(), IntFlow.of(ints).parallel().max());
+        assertEquals(IntStream.of(ints).asLongStream().map(x -> x * x).sum(),
+                IntFlow.of(ints).asLongFlow().map(x -> x * x).sum());
+        assertEquals(IntStream.of(ints).mapToDouble(x -> x / 3.0).sum(),
+                IntFlow.of(ints).mapToDouble(x -> x / 3.0).sum(), 1e-6);
+        assertEquals(list.stream().map(String::valueOf).collect(Collectors.toList()),
+                IntFlow.of(ints).mapToObj(String::valueOf).collect(Collectors.toList()));
+        assertEquals(list, IntFlow.of(ints).boxed().collect(Collectors.toList()));
+        assertEquals(OptionalInt.of(ints[0]), IntFlow.of(ints).findFirst());
+        assertTrue(IntFlow.of(ints).allMatch(x -> x >= 0));
+        assertFalse(IntFlow.of(ints).noneMatch(x -> x == ints[5]));
+
+        assertEquals(5050, IntFlow.rangeClosed(1, 100).sum());
+        assertEquals(0, IntFlow.range(5, 5).count());
+        assertEquals(3, IntFlow.rangeClosed(Integer.MAX_VALUE - 2, Integer.MAX_VALUE).count());
+        assertEquals(LongStream.range(0, 1_000_000).sum(), LongFlow.range(0, 1_000_000).parallel().sum());
+        assertEquals(LongStream.rangeClosed(1, 20).reduce(1, (a, b) -> a * b),
+                LongFlow.rangeClosed(1, 20).reduce(1, (a, b) -> a * b));
+        assertEquals(OptionalLong.of(Long.MAX_VALUE), LongFlow.rangeClosed(Long.MAX_VALUE - 3, Long.MAX_VALUE).max());
+        assertEquals(DoubleStream.of(1.5, 2.5, 3).summaryStatistics().toString(),
+                DoubleFlow.of(1.5, 2.5, 3).summaryStatistics().toString());
+        assertEquals(3, DoubleFlow.of(1.5, 2.5, 3, 1.5).mapToInt(x -> (int) x).distinct().count());
+        assertEquals(list.stream().mapToDouble(x -> x).filter(x -> x > 5000).count(),
+                Flow.of(list).parallel().mapToDouble(x -> x).filter(x -> x > 5000).count());
+    }
+
+    @Test
+    public void testBatch() {
+        List<Integer> list = randomList(10000);
+        Integer[] array = list.toArray(new Integer[0]);
+        List<String> expected = list.stream().filter(x -> x % 3 == 0).map(x -> x * 2).filter(x -> x > 100)
+                .map(String::valueOf).collect(Collectors.toList());
+        assertEquals(expected, Flow.of(array).filter(x -> x % 3 == 0).map(x -> x * 2).filter(x -> x > 100)
+                .map(String::valueOf).collect(Collectors.toList()));
+        assertEquals(expected, Flow.of(list).filter(x -> x % 3 == 0).map(x -> x * 2).filter(x -> x > 100)
+                .map(String::valueOf).collect(Collectors.toList()));
+        // 中间有不支持整批处理的操作 逐个交给它
+        List<Integer> peeked = new ArrayList<>();
+        assertEquals(list.stream().filter(x -> x > 5000).mapToLong(x -> x).sum(),
+                Flow.of(array).filter(x -> x > 5000).peek(peeked::add).map(x -> x).mapToLong(x -> x).sum());
+        assertEquals(list.stream().filter(x -> x > 5000).collect(Collectors.toList()), peeked);
+        // 会提前结束的不整批处理 不会多调用
+        AtomicInteger mapped = new AtomicInteger();
+        assertEquals(list.subList(0, 3), Flow.of(array).map(x -> {
+            mapped.incrementAndGet();
+            return x;
+        }).limit(3).collect(Collectors.toList()));
+        assertEquals(3, mapped.get());
+        mapped.set(0);
+        assertTrue(Flow.of(list).filter(x -> mapped.incrementAndGet() > 0).anyMatch(x -> x.equals(list.get(1))));
+        assertTrue(mapped.get() <= list.indexOf(list.get(1)) + 1);
+    }
+
+    @Test
+    public void testShortCircuit() {
+        // 子流是无限流
+        AtomicInteger mapped = new AtomicInteger();
+        assertEquals(Optional.of(3), Flow.iterate(0, x -> x + 1).flatMap(x -> {
+            mapped.incrementAndGet();
+            return Flow.iterate(x, y -> y + 1);
+        }).filter(x -> x >= 3).findFirst());
+        assertEquals(1, mapped.get());
+        assertEquals(Arrays.asList(0, 0, 0, 0, 0), Flow.generate(() -> 0).flatMap(x -> Flow.generate(() -> x))
+                .limit(5).collect(Collectors.toList()));
+        // 很大的源 找到第一个就停下
+        mapped.set(0);
+        List<Integer> list = randomList(1_000_000);
+        assertEquals(Optional.of(list.get(0)), Flow.of(list).flatMap(x -> {
+            mapped.incrementAndGet();
+            return Flow.of(x, x + 1);
+        }).findFirst());
+        assertEquals(1, mapped.get());
+        assertTrue(Flow.of(list).parallel().flatMap(x -> Flow.iterate(x, y -> y + 1)).anyMatch(x -> x > 10));
+
+        // 按需拉取
+        Visitor<Integer> visitor = Flow.of(1, 2).flatMap(x -> Flow.iterate(x, y -> y + 10))
+                .flatMap(x -> Flow.of(x, -x)).visitor();
+        List<Integer> pulled = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            pulled.add(visitor.next());
+        }
+        assertEquals(Arrays.asList(1, -1, 11, -11, 21, -21), pulled);
+        Visitor<Integer> sorted = Flow.of(3, 1, 2).flatMap(x -> Flow.of(x, x * 10)).sorted().limit(4).visitor();
+        pulled.clear();
+        sorted.forEachRemaining(pulled::add);
+        assertEquals(Arrays.asList(1, 2, 3, 10), pulled);
+        assertFalse(Flow.of(1, 2, 3).filter(x -> x > 3).visitor().hasNext());
+    }
+
+    @Test
+    public void testSpill() throws IOException {
+        File dir = Files.createTempDirectory("flow-spill").toFile();
+        try {
+            List<Integer> list = randomList(20000);
+            SpillOptions<Integer> options = SpillOptions.of(ElementCodec.ints(), 100).withDirectory(dir);
+            assertEquals(list.stream().sorted().collect(Collectors.toList()),
+                    Flow.of(list).sorted(Comparator.naturalOrder(), options).collect(Collectors.toList()));
+            assertEquals(list.stream().distinct().collect(Collectors.toList()),
+                    Flow.of(list).distinct(options).collect(Collectors.toList()));
+            // 2000 个文件 分两趟归并
+            assertEquals(list.stream().sorted().collect(Collectors.toList()),
+                    Flow.of(list).sorted(Comparator.naturalOrder(), SpillOptions.of(ElementCodec.ints(), 10)
+                            .withDirectory(dir)).collect(Collectors.toList()));
+            assertEquals(list.stream().map(x -> x % 3000).distinct().sorted(Comparator.reverseOrder()).limit(10)
+                            .collect(Collectors.toList()),
+                    Flow.of(list).map(x -> x % 3000).distinct(options).sorted(Comparator.reverseOrder(), options)
+                            .limit(10).collect(Collectors.toList()));
+            assertEquals(list.stream().distinct().count(), Flow.of(list).parallel().distinct(options).count());
+            // 并行时也不超过内存限制 上游分块并行求值后串行写文件
+            AtomicInteger written = new AtomicInteger();
+            SpillOptions<Integer> counting = SpillOptions.of(new ElementCodec<Integer>() {
+                @Override
+                public void write(DataOutput out, Integer element) throws IOException {
+                    written.incrementAndGet();
+                    ElementCodec.ints().write(out, element);
+                }
+
+                @Override
+                public Integer read(DataInput in) throws IOException {
+                    return ElementCodec.ints().read(in);
+                }
+            }, 100).withDirectory(dir);
+            assertEquals(list.stream().map(x -> x * 2).sorted().collect(Collectors.toList()),
+                    Flow.of(list).parallel().map(x -> x * 2).sorted(Comparator.naturalOrder(), counting)
+                            .collect(Collectors.toList()));
+            assertTrue(written.get() > 0);
+            written.set(0);
+            assertEquals(list.stream().map(x -> x % 5000).distinct().collect(Collectors.toList()),
+                    Flow.of(list).parallel().map(x -> x % 5000).distinct(counting).collect(Collectors.toList()));
+            assertTrue(written.get() > 0);
+            assertEquals(list.stream().sorted().limit(5).collect(Collectors.toList()),
+                    Flow.of(list).parallel().sorted(Comparator.naturalOrder(), SpillOptions.of(ElementCodec.ints(), 10)
+                            .withDirectory(dir)).skip(0).limit(5).collect(Collectors.toList()));
+            // 相等的元素保持原来的顺序
+            List<String> strings = list.stream().map(String::valueOf).collect(Collectors.toList());
+            SpillOptions<String> stringOptions = SpillOptions.of(ElementCodec.strings(), 64).withDirectory(dir);
+            assertEquals(strings.stream().sorted(Comparator.comparingInt(String::length)).collect(Collectors.toList()),
+                    Flow.of(strings).sorted(Comparator.comparingInt(String::length), stringOptions)
+                            .collect(Collectors.toList()));
+            assertEquals(strings.stream().distinct().collect(Collectors.toList()),
+                    Flow.of(strings).distinct(SpillOptions.of(ElementCodec.<String>serializable(), 10)
+                            .withDirectory(dir)).collect(Collectors.toList()));
+            assertArrayEquals(new String[0], dir.list());
+        } finally {
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    assertTrue(file.delete());
+                }
+            }
+            assertTrue(dir.delete());
+        }
+    }
+
+    @Test
+    public void testTopK() {
+        List<Integer> list = randomList(20000);
+        for (int n : new int[]{0, 1, 10, 1000, 30000}) {
+            assertEquals(list.stream().sorted().limit(n).collect(Collectors.toList()),
+                    Flow.of(list).sorted().limit(n).collect(Collectors.toList()));
+            assertEquals(list.stream().sorted(Comparator.reverseOrder()).limit(n).collect(Collectors.toList()),
+                    Flow.of(list).parallel().sorted(Comparator.reverseOrder()).limit(n).collect(Collectors.toList()));
+            // null 比较器按自然顺序 和 List.sort(null) 一致
+            assertEquals(list.stream().sorted().limit(n).collect(Collectors.toList()),
+                    Flow.of(list).sorted(null).limit(n).collect(Collectors.toList()));
+            assertEquals(list.stream().sorted().limit(n).collect(Collectors.toList()),
+                    Flow.of(list).parallel().sorted(null).limit(n).collect(Collectors.toList()));
+        }
+        assertArrayEquals(new Object[]{1, 2}, Flow.of(3, 1, 2).sorted(null).limit(2).toArray());
+        // 相等的元素先来的在前
+        List<String> strings = list.stream().map(String::valueOf).collect(Collectors.toList());
+        assertEquals(strings.stream().sorted(Comparator.comparingInt(String::length)).limit(100)
+                        .collect(Collectors.toList()),
+                Flow.of(strings).sorted(Comparator.comparingInt(String::length)).limit(100)
+                        .collect(Collectors.toList()));
+        assertEquals(strings.stream().sorted(Comparator.comparingInt(String::length)).limit(100)
+                        .collect(Collectors.toList()),
+                Flow.of(strings).parallel().sorted(Comparator.comparingInt(String::length)).limit(100)
+                        .collect(Collectors.toList()));
+        assertEquals(list.stream().min(Comparator.naturalOrder()), Flow.of(list).sorted().findFirst());
+        assertEquals(list.stream().max(Comparator.naturalOrder()),
+                Flow.of(list).sorted(Comparator.reverseOrder(), SpillOptions.of(ElementCodec.ints(), 10)).findFirst());
+        assertEquals(list.stream().sorted().skip(5).limit(10).collect(Collectors.toList()),
+                Flow.of(list).map(x -> x).sorted().limit(15).skip(5).collect(Collectors.toList()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFusion() {
+        List<Integer> list = randomList(10000);
+        List<Integer> peeked = new ArrayList<>();
+        Flow<Integer> flow = Flow.of(list).map(x -> x + 1).filter(x -> x % 2 == 0).peek(peeked::add).skip(0)
+                .map(x -> x / 2).limit(Long.MAX_VALUE).map(x -> x * 3);
+        Stage<Object> stage = ((AbstractFlow<?, Integer>) flow).wrapStage(new Stage<Integer>() {
+            @Override
+            public void accept(Integer integer) {
+            }
+        }, null);
+        assertEquals("Stage.fused[map, filter, peek, map, map]", stage.toString());
+        assertEquals(list.stream().map(x -> x + 1).filter(x -> x % 2 == 0).map(x -> x / 2 * 3)
+                .collect(Collectors.toList()), flow.collect(Collectors.toList()));
+        assertEquals(list.stream().map(x -> x + 1).filter(x -> x % 2 == 0).collect(Collectors.toList()), peeked);
+
+        // limit 移到 map 前面
+        flow = Flow.of(list).filter(x -> x > 10).map(x -> x + 1).map(String::valueOf).map(String::length).limit(10);
+        stage = ((AbstractFlow<?, Integer>) flow).wrapStage(x -> {
+        }, null);
+        assertEquals("Stage.filter", stage.toString());
+        assertEquals("Stage.limit", ((Stage.AbstractChainedStage<?, ?>) stage).downstream.toString());
+        assertEquals(list.stream().filter(x -> x > 10).limit(10).map(x -> String.valueOf(x + 1).length())
+                .collect(Collectors.toList()), flow.collect(Collectors.toList()));
+        assertEquals(list.stream().sorted().map(x -> -x).limit(5).collect(Collectors.toList()),
+                Flow.of(list).sorted().map(x -> -x).limit(5).collect(Collectors.toList()));
+        assertEquals(list.subList(0, 100), Flow.of(list).parallel().skip(0).limit(Long.MAX_VALUE).limit(100)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testWindow() {
+        List<Integer> list = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+        assertEquals(Arrays.asList(Arrays.asList(0, 1, 2, 3), Arrays.asList(4, 5, 6, 7), Arrays.asList(8, 9)),
+                Flow.of(list).window(4).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(Arrays.asList(0, 1, 2), Arrays.asList(2, 3, 4), Arrays.asList(4, 5, 6),
+                Arrays.asList(6, 7, 8)), Flow.of(list).sliding(3, 2).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(Arrays.asList(0, 1), Arrays.asList(4, 5), Arrays.asList(8, 9)),
+                Flow.of(list).sliding(2, 4).collect(Collectors.toList()));
+        // 无限流 窗口满了就发出
+        assertEquals(Arrays.asList(Arrays.asList(0, 1, 2), Arrays.asList(3, 4, 5)),
+                Flow.iterate(0, x -> x + 1).window(3).limit(2).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(Arrays.asList(0, 1, 2), Arrays.asList(1, 2, 3)),
+                Flow.iterate(0, x -> x + 1).sliding(3, 1).limit(2).collect(Collectors.toList()));
+
+        List<Long> timestamps = Arrays.asList(0L, 400L, 999L, 1000L, 1500L, 1200L, 3100L);
+        assertEquals(Arrays.asList(Arrays.asList(0L, 400L, 999L), Arrays.asList(1000L, 1500L, 1200L),
+                Collections.singletonList(3100L)),
+                Flow.of(timestamps).windowBy(x -> x, Duration.ofSeconds(1)).collect(Collectors.toList()));
+
+        List<String> words = Arrays.asList("a", "b", "a", "c", "a", "b");
+        assertEquals(Arrays.asList(1, 1, 2, 1, 3, 2), Flow.of(words).groupByKey(x -> x)
+                .aggregate(() -> 0, (a, t) -> a + 1).map(Map.Entry::getValue).collect(Collectors.toList()));
+        Map<String, Long> counts = new HashMap<>();
+        Flow.iterate(0, x -> x + 1).map(x -> words.get(x % words.size())).limit(60)
+                .groupByKey(x -> x).aggregate(Collectors.counting())
+                .forEachOrdered(e -> counts.put(e.getKey(), e.getValue()));
+        assertEquals(words.stream().collect(Collectors.groupingBy(x -> x, Collectors.counting())).entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue() * 10)), counts);
+
+        // 可变的容器要在 finisher 中复制 先发出的结果不会被改掉
+        assertEquals(Arrays.asList(
+                new AbstractMap.SimpleImmutableEntry<>("a", Collections.singletonList("a")),
+                new AbstractMap.SimpleImmutableEntry<>("b", Collections.singletonList("b")),
+                new AbstractMap.SimpleImmutableEntry<>("a", Arrays.asList("a", "a"))),
+                Flow.of("a", "b", "a").groupByKey(x -> x)
+                        .aggregate(Collectors.collectingAndThen(Collectors.toList(), ArrayList::new))
+                        .collect(Collectors.toList()));
+        try {
+            Flow.of(words).groupByKey(x -> x).aggregate(Collectors.toList());
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // toList 直接返回容器
+        }
+
+        List<Integer> random = randomList(10000);
+        assertEquals(Flow.of(random).map(x -> x + 1).window(7).collect(Collectors.toList()),
+                Flow.of(random).parallel().map(x -> x + 1).window(7).collect(Collectors.toList()));
+        assertEquals(Flow.of(random).sliding(5, 3).map(List::size).collect(Collectors.toList()),
+                Flow.of(random).parallel().sliding(5, 3).map(List::size).collect(Collectors.toList()));
+        assertEquals(Flow.of(random).groupByKey(x -> x % 10).aggregate(() -> 0L, (a, t) -> a + t)
+                        .collect(Collectors.toList()),
+                Flow.of(random).parallel().groupByKey(x -> x % 10).aggregate(() -> 0L, (a, t) -> a + t)
+                        .collect(Collectors.toList()));
+        assertEquals(Flow.of(random).distinct().window(3).window(2).collect(Collectors.toList()),
+                Flow.of(random).parallel().distinct().window(3).window(2).collect(Collectors.toList()));
+        // 并行的无限流 上游分块求值 不会先求出全部元素
+        assertArrayEquals(new Object[]{Arrays.asList(0, 1), Arrays.asList(2, 3), Arrays.asList(4, 5)},
+                Flow.iterate(0, x -> x + 1).parallel().window(2).limit(3).toArray());
+        assertEquals(Optional.of(Arrays.asList(3000, 3001, 3002)), Flow.iterate(0, x -> x + 1).parallel()
+                .map(x -> x * 2).sliding(3, 1).filter(w -> w.get(0) >= 6000).map(w -> {
+                    List<Integer> half = new ArrayList<>();
+                    w.forEach(x -> half.add(x / 2));
+                    return half;
+                }).findFirst());
+    }
+
+}
@@ -0,0 +1,220 @@
+package com.youthlin.example.stream;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link IntFlow} / {@link LongFlow} / {@link DoubleFlow} 与 JDK 基本类型流的结果对比
+ *
+ * @author youthlin.chen
+ * @date 2026-10-19 17:30
+ */
+public class PrimitiveFlowTest {
+    private static final int SIZE = 10000;
+    private static final double DELTA = 1e-6;
+
+    @Test
+    public void testInt() {
+        int[] ints = new Random(1).ints(SIZE, -5000, 5000).toArray();
+        // 聚合
+        assertEquals(IntStream.of(ints).sum(), IntFlow.of(ints).sum());
+        assertEquals(IntStream.of(ints).count(), IntFlow.of(ints).count());
+        assertEquals(IntStream.of(ints).min(), IntFlow.of(ints).min());
+        assertEquals(IntStream.of(ints).max(), IntFlow.of(ints).max());
+        assertEquals(IntStream.of(ints).average(), IntFlow.of(ints).average());
+        assertEquals(IntStream.of(ints).reduce(7, (a, b) -> a * 31 + b),
+                IntFlow.of(ints).reduce(7, (a, b) -> a * 31 + b));
+        assertEquals(IntStream.of(ints).summaryStatistics().toString(),
+                IntFlow.of(ints).summaryStatistics().toString());
+        IntSummaryStatistics empty = IntFlow.empty().summaryStatistics();
+        assertEquals(0, empty.getCount());
+        assertEquals(OptionalDouble.empty(), IntFlow.empty().average());
+        assertEquals(OptionalInt.empty(), IntFlow.empty().max());
+        assertEquals(0, IntFlow.empty().sum());
+        // 装箱和类型转换
+        assertEquals(IntStream.of(ints).boxed().collect(Collectors.toList()),
+                IntFlow.of(ints).boxed().collect(Collectors.toList()));
+        assertArrayEquals(IntStream.of(ints).asLongStream().toArray(), IntFlow.of(ints).asLongFlow().toArray());
+        assertArrayEquals(IntStream.of(ints).asDoubleStream().toArray(), IntFlow.of(ints).asDoubleFlow().toArray(),
+                DELTA);
+        assertEquals(IntStream.of(ints).mapToObj(Integer::toHexString).collect(Collectors.joining(",")),
+                IntFlow.of(ints).mapToObj(Integer::toHexString).collect(Collectors.joining(",")));
+        // 中间操作
+        assertArrayEquals(IntStream.of(ints).map(x -> x / 7).distinct().sorted().skip(3).limit(50).toArray(),
+                IntFlow.of(ints).map(x -> x / 7).distinct().sorted().skip(3).limit(50).toArray());
+        // 短路
+        assertShortCircuit(counter -> IntFlow.range(0, SIZE).peek(x -> counter.incrementAndGet())
+                .anyMatch(x -> x == 10));
+        assertShortCircuit(counter -> !IntFlow.range(0, SIZE).peek(x -> counter.incrementAndGet())
+                .allMatch(x -> x < 10));
+        assertShortCircuit(counter -> !IntFlow.range(0, SIZE).peek(x -> counter.incrementAndGet())
+                .noneMatch(x -> x == 10));
+        assertShortCircuit(counter -> IntFlow.range(0, SIZE).peek(x -> counter.incrementAndGet())
+                .filter(x -> x == 10).findFirst().getAsInt() == 10);
+        assertShortCircuit(counter -> IntFlow.range(0, SIZE).peek(x -> counter.incrementAndGet())
+                .limit(11).count() == 11);
+        assertEquals(45, Flow.iterate(0, x -> x + 1).mapToInt(Integer::intValue).limit(10).sum());
+        assertEquals(OptionalInt.of(ints[0]), IntFlow.of(ints).findFirst());
+        assertEquals(OptionalInt.empty(), IntFlow.empty().findFirst());
+        // 并行
+        assertEquals(IntStream.of(ints).sum(), IntFlow.of(ints).parallel().sum());
+        assertEquals(IntStream.of(ints).summaryStatistics().toString(),
+                IntFlow.of(ints).parallel().summaryStatistics().toString());
+        assertEquals(IntStream.of(ints).average(), IntFlow.of(ints).parallel().average());
+        assertArrayEquals(IntStream.of(ints).filter(x -> x > 0).distinct().sorted().toArray(),
+                IntFlow.of(ints).parallel().filter(x -> x > 0).distinct().sorted().toArray());
+        assertArrayEquals(Arrays.copyOfRange(ints, 100, 200),
+                IntFlow.of(ints).parallel().skip(100).limit(100).toArray());
+        assertEquals(OptionalInt.of(ints[0]), IntFlow.of(ints).parallel().findFirst());
+        assertEquals(IntStream.of(ints).boxed().collect(Collectors.toList()),
+                IntFlow.of(ints).parallel().boxed().collect(Collectors.toList()));
+        List<Integer> collected = IntFlow.range(0, SIZE).parallel().collect(ArrayList::new, List::add, List::addAll);
+        assertEquals(IntStream.range(0, SIZE).boxed().collect(Collectors.toList()), collected);
+        assertTrue(IntFlow.of(ints).parallel().anyMatch(x -> x == ints[SIZE - 1]));
+        // 超过 int 范围的区间长度
+        assertEquals(2147483658L, new PrimitiveVisitors.IntRange(-10, Integer.MAX_VALUE).getSizeIfKnown());
+        assertEquals(1L << 32, new PrimitiveVisitors.IntRange(Integer.MIN_VALUE, Integer.MAX_VALUE).getSizeIfKnown());
+    }
+
+    @Test
+    public void testLong() {
+        long[] longs = new Random(2).longs(SIZE, -1L << 40, 1L << 40).toArray();
+        // 聚合
+        assertEquals(LongStream.of(longs).sum(), LongFlow.of(longs).sum());
+        assertEquals(LongStream.of(longs).count(), LongFlow.of(longs).count());
+        assertEquals(LongStream.of(longs).min(), LongFlow.of(longs).min());
+        assertEquals(LongStream.of(longs).max(), LongFlow.of(longs).max());
+        assertEquals(LongStream.of(longs).average(), LongFlow.of(longs).average());
+        assertEquals(LongStream.of(longs).reduce(Long::sum), LongFlow.of(longs).reduce(Long::sum));
+        assertEquals(LongStream.of(longs).summaryStatistics().toString(),
+                LongFlow.of(longs).summaryStatistics().toString());
+        LongSummaryStatistics empty = LongFlow.empty().summaryStatistics();
+        assertEquals(0, empty.getCount());
+        assertEquals(OptionalDouble.empty(), LongFlow.empty().average());
+        assertEquals(OptionalLong.empty(), LongFlow.empty().min());
+        assertEquals(LongStream.rangeClosed(1, 20).reduce(1, (a, b) -> a * b),
+                LongFlow.rangeClosed(1, 20).reduce(1, (a, b) -> a * b));
+        // 装箱和类型转换
+        assertEquals(LongStream.of(longs).boxed().collect(Collectors.toList()),
+                LongFlow.of(longs).boxed().collect(Collectors.toList()));
+        assertArrayEquals(LongStream.of(longs).mapToInt(x -> (int) (x >> 20)).toArray(),
+                LongFlow.of(longs).mapToInt(x -> (int) (x >> 20)).toArray());
+        assertArrayEquals(LongStream.of(longs).asDoubleStream().toArray(), LongFlow.of(longs).asDoubleFlow().toArray(),
+                DELTA);
+        // 中间操作
+        assertArrayEquals(LongStream.of(longs).map(x -> x >> 30).distinct().sorted().skip(3).limit(50).toArray(),
+                LongFlow.of(longs).map(x -> x >> 30).distinct().sorted().skip(3).limit(50).toArray());
+        // 短路
+        assertShortCircuit(counter -> LongFlow.range(0, SIZE).peek(x -> counter.incrementAndGet())
+                .anyMatch(x -> x == 10));
+        assertShortCircuit(counter -> !LongFlow.range(0, SIZE).peek(x -> counter.incrementAndGet())
+                .allMatch(x -> x < 10));
+        assertShortCircuit(counter -> LongFlow.range(0, SIZE).peek(x -> counter.incrementAndGet())
+                .filter(x -> x == 10).findFirst().getAsLong() == 10);
+        assertShortCircuit(counter -> LongFlow.range(0, SIZE).peek(x -> counter.incrementAndGet())
+                .limit(11).toArray().length == 11);
+        assertEquals(OptionalLong.of(Long.MAX_VALUE), LongFlow.rangeClosed(Long.MAX_VALUE - 3, Long.MAX_VALUE).max());
+        assertEquals(0, LongFlow.range(5, 5).count());
+        // 并行
+        assertEquals(LongStream.range(0, 1_000_000).sum(), LongFlow.range(0, 1_000_000).parallel().sum());
+        assertEquals(LongStream.of(longs).summaryStatistics().toString(),
+                LongFlow.of(longs).parallel().summaryStatistics().toString());
+        assertEquals(LongStream.of(longs).average(), LongFlow.of(longs).parallel().average());
+        assertArrayEquals(LongStream.of(longs).sorted().toArray(), LongFlow.of(longs).parallel().sorted().toArray());
+        assertArrayEquals(Arrays.copyOfRange(longs, 100, 200),
+                LongFlow.of(longs).parallel().skip(100).limit(100).toArray());
+        assertEquals(LongStream.of(longs).boxed().collect(Collectors.toList()),
+                LongFlow.of(longs).parallel().boxed().collect(Collectors.toList()));
+        assertEquals(OptionalLong.of(longs[0]), LongFlow.of(longs).parallel().findFirst());
+        assertFalse(LongFlow.of(longs).parallel().noneMatch(x -> x == longs[SIZE / 2]));
+    }
+
+    @Test
+    public void testDouble() {
+        double[] doubles = new Random(3).doubles(SIZE, -1000, 1000).toArray();
+        // 聚合
+        assertEquals(DoubleStream.of(doubles).sum(), DoubleFlow.of(doubles).sum(), DELTA);
+        assertEquals(DoubleStream.of(doubles).count(), DoubleFlow.of(doubles).count());
+        assertEquals(DoubleStream.of(doubles).min(), DoubleFlow.of(doubles).min());
+        assertEquals(DoubleStream.of(doubles).max(), DoubleFlow.of(doubles).max());
+        assertEquals(DoubleStream.of(doubles).average().getAsDouble(), DoubleFlow.of(doubles).average().getAsDouble(),
+                DELTA);
+        assertStatistics(DoubleStream.of(doubles).summaryStatistics(), DoubleFlow.of(doubles).summaryStatistics());
+        assertEquals(0, DoubleFlow.empty().summaryStatistics().getCount());
+        assertEquals(OptionalDouble.empty(), DoubleFlow.empty().average());
+        assertEquals(0, DoubleFlow.empty().sum(), 0);
+        assertEquals(DoubleStream.of(1.5, 2.5, 3).summaryStatistics().toString(),
+                DoubleFlow.of(1.5, 2.5, 3).summaryStatistics().toString());
+        // 装箱和类型转换
+        assertEquals(DoubleStream.of(doubles).boxed().collect(Collectors.toList()),
+                DoubleFlow.of(doubles).boxed().collect(Collectors.toList()));
+        assertArrayEquals(DoubleStream.of(doubles).mapToLong(Math::round).toArray(),
+                DoubleFlow.of(doubles).mapToLong(Math::round).toArray());
+        assertEquals(3, DoubleFlow.of(1.5, 2.5, 3, 1.5).mapToInt(x -> (int) x).distinct().count());
+        // 中间操作 NaN 和 -0.0 的去重和排序与 JDK 一致
+        double[] special = {Double.NaN, 0.0, -0.0, 1, Double.NaN, -0.0, Double.NEGATIVE_INFINITY};
+        assertArrayEquals(DoubleStream.of(special).distinct().toArray(),
+                DoubleFlow.of(special).distinct().toArray(), 0);
+        assertArrayEquals(DoubleStream.of(special).sorted().toArray(), DoubleFlow.of(special).sorted().toArray(), 0);
+        assertArrayEquals(DoubleStream.of(doubles).map(Math::floor).distinct().sorted().skip(3).limit(50).toArray(),
+                DoubleFlow.of(doubles).map(Math::floor).distinct().sorted().skip(3).limit(50).toArray(), 0);
+        // 短路
+        assertShortCircuit(counter -> DoubleFlow.of(IntStream.range(0, SIZE).asDoubleStream().toArray())
+                .peek(x -> counter.incrementAndGet()).anyMatch(x -> x == 10));
+        assertShortCircuit(counter -> DoubleFlow.of(IntStream.range(0, SIZE).asDoubleStream().toArray())
+                .peek(x -> counter.incrementAndGet()).limit(11).count() == 11);
+        assertEquals(OptionalDouble.of(doubles[0]), DoubleFlow.of(doubles).findFirst());
+        assertEquals(4.5, Flow.iterate(0, x -> x + 1).mapToDouble(x -> x / 10.0).limit(10).sum(), DELTA);
+        // 并行
+        assertEquals(DoubleStream.of(doubles).sum(), DoubleFlow.of(doubles).parallel().sum(), DELTA);
+        assertStatistics(DoubleStream.of(doubles).summaryStatistics(),
+                DoubleFlow.of(doubles).parallel().summaryStatistics());
+        assertArrayEquals(DoubleStream.of(doubles).sorted().toArray(),
+                DoubleFlow.of(doubles).parallel().sorted().toArray(), 0);
+        assertArrayEquals(Arrays.copyOfRange(doubles, 100, 200),
+                DoubleFlow.of(doubles).parallel().skip(100).limit(100).toArray(), 0);
+        assertEquals(DoubleStream.of(doubles).boxed().collect(Collectors.toList()),
+                DoubleFlow.of(doubles).parallel().boxed().collect(Collectors.toList()));
+        assertEquals(OptionalDouble.of(doubles[0]), DoubleFlow.of(doubles).parallel().findFirst());
+        assertTrue(DoubleFlow.of(doubles).parallel().allMatch(x -> x >= -1000 && x < 1000));
+    }
+
+    /**
+     * 从 0 开始数到 10 就能得出结果 多处理了元素说明没有短路
+     */
+    private static void assertShortCircuit(Predicate<AtomicInteger> terminal) {
+        AtomicInteger counter = new AtomicInteger();
+        assertTrue(terminal.test(counter));
+        assertEquals(11, counter.get());
+    }
+
+    private static void assertStatistics(DoubleSummaryStatistics expect, DoubleSummaryStatistics actual) {
+        assertEquals(expect.getCount(), actual.getCount());
+        assertEquals(expect.getMin(), actual.getMin(), 0);
+        assertEquals(expect.getMax(), actual.getMax(), 0);
+        assertEquals(expect.getSum(), actual.getSum(), DELTA);
+        assertEquals(expect.getAverage(), actual.getAverage(), DELTA);
+    }
+
+}
@@ -4,11 +4,36 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author youthlin.chen
@@ -34,6 +59,7 @@ public class BplusTreeTest {
         BplusTree<Integer, String> clone = (BplusTree<Integer, String>) tree.clone();
         System.out.println("clone: " + clone);
         System.out.println(tree.equals(clone));
+        assertEquals(tree, clone);
         clone.putAll(tree);
         System.out.println("clone+putAll: " + clone);
     }
@@ -49,11 +75,508 @@ public class BplusTreeTest {
             BplusTree<Integer, String> read = (BplusTree<Integer, String>) in.readObject();
             System.out.println("read: " + read);
             System.out.println(read.equals(tree));
+            assertEquals(tree, read);
         } catch (IOException | ClassNotFoundException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * 加入叶子结点阶数之前的版本 new BplusTree<>(4) 放入 0..19 -> "v"+i 后序列化的数据
+     */
+    private static final String OLD_FORMAT =
+            "rO0ABXNyACNjb20ueW91dGhsaW4uZXhhbXBsZS50cmVlLkJwbHVzVHJlZfybNAhBKrLJAwADSQALbWF4Q2hpbGRyZW5JABFtaW5F" +
+            "bGVtZW50UGVyTm9kZUwACmNvbXBhcmF0b3J0ABZMamF2YS91dGlsL0NvbXBhcmF0b3I7eHAAAAAEAAAAAnB3BAAAABRzcgARamF2" +
+            "YS5sYW5nLkludGVnZXIS4qCk94GHOAIAAUkABXZhbHVleHIAEGphdmEubGFuZy5OdW1iZXKGrJUdC5TgiwIAAHhwAAAAAHQAAnYw" +
+            "c3EAfgADAAAAAXQAAnYxc3EAfgADAAAAAnQAAnYyc3EAfgADAAAAA3QAAnYzc3EAfgADAAAABHQAAnY0c3EAfgADAAAABXQAAnY1" +
+            "c3EAfgADAAAABnQAAnY2c3EAfgADAAAAB3QAAnY3c3EAfgADAAAACHQAAnY4c3EAfgADAAAACXQAAnY5c3EAfgADAAAACnQAA3Yx" +
+            "MHNxAH4AAwAAAAt0AAN2MTFzcQB+AAMAAAAMdAADdjEyc3EAfgADAAAADXQAA3YxM3NxAH4AAwAAAA50AAN2MTRzcQB+AAMAAAAP" +
+            "dAADdjE1c3EAfgADAAAAEHQAA3YxNnNxAH4AAwAAABF0AAN2MTdzcQB+AAMAAAASdAADdjE4c3EAfgADAAAAE3QAA3YxOXg=";
+
+    @Test
+    public void testSerializeOldFormat() throws IOException, ClassNotFoundException {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(OLD_FORMAT)));
+        @SuppressWarnings("unchecked")
+        BplusTree<Integer, String> read = (BplusTree<Integer, String>) in.readObject();
+        assertEquals(4, read.getMaxChildren());
+        assertEquals(4, read.getLeafMaxChildren());
+        assertEquals(2, read.getLeafMinElementPerNode());
+        assertEquals(20, read.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals("v" + i, read.get(i));
+        }
+        for (int i = 20; i < 200; i++) {
+            read.put(i, "v" + i);
+        }
+        for (int i = 0; i < 200; i += 2) {
+            read.remove(i);
+        }
+        assertEquals(100, read.size());
+        assertEquals("v199", read.lastEntry().getValue());
+
+        // 叶子结点和内结点阶数不同时 阶数随序列化保存
+        BplusTree<Integer, String> tree = new BplusTree<>(NodeOrder.of(8, 4), null);
+        for (int i = 0; i < 100; i++) {
+            tree.put(i, "v" + i);
+        }
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bout)) {
+            out.writeObject(tree);
+        }
+        in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()));
+        @SuppressWarnings("unchecked")
+        BplusTree<Integer, String> copy = (BplusTree<Integer, String>) in.readObject();
+        assertEquals(tree, copy);
+        assertEquals(4, copy.getMaxChildren());
+        assertEquals(8, copy.getLeafMaxChildren());
+        assertEquals(4, copy.getLeafMinElementPerNode());
+        copy.put(1000, "v1000");
+        assertEquals(101, copy.size());
+    }
+
+    @Test
+    public void testRandomOperations() {
+        for (int[] param : new int[][]{{3, 1}, {4, 2}, {5, 2}, {6, 3}, {7, 1}, {32, 16}, {128, 64}}) {
+            Random random = new Random(param[0]);
+            BplusTree<Integer, Integer> bplusTree = new BplusTree<>(param[0], param[1]);
+            TreeMap<Integer, Integer> treeMap = new TreeMap<>();
+            for (int i = 0; i < 20000; i++) {
+                int key = random.nextInt(2000);
+                if (random.nextInt(3) == 0) {
+                    assertEquals(treeMap.remove(key), bplusTree.remove(key));
+                } else {
+                    assertEquals(treeMap.put(key, i), bplusTree.put(key, i));
+                }
+                assertEquals(treeMap.size(), bplusTree.size());
+            }
+            assertEquals(treeMap, bplusTree);
+            assertEquals(treeMap.entrySet().toString(), bplusTree.entrySet().toString());
+            for (int key = 0; key < 2000; key++) {
+                assertEquals(treeMap.get(key), bplusTree.get(key));
+            }
+            Iterator<Map.Entry<Integer, Integer>> iterator = bplusTree.entrySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().getKey() % 2 == 0) {
+                    iterator.remove();
+                }
+            }
+            treeMap.keySet().removeIf(key -> key % 2 == 0);
+            assertEquals(treeMap, bplusTree);
+            for (Integer key : treeMap.keySet()) {
+                bplusTree.remove(key);
+            }
+            assertEquals(0, bplusTree.size());
+            assertNull(bplusTree.get(1));
+        }
+    }
+
+    @Test
+    public void testBulkLoad() {
+        for (int order : new int[]{3, 4, 5, 32}) {
+            for (double fillFactor : new double[]{0.1, 0.5, 0.75, 1}) {
+                for (int n : new int[]{0, 1, 2, 7, 100, 1001}) {
+                    TreeMap<Integer, Integer> treeMap = new TreeMap<>();
+                    for (int i = 0; i < n; i++) {
+                        treeMap.put(i * 3, i);
+                    }
+                    BplusTree<Integer, Integer> bulk =
+                            BplusTree.bulkLoad(order, null, treeMap.entrySet().iterator(), fillFactor);
+                    assertEquals(treeMap, bulk);
+                    for (int i = -1; i <= n * 3; i++) {
+                        assertEquals(treeMap.get(i), bulk.get(i));
+                    }
+                    // 批量构建后的树仍然可以正常插入删除
+                    for (int i = 0; i < n * 3; i += 2) {
+                        assertEquals(treeMap.put(i, -i), bulk.put(i, -i));
+                    }
+                    for (int i = 0; i < n * 3; i += 5) {
+                        assertEquals(treeMap.remove(i), bulk.remove(i));
+                    }
+                    assertEquals(treeMap, bulk);
+                    assertEquals(treeMap.entrySet().toString(), bulk.entrySet().toString());
+                }
+            }
+        }
+        System.out.println("bulkLoad: " + BplusTree.bulkLoad(tree.entrySet().iterator(), 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBulkLoadUnsorted() {
+        Map<Integer, Integer> map = new LinkedHashMap<>();
+        map.put(2, 2);
+        map.put(1, 1);
+        BplusTree.bulkLoad(map.entrySet().iterator(), 1);
+    }
+
+    @Test
+    public void testGetAllPutAll() {
+        for (int order : new int[]{3, 4, 5, 32}) {
+            Random random = new Random(order);
+            BplusTree<Integer, Integer> bplusTree = new BplusTree<>(order);
+            TreeMap<Integer, Integer> treeMap = new TreeMap<>();
+            for (int round = 0; round < 50; round++) {
+                TreeMap<Integer, Integer> batch = new TreeMap<>();
+                for (int i = random.nextInt(200); i > 0; i--) {
+                    batch.put(random.nextInt(5000), round);
+                }
+                treeMap.putAll(batch);
+                bplusTree.putAll(batch);
+                assertEquals(treeMap, bplusTree);
+
+                TreeSet<Integer> keys = new TreeSet<>();
+                for (int i = random.nextInt(300); i > 0; i--) {
+                    keys.add(random.nextInt(5000));
+                }
+                Map<Integer, Integer> expect = new LinkedHashMap<>();
+                for (Integer key : keys) {
+                    if (treeMap.containsKey(key)) {
+                        expect.put(key, treeMap.get(key));
+                    }
+                }
+                assertEquals(new ArrayList<>(expect.entrySet()), new ArrayList<>(bplusTree.getAll(keys).entrySet()));
+                assertEquals(expect, bplusTree.getAll(new TreeSet<>(keys).descendingSet()));
+            }
+        }
+    }
+
+    @Test
+    public void testNodeOrder() {
+        for (NodeOrder order : new NodeOrder[]{NodeOrder.of(4, 7), NodeOrder.of(9, 3), NodeOrder.of(3, 3)}) {
+            Random random = new Random(order.getLeafMaxChildren());
+            BplusTree<Integer, Integer> bplusTree = new BplusTree<>(order, null);
+            TreeMap<Integer, Integer> treeMap = new TreeMap<>();
+            for (int i = 0; i < 20000; i++) {
+                int key = random.nextInt(2000);
+                if (random.nextInt(3) == 0) {
+                    assertEquals(treeMap.remove(key), bplusTree.remove(key));
+                } else {
+                    assertEquals(treeMap.put(key, i), bplusTree.put(key, i));
+                }
+            }
+            assertEquals(treeMap, bplusTree);
+            assertEquals(treeMap, BplusTree.bulkLoad(order.getInnerMaxChildren(), null, treeMap.entrySet().iterator(), 1));
+            assertEquals(treeMap, bplusTree.clone());
+        }
+        List<Integer> sample = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            sample.add(i);
+        }
+        BplusTree<Integer, Integer> tuned = new BplusTree<>(sample, null);
+        System.out.println(tuned.getOrder());
+        assertEquals(tuned.getOrder().getLeafMaxChildren(), tuned.getLeafMaxChildren());
+        assertEquals(tuned.getOrder().getInnerMaxChildren(), tuned.getMaxChildren());
+        for (Integer key : sample) {
+            tuned.put(key, key);
+        }
+        assertEquals(sample, new ArrayList<>(tuned.keySet()));
+    }
+
+    @Test
+    public void testStats() throws Exception {
+        BplusTree<Integer, Integer> bplusTree = new BplusTree<>(4);
+        assertEquals(0, bplusTree.stats().getHeight());
+        for (int i = 0; i < 1000; i++) {
+            bplusTree.put(i, i);
+        }
+        BplusTreeStats stats = bplusTree.stats();
+        System.out.println(stats);
+        long[] keys = stats.getKeysPerLevel();
+        assertEquals(1000, keys[stats.getHeight() - 1]);
+        assertEquals(1, stats.getNodesPerLevel()[0]);
+        assertEquals(stats.getLeafCount() - 1, stats.getLeafSplits());
+        assertTrue(stats.getInnerSplits() > 0);
+        assertTrue(stats.getComparisonsPerOperation() > 0);
+        for (int i = 0; i < 900; i++) {
+            bplusTree.remove(i);
+        }
+        stats = bplusTree.stats();
+        System.out.println(stats);
+        assertTrue(stats.getLeafJoins() > 0);
+        assertTrue(stats.getLeafBorrows() + stats.getLeafJoins() > 0);
+        assertTrue(stats.getLeafFillFactor() >= 1.0 / 3);
+
+        ObjectName name = bplusTree.registerMBean("com.youthlin.example:type=BplusTree,name=testStats");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals(100, server.getAttribute(name, "Size"));
+            assertEquals(stats.getLeafJoins(), server.getAttribute(name, "LeafJoins"));
+            server.invoke(name, "resetCounters", null, null);
+            assertEquals(0L, bplusTree.stats().getLeafSplits());
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    @Test
+    public void testRankSelectSpliterator() {
+        for (int order : new int[]{3, 4, 5, 32}) {
+            Random random = new Random(order);
+            BplusTree<Integer, Integer> bplusTree = new BplusTree<>(order);
+            TreeMap<Integer, Integer> treeMap = new TreeMap<>();
+            for (int i = 0; i < 20000; i++) {
+                int key = random.nextInt(3000);
+                if (random.nextInt(3) == 0) {
+                    assertEquals(treeMap.remove(key), bplusTree.remove(key));
+                } else {
+                    assertEquals(treeMap.put(key, i), bplusTree.put(key, i));
+                }
+                if (i % 5000 == 0) {
+                    bplusTree.snapshot();
+                }
+            }
+            List<Integer> keys = new ArrayList<>(treeMap.keySet());
+            for (int i = 0; i < keys.size(); i += 7) {
+                assertEquals(i, bplusTree.rank(keys.get(i)));
+                assertEquals(keys.get(i), bplusTree.select(i).getKey());
+            }
+            assertEquals(keys.size(), bplusTree.rank(Integer.MAX_VALUE));
+            BplusTree<Integer, Integer> bulk = BplusTree.bulkLoad(order, null, treeMap.headMap(1000).entrySet().iterator(), 1);
+            bulk.putAll(treeMap.tailMap(1000));
+            for (int i = 0; i < keys.size(); i += 11) {
+                assertEquals(keys.get(i), bulk.select(i).getKey());
+            }
+            assertEquals(treeMap.headMap(1500).size(), bplusTree.rank(1500));
+
+            assertEquals(keys, bplusTree.keySet().parallelStream().collect(Collectors.toList()));
+            assertEquals(treeMap.values().stream().mapToLong(Integer::longValue).sum(),
+                    bplusTree.entrySet().parallelStream().mapToLong(Map.Entry::getValue).sum());
+            Spliterator<Map.Entry<Integer, Integer>> spliterator = bplusTree.entrySet().spliterator();
+            assertTrue(spliterator.hasCharacteristics(Spliterator.SORTED | Spliterator.SUBSIZED));
+            Spliterator<Map.Entry<Integer, Integer>> prefix = spliterator.trySplit();
+            assertEquals(treeMap.size(), prefix.estimateSize() + spliterator.estimateSize());
+            List<Integer> collected = new ArrayList<>();
+            prefix.forEachRemaining(entry -> collected.add(entry.getKey()));
+            spliterator.forEachRemaining(entry -> collected.add(entry.getKey()));
+            assertEquals(keys, collected);
+        }
+    }
+
+    @Test
+    public void testLazyDeletion() throws Exception {
+        for (int order : new int[]{4, 5, 32}) {
+            Random random = new Random(order);
+            BplusTree<Integer, Integer> bplusTree = new BplusTree<>(order);
+            bplusTree.setLazyDeletion(true);
+            TreeMap<Integer, Integer> treeMap = new TreeMap<>();
+            for (int i = 0; i < 20000; i++) {
+                int key = random.nextInt(3000);
+                if (random.nextInt(3) == 0) {
+                    assertEquals(treeMap.remove(key), bplusTree.remove(key));
+                } else {
+                    assertEquals(treeMap.put(key, i), bplusTree.put(key, i));
+                }
+                if (i % 5000 == 0) {
+                    bplusTree.snapshot();
+                }
+                if (i % 1000 == 0) {
+                    bplusTree.compact(0.5, 8);
+                }
+            }
+            assertNavigableEquals(treeMap, bplusTree, random);
+            BplusTree<Integer, Integer> eager = BplusTree.bulkLoad(order, null, treeMap.entrySet().iterator(), 1);
+            bplusTree = BplusTree.bulkLoad(order, null, treeMap.entrySet().iterator(), 1);
+            bplusTree.setLazyDeletion(true);
+            for (int key = 0; key < 2500; key += 2) {
+                assertEquals(treeMap.remove(key), bplusTree.remove(key));
+                eager.remove(key);
+            }
+            // 只有删空的叶子结点才借用或合并
+            assertTrue(bplusTree.stats().getLeafJoins() + bplusTree.stats().getLeafBorrows()
+                    < eager.stats().getLeafJoins() + eager.stats().getLeafBorrows());
+            assertTrue(bplusTree.stats().getInnerJoins() <= eager.stats().getInnerJoins());
+            assertNavigableEquals(treeMap, bplusTree, random);
+            assertEquals(treeMap.size(), bplusTree.rank(Integer.MAX_VALUE));
+            while (bplusTree.compact(0.5, 16) > 0) {
+                assertNavigableEquals(treeMap, bplusTree, random);
+            }
+            while (bplusTree.compact(0.5, Integer.MAX_VALUE) > 0) {
+                assertNavigableEquals(treeMap, bplusTree, random);
+            }
+            assertTrue(bplusTree.stats().getLeafFillFactor() >= 1.0 / 3);
+            assertEquals(new ArrayList<>(treeMap.keySet()), bplusTree.keySet().parallelStream().collect(Collectors.toList()));
+        }
+        BplusTree<Integer, Integer> bplusTree = new BplusTree<>(4);
+        bplusTree.setLazyDeletion(true);
+        for (int i = 0; i < 1000; i++) {
+            bplusTree.put(i, i);
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            bplusTree.remove(i);
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            ScheduledFuture<?> future = bplusTree.scheduleCompaction(executor, 1, TimeUnit.MILLISECONDS, 0.5, 4);
+            for (int i = 0; i < 1000; i += 2) {
+                synchronized (bplusTree) {
+                    bplusTree.put(i, i);
+                    bplusTree.remove(i + 1);
+                }
+            }
+            future.cancel(false);
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+        }
+        synchronized (bplusTree) {
+            assertEquals(500, bplusTree.size());
+            assertEquals(0, bplusTree.firstKey().intValue());
+            assertEquals(998, bplusTree.lastKey().intValue());
+        }
+    }
+
+    @Test
+    public void testSnapshot() {
+        for (int order : new int[]{3, 4, 5, 32}) {
+            Random random = new Random(order);
+            BplusTree<Integer, Integer> bplusTree = new BplusTree<>(order);
+            TreeMap<Integer, Integer> treeMap = new TreeMap<>();
+            List<SortedMap<Integer, Integer>> snapshots = new ArrayList<>();
+            List<TreeMap<Integer, Integer>> expects = new ArrayList<>();
+            for (int i = 0; i < 20000; i++) {
+                if (i % 2000 == 0) {
+                    snapshots.add(bplusTree.snapshot());
+                    expects.add(new TreeMap<>(treeMap));
+                }
+                int key = random.nextInt(3000);
+                switch (random.nextInt(5)) {
+                    case 0:
+                        assertEquals(treeMap.remove(key), bplusTree.remove(key));
+                        break;
+                    case 1:
+                        assertEquals(treeMap.pollFirstEntry(), bplusTree.pollFirstEntry());
+                        break;
+                    default:
+                        assertEquals(treeMap.put(key, i), bplusTree.put(key, i));
+                }
+            }
+            // 写时复制后通过迭代器修改值
+            SortedMap<Integer, Integer> last = bplusTree.snapshot();
+            TreeMap<Integer, Integer> lastExpect = new TreeMap<>(treeMap);
+            for (Map.Entry<Integer, Integer> entry : bplusTree.entrySet()) {
+                entry.setValue(-entry.getKey());
+                treeMap.put(entry.getKey(), -entry.getKey());
+            }
+            snapshots.add(last);
+            expects.add(lastExpect);
+            assertEquals(treeMap, bplusTree);
+            for (int i = 0; i < snapshots.size(); i++) {
+                SortedMap<Integer, Integer> snapshot = snapshots.get(i);
+                TreeMap<Integer, Integer> expect = expects.get(i);
+                assertEquals(expect, snapshot);
+                assertEquals(new ArrayList<>(expect.entrySet()), new ArrayList<>(snapshot.entrySet()));
+                if (!expect.isEmpty()) {
+                    assertEquals(expect.firstKey(), snapshot.firstKey());
+                    assertEquals(expect.lastKey(), snapshot.lastKey());
+                }
+                if (!expect.subMap(500, 1000).isEmpty()) {
+                    assertEquals(expect.subMap(500, 1500).headMap(1000).lastKey(),
+                            snapshot.subMap(500, 1500).headMap(1000).lastKey());
+                }
+                assertEquals(expect.subMap(500, 1500), snapshot.subMap(500, 1500));
+                assertEquals(expect.headMap(700).size(), snapshot.headMap(700).size());
+                assertEquals(new ArrayList<>(expect.tailMap(2500).keySet()),
+                        new ArrayList<>(snapshot.tailMap(2500).keySet()));
+            }
+        }
+    }
+
+    @Test
+    public void testSnapshotReadWhileWriting() throws Exception {
+        BplusTree<Integer, Integer> bplusTree = new BplusTree<>(8);
+        for (int i = 0; i < 100000; i++) {
+            bplusTree.put(i, i);
+        }
+        SortedMap<Integer, Integer> snapshot = bplusTree.snapshot();
+        Thread reader = new Thread(() -> {
+            for (int round = 0; round < 20; round++) {
+                int expect = 0;
+                for (Map.Entry<Integer, Integer> entry : snapshot.entrySet()) {
+                    assertEquals(expect, entry.getKey().intValue());
+                    assertEquals(expect, entry.getValue().intValue());
+                    expect++;
+                }
+                assertEquals(100000, expect);
+            }
+        });
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        reader.setUncaughtExceptionHandler((t, e) -> error.set(e));
+        reader.start();
+        Random random = new Random(1);
+        while (reader.isAlive()) {
+            int key = random.nextInt(100000);
+            if (random.nextBoolean()) {
+                bplusTree.remove(key);
+            } else {
+                bplusTree.put(key, -key);
+            }
+        }
+        reader.join();
+        assertNull(error.get());
+    }
+
+    @Test
+    public void testNavigableMap() {
+        Random random = new Random(4);
+        BplusTree<Integer, Integer> bplusTree = new BplusTree<>(4);
+        TreeMap<Integer, Integer> treeMap = new TreeMap<>();
+        for (int i = 0; i < 500; i++) {
+            int key = random.nextInt(1000);
+            bplusTree.put(key, i);
+            treeMap.put(key, i);
+        }
+        assertNavigableEquals(treeMap, bplusTree, random);
+        assertNavigableEquals(treeMap.descendingMap(), bplusTree.descendingMap(), random);
+        for (int i = 0; i < 50; i++) {
+            int from = random.nextInt(1100) - 50;
+            int to = from + random.nextInt(400);
+            boolean fromInclusive = random.nextBoolean();
+            boolean toInclusive = random.nextBoolean();
+            NavigableMap<Integer, Integer> expect = treeMap.subMap(from, fromInclusive, to, toInclusive);
+            NavigableMap<Integer, Integer> actual = bplusTree.subMap(from, fromInclusive, to, toInclusive);
+            assertNavigableEquals(expect, actual, random);
+            assertNavigableEquals(expect.descendingMap(), actual.descendingMap(), random);
+            assertNavigableEquals(treeMap.headMap(to, toInclusive), bplusTree.headMap(to, toInclusive), random);
+            assertNavigableEquals(treeMap.tailMap(from, fromInclusive), bplusTree.tailMap(from, fromInclusive), random);
+            int mid = from + (to - from) / 2;
+            assertNavigableEquals(expect.descendingMap().headMap(mid, true),
+                    actual.descendingMap().headMap(mid, true), random);
+            assertNavigableEquals(expect.descendingMap().tailMap(mid, false),
+                    actual.descendingMap().tailMap(mid, false), random);
+            assertNavigableEquals(expect.descendingMap().subMap(to, toInclusive, mid, false),
+                    actual.descendingMap().subMap(to, toInclusive, mid, false), random);
+        }
+        // 通过视图修改
+        bplusTree.subMap(100, 200).clear();
+        treeMap.subMap(100, 200).clear();
+        assertEquals(treeMap, bplusTree);
+        bplusTree.descendingMap().headMap(900).keySet().removeIf(key -> key % 3 == 0);
+        treeMap.descendingMap().headMap(900).keySet().removeIf(key -> key % 3 == 0);
+        assertEquals(treeMap, bplusTree);
+        assertEquals(treeMap.pollFirstEntry(), bplusTree.pollFirstEntry());
+        assertEquals(treeMap.pollLastEntry(), bplusTree.pollLastEntry());
+        assertEquals(treeMap.tailMap(500, true).pollFirstEntry(), bplusTree.tailMap(500, true).pollFirstEntry());
+        assertEquals(treeMap, bplusTree);
+    }
+
+    private static void assertNavigableEquals(NavigableMap<Integer, Integer> expect,
+            NavigableMap<Integer, Integer> actual, Random random) {
+        assertEquals(expect, actual);
+        assertEquals(expect.size(), actual.size());
+        assertEquals(new ArrayList<>(expect.entrySet()), new ArrayList<>(actual.entrySet()));
+        assertEquals(new ArrayList<>(expect.descendingKeySet()), new ArrayList<>(actual.descendingKeySet()));
+        assertEquals(expect.firstEntry(), actual.firstEntry());
+        assertEquals(expect.lastEntry(), actual.lastEntry());
+        for (int i = 0; i < 100; i++) {
+            int key = random.nextInt(1100) - 50;
+            assertEquals(expect.ceilingEntry(key), actual.ceilingEntry(key));
+            assertEquals(expect.floorEntry(key), actual.floorEntry(key));
+            assertEquals(expect.higherKey(key), actual.higherKey(key));
+            assertEquals(expect.lowerKey(key), actual.lowerKey(key));
+            assertEquals(expect.containsKey(key), actual.containsKey(key));
+            assertEquals(expect.get(key), actual.get(key));
+        }
+    }
+
     @After
     public void after() {
         System.out.println("remove: " + tree.remove(0) + " size=" + tree.size() + " " + tree);
@@ -0,0 +1,128 @@
+package com.youthlin.example.tree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author youthlin.chen
+ * @date 2026-10-18 15:02
+ */
+public class ConcurrentBplusTreeTest {
+
+    @Test
+    public void testSingleThread() {
+        for (int order : new int[]{4, 5, 32}) {
+            Random random = new Random(order);
+            ConcurrentBplusTree<Integer, Integer> tree = new ConcurrentBplusTree<>(order);
+            TreeMap<Integer, Integer> treeMap = new TreeMap<>();
+            for (int i = 0; i < 20000; i++) {
+                int key = random.nextInt(2000);
+                switch (random.nextInt(4)) {
+                    case 0:
+                        assertEquals(treeMap.remove(key), tree.remove(key));
+                        break;
+                    case 1:
+                        assertEquals(treeMap.putIfAbsent(key, i), tree.putIfAbsent(key, i));
+                        break;
+                    default:
+                        assertEquals(treeMap.put(key, i), tree.put(key, i));
+                }
+            }
+            assertEquals(treeMap.size(), tree.size());
+            assertEquals(treeMap, tree);
+            assertEquals(new ArrayList<>(treeMap.entrySet()), new ArrayList<>(tree.entrySet()));
+            tree.entrySet().removeIf(entry -> entry.getKey() % 2 == 0);
+            treeMap.entrySet().removeIf(entry -> entry.getKey() % 2 == 0);
+            assertEquals(treeMap, tree);
+        }
+    }
+
+    @Test
+    public void testConcurrentReadWrite() throws Exception {
+        int threads = 8;
+        int perThread = 20000;
+        ConcurrentBplusTree<Integer, Integer> tree = new ConcurrentBplusTree<>(8);
+        ExecutorService pool = Executors.newFixedThreadPool(threads * 2);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            // 写线程: 每个线程写自己的关键字 再删除其中一半
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    tree.put(i * threads + id, id);
+                }
+                for (int i = 0; i < perThread; i += 2) {
+                    assertEquals(Integer.valueOf(id), tree.remove(i * threads + id));
+                }
+            }));
+            // 读线程: 读到的值只能是写入者的编号 迭代是有序的
+            futures.add(pool.submit(() -> {
+                Random random = new Random(id);
+                for (int i = 0; i < perThread; i++) {
+                    int key = random.nextInt(perThread * threads);
+                    Integer value = tree.get(key);
+                    assertTrue(value == null || value == key % threads);
+                }
+                Integer last = null;
+                for (Map.Entry<Integer, Integer> entry : tree.entrySet()) {
+                    assertTrue(last == null || last < entry.getKey());
+                    last = entry.getKey();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals(threads * perThread / 2, tree.size());
+        for (int i = 0; i < perThread; i++) {
+            for (int id = 0; id < threads; id++) {
+                if (i % 2 == 0) {
+                    assertNull(tree.get(i * threads + id));
+                } else {
+                    assertEquals(Integer.valueOf(id), tree.get(i * threads + id));
+                }
+            }
+        }
+        assertEquals(threads * perThread / 2, new ArrayList<>(tree.keySet()).size());
+    }
+
+    @Test
+    public void testClear() {
+        ConcurrentBplusTree<Integer, Integer> tree = new ConcurrentBplusTree<>(4);
+        for (int i = 0; i < 1000; i++) {
+            tree.put(i, i);
+        }
+        tree.clear();
+        assertEquals(0, tree.size());
+        assertTrue(tree.isEmpty());
+        assertNull(tree.get(1));
+        TreeMap<Integer, Integer> treeMap = new TreeMap<>();
+        for (int i = 0; i < 1000; i += 3) {
+            tree.put(i, -i);
+            treeMap.put(i, -i);
+        }
+        assertEquals(treeMap, tree);
+        assertEquals(new ArrayList<>(treeMap.entrySet()), new ArrayList<>(tree.entrySet()));
+        tree.entrySet().clear();
+        assertTrue(tree.isEmpty());
+        tree.put(1, 1);
+        assertEquals(Integer.valueOf(1), tree.get(1));
+        assertEquals(1, tree.size());
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.youthlin.example.tree;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author youthlin.chen
+ * @date 2026-10-18 17:50
+ */
+public class DurableBplusTreeTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecoverFromCheckpointAndLog() throws IOException {
+        Path dir = folder.newFolder().toPath();
+        DurableBplusTree.Options options = new DurableBplusTree.Options().maxChildren(8)
+                .syncBatchSize(1).checkpointRecords(3000);
+        TreeMap<Integer, Long> expect = new TreeMap<>();
+        Random random = new Random(7);
+        // 不调用 close 模拟进程崩溃 每条日志都已 fsync
+        DurableBplusTree<Integer, Long> tree = new DurableBplusTree<>(dir, Codec.INT, Codec.LONG, null, options);
+        for (int i = 0; i < 10000; i++) {
+            int key = random.nextInt(2000);
+            if (random.nextInt(4) == 0) {
+                assertEquals(expect.remove(key), tree.remove(key));
+            } else {
+                assertEquals(expect.put(key, (long) i), tree.put(key, (long) i));
+            }
+        }
+        assertTrue(Files.exists(dir.resolve("checkpoint")));
+        assertTrue(tree.getWalLength() > 0);
+
+        DurableBplusTree<Integer, Long> recovered = new DurableBplusTree<>(dir, Codec.INT, Codec.LONG, null, options);
+        assertEquals(expect, recovered.view());
+        recovered.clear();
+        recovered.put(1, 1L);
+        recovered.close();
+        tree.close();
+
+        try (DurableBplusTree<Integer, Long> reopened = new DurableBplusTree<>(dir, Codec.INT, Codec.LONG)) {
+            assertEquals(1, reopened.size());
+            assertEquals(Long.valueOf(1), reopened.get(1));
+        }
+    }
+
+    @Test
+    public void testTornTail() throws IOException {
+        Path dir = folder.newFolder().toPath();
+        DurableBplusTree.Options options = new DurableBplusTree.Options().syncBatchSize(100).checkpointRecords(0);
+        try (DurableBplusTree<Integer, Long> tree = new DurableBplusTree<>(dir, Codec.INT, Codec.LONG, null, options)) {
+            for (int i = 0; i < 1000; i++) {
+                tree.put(i, (long) i);
+            }
+        }
+        // 写了一半的记录
+        Files.write(dir.resolve("wal"), new byte[]{1, 0, 0, 0}, StandardOpenOption.APPEND);
+        try (DurableBplusTree<Integer, Long> tree = new DurableBplusTree<>(dir, Codec.INT, Codec.LONG, null, options)) {
+            assertEquals(1000, tree.size());
+            tree.checkpoint();
+            assertEquals(0, tree.getWalLength());
+            tree.put(1000, 1000L);
+        }
+        try (DurableBplusTree<Integer, Long> tree = new DurableBplusTree<>(dir, Codec.INT, Codec.LONG, null, options)) {
+            assertEquals(1001, tree.size());
+            assertEquals(Long.valueOf(500), tree.get(500));
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.youthlin.example.tree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author youthlin.chen
+ * @date 2026-10-19 17:00
+ */
+public class IntBplusTreeTest {
+
+    @Test
+    public void testRandomOperations() {
+        for (int order : new int[]{3, 4, 5, 32, 128}) {
+            Random random = new Random(order);
+            IntBplusTree<Integer> tree = new IntBplusTree<>(order);
+            TreeMap<Integer, Integer> treeMap = new TreeMap<>();
+            for (int i = 0; i < 20000; i++) {
+                int key = random.nextInt(2000) - 1000;
+                if (random.nextInt(3) == 0) {
+                    assertEquals(treeMap.remove(key), tree.remove(key));
+                } else {
+                    assertEquals(treeMap.put(key, i), tree.put(key, i));
+                }
+                assertEquals(treeMap.size(), tree.size());
+            }
+            for (int key = -1000; key < 1000; key++) {
+                assertEquals(treeMap.get(key), tree.get(key));
+                assertEquals(treeMap.containsKey(key), tree.containsKey(key));
+            }
+            assertEquals(treeMap.firstKey().intValue(), tree.firstKey());
+            assertEquals(treeMap.lastKey().intValue(), tree.lastKey());
+
+            List<String> expect = new ArrayList<>();
+            for (Map.Entry<Integer, Integer> entry : treeMap.subMap(-100, 300).entrySet()) {
+                expect.add(entry.getKey() + "=" + entry.getValue());
+            }
+            List<String> actual = new ArrayList<>();
+            tree.forEachInRange(-100, 300, (key, value) -> actual.add(key + "=" + value));
+            assertEquals(expect, actual);
+
+            actual.clear();
+            IntBplusTree.Cursor<Integer> cursor = tree.cursor(-100);
+            while (cursor.next() && cursor.key() < 300) {
+                actual.add(cursor.key() + "=" + cursor.value());
+            }
+            assertEquals(expect, actual);
+
+            expect.clear();
+            for (Map.Entry<Integer, Integer> entry : treeMap.entrySet()) {
+                expect.add(entry.getKey() + "=" + entry.getValue());
+            }
+            actual.clear();
+            tree.forEach((key, value) -> actual.add(key + "=" + value));
+            assertEquals(expect, actual);
+
+            for (Integer key : treeMap.keySet()) {
+                tree.remove(key);
+            }
+            assertEquals(0, tree.size());
+            assertTrue(tree.isEmpty());
+            assertFalse(tree.cursor().next());
+        }
+    }
+
+    @Test
+    public void testSmallTree() {
+        IntBplusTree<String> tree = new IntBplusTree<>(4);
+        for (int i = 0; i < 100; i++) {
+            tree.put(i * 2, String.valueOf(i));
+        }
+        System.out.println(tree);
+        assertEquals("21", tree.get(42));
+        assertNull(tree.get(43));
+        StringBuilder sb = new StringBuilder();
+        tree.forEachInRange(10, true, 20, true, (key, value) -> sb.append(key).append(','));
+        assertEquals("10,12,14,16,18,20,", sb.toString());
+        for (int i = 0; i < 100; i += 2) {
+            assertEquals(String.valueOf(i), tree.remove(i * 2));
+        }
+        assertEquals(50, tree.size());
+        assertEquals(2, tree.firstKey());
+        assertEquals(198, tree.lastKey());
+    }
+
+    @Test
+    public void testExtremeKeys() {
+        IntBplusTree<String> tree = new IntBplusTree<>(4);
+        int[] keys = {Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE};
+        for (int key : keys) {
+            tree.put(key, String.valueOf(key));
+        }
+        assertEquals(Integer.MIN_VALUE, tree.firstKey());
+        assertEquals(Integer.MAX_VALUE, tree.lastKey());
+        StringBuilder sb = new StringBuilder();
+        tree.forEach((key, value) -> sb.append(value).append(','));
+        assertEquals("-2147483648,-1,0,1,2147483647,", sb.toString());
+        sb.setLength(0);
+        tree.forEachInRange(Integer.MIN_VALUE, false, Integer.MAX_VALUE, false,
+                (key, value) -> sb.append(key).append(','));
+        assertEquals("-1,0,1,", sb.toString());
+        tree.clear();
+        assertEquals(0, tree.size());
+        assertNull(tree.get(0));
+    }
+
+}
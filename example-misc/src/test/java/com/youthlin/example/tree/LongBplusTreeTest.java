@@ -0,0 +1,64 @@
+package com.youthlin.example.tree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * @author youthlin.chen
+ * @date 2026-10-18 12:05
+ */
+public class LongBplusTreeTest {
+
+    @Test
+    public void testRandomOperations() {
+        for (int order : new int[]{3, 4, 5, 32, 128}) {
+            Random random = new Random(order);
+            LongBplusTree<Integer> tree = new LongBplusTree<>(order);
+            TreeMap<Long, Integer> treeMap = new TreeMap<>();
+            for (int i = 0; i < 20000; i++) {
+                long key = random.nextInt(2000) - 1000L;
+                if (random.nextInt(3) == 0) {
+                    assertEquals(treeMap.remove(key), tree.remove(key));
+                } else {
+                    assertEquals(treeMap.put(key, i), tree.put(key, i));
+                }
+                assertEquals(treeMap.size(), tree.size());
+            }
+            for (long key = -1000; key < 1000; key++) {
+                assertEquals(treeMap.get(key), tree.get(key));
+            }
+            assertEquals(treeMap.firstKey().longValue(), tree.firstKey());
+            assertEquals(treeMap.lastKey().longValue(), tree.lastKey());
+
+            List<String> expect = new ArrayList<>();
+            for (Map.Entry<Long, Integer> entry : treeMap.subMap(-100L, 300L).entrySet()) {
+                expect.add(entry.getKey() + "=" + entry.getValue());
+            }
+            List<String> actual = new ArrayList<>();
+            tree.forEachInRange(-100, 300, (key, value) -> actual.add(key + "=" + value));
+            assertEquals(expect, actual);
+
+            actual.clear();
+            LongBplusTree.Cursor<Integer> cursor = tree.cursor(-100);
+            while (cursor.next() && cursor.key() < 300) {
+                actual.add(cursor.key() + "=" + cursor.value());
+            }
+            assertEquals(expect, actual);
+
+            for (Long key : treeMap.keySet()) {
+                tree.remove(key);
+            }
+            assertEquals(0, tree.size());
+            assertFalse(tree.cursor().next());
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.youthlin.example.tree;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author youthlin.chen
+ * @date 2026-10-18 22:10
+ */
+public class OffHeapBplusTreeTest {
+
+    private static byte[] randomValue(Random random, int maxLength) {
+        byte[] value = new byte[random.nextInt(maxLength)];
+        random.nextBytes(value);
+        return value;
+    }
+
+    @Test
+    public void testRandom() {
+        for (int order : new int[]{4, 5, 32}) {
+            Random random = new Random(order);
+            // slab 很小 让大值走单独分配
+            OffHeapBplusTree<Integer> tree = new OffHeapBplusTree<>(order, null, 256);
+            TreeMap<Integer, byte[]> treeMap = new TreeMap<>();
+            for (int i = 0; i < 20000; i++) {
+                int key = random.nextInt(2000);
+                switch (random.nextInt(4)) {
+                    case 0:
+                        assertArrayEquals(treeMap.remove(key), tree.remove(key));
+                        break;
+                    case 1:
+                        assertEquals(treeMap.remove(key) != null, tree.delete(key));
+                        break;
+                    default:
+                        byte[] value = randomValue(random, 600);
+                        assertArrayEquals(treeMap.put(key, value), tree.put(key, value.clone()));
+                }
+            }
+            assertEquals(treeMap.size(), tree.size());
+            assertEqualsMap(treeMap, tree);
+            for (Map.Entry<Integer, byte[]> entry : treeMap.entrySet()) {
+                assertArrayEquals(entry.getValue(), tree.get(entry.getKey()));
+                ByteBuffer buffer = tree.getBuffer(entry.getKey());
+                assertTrue(buffer.isReadOnly());
+                assertEquals(ByteBuffer.wrap(entry.getValue()), buffer);
+            }
+            tree.keySet().removeIf(key -> key % 3 == 0);
+            treeMap.keySet().removeIf(key -> key % 3 == 0);
+            assertEqualsMap(treeMap, tree);
+            tree.close();
+            assertTrue(tree.isEmpty());
+            assertEquals(0, tree.getOffHeapUsedBytes());
+        }
+    }
+
+    @Test
+    public void testReuseFreeBlocks() {
+        OffHeapBplusTree<Integer> tree = new OffHeapBplusTree<>();
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 10000; i++) {
+                tree.set(i, new byte[100]);
+            }
+            for (int i = 0; i < 10000; i++) {
+                assertTrue(tree.delete(i));
+            }
+        }
+        assertEquals(0, tree.getOffHeapUsedBytes());
+        // 10000 个 128 字节的块 不会随轮数增长
+        assertTrue(tree.getOffHeapReservedBytes() <= 2 * 1024 * 1024);
+        assertNull(tree.get(1));
+        assertFalse(tree.containsKey(1));
+    }
+
+    private static void assertEqualsMap(TreeMap<Integer, byte[]> expect, OffHeapBplusTree<Integer> actual) {
+        assertEquals(expect.size(), actual.size());
+        Iterator<Map.Entry<Integer, byte[]>> iterator = actual.entrySet().iterator();
+        for (Map.Entry<Integer, byte[]> entry : expect.entrySet()) {
+            Map.Entry<Integer, byte[]> next = iterator.next();
+            assertEquals(entry.getKey(), next.getKey());
+            assertArrayEquals(entry.getValue(), next.getValue());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.youthlin.example.tree;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author youthlin.chen
+ * @date 2026-10-18 16:40
+ */
+public class PagedBplusTreeTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRandomOperationsAndReopen() throws IOException {
+        Path path = folder.newFile().toPath();
+        TreeMap<Long, Long> treeMap = new TreeMap<>();
+        Random random = new Random(42);
+        // 每页只放 4 个关键字 缓存只有 8 页 迫使频繁淘汰和写回
+        try (PagedBplusTree<Long, Long> tree = new PagedBplusTree<>(path, Codec.LONG, Codec.LONG, null, 80, 8)) {
+            assertEquals(4, tree.getLeafCapacity());
+            for (int i = 0; i < 20000; i++) {
+                long key = random.nextInt(3000);
+                if (random.nextInt(3) == 0) {
+                    assertEquals(treeMap.remove(key), tree.remove(key));
+                } else {
+                    assertEquals(treeMap.put(key, (long) i), tree.put(key, (long) i));
+                }
+            }
+            assertEquals(treeMap.size(), tree.size());
+            assertEquals(new ArrayList<>(treeMap.entrySet()), entries(tree));
+            System.out.println(tree);
+        }
+        try (PagedBplusTree<Long, Long> tree = new PagedBplusTree<>(path, Codec.LONG, Codec.LONG, null, 80, 8)) {
+            assertEquals(treeMap.size(), tree.size());
+            for (long key = 0; key < 3000; key++) {
+                assertEquals(treeMap.get(key), tree.get(key));
+            }
+            List<Long> expect = new ArrayList<>(treeMap.subMap(100L, 500L).keySet());
+            List<Long> actual = new ArrayList<>();
+            tree.forEachInRange(100L, 500L, (key, value) -> actual.add(key));
+            assertEquals(expect, actual);
+        }
+    }
+
+    @Test
+    public void testStringKeys() throws IOException {
+        Path path = folder.newFile().toPath();
+        try (PagedBplusTree<String, Integer> tree = new PagedBplusTree<>(path, Codec.string(32), Codec.INT)) {
+            for (int i = 0; i < 10000; i++) {
+                tree.put("/path/to/" + i, i);
+            }
+            assertEquals(10000, tree.size());
+            assertEquals(Integer.valueOf(42), tree.get("/path/to/42"));
+            assertTrue(tree.getHeight() > 1);
+        }
+        try (PagedBplusTree<String, Integer> tree = new PagedBplusTree<>(path, Codec.string(32), Codec.INT)) {
+            assertEquals(Integer.valueOf(9999), tree.get("/path/to/9999"));
+        }
+    }
+
+    @Test
+    public void testCodecRejectsValue() throws IOException {
+        Path path = folder.newFile().toPath();
+        // 每页 4 个关键字 插入时有的叶子需要分裂
+        try (PagedBplusTree<Long, byte[]> tree = new PagedBplusTree<>(path, Codec.LONG, Codec.bytes(4), null, 72, 8)) {
+            assertEquals(4, tree.getLeafCapacity());
+            for (long key = 10; key <= 70; key += 10) {
+                tree.put(key, new byte[]{(byte) key});
+            }
+            for (long key : new long[]{35, 40, 80}) {
+                try {
+                    tree.put(key, new byte[8]);
+                    fail();
+                } catch (IllegalArgumentException expected) {
+                    // 值太长 树不变
+                }
+            }
+            assertEquals(7, tree.size());
+            for (long key = 10; key <= 70; key += 10) {
+                assertArrayEquals(new byte[]{(byte) key}, tree.get(key));
+            }
+            assertNull(tree.get(35L));
+            List<Long> keys = new ArrayList<>();
+            tree.forEach((key, value) -> keys.add(key));
+            assertEquals(Arrays.asList(10L, 20L, 30L, 40L, 50L, 60L, 70L), keys);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testCodecMismatch() throws IOException {
+        Path path = folder.newFile().toPath();
+        new PagedBplusTree<>(path, Codec.LONG, Codec.LONG).close();
+        new PagedBplusTree<>(path, Codec.INT, Codec.LONG).close();
+    }
+
+    private static <K, V> List<Map.Entry<K, V>> entries(PagedBplusTree<K, V> tree) {
+        List<Map.Entry<K, V>> list = new ArrayList<>();
+        tree.forEach((key, value) -> list.add(new AbstractMap.SimpleEntry<>(key, value)));
+        return list;
+    }
+
+}
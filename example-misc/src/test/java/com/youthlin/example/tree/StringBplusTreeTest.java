@@ -0,0 +1,86 @@
+package com.youthlin.example.tree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author youthlin.chen
+ * @date 2026-10-18 19:40
+ */
+public class StringBplusTreeTest {
+    private static final String[] DIRS = {"src", "main", "java", "test", "com", "youthlin", "example", "tree", "测试"};
+
+    private static String randomPath(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int depth = 1 + random.nextInt(5);
+        for (int i = 0; i < depth; i++) {
+            sb.append('/').append(DIRS[random.nextInt(DIRS.length)]);
+        }
+        return sb.append('/').append(random.nextInt(100)).toString();
+    }
+
+    @Test
+    public void testRandom() {
+        for (int order : new int[]{4, 5, 32}) {
+            Random random = new Random(order);
+            StringBplusTree<Integer> tree = new StringBplusTree<>(order);
+            TreeMap<String, Integer> treeMap = new TreeMap<>();
+            for (int i = 0; i < 30000; i++) {
+                String key = randomPath(random);
+                if (random.nextInt(3) == 0) {
+                    assertEquals(treeMap.remove(key), tree.remove(key));
+                } else {
+                    assertEquals(treeMap.put(key, i), tree.put(key, i));
+                }
+                assertEquals(treeMap.get(key), tree.get(key));
+            }
+            assertEquals(treeMap.size(), tree.size());
+            assertEquals(treeMap, toMap(tree));
+            assertEquals(treeMap.firstKey(), tree.firstKey());
+            assertEquals(treeMap.lastKey(), tree.lastKey());
+            for (String key : new ArrayList<>(treeMap.keySet())) {
+                assertEquals(treeMap.remove(key), tree.remove(key));
+            }
+            assertEquals(0, tree.size());
+            assertEquals("{0=[(\"\"[])]}", tree.toString());
+        }
+    }
+
+    @Test
+    public void testPrefixAndRange() {
+        StringBplusTree<Integer> tree = new StringBplusTree<>(4);
+        TreeMap<String, Integer> treeMap = new TreeMap<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 2000; i++) {
+            String key = randomPath(random);
+            tree.put(key, i);
+            treeMap.put(key, i);
+        }
+        Map<String, Integer> actual = new LinkedHashMap<>();
+        tree.forEachWithPrefix("/src/main", actual::put);
+        assertEquals(treeMap.subMap("/src/main", "/src/maio"), actual);
+
+        actual.clear();
+        tree.forEachInRange("/java", "/test/com", actual::put);
+        assertEquals(treeMap.subMap("/java", "/test/com"), actual);
+
+        List<String> keys = new ArrayList<>();
+        tree.forEachWithPrefix("/测试/", (k, v) -> keys.add(k));
+        assertEquals(new ArrayList<>(treeMap.subMap("/测试/", "/测试0").keySet()), keys);
+    }
+
+    private static <V> Map<String, V> toMap(StringBplusTree<V> tree) {
+        Map<String, V> map = new LinkedHashMap<>();
+        tree.forEach(map::put);
+        return map;
+    }
+
+}